@@ -0,0 +1,163 @@
+package edu.ucdenver.ccp.craft.coreference;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileReaderUtil;
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+import lombok.Data;
+
+/**
+ * A single curated modification to an identity chain. Curated edits are stored in a tab-delimited
+ * file with the following columns:
+ * 
+ * <pre>
+ * document_id  operation  chain_spans  member_spans  reason
+ * </pre>
+ * 
+ * where operation is ADD or REMOVE and spans are formatted as <code>start..end</code> with
+ * discontinuous spans separated by semi-colons, e.g. <code>1231..1235;1277..1294</code>. The chain
+ * is referenced by its spans (the spans of its first member) at the time the edit is applied. Blank
+ * lines and lines starting with '#' are ignored.
+ */
+@Data
+public class CuratedChainEdit {
+
+	public enum Operation {
+		/**
+		 * add the noun phrase with the member spans to the chain, creating the noun phrase if
+		 * necessary
+		 */
+		ADD,
+		/**
+		 * remove the chain member(s) with the member spans from the chain
+		 */
+		REMOVE
+	}
+
+	public static final String CRAFT_V3_1_EDITS_RESOURCE = "craft-v3.1-identity-chain-edits.tsv";
+
+	private final String sourceId;
+	private final Operation operation;
+	private final List<Span> chainSpans;
+	private final List<Span> memberSpans;
+	private final String reason;
+
+	/**
+	 * @param editStream
+	 * @param encoding
+	 * @return mapping from document id to the curated edits for that document, in the order they
+	 *         appear in the stream
+	 * @throws IOException
+	 */
+	public static Map<String, List<CuratedChainEdit>> load(InputStream editStream, CharacterEncoding encoding)
+			throws IOException {
+		Map<String, List<CuratedChainEdit>> sourceIdToEditsMap = new LinkedHashMap<String, List<CuratedChainEdit>>();
+		BufferedReader reader = FileReaderUtil.initBufferedReader(editStream, encoding);
+		try {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (line.trim().isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				CuratedChainEdit edit = parse(line, lineNumber);
+				List<CuratedChainEdit> edits = sourceIdToEditsMap.get(edit.getSourceId());
+				if (edits == null) {
+					edits = new ArrayList<CuratedChainEdit>();
+					sourceIdToEditsMap.put(edit.getSourceId(), edits);
+				}
+				edits.add(edit);
+			}
+		} finally {
+			reader.close();
+		}
+		return sourceIdToEditsMap;
+	}
+
+	static CuratedChainEdit parse(String line, int lineNumber) {
+		String[] cols = line.split("\\t", -1);
+		if (cols.length != 5) {
+			throw new IllegalArgumentException(
+					"Expected 5 tab-delimited columns on line " + lineNumber + " of curated edits: " + line);
+		}
+		try {
+			return new CuratedChainEdit(cols[0], Operation.valueOf(cols[1]), parseSpans(cols[2]),
+					parseSpans(cols[3]), cols[4]);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Invalid curated edit on line " + lineNumber + ": " + line, e);
+		}
+	}
+
+	static List<Span> parseSpans(String spanStr) {
+		List<Span> spans = new ArrayList<Span>();
+		for (String span : spanStr.split(";")) {
+			int index = span.indexOf("..");
+			if (index < 0) {
+				throw new IllegalArgumentException("Invalid span: " + span);
+			}
+			spans.add(new Span(Integer.parseInt(span.substring(0, index).trim()),
+					Integer.parseInt(span.substring(index + 2).trim())));
+		}
+		return spans;
+	}
+
+	static String toString(List<Span> spans) {
+		StringBuffer sb = new StringBuffer();
+		for (Span span : spans) {
+			sb.append(((sb.length() > 0) ? ";" : "") + span.getSpanStart() + ".." + span.getSpanEnd());
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return this edit in the tab-delimited format read by {@link #load(InputStream, CharacterEncoding)}
+	 */
+	public String toTsvString() {
+		return sourceId + "\t" + operation.name() + "\t" + toString(chainSpans) + "\t" + toString(memberSpans)
+				+ "\t" + reason;
+	}
+
+}
@@ -0,0 +1,185 @@
+package edu.ucdenver.ccp.craft.coreference;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.ucdenver.ccp.file.conversion.conllcoref2012.CoNLLCoref2012DocumentWriter;
+import edu.ucdenver.ccp.file.conversion.conllcoref2012.CoNLLCoref2012DocumentWriter.IncludeCorefType;
+import edu.ucdenver.ccp.file.conversion.conllcoref2012.CoreferenceChainGraph;
+import edu.ucdenver.ccp.file.conversion.conllcoref2012.CoreferenceChainGraph.Chain;
+import edu.ucdenver.ccp.file.conversion.diagnostics.DiagnosticEvent;
+import edu.ucdenver.ccp.file.conversion.diagnostics.DiagnosticType;
+import edu.ucdenver.ccp.file.conversion.diagnostics.Diagnostics;
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
+
+/**
+ * Applies {@link CuratedChainEdit}s to the identity chains of a single document. Chains are
+ * located using the head span index of the {@link CoreferenceChainGraph} and noun phrases using a
+ * span-keyed index built once when the editor is created, so each edit is a constant-time lookup
+ * instead of a scan over all chains and noun phrases.
+ */
+public class IdentityChainEditor {
+
+	private final CoreferenceChainGraph graph;
+	private final String documentText;
+	private final TextAnnotationFactory factory;
+	private final Set<TextAnnotation> npAnnotations;
+	private final Map<List<Span>, TextAnnotation> spanToNpAnnotMap = new HashMap<List<Span>, TextAnnotation>();
+
+	/**
+	 * @param graph
+	 *            the identity chains for the document; chains are updated in place
+	 * @param documentText
+	 * @param npAnnotations
+	 *            the noun phrase annotations for the document; any noun phrases created while
+	 *            adding chain members are added to this set
+	 * @param factory
+	 */
+	public IdentityChainEditor(CoreferenceChainGraph graph, String documentText, Set<TextAnnotation> npAnnotations,
+			TextAnnotationFactory factory) {
+		this.graph = graph;
+		this.documentText = documentText;
+		this.factory = factory;
+		this.npAnnotations = npAnnotations;
+		for (TextAnnotation npAnnot : npAnnotations) {
+			/* keep the first noun phrase observed for a given span */
+			if (!spanToNpAnnotMap.containsKey(npAnnot.getSpans())) {
+				spanToNpAnnotMap.put(new ArrayList<Span>(npAnnot.getSpans()), npAnnot);
+			}
+		}
+	}
+
+	/**
+	 * Applies the edits in order
+	 * 
+	 * @param edits
+	 */
+	public void apply(List<CuratedChainEdit> edits) {
+		for (CuratedChainEdit edit : edits) {
+			apply(edit);
+		}
+	}
+
+	public void apply(CuratedChainEdit edit) {
+		if (!edit.getSourceId().equals(graph.getSourceId())) {
+			throw new IllegalArgumentException("Curated edit for document " + edit.getSourceId()
+					+ " cannot be applied to document " + graph.getSourceId());
+		}
+		switch (edit.getOperation()) {
+		case ADD:
+			addAnnotationToChain(edit.getChainSpans(), edit.getMemberSpans(), edit.getReason());
+			break;
+		case REMOVE:
+			removeAnnotationFromChain(edit.getChainSpans(), edit.getMemberSpans(), edit.getReason());
+			break;
+		default:
+			throw new IllegalArgumentException("Unhandled curated edit operation: " + edit.getOperation().name());
+		}
+	}
+
+	private Chain getChain(List<Span> identChainSpans) {
+		List<Chain> chains = graph.getChainsWithHead(identChainSpans);
+		if (chains.isEmpty()) {
+			throw new IllegalStateException(
+					"Unable to find chain (" + identChainSpans + ") in document: " + graph.getSourceId());
+		}
+		return chains.get(0);
+	}
+
+	private void addAnnotationToChain(List<Span> identChainSpans, List<Span> annotToAddSpans, String reason) {
+		Chain chain = getChain(identChainSpans);
+		TextAnnotation taToAdd = spanToNpAnnotMap.get(annotToAddSpans);
+		if (taToAdd == null) {
+			taToAdd = CoNLLCoref2012DocumentWriter.createNpAnnotation(factory, documentText, annotToAddSpans,
+					IncludeCorefType.IDENT, npAnnotations);
+			spanToNpAnnotMap.put(new ArrayList<Span>(annotToAddSpans), taToAdd);
+		}
+
+		/*
+		 * check to see if the taToAdd is already member of a different chain. throw an error if it
+		 * is
+		 */
+		Set<Chain> otherChains = graph.getChains(taToAdd);
+		if (!otherChains.isEmpty()) {
+			throw new IllegalStateException("Cannot add annotation that is already a member of a different ("
+					+ otherChains.size() + ") chain.\n" + "Annotation:\n"
+					+ CoNLLCoref2012DocumentWriter.toLogString(taToAdd) + "\nSample other chain:\n"
+					+ CoNLLCoref2012DocumentWriter.toLogString(otherChains.iterator().next().getMembers()));
+		}
+
+		graph.addMember(chain, taToAdd);
+
+		if (Diagnostics.isEnabled(DiagnosticType.CURATED_CHAIN_ADDITION)) {
+			Diagnostics.report(DiagnosticEvent.forGroups(DiagnosticType.CURATED_CHAIN_ADDITION, graph.getSourceId(),
+					reason, Collections.singletonList(taToAdd),
+					Collections.singletonList(new HashSet<TextAnnotation>(chain.getMembers()))));
+		}
+	}
+
+	private void removeAnnotationFromChain(List<Span> identChainSpans, List<Span> annotToRemoveSpans,
+			String reason) {
+		Chain chain = getChain(identChainSpans);
+		List<TextAnnotation> annotsToRemove = new ArrayList<TextAnnotation>();
+		for (TextAnnotation member : chain.getMembers()) {
+			if (member.getSpans().equals(annotToRemoveSpans)) {
+				annotsToRemove.add(member);
+			}
+		}
+		if (annotsToRemove.isEmpty()) {
+			throw new IllegalArgumentException("Unable to find chain annotation to remove (" + annotToRemoveSpans
+					+ ") from chain (" + identChainSpans + ") for document: " + graph.getSourceId());
+		}
+
+		for (TextAnnotation taToRemove : annotsToRemove) {
+			graph.removeMember(chain, taToRemove);
+		}
+
+		if (Diagnostics.isEnabled(DiagnosticType.CURATED_CHAIN_REMOVAL)) {
+			Diagnostics.report(DiagnosticEvent.forGroups(DiagnosticType.CURATED_CHAIN_REMOVAL, graph.getSourceId(),
+					reason, annotsToRemove, Collections.singletonList(new HashSet<TextAnnotation>(chain.getMembers()))));
+		}
+	}
+
+}
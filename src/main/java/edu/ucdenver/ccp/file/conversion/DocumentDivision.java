@@ -0,0 +1,74 @@
+package edu.ucdenver.ccp.file.conversion;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+import lombok.Data;
+
+/**
+ * A contiguous division of a document, e.g. a section of a full-text article.
+ * The division offsets are document-global character offsets; offsets of text
+ * within the division can be translated between document-global and
+ * division-local coordinates.
+ */
+@Data
+public class DocumentDivision {
+	private final String divisionId;
+	/* inclusive */
+	private final int spanStart;
+	/* exclusive */
+	private final int spanEnd;
+
+	public int getLength() {
+		return spanEnd - spanStart;
+	}
+
+	public int toLocalOffset(int globalOffset) {
+		return globalOffset - spanStart;
+	}
+
+	public int toGlobalOffset(int localOffset) {
+		return localOffset + spanStart;
+	}
+
+	/**
+	 * @param span
+	 *            in document-global coordinates
+	 * @return true if the span lies entirely within this division
+	 */
+	public boolean contains(Span span) {
+		return span.getSpanStart() >= spanStart && span.getSpanEnd() <= spanEnd;
+	}
+}
@@ -65,7 +65,7 @@ public abstract class DocumentReader {
 	 * @param relationType
 	 */
 	public static void createAnnotationRelation(TextAnnotation sourceTa, TextAnnotation targetTa, String relationType) {
-		if (relationType == null || relationType.equals("NULL SLOT")) {
+		if (isNullRelationType(relationType)) {
 			return;
 		}
 		ComplexSlotMention csm = new DefaultComplexSlotMention(relationType);
@@ -73,4 +73,13 @@ public abstract class DocumentReader {
 		sourceTa.getClassMention().addComplexSlotMention(csm);
 	}
 
+	/**
+	 * @param relationType
+	 * @return true if the relation type denotes the absence of a relation, in which
+	 *         case no slot mention is created for it
+	 */
+	static boolean isNullRelationType(String relationType) {
+		return relationType == null || relationType.equals("NULL SLOT");
+	}
+
 }
@@ -52,8 +52,9 @@ import edu.ucdenver.ccp.file.conversion.knowtator2.Knowtator2DocumentWriter;
 import edu.ucdenver.ccp.file.conversion.pubannotation.PubAnnotationDocumentReader;
 import edu.ucdenver.ccp.file.conversion.pubannotation.PubAnnotationDocumentWriter;
 import edu.ucdenver.ccp.file.conversion.sentence.SentenceDocumentWriter;
+import edu.ucdenver.ccp.file.conversion.treebank.DirectTreebankDocumentReader;
 import edu.ucdenver.ccp.file.conversion.treebank.SentenceTokenOnlyTreebankDocumentReader;
-import edu.ucdenver.ccp.file.conversion.treebank.TreebankDocumentReader;
+import edu.ucdenver.ccp.file.conversion.treebank.TreebankDependencyDocumentReader;
 import edu.ucdenver.ccp.file.conversion.uima.UimaDocumentWriter;
 
 public class FileFormatConverterFactory {
@@ -73,7 +74,9 @@ public class FileFormatConverterFactory {
 		case PUBANNOTATION:
 			return new PubAnnotationDocumentReader();
 		case TREEBANK:
-			return new TreebankDocumentReader();
+			return new DirectTreebankDocumentReader();
+		case TREEBANK_DEPENDENCY:
+			return new TreebankDependencyDocumentReader();
 		case TREEBANK_SENTENCE_TOKEN:
 			return new SentenceTokenOnlyTreebankDocumentReader();
 		default:
@@ -36,6 +36,6 @@ package edu.ucdenver.ccp.file.conversion;
 
 public enum InputFileFormat {
 
-	BIONLP, BRAT, CONLL_COREF_2012, CONLL_U, KNOWTATOR, KNOWTATOR2, PUBANNOTATION, TREEBANK, TREEBANK_SENTENCE_TOKEN
+	BIONLP, BRAT, CONLL_COREF_2012, CONLL_U, KNOWTATOR, KNOWTATOR2, PUBANNOTATION, TREEBANK, TREEBANK_DEPENDENCY, TREEBANK_SENTENCE_TOKEN
 
 }
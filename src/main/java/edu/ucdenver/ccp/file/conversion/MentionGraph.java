@@ -0,0 +1,655 @@
+package edu.ucdenver.ccp.file.conversion;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.mention.ClassMention;
+import edu.ucdenver.ccp.nlp.core.mention.ComplexSlotMention;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultComplexSlotMention;
+
+/**
+ * A directed graph of relations between annotations, e.g. a Knowtator-2 graph
+ * space. Vertices and edges are addressed by int index, in the order in which
+ * they were added to the {@link Builder}. Edge properties (relation types) are
+ * interned and also addressed by int id. The adjacency is stored in compressed
+ * sparse row (CSR) form: the outgoing edges of vertex v are
+ * {@code outEdges[outOffsets[v]]} through {@code outEdges[outOffsets[v + 1] - 1]},
+ * so neighbor queries do not require any hashing. Edge quantifiers and values
+ * are retained.
+ * <p>
+ * The vertices and edges of a graph cannot be changed once it has been built.
+ * The vertex annotations are shared with the caller, however, and are modified
+ * by {@link #addComplexSlotMentions()}.
+ */
+public class MentionGraph {
+
+	private final String graphSpaceId;
+
+	private final String[] vertexIds;
+	private final TextAnnotation[] vertexAnnotations;
+	private final Map<String, Integer> vertexIdToIndexMap;
+
+	private final String[] properties;
+	private final Map<String, Integer> propertyToIdMap;
+
+	/* edges are stored in the order in which they were added */
+	private final int[] edgeSources;
+	private final int[] edgeTargets;
+	private final int[] edgePropertyIds;
+	private final String[] edgeIds;
+	private final String[] edgeAnnotators;
+	private final String[] edgeQuantifiers;
+	private final String[] edgeValues;
+
+	/* the outgoing edges of vertex v are outEdges[outOffsets[v]] through outEdges[outOffsets[v + 1] - 1] */
+	private final int[] outOffsets;
+	private final int[] outEdges;
+	/* the incoming edges of vertex v are inEdges[inOffsets[v]] through inEdges[inOffsets[v + 1] - 1] */
+	private final int[] inOffsets;
+	private final int[] inEdges;
+
+	private MentionGraph(Builder builder) {
+		this.graphSpaceId = builder.graphSpaceId;
+		int vertexCount = builder.vertexIds.size();
+		int edgeCount = builder.edgeCount;
+
+		this.vertexIds = builder.vertexIds.toArray(new String[vertexCount]);
+		this.vertexAnnotations = builder.vertexAnnotations.toArray(new TextAnnotation[vertexCount]);
+		this.vertexIdToIndexMap = new HashMap<String, Integer>(builder.vertexIdToIndexMap);
+		this.properties = builder.properties.toArray(new String[builder.properties.size()]);
+		this.propertyToIdMap = new HashMap<String, Integer>(builder.propertyToIdMap);
+
+		this.edgeSources = Arrays.copyOf(builder.sources, edgeCount);
+		this.edgeTargets = Arrays.copyOf(builder.targets, edgeCount);
+		this.edgePropertyIds = Arrays.copyOf(builder.propertyIds, edgeCount);
+		this.edgeIds = builder.edgeIds.toArray(new String[edgeCount]);
+		this.edgeAnnotators = builder.edgeAnnotators.toArray(new String[edgeCount]);
+		this.edgeQuantifiers = builder.edgeQuantifiers.toArray(new String[edgeCount]);
+		this.edgeValues = builder.edgeValues.toArray(new String[edgeCount]);
+
+		this.outOffsets = computeOffsets(edgeSources, edgeCount, vertexCount);
+		this.outEdges = indexEdges(edgeSources, outOffsets, edgeCount, vertexCount);
+		this.inOffsets = computeOffsets(edgeTargets, edgeCount, vertexCount);
+		this.inEdges = indexEdges(edgeTargets, inOffsets, edgeCount, vertexCount);
+	}
+
+	private static int[] computeOffsets(int[] vertices, int edgeCount, int vertexCount) {
+		int[] offsets = new int[vertexCount + 1];
+		for (int i = 0; i < edgeCount; i++) {
+			offsets[vertices[i] + 1]++;
+		}
+		for (int v = 0; v < vertexCount; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		return offsets;
+	}
+
+	/**
+	 * Counting sort of the edge indexes by vertex. The sort is stable, so the edges
+	 * of each vertex remain in the order in which they were added.
+	 */
+	private static int[] indexEdges(int[] vertices, int[] offsets, int edgeCount, int vertexCount) {
+		int[] edges = new int[edgeCount];
+		int[] next = Arrays.copyOf(offsets, vertexCount);
+		for (int e = 0; e < edgeCount; e++) {
+			edges[next[vertices[e]]++] = e;
+		}
+		return edges;
+	}
+
+	public String getGraphSpaceId() {
+		return graphSpaceId;
+	}
+
+	public int getVertexCount() {
+		return vertexIds.length;
+	}
+
+	public int getEdgeCount() {
+		return edgeTargets.length;
+	}
+
+	/**
+	 * @param vertexId
+	 * @return the index of the vertex with the specified id, or -1 if there is no
+	 *         such vertex
+	 */
+	public int getVertexIndex(String vertexId) {
+		Integer index = vertexIdToIndexMap.get(vertexId);
+		return (index == null) ? -1 : index;
+	}
+
+	public String getVertexId(int vertex) {
+		return vertexIds[vertex];
+	}
+
+	public TextAnnotation getAnnotation(int vertex) {
+		return vertexAnnotations[vertex];
+	}
+
+	public int getPropertyCount() {
+		return properties.length;
+	}
+
+	/**
+	 * @param property
+	 * @return the interned id for the specified property, or -1 if no edge in this
+	 *         graph has the property
+	 */
+	public int getPropertyId(String property) {
+		Integer id = propertyToIdMap.get(property);
+		return (id == null) ? -1 : id;
+	}
+
+	public String getProperty(int propertyId) {
+		return properties[propertyId];
+	}
+
+	public int getOutDegree(int vertex) {
+		return outOffsets[vertex + 1] - outOffsets[vertex];
+	}
+
+	public int getInDegree(int vertex) {
+		return inOffsets[vertex + 1] - inOffsets[vertex];
+	}
+
+	/**
+	 * @param vertex
+	 * @param i
+	 * @return the index of the i-th outgoing edge of the specified vertex
+	 */
+	public int getOutEdge(int vertex, int i) {
+		return outEdges[outOffsets[vertex] + i];
+	}
+
+	/**
+	 * @param vertex
+	 * @param i
+	 * @return the index of the i-th incoming edge of the specified vertex
+	 */
+	public int getInEdge(int vertex, int i) {
+		return inEdges[inOffsets[vertex] + i];
+	}
+
+	public int getEdgeSource(int edge) {
+		return edgeSources[edge];
+	}
+
+	public int getEdgeTarget(int edge) {
+		return edgeTargets[edge];
+	}
+
+	public int getEdgePropertyId(int edge) {
+		return edgePropertyIds[edge];
+	}
+
+	public String getEdgeProperty(int edge) {
+		return properties[edgePropertyIds[edge]];
+	}
+
+	public String getEdgeId(int edge) {
+		return edgeIds[edge];
+	}
+
+	public String getEdgeAnnotator(int edge) {
+		return edgeAnnotators[edge];
+	}
+
+	public String getEdgeQuantifier(int edge) {
+		return edgeQuantifiers[edge];
+	}
+
+	public String getEdgeValue(int edge) {
+		return edgeValues[edge];
+	}
+
+	/**
+	 * @param vertex
+	 * @return the targets of the outgoing edges of the specified vertex
+	 */
+	public int[] getSuccessors(int vertex) {
+		int[] successors = new int[getOutDegree(vertex)];
+		for (int i = 0; i < successors.length; i++) {
+			successors[i] = edgeTargets[outEdges[outOffsets[vertex] + i]];
+		}
+		return successors;
+	}
+
+	/**
+	 * @param vertex
+	 * @param propertyId
+	 * @return the targets of the outgoing edges of the specified vertex that have
+	 *         the specified property
+	 */
+	public int[] getSuccessors(int vertex, int propertyId) {
+		int[] successors = new int[getOutDegree(vertex)];
+		int count = 0;
+		for (int i = outOffsets[vertex]; i < outOffsets[vertex + 1]; i++) {
+			int e = outEdges[i];
+			if (edgePropertyIds[e] == propertyId) {
+				successors[count++] = edgeTargets[e];
+			}
+		}
+		return Arrays.copyOf(successors, count);
+	}
+
+	/**
+	 * @param vertex
+	 * @return the sources of the incoming edges of the specified vertex
+	 */
+	public int[] getPredecessors(int vertex) {
+		int[] predecessors = new int[getInDegree(vertex)];
+		for (int i = 0; i < predecessors.length; i++) {
+			predecessors[i] = edgeSources[inEdges[inOffsets[vertex] + i]];
+		}
+		return predecessors;
+	}
+
+	/**
+	 * Breadth-first search following edge direction
+	 * 
+	 * @param source
+	 * @param target
+	 * @return the vertices on a shortest directed path from source to target,
+	 *         including both, or null if target is not reachable from source
+	 */
+	public int[] getShortestPath(int source, int target) {
+		int[] parent = new int[getVertexCount()];
+		Arrays.fill(parent, -1);
+		parent[source] = source;
+		int[] queue = new int[getVertexCount()];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = source;
+		while (head < tail && parent[target] == -1) {
+			int v = queue[head++];
+			for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+				int w = edgeTargets[outEdges[i]];
+				if (parent[w] == -1) {
+					parent[w] = v;
+					queue[tail++] = w;
+				}
+			}
+		}
+		if (parent[target] == -1) {
+			return null;
+		}
+		int length = 1;
+		for (int v = target; v != source; v = parent[v]) {
+			length++;
+		}
+		int[] path = new int[length];
+		for (int v = target, i = length - 1; i >= 0; v = parent[v], i--) {
+			path[i] = v;
+		}
+		return path;
+	}
+
+	/**
+	 * Adds the edges of this graph to the vertex annotations as
+	 * {@link ComplexSlotMention}s. Edges from a vertex that share a property are
+	 * grouped into a single slot. Quantifiers and values cannot be represented as
+	 * slot mentions and are therefore only available from the graph. As in
+	 * {@link DocumentReader#createAnnotationRelation(TextAnnotation, TextAnnotation, String)},
+	 * no slot mentions are created for null relation types, e.g. "NULL SLOT".
+	 */
+	public void addComplexSlotMentions() {
+		Map<Integer, ComplexSlotMention> propertyIdToCsmMap = new HashMap<Integer, ComplexSlotMention>();
+		for (int v = 0; v < getVertexCount(); v++) {
+			propertyIdToCsmMap.clear();
+			for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+				int e = outEdges[i];
+				if (DocumentReader.isNullRelationType(getEdgeProperty(e))) {
+					continue;
+				}
+				ComplexSlotMention csm = propertyIdToCsmMap.get(edgePropertyIds[e]);
+				if (csm == null) {
+					csm = new DefaultComplexSlotMention(getEdgeProperty(e));
+					propertyIdToCsmMap.put(edgePropertyIds[e], csm);
+					vertexAnnotations[v].getClassMention().addComplexSlotMention(csm);
+				}
+				csm.addClassMention(vertexAnnotations[edgeTargets[e]].getClassMention());
+			}
+		}
+	}
+
+	/**
+	 * Creates a graph with one vertex per annotation and one edge per slot filler
+	 * of each annotation's {@link ComplexSlotMention}s. Slot fillers whose
+	 * annotations are not in the input collection are added as additional
+	 * vertices. Vertex ids are node_[n] and edge ids are edge_[n], consistent with
+	 * the Knowtator-2 writer.
+	 * 
+	 * @param graphSpaceId
+	 * @param annotations
+	 * @return
+	 */
+	public static MentionGraph fromComplexSlotMentions(String graphSpaceId, Collection<TextAnnotation> annotations) {
+		Builder builder = new Builder(graphSpaceId);
+		Map<TextAnnotation, String> annotToVertexIdMap = new IdentityHashMap<TextAnnotation, String>();
+		for (TextAnnotation annot : annotations) {
+			addVertex(builder, annot, annotToVertexIdMap);
+		}
+		int edgeCount = 0;
+		for (TextAnnotation annot : annotations) {
+			Collection<ComplexSlotMention> csms = annot.getClassMention().getComplexSlotMentions();
+			if (csms == null) {
+				continue;
+			}
+			String annotator = (annot.getAnnotator() == null) ? null : annot.getAnnotator().getName();
+			for (ComplexSlotMention csm : csms) {
+				for (ClassMention cm : csm.getClassMentions()) {
+					String targetVertexId = addVertex(builder, cm.getTextAnnotation(), annotToVertexIdMap);
+					builder.addEdge("edge_" + edgeCount++, annotToVertexIdMap.get(annot), csm.getMentionName(),
+							targetVertexId, "", "", annotator);
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	private static String addVertex(Builder builder, TextAnnotation annot,
+			Map<TextAnnotation, String> annotToVertexIdMap) {
+		String vertexId = annotToVertexIdMap.get(annot);
+		if (vertexId == null) {
+			vertexId = "node_" + annotToVertexIdMap.size();
+			annotToVertexIdMap.put(annot, vertexId);
+			builder.addVertex(vertexId, annot);
+		}
+		return vertexId;
+	}
+
+	/**
+	 * Rebuilds the graphs that were read with a document from the current
+	 * {@link ComplexSlotMention}s of its annotations, so that relations added or
+	 * removed since the graphs were read are reflected. Edges whose relation still
+	 * exists keep their graph, order, id, annotator, quantifier and value. Edges
+	 * with a null relation type have no slot mention and are kept as long as
+	 * their source annotation is. Vertices are kept if their annotation is in the
+	 * collection. New relations are appended to the first graph.
+	 * 
+	 * @param graphs
+	 *            the graphs as read; must not be empty
+	 * @param annotations
+	 * @return the rebuilt graphs, one per input graph
+	 */
+	public static List<MentionGraph> fromComplexSlotMentions(List<MentionGraph> graphs,
+			Collection<TextAnnotation> annotations) {
+		if (graphs.isEmpty()) {
+			throw new IllegalArgumentException("Cannot rebuild an empty list of mention graphs.");
+		}
+		Set<TextAnnotation> annotationSet = Collections
+				.newSetFromMap(new IdentityHashMap<TextAnnotation, Boolean>());
+		annotationSet.addAll(annotations);
+
+		/* the current relations, counted so that duplicate relations are matched one to one */
+		List<Relation> relations = new ArrayList<Relation>();
+		Map<Relation, Integer> relationCounts = new HashMap<Relation, Integer>();
+		for (TextAnnotation annot : annotations) {
+			Collection<ComplexSlotMention> csms = annot.getClassMention().getComplexSlotMentions();
+			if (csms == null) {
+				continue;
+			}
+			for (ComplexSlotMention csm : csms) {
+				for (ClassMention cm : csm.getClassMentions()) {
+					Relation relation = new Relation(annot, csm.getMentionName(), cm.getTextAnnotation());
+					relations.add(relation);
+					Integer count = relationCounts.get(relation);
+					relationCounts.put(relation, (count == null) ? 1 : count + 1);
+				}
+			}
+		}
+
+		List<Builder> builders = new ArrayList<Builder>();
+		for (MentionGraph graph : graphs) {
+			Builder builder = new Builder(graph.graphSpaceId);
+			builders.add(builder);
+			for (int v = 0; v < graph.getVertexCount(); v++) {
+				if (annotationSet.contains(graph.vertexAnnotations[v])) {
+					builder.addVertex(graph.vertexIds[v], graph.vertexAnnotations[v]);
+				}
+			}
+			for (int e = 0; e < graph.getEdgeCount(); e++) {
+				TextAnnotation source = graph.vertexAnnotations[graph.edgeSources[e]];
+				TextAnnotation target = graph.vertexAnnotations[graph.edgeTargets[e]];
+				String property = graph.getEdgeProperty(e);
+				boolean keep;
+				if (DocumentReader.isNullRelationType(property)) {
+					keep = annotationSet.contains(source);
+				} else {
+					Relation relation = new Relation(source, property, target);
+					Integer count = relationCounts.get(relation);
+					keep = count != null && count > 0;
+					if (keep) {
+						relationCounts.put(relation, count - 1);
+					}
+				}
+				if (keep) {
+					String sourceVertexId = graph.vertexIds[graph.edgeSources[e]];
+					String targetVertexId = graph.vertexIds[graph.edgeTargets[e]];
+					builder.ensureVertex(sourceVertexId, source);
+					builder.ensureVertex(targetVertexId, target);
+					builder.addEdge(graph.edgeIds[e], sourceVertexId, property, targetVertexId,
+							graph.edgeQuantifiers[e], graph.edgeValues[e], graph.edgeAnnotators[e]);
+				}
+			}
+		}
+
+		Builder builder = builders.get(0);
+		/* new edge ids must not collide with any edge id of the graph as read */
+		Set<String> edgeIds = new HashSet<String>(Arrays.asList(graphs.get(0).edgeIds));
+		Map<TextAnnotation, String> annotToVertexIdMap = new IdentityHashMap<TextAnnotation, String>();
+		for (int v = builder.vertexIds.size() - 1; v >= 0; v--) {
+			/* the first vertex of an annotation is used for its new edges */
+			annotToVertexIdMap.put(builder.vertexAnnotations.get(v), builder.vertexIds.get(v));
+		}
+		int edgeCount = 0;
+		for (Relation relation : relations) {
+			Integer count = relationCounts.get(relation);
+			if (count == 0) {
+				continue;
+			}
+			relationCounts.put(relation, count - 1);
+			String sourceVertexId = getOrAddVertex(builder, relation.source, annotToVertexIdMap);
+			String targetVertexId = getOrAddVertex(builder, relation.target, annotToVertexIdMap);
+			String edgeId;
+			do {
+				edgeId = "edge_" + edgeCount++;
+			} while (!edgeIds.add(edgeId));
+			String annotator = (relation.source.getAnnotator() == null) ? null
+					: relation.source.getAnnotator().getName();
+			builder.addEdge(edgeId, sourceVertexId, relation.property, targetVertexId, "", "", annotator);
+		}
+
+		List<MentionGraph> rebuiltGraphs = new ArrayList<MentionGraph>();
+		for (Builder b : builders) {
+			rebuiltGraphs.add(b.build());
+		}
+		return rebuiltGraphs;
+	}
+
+	private static String getOrAddVertex(Builder builder, TextAnnotation annot,
+			Map<TextAnnotation, String> annotToVertexIdMap) {
+		String vertexId = annotToVertexIdMap.get(annot);
+		if (vertexId == null) {
+			int n = builder.vertexIds.size();
+			do {
+				vertexId = "node_" + n++;
+			} while (builder.vertexIdToIndexMap.containsKey(vertexId));
+			annotToVertexIdMap.put(annot, vertexId);
+			builder.addVertex(vertexId, annot);
+		}
+		return vertexId;
+	}
+
+	/**
+	 * A relation between two annotation instances; equal but distinct annotations
+	 * are different relation ends
+	 */
+	private static final class Relation {
+		private final TextAnnotation source;
+		private final String property;
+		private final TextAnnotation target;
+
+		public Relation(TextAnnotation source, String property, TextAnnotation target) {
+			this.source = source;
+			this.property = property;
+			this.target = target;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Relation)) {
+				return false;
+			}
+			Relation other = (Relation) obj;
+			return source == other.source && target == other.target && Objects.equals(property, other.property);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * System.identityHashCode(source) + Objects.hashCode(property))
+					+ System.identityHashCode(target);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "MentionGraph [graphSpaceId=" + graphSpaceId + ", vertices=" + getVertexCount() + ", edges="
+				+ getEdgeCount() + "]";
+	}
+
+	public static class Builder {
+		private final String graphSpaceId;
+
+		private final List<String> vertexIds = new ArrayList<String>();
+		private final List<TextAnnotation> vertexAnnotations = new ArrayList<TextAnnotation>();
+		private final Map<String, Integer> vertexIdToIndexMap = new HashMap<String, Integer>();
+
+		private final List<String> properties = new ArrayList<String>();
+		private final Map<String, Integer> propertyToIdMap = new HashMap<String, Integer>();
+
+		private int edgeCount = 0;
+		private int[] sources = new int[16];
+		private int[] targets = new int[16];
+		private int[] propertyIds = new int[16];
+		private final List<String> edgeIds = new ArrayList<String>();
+		private final List<String> edgeAnnotators = new ArrayList<String>();
+		private final List<String> edgeQuantifiers = new ArrayList<String>();
+		private final List<String> edgeValues = new ArrayList<String>();
+
+		public Builder(String graphSpaceId) {
+			this.graphSpaceId = graphSpaceId;
+		}
+
+		/**
+		 * @param vertexId
+		 * @param annotation
+		 * @return the index of the new vertex
+		 */
+		public int addVertex(String vertexId, TextAnnotation annotation) {
+			if (vertexIdToIndexMap.containsKey(vertexId)) {
+				throw new IllegalArgumentException(
+						"Duplicate vertex id (" + vertexId + ") in graph space: " + graphSpaceId);
+			}
+			int index = vertexIds.size();
+			vertexIds.add(vertexId);
+			vertexAnnotations.add(annotation);
+			vertexIdToIndexMap.put(vertexId, index);
+			return index;
+		}
+
+		/**
+		 * Adds an edge between two vertices that have already been added
+		 */
+		public void addEdge(String edgeId, String subjectVertexId, String property, String objectVertexId,
+				String quantifier, String value, String annotator) {
+			if (edgeCount == sources.length) {
+				sources = Arrays.copyOf(sources, 2 * edgeCount);
+				targets = Arrays.copyOf(targets, 2 * edgeCount);
+				propertyIds = Arrays.copyOf(propertyIds, 2 * edgeCount);
+			}
+			sources[edgeCount] = getVertex(subjectVertexId);
+			targets[edgeCount] = getVertex(objectVertexId);
+			Integer propertyId = propertyToIdMap.get(property);
+			if (propertyId == null) {
+				propertyId = properties.size();
+				properties.add(property);
+				propertyToIdMap.put(property, propertyId);
+			}
+			propertyIds[edgeCount] = propertyId;
+			edgeIds.add(edgeId);
+			edgeAnnotators.add(annotator);
+			edgeQuantifiers.add(quantifier);
+			edgeValues.add(value);
+			edgeCount++;
+		}
+
+		/**
+		 * Adds the vertex unless a vertex with the same id has already been added
+		 */
+		private void ensureVertex(String vertexId, TextAnnotation annotation) {
+			if (!vertexIdToIndexMap.containsKey(vertexId)) {
+				addVertex(vertexId, annotation);
+			}
+		}
+
+		private int getVertex(String vertexId) {
+			Integer index = vertexIdToIndexMap.get(vertexId);
+			if (index == null) {
+				throw new IllegalArgumentException(
+						"Unknown vertex id (" + vertexId + ") in graph space: " + graphSpaceId);
+			}
+			return index;
+		}
+
+		public MentionGraph build() {
+			return new MentionGraph(this);
+		}
+	}
+
+}
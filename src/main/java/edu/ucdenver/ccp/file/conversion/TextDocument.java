@@ -40,6 +40,7 @@ import java.util.List;
 
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 
 @Data
 public class TextDocument {
@@ -47,6 +48,19 @@ public class TextDocument {
 	private final String sourcedb;
 	private final String text;
 	private List<TextAnnotation> annotations;
+	/**
+	 * relation graphs between the annotations, for formats that represent
+	 * relations as graphs, e.g. Knowtator-2 graph spaces. The graphs are not
+	 * considered by equals() and hashCode(); the relations they contain are also
+	 * present in the annotations as complex slot mentions.
+	 */
+	@EqualsAndHashCode.Exclude
+	private List<MentionGraph> mentionGraphs;
+	/**
+	 * the divisions of the document, e.g. sections of a full-text article, for
+	 * formats that represent documents as divisions, e.g. PubAnnotation
+	 */
+	private List<DocumentDivision> divisions;
 
 	public void addAnnotation(TextAnnotation annot) {
 		if (annotations == null) {
@@ -0,0 +1,247 @@
+package edu.ucdenver.ccp.file.conversion.conllcoref2012;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.gson.Gson;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileUtil;
+import edu.ucdenver.ccp.common.file.FileWriterUtil;
+import edu.ucdenver.ccp.common.io.StreamUtil;
+import edu.ucdenver.ccp.file.conversion.util.DocumentReaderUtil;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import lombok.Data;
+
+/**
+ * Validates a directory of CoNLLCoref 2011/12 files in parallel. Each document is checked for
+ * annotations with overlapping or adjacent discontinuous spans, and for noun phrases that appear
+ * more than once in a chain or in multiple chains (the same checks performed by
+ * {@link CoNLLCoref2012DocumentValidator}). Results are written to a JSON-lines report, one line per
+ * document, in the order in which the documents finish validating.
+ */
+public class CoNLLCoref2012CorpusValidator {
+
+	/**
+	 * FAIL_FAST stops validation after the first document that does not pass; CONTINUE validates
+	 * every document and reports all failures
+	 */
+	public enum Mode {
+		FAIL_FAST, CONTINUE
+	}
+
+	public enum Status {
+		PASSED, FAILED, SKIPPED, ERROR
+	}
+
+	private final int threadCount;
+	private final Mode mode;
+
+	public CoNLLCoref2012CorpusValidator(int threadCount, Mode mode) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("Thread count must be >= 1. Observed: " + threadCount);
+		}
+		this.threadCount = threadCount;
+		this.mode = mode;
+	}
+
+	/**
+	 * @param conllCorefDirectory
+	 * @param txtDirectory
+	 *            directory containing the document text files, named [SOURCE_ID].txt
+	 * @param reportWriter
+	 *            one JSON object per line is written for each validated document
+	 * @param encoding
+	 * @return true if all documents passed validation, false otherwise
+	 * @throws IOException
+	 */
+	public boolean validate(File conllCorefDirectory, File txtDirectory, Writer reportWriter,
+			CharacterEncoding encoding) throws IOException {
+		List<File> conllCorefFiles = new ArrayList<File>();
+		for (Iterator<File> fileIter = FileUtil.getFileIterator(conllCorefDirectory, false); fileIter.hasNext();) {
+			conllCorefFiles.add(fileIter.next());
+		}
+
+		Gson gson = new Gson();
+		boolean validationPassed = true;
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			CompletionService<ValidationResult> completionService = new ExecutorCompletionService<ValidationResult>(
+					executor);
+			for (final File conllCorefFile : conllCorefFiles) {
+				final String sourceId = getSourceId(conllCorefFile);
+				final File documentTextFile = new File(txtDirectory, sourceId + ".txt");
+				completionService.submit(new Callable<ValidationResult>() {
+					@Override
+					public ValidationResult call() {
+						return validateDocument(sourceId, conllCorefFile, documentTextFile, encoding);
+					}
+				});
+			}
+
+			for (int i = 0; i < conllCorefFiles.size(); i++) {
+				ValidationResult result = completionService.take().get();
+				reportWriter.write(gson.toJson(result) + "\n");
+				reportWriter.flush();
+				if (result.getStatus() == Status.FAILED || result.getStatus() == Status.ERROR) {
+					validationPassed = false;
+					if (mode == Mode.FAIL_FAST) {
+						break;
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while validating CoNLLCoref files.", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Error while validating CoNLLCoref files.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		return validationPassed;
+	}
+
+	/**
+	 * @param sourceId
+	 * @param conllCorefFile
+	 * @param documentTextFile
+	 * @param encoding
+	 * @return the validation result for a single document. This method does not throw exceptions;
+	 *         errors encountered while reading the document are recorded in the result.
+	 */
+	public static ValidationResult validateDocument(String sourceId, File conllCorefFile, File documentTextFile,
+			CharacterEncoding encoding) {
+		String filePath = conllCorefFile.getAbsolutePath();
+		if (!documentTextFile.exists()) {
+			return new ValidationResult(sourceId, filePath, Status.SKIPPED, Collections.<String>emptyList(),
+					Collections.<String>emptyList(), "No corresponding txt file exists: " + documentTextFile.getName());
+		}
+		try {
+			String documentText;
+			try (InputStream documentTextStream = new FileInputStream(documentTextFile)) {
+				documentText = StreamUtil.toString(new InputStreamReader(documentTextStream, encoding.getDecoder()));
+			}
+			List<TextAnnotation> annotations;
+			try (InputStream conllCorefStream = new FileInputStream(conllCorefFile)) {
+				annotations = CoNLLCoref2012DocumentReader.getAnnotations(conllCorefStream, sourceId, documentText,
+						encoding);
+			}
+
+			List<String> invalidSpanMessages = CoNLLCoref2012DocumentValidator
+					.getInvalidSpanMessages(DocumentReaderUtil.validateSpans(annotations, documentText, sourceId));
+			String chainErrors = CoNLLCoref2012DocumentValidator.checkForRepeatedChainMembers(annotations);
+			List<String> chainErrorMessages = (chainErrors.isEmpty()) ? Collections.<String>emptyList()
+					: Arrays.asList(chainErrors.split("\\n"));
+
+			Status status = (invalidSpanMessages.isEmpty() && chainErrorMessages.isEmpty()) ? Status.PASSED
+					: Status.FAILED;
+			return new ValidationResult(sourceId, filePath, status, invalidSpanMessages, chainErrorMessages, null);
+		} catch (IOException | RuntimeException e) {
+			return new ValidationResult(sourceId, filePath, Status.ERROR, Collections.<String>emptyList(),
+					Collections.<String>emptyList(), e.toString());
+		}
+	}
+
+	private static String getSourceId(File conllCorefFile) {
+		String fileName = conllCorefFile.getName();
+		return (fileName.contains(".")) ? fileName.substring(0, fileName.indexOf(".")) : fileName;
+	}
+
+	/**
+	 * A single line in the validation report
+	 */
+	@Data
+	public static class ValidationResult {
+		private final String sourceId;
+		private final String file;
+		private final Status status;
+		private final List<String> invalidSpans;
+		private final List<String> chainErrors;
+		private final String message;
+	}
+
+	/**
+	 * @param args
+	 *            <ol>
+	 *            <li>CoNLLCoref directory</li>
+	 *            <li>txt directory</li>
+	 *            <li>report file (JSON lines)</li>
+	 *            <li>optional: thread count (defaults to the number of available processors)</li>
+	 *            <li>optional: FAIL_FAST or CONTINUE (defaults to CONTINUE)</li>
+	 *            </ol>
+	 */
+	public static void main(String[] args) {
+		File conllCorefDirectory = new File(args[0]);
+		File txtDirectory = new File(args[1]);
+		File reportFile = new File(args[2]);
+		int threadCount = (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		Mode mode = (args.length > 4) ? Mode.valueOf(args[4]) : Mode.CONTINUE;
+
+		CharacterEncoding encoding = CharacterEncoding.UTF_8;
+		boolean validationPassed;
+		try (BufferedWriter writer = FileWriterUtil.initBufferedWriter(new FileOutputStream(reportFile), encoding)) {
+			validationPassed = new CoNLLCoref2012CorpusValidator(threadCount, mode).validate(conllCorefDirectory,
+					txtDirectory, writer, encoding);
+		} catch (IOException e) {
+			throw new IllegalStateException("Error while validating CoNLLCoref files.", e);
+		}
+
+		if (!validationPassed) {
+			throw new IllegalStateException(
+					"Coreference file validation FAILED. See report for details: " + reportFile.getAbsolutePath());
+		}
+	}
+
+}
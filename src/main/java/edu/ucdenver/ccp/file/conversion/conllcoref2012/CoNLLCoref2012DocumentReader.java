@@ -51,11 +51,11 @@ import edu.ucdenver.ccp.common.collections.CollectionsUtil;
 import edu.ucdenver.ccp.common.file.CharacterEncoding;
 import edu.ucdenver.ccp.common.file.FileReaderUtil;
 import edu.ucdenver.ccp.common.io.StreamUtil;
-import edu.ucdenver.ccp.common.string.StringUtil;
 import edu.ucdenver.ccp.file.conversion.DocumentReader;
 import edu.ucdenver.ccp.file.conversion.TextDocument;
 import edu.ucdenver.ccp.file.conversion.conllu.CoNLLUDocumentReader;
 import edu.ucdenver.ccp.file.conversion.util.DocumentReaderUtil;
+import edu.ucdenver.ccp.file.conversion.util.SpanNormalizer;
 import edu.ucdenver.ccp.nlp.core.annotation.Span;
 import edu.ucdenver.ccp.nlp.core.annotation.SpanUtils;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
@@ -208,19 +208,7 @@ public class CoNLLCoref2012DocumentReader extends DocumentReader {
 	 * @param annot
 	 */
 	public static TextAnnotation trimAnnotation(String documentText, TextAnnotation annot) {
-		while (StringUtil.endsWithRegex(SpanUtils.getCoveredText(annot.getSpans(), documentText),"\\s")) {
-			int spanStart = annot.getAggregateSpan().getSpanStart();
-			int spanEnd = annot.getAggregateSpan().getSpanEnd() - 1;
-			annot.setSpan(new Span(spanStart, spanEnd));
-			annot.setCoveredText(SpanUtils.getCoveredText(annot.getSpans(), documentText));
-		}
-
-		while (StringUtil.startsWithRegex(SpanUtils.getCoveredText(annot.getSpans(), documentText),"\\s")) {
-			int spanStart = annot.getAggregateSpan().getSpanStart() + 1;
-			int spanEnd = annot.getAggregateSpan().getSpanEnd();
-			annot.setSpan(new Span(spanStart, spanEnd));
-			annot.setCoveredText(SpanUtils.getCoveredText(annot.getSpans(), documentText));
-		}
+		SpanNormalizer.trimAnnotation(documentText, annot);
 		return annot;
 	}
 
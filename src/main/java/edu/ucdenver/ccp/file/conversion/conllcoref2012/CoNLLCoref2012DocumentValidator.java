@@ -38,6 +38,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -75,9 +76,8 @@ public class CoNLLCoref2012DocumentValidator extends CoNLLCoref2012DocumentReade
 
 		if (!annotsWithInvalidSpans.isEmpty()) {
 			StringBuffer sb = new StringBuffer();
-			for (TextAnnotation ta : annotsWithInvalidSpans) {
-				sb.append("Annotation with invalid spans in document: " + ta.getDocumentID() + ": "
-						+ Span.toString(ta.getSpans()) + " -- " + ta.getCoveredText() + "\n");
+			for (String message : getInvalidSpanMessages(annotsWithInvalidSpans)) {
+				sb.append(message + "\n");
 			}
 			throw new IllegalStateException(
 					"Detected one or more annotations with overlapping or adjacent (contiguous) discontinuous spans. "
@@ -102,7 +102,20 @@ public class CoNLLCoref2012DocumentValidator extends CoNLLCoref2012DocumentReade
 
 	}
 
-	private String checkForRepeatedChainMembers(List<TextAnnotation> annotations) {
+	/**
+	 * @param annotsWithInvalidSpans
+	 * @return one message per annotation with invalid spans
+	 */
+	static List<String> getInvalidSpanMessages(List<TextAnnotation> annotsWithInvalidSpans) {
+		List<String> messages = new ArrayList<String>();
+		for (TextAnnotation ta : annotsWithInvalidSpans) {
+			messages.add("Annotation with invalid spans in document: " + ta.getDocumentID() + ": "
+					+ Span.toString(ta.getSpans()) + " -- " + ta.getCoveredText());
+		}
+		return messages;
+	}
+
+	static String checkForRepeatedChainMembers(List<TextAnnotation> annotations) {
 		StringBuffer errorMessages = new StringBuffer();
 		Map<TextAnnotation, Set<Integer>> npAnnots = new HashMap<TextAnnotation, Set<Integer>>();
 		int chainId = 0;
@@ -62,9 +62,12 @@ import edu.ucdenver.ccp.file.conversion.DocumentWriter;
 import edu.ucdenver.ccp.file.conversion.TextDocument;
 import edu.ucdenver.ccp.file.conversion.conllu.CoNLLUDocumentWriter;
 import edu.ucdenver.ccp.file.conversion.conllu.CoNLLUFileRecord;
+import edu.ucdenver.ccp.file.conversion.diagnostics.DiagnosticEvent;
+import edu.ucdenver.ccp.file.conversion.diagnostics.DiagnosticType;
+import edu.ucdenver.ccp.file.conversion.diagnostics.Diagnostics;
 import edu.ucdenver.ccp.file.conversion.util.DocumentReaderUtil;
+import edu.ucdenver.ccp.file.conversion.util.SpanNormalizer;
 import edu.ucdenver.ccp.nlp.core.annotation.Span;
-import edu.ucdenver.ccp.nlp.core.annotation.SpanUtils;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
 import edu.ucdenver.ccp.nlp.core.mention.ClassMention;
@@ -201,12 +204,14 @@ public class CoNLLCoref2012DocumentWriter extends DocumentWriter {
 			}
 
 			if (!redundantAnnots.isEmpty()) {
-				System.out.println("!!!!!!!!!!!!!! OBSERVED REDUNDANT ANNOTATION IN SINGLE CHAIN... removing it.");
-				System.out.println("CHAIN SIZE BEFORE: " + chain.size());
 				for (TextAnnotation redundantTa : redundantAnnots) {
 					chain.remove(redundantTa);
 				}
-				System.out.println("CHAIN SIZE AFTER: " + chain.size());
+				if (Diagnostics.isEnabled(DiagnosticType.REDUNDANT_CHAIN_MEMBER_REMOVED)) {
+					Diagnostics.report(DiagnosticEvent.forGroups(DiagnosticType.REDUNDANT_CHAIN_MEMBER_REMOVED,
+							td.getSourceid(), null, new ArrayList<TextAnnotation>(redundantAnnots),
+							Collections.singletonList(chain)));
+				}
 			}
 
 		}
@@ -373,16 +378,19 @@ public class CoNLLCoref2012DocumentWriter extends DocumentWriter {
 	private void trimAnnotations(List<TextAnnotation> annotations, String docText) {
 		Set<TextAnnotation> blankAnnots = new HashSet<TextAnnotation>();
 		for (TextAnnotation annot : annotations) {
-			String coveredText = SpanUtils.getCoveredText(annot.getSpans(), docText);
-			annot.setCoveredText(coveredText);
-			if (annot.getCoveredText().trim().length() != annot.getCoveredText().length()) {
-				if (annot.getCoveredText().trim().length() == 0) {
+			if (SpanNormalizer.hasLeadingOrTrailingWhitespace(annot.getSpans(), docText)) {
+				if (SpanNormalizer.isBlank(annot.getSpans(), docText)) {
 					blankAnnots.add(annot);
-					logger.info("<<<<<<< Detected BLANK annot: " + annot.getSingleLineRepresentation());
+					if (Diagnostics.isEnabled(DiagnosticType.BLANK_ANNOTATION_REMOVED)) {
+						Diagnostics.report(DiagnosticEvent.forAnnotation(DiagnosticType.BLANK_ANNOTATION_REMOVED,
+								annot.getDocumentID(), null, annot));
+					}
 				} else {
-					logger.info("<<<<<<< Detected leading or trailing whitespace for annot: "
-							+ annot.getSingleLineRepresentation());
-					CoNLLCoref2012DocumentReader.trimAnnotation(docText, annot);
+					if (Diagnostics.isEnabled(DiagnosticType.ANNOTATION_TRIMMED)) {
+						Diagnostics.report(DiagnosticEvent.forSpans(DiagnosticType.ANNOTATION_TRIMMED,
+								annot.getDocumentID(), annot.getSpans()));
+					}
+					SpanNormalizer.trimAnnotation(docText, annot);
 				}
 			}
 		}
@@ -473,130 +481,23 @@ public class CoNLLCoref2012DocumentWriter extends DocumentWriter {
 	 */
 	public static Set<Set<TextAnnotation>> mergeChainsIfSharedAnnotation(Set<Set<TextAnnotation>> chains,
 			MatchDueTo matchDueTo) {
-		Set<Set<TextAnnotation>> updatedChains = new HashSet<Set<TextAnnotation>>(chains);
-		int previousChainCount = -1;
-		/* merge chains until there are no more chains to merge */
-		do {
-			previousChainCount = updatedChains.size();
-			updatedChains = mergeChains(updatedChains, matchDueTo);
-		} while (updatedChains.size() != previousChainCount);
-
-		return updatedChains;
-	}
-
-	private static Set<Set<TextAnnotation>> mergeChains(Set<Set<TextAnnotation>> chains, MatchDueTo matchDueTo) {
-		// System.out.println("Merging...");
-		Map<TextAnnotation, Set<Set<TextAnnotation>>> taToChainMap = new HashMap<TextAnnotation, Set<Set<TextAnnotation>>>();
-
-		/*
-		 * the map above will catch an NP that occurs in >1 identity chains, however we are not
-		 * catching an NP and an APPOS that have the same span that occur in the same identity
-		 * chain. These should also be candidates to merge. The map below will be used to detect
-		 * chain members that have identical spans.
-		 */
-
-		Map<List<Span>, Set<TextAnnotation>> spanToAnnotMap = new HashMap<List<Span>, Set<TextAnnotation>>();
-
-		/* map each text annotation to its chain(s) */
+		String sourceId = null;
 		for (Set<TextAnnotation> chain : chains) {
-			for (TextAnnotation ta : chain) {
-				CollectionsUtil.addToOne2ManyUniqueMap(ta.getSpans(), ta, spanToAnnotMap);
-				CollectionsUtil.addToOne2ManyUniqueMap(ta, chain, taToChainMap);
-			}
-		}
-
-		for (Entry<List<Span>, Set<TextAnnotation>> entry : spanToAnnotMap.entrySet()) {
-			if (entry.getValue().size() > 1) {
-				/*
-				 * the we have detected chain members with identical spans - should be a Noun Phrase
-				 * and an APPOS annotation. We will replace usage of the NP with usage of the APPOS
-				 * annotation for consistency.
-				 */
-				if (entry.getValue().size() > 2) {
-					throw new IllegalStateException(
-							"Did not expect more than 2 annotations here. Expected 1 Noun Phrase and 1 Appos with identical spans.");
-				}
-
-				TextAnnotation npAnnot = getNpAnnot(entry.getValue());
-				TextAnnotation apposAnnot = getApposAnnot(entry.getValue());
-
-				logger.info("#### Swapping Noun Phrase for APPOS annotation in identity chain(s)");
-				logger.info(
-						"The chain(s) listed below have as members a Noun Phrase annotation and an APPOS annotation with identical spans. For consistency, we remove the Noun Phrase annotation where used and replace its usage with the APPOS annotation.");
-
-				logger.info("The Noun Phrase:" + toLogString(npAnnot));
-				logger.info("The APPOS annot:" + toLogString(apposAnnot));
-
-				Set<Set<TextAnnotation>> npAnnotChains = taToChainMap.get(npAnnot);
-				for (Set<TextAnnotation> chain : npAnnotChains) {
-					/*
-					 * in each chain, remove the npAnnot and replace with the apposAnnot
-					 */
-					boolean chainUpdated = chain.remove(npAnnot);
-					if (chainUpdated) {
-						chain.add(apposAnnot);
-						logger.info("Updated chain:");
-						for (TextAnnotation ta : chain) {
-							logger.info("_  " + toLogString(ta));
-						}
-					}
-				}
-				/*
-				 * all references to the np annot have been removed from chains, so remove it from
-				 * the taToChainMap
-				 */
-				taToChainMap.remove(npAnnot);
+			if (!chain.isEmpty()) {
+				sourceId = chain.iterator().next().getDocumentID();
+				break;
 			}
 		}
-
-		/* merge chains that share a member */
-		Set<Set<TextAnnotation>> updatedChains = new HashSet<Set<TextAnnotation>>(chains);
-		for (Entry<TextAnnotation, Set<Set<TextAnnotation>>> entry : taToChainMap.entrySet()) {
-			if (entry.getValue().size() > 1) {
-				Set<TextAnnotation> mergedChain = new HashSet<TextAnnotation>();
-				logger.info("#### Merging chains based on shared coreferring string "
-						+ ((matchDueTo == MatchDueTo.SPAN_TO_TOKEN_BOUNDARY_MATCH)
-								? "caused by matching spans to token boundaries" : ""));
-				logger.info("Shared coreferring string:" + toLogString(entry.getKey()));
-				Set<TextAnnotation> overlap = new HashSet<TextAnnotation>();
-				for (Set<TextAnnotation> chain : entry.getValue()) {
-					if (overlap.isEmpty()) {
-						overlap = new HashSet<TextAnnotation>(chain);
-					} else {
-						overlap.retainAll(chain);
-					}
-				}
-				logger.info("Overlap in original chains: " + overlap.size() + " annotations.\n");
-				int chainCount = 0;
-				for (Set<TextAnnotation> chain : entry.getValue()) {
-					List<TextAnnotation> taList = new ArrayList<TextAnnotation>(chain);
-					Collections.sort(taList, TextAnnotation.BY_SPAN());
-					for (TextAnnotation ta : taList) {
-						logger.info("> chain " + chainCount + " -- " + toLogString(ta));
-					}
-					logger.info("");
-					mergedChain.addAll(chain);
-					chainCount++;
-				}
-				/*
-				 * remove chains that have been combined and add the newly merged chain
-				 */
-				for (Set<TextAnnotation> chain : entry.getValue()) {
-					updatedChains.remove(chain);
-				}
-				updatedChains.add(mergedChain);
-				return updatedChains;
-			}
-		}
-
-		return updatedChains;
+		CoreferenceChainGraph graph = new CoreferenceChainGraph(sourceId, chains);
+		graph.mergeChainsWithSharedMembers(matchDueTo);
+		return graph.toMemberSets();
 	}
 
 	/**
 	 * @param value
 	 * @return appos annot from a set assumed to be of size 2, also containing an np annot
 	 */
-	private static TextAnnotation getApposAnnot(Set<TextAnnotation> set) {
+	static TextAnnotation getApposAnnot(Set<TextAnnotation> set) {
 		for (TextAnnotation ta : set) {
 			if (ta.getClassMention().getMentionName().equalsIgnoreCase(CoNLLCoref2012DocumentReader.APPOS_RELATION)) {
 				return ta;
@@ -609,7 +510,7 @@ public class CoNLLCoref2012DocumentWriter extends DocumentWriter {
 	 * @param value
 	 * @return np annot from a set assumed to be of size 2, also containing an appos annot
 	 */
-	private static TextAnnotation getNpAnnot(Set<TextAnnotation> set) {
+	static TextAnnotation getNpAnnot(Set<TextAnnotation> set) {
 		for (TextAnnotation ta : set) {
 			if (ta.getClassMention().getMentionName().equalsIgnoreCase(CoNLLCoref2012DocumentReader.NOUN_PHRASE)) {
 				return ta;
@@ -713,7 +614,10 @@ public class CoNLLCoref2012DocumentWriter extends DocumentWriter {
 				if (chain.size() > 1) {
 					chainToMemberAnnotsMap.put(annot, chain);
 				} else {
-					logger.info("#### Excluding IDENT chain of length 1\n" + toLogString(annot));
+					if (Diagnostics.isEnabled(DiagnosticType.SINGLETON_CHAIN_EXCLUDED)) {
+						Diagnostics.report(DiagnosticEvent.forAnnotation(DiagnosticType.SINGLETON_CHAIN_EXCLUDED,
+								annot.getDocumentID(), null, annot));
+					}
 				}
 			}
 		}
@@ -756,8 +660,10 @@ public class CoNLLCoref2012DocumentWriter extends DocumentWriter {
 		if (npAnnotations != null) {
 			npAnnotations.add(npAnnot);
 		}
-		logger.info("#### Creating missing Noun Phrase annotation inferred from " + includeCorefType.name()
-				+ " annotation\n" + toLogString(npAnnot));
+		if (Diagnostics.isEnabled(DiagnosticType.NOUN_PHRASE_INFERRED)) {
+			Diagnostics.report(DiagnosticEvent.forAnnotation(DiagnosticType.NOUN_PHRASE_INFERRED,
+					npAnnot.getDocumentID(), includeCorefType.name(), npAnnot));
+		}
 		return npAnnot;
 	}
 
@@ -0,0 +1,589 @@
+package edu.ucdenver.ccp.file.conversion.conllcoref2012;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileUtil;
+import edu.ucdenver.ccp.common.io.StreamUtil;
+import edu.ucdenver.ccp.file.conversion.conllcoref2012.CorefScore.BlancScore;
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.mention.ClassMention;
+import edu.ucdenver.ccp.nlp.core.mention.ComplexSlotMention;
+
+/**
+ * Computes the MUC, B<sup>3</sup>, CEAF (mention- and entity-based) and BLANC coreference metrics
+ * for response files in the CoNLLCoref 2011/12 format against key files in the same format. The
+ * scores are intended to match those produced by the CoNLL-2011/12 reference scorer, but are
+ * computed in-process.
+ * 
+ * Mentions are identified by their spans, so the key and response must share the same document
+ * text. Chains are converted to arrays of integer mention identifiers and all metrics are computed
+ * from the sparse key-chain/response-chain intersection counts. The CEAF alignment is computed
+ * independently for each connected component of the chain overlap graph, so that the cubic
+ * assignment step only ever operates on chains that actually overlap.
+ */
+public class CoNLLCoref2012Scorer {
+
+	public enum Metric {
+		MUC, B_CUBED, CEAF_M, CEAF_E, BLANC
+	}
+
+	private final int threadCount;
+
+	public CoNLLCoref2012Scorer(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("Thread count must be >= 1. Observed: " + threadCount);
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Scores each response file against the key file with the same name. Documents are scored in
+	 * parallel.
+	 * 
+	 * @param keyDirectory
+	 * @param responseDirectory
+	 * @param txtDirectory
+	 *            directory containing the document text files, named [SOURCE_ID].txt
+	 * @param encoding
+	 * @return mapping from source id to the scores for that document, sorted by source id
+	 * @throws IOException
+	 */
+	public Map<String, Map<Metric, CorefScore>> scoreDocuments(File keyDirectory, File responseDirectory,
+			File txtDirectory, final CharacterEncoding encoding) throws IOException {
+		Map<String, Future<Map<Metric, CorefScore>>> sourceIdToFutureMap = new TreeMap<String, Future<Map<Metric, CorefScore>>>();
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			for (Iterator<File> fileIter = FileUtil.getFileIterator(keyDirectory, false); fileIter.hasNext();) {
+				final File keyFile = fileIter.next();
+				final File responseFile = new File(responseDirectory, keyFile.getName());
+				String fileName = keyFile.getName();
+				final String sourceId = (fileName.contains(".")) ? fileName.substring(0, fileName.indexOf("."))
+						: fileName;
+				final File documentTextFile = new File(txtDirectory, sourceId + ".txt");
+				if (!responseFile.exists()) {
+					throw new IOException("No response file found for key file: " + keyFile.getAbsolutePath());
+				}
+				sourceIdToFutureMap.put(sourceId, executor.submit(new Callable<Map<Metric, CorefScore>>() {
+					@Override
+					public Map<Metric, CorefScore> call() throws IOException {
+						return scoreDocument(sourceId, keyFile, responseFile, documentTextFile, encoding);
+					}
+				}));
+			}
+
+			Map<String, Map<Metric, CorefScore>> sourceIdToScoresMap = new TreeMap<String, Map<Metric, CorefScore>>();
+			for (Entry<String, Future<Map<Metric, CorefScore>>> entry : sourceIdToFutureMap.entrySet()) {
+				sourceIdToScoresMap.put(entry.getKey(), entry.getValue().get());
+			}
+			return sourceIdToScoresMap;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while scoring CoNLLCoref files.", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Error while scoring CoNLLCoref files.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @param documentScores
+	 * @return corpus-level scores formed by summing the counts of the input document scores
+	 */
+	public static Map<Metric, CorefScore> aggregate(Collection<Map<Metric, CorefScore>> documentScores) {
+		Map<Metric, CorefScore> aggregateScores = createEmptyScores();
+		for (Map<Metric, CorefScore> scores : documentScores) {
+			for (Entry<Metric, CorefScore> entry : scores.entrySet()) {
+				aggregateScores.get(entry.getKey()).add(entry.getValue());
+			}
+		}
+		return aggregateScores;
+	}
+
+	public static Map<Metric, CorefScore> scoreDocument(String sourceId, File keyFile, File responseFile,
+			File documentTextFile, CharacterEncoding encoding) throws IOException {
+		String documentText;
+		try (InputStream documentTextStream = new FileInputStream(documentTextFile)) {
+			documentText = StreamUtil.toString(new InputStreamReader(documentTextStream, encoding.getDecoder()));
+		}
+		List<TextAnnotation> keyAnnots;
+		try (InputStream keyStream = new FileInputStream(keyFile)) {
+			keyAnnots = CoNLLCoref2012DocumentReader.getAnnotations(keyStream, sourceId, documentText, encoding);
+		}
+		List<TextAnnotation> responseAnnots;
+		try (InputStream responseStream = new FileInputStream(responseFile)) {
+			responseAnnots = CoNLLCoref2012DocumentReader.getAnnotations(responseStream, sourceId, documentText,
+					encoding);
+		}
+		return scoreDocument(keyAnnots, responseAnnots);
+	}
+
+	/**
+	 * @param keyAnnots
+	 * @param responseAnnots
+	 * @return scores for the IDENTITY chains in the response annotations compared to the IDENTITY
+	 *         chains in the key annotations
+	 */
+	public static Map<Metric, CorefScore> scoreDocument(Collection<TextAnnotation> keyAnnots,
+			Collection<TextAnnotation> responseAnnots) {
+		Map<List<Span>, Integer> mentionToIdMap = new HashMap<List<Span>, Integer>();
+		int[][] keyChains = getChains(keyAnnots, mentionToIdMap);
+		int[][] responseChains = getChains(responseAnnots, mentionToIdMap);
+		return score(keyChains, responseChains, mentionToIdMap.size());
+	}
+
+	/**
+	 * @param annotations
+	 * @param mentionToIdMap
+	 *            shared between key and response so that identical mentions receive the same id
+	 * @return an array of mention ids for each IDENTITY chain
+	 */
+	private static int[][] getChains(Collection<TextAnnotation> annotations, Map<List<Span>, Integer> mentionToIdMap) {
+		List<int[]> chains = new ArrayList<int[]>();
+		for (TextAnnotation annot : annotations) {
+			if (annot.getClassMention().getMentionName()
+					.equalsIgnoreCase(CoNLLCoref2012DocumentReader.IDENTITY_CHAIN)) {
+				ComplexSlotMention csm = annot.getClassMention().getComplexSlotMentionByName(
+						CoNLLCoref2012DocumentReader.IDENTITY_CHAIN_COREFERRING_STRINGS_SLOT);
+				Set<Integer> mentionIds = new LinkedHashSet<Integer>();
+				for (ClassMention cm : csm.getClassMentions()) {
+					List<Span> spans = cm.getTextAnnotation().getSpans();
+					Integer id = mentionToIdMap.get(spans);
+					if (id == null) {
+						id = mentionToIdMap.size();
+						mentionToIdMap.put(new ArrayList<Span>(spans), id);
+					}
+					mentionIds.add(id);
+				}
+				int[] chain = new int[mentionIds.size()];
+				int i = 0;
+				for (Integer id : mentionIds) {
+					chain[i++] = id;
+				}
+				chains.add(chain);
+			}
+		}
+		return chains.toArray(new int[chains.size()][]);
+	}
+
+	/**
+	 * @param keyChains
+	 * @param responseChains
+	 * @param mentionCount
+	 *            the number of distinct mention ids used in the key and response chains
+	 * @return the scores for each metric
+	 */
+	static Map<Metric, CorefScore> score(int[][] keyChains, int[][] responseChains, int mentionCount) {
+		int[] keyChainOf = getChainMembership(keyChains, mentionCount);
+		int[] responseChainOf = getChainMembership(responseChains, mentionCount);
+
+		/* sparse intersection counts: chain index --> overlapping chain index --> overlap size */
+		List<Map<Integer, Integer>> keyOverlaps = getOverlaps(keyChains, responseChainOf);
+		List<Map<Integer, Integer>> responseOverlaps = getOverlaps(responseChains, keyChainOf);
+
+		Map<Metric, CorefScore> scores = new EnumMap<Metric, CorefScore>(Metric.class);
+		scores.put(Metric.MUC, new CorefScore(mucNumerator(keyChains, keyOverlaps), mucDenominator(keyChains),
+				mucNumerator(responseChains, responseOverlaps), mucDenominator(responseChains)));
+		scores.put(Metric.B_CUBED,
+				new CorefScore(bCubedNumerator(keyChains, keyOverlaps), mentionTotal(keyChains),
+						bCubedNumerator(responseChains, responseOverlaps), mentionTotal(responseChains)));
+		double ceafM = ceaf(keyChains, responseChains, keyOverlaps, false);
+		scores.put(Metric.CEAF_M,
+				new CorefScore(ceafM, mentionTotal(keyChains), ceafM, mentionTotal(responseChains)));
+		double ceafE = ceaf(keyChains, responseChains, keyOverlaps, true);
+		scores.put(Metric.CEAF_E, new CorefScore(ceafE, keyChains.length, ceafE, responseChains.length));
+		scores.put(Metric.BLANC, blanc(keyChains, responseChains, keyOverlaps, keyChainOf, responseChainOf));
+		return scores;
+	}
+
+	private static Map<Metric, CorefScore> createEmptyScores() {
+		Map<Metric, CorefScore> scores = new EnumMap<Metric, CorefScore>(Metric.class);
+		for (Metric metric : Metric.values()) {
+			scores.put(metric, (metric == Metric.BLANC) ? new BlancScore() : new CorefScore());
+		}
+		return scores;
+	}
+
+	/**
+	 * @return array indexed by mention id containing the index of the chain to which the mention
+	 *         belongs, or -1 if it is not a member of any chain
+	 */
+	private static int[] getChainMembership(int[][] chains, int mentionCount) {
+		int[] chainOf = new int[mentionCount];
+		Arrays.fill(chainOf, -1);
+		for (int c = 0; c < chains.length; c++) {
+			for (int mention : chains[c]) {
+				chainOf[mention] = c;
+			}
+		}
+		return chainOf;
+	}
+
+	private static List<Map<Integer, Integer>> getOverlaps(int[][] chains, int[] otherChainOf) {
+		List<Map<Integer, Integer>> overlaps = new ArrayList<Map<Integer, Integer>>(chains.length);
+		for (int[] chain : chains) {
+			Map<Integer, Integer> overlap = new HashMap<Integer, Integer>();
+			for (int mention : chain) {
+				int otherChain = otherChainOf[mention];
+				if (otherChain > -1) {
+					Integer count = overlap.get(otherChain);
+					overlap.put(otherChain, (count == null) ? 1 : count + 1);
+				}
+			}
+			overlaps.add(overlap);
+		}
+		return overlaps;
+	}
+
+	private static double mentionTotal(int[][] chains) {
+		double total = 0;
+		for (int[] chain : chains) {
+			total += chain.length;
+		}
+		return total;
+	}
+
+	/**
+	 * MUC: for each chain, the chain size minus the number of partitions of the chain induced by
+	 * the other chain set. Mentions absent from the other chain set each form their own partition.
+	 */
+	private static double mucNumerator(int[][] chains, List<Map<Integer, Integer>> overlaps) {
+		double numerator = 0;
+		for (int c = 0; c < chains.length; c++) {
+			int covered = 0;
+			for (int count : overlaps.get(c).values()) {
+				covered += count;
+			}
+			int partitions = overlaps.get(c).size() + (chains[c].length - covered);
+			numerator += chains[c].length - partitions;
+		}
+		return numerator;
+	}
+
+	private static double mucDenominator(int[][] chains) {
+		double denominator = 0;
+		for (int[] chain : chains) {
+			denominator += chain.length - 1;
+		}
+		return denominator;
+	}
+
+	private static double bCubedNumerator(int[][] chains, List<Map<Integer, Integer>> overlaps) {
+		double numerator = 0;
+		for (int c = 0; c < chains.length; c++) {
+			for (int count : overlaps.get(c).values()) {
+				numerator += (double) count * count / chains[c].length;
+			}
+		}
+		return numerator;
+	}
+
+	/**
+	 * @param entityBased
+	 *            if true, the phi_4 (entity) similarity is used, otherwise the phi_3 (mention)
+	 *            similarity
+	 * @return the total similarity of the optimal one-to-one alignment of key and response chains
+	 */
+	private static double ceaf(int[][] keyChains, int[][] responseChains, List<Map<Integer, Integer>> keyOverlaps,
+			boolean entityBased) {
+		/*
+		 * group chains into connected components of the overlap graph; chains in different
+		 * components have zero similarity so each component can be aligned independently
+		 */
+		int keyCount = keyChains.length;
+		int[] parent = new int[keyCount + responseChains.length];
+		for (int i = 0; i < parent.length; i++) {
+			parent[i] = i;
+		}
+		for (int k = 0; k < keyCount; k++) {
+			for (int r : keyOverlaps.get(k).keySet()) {
+				union(parent, k, keyCount + r);
+			}
+		}
+		Map<Integer, List<Integer>> rootToKeyChains = new HashMap<Integer, List<Integer>>();
+		Map<Integer, List<Integer>> rootToResponseChains = new HashMap<Integer, List<Integer>>();
+		for (int k = 0; k < keyCount; k++) {
+			if (!keyOverlaps.get(k).isEmpty()) {
+				addToListMap(find(parent, k), k, rootToKeyChains);
+			}
+		}
+		for (int r = 0; r < responseChains.length; r++) {
+			int root = find(parent, keyCount + r);
+			if (rootToKeyChains.containsKey(root)) {
+				addToListMap(root, r, rootToResponseChains);
+			}
+		}
+
+		double similarity = 0;
+		for (Entry<Integer, List<Integer>> entry : rootToKeyChains.entrySet()) {
+			List<Integer> keys = entry.getValue();
+			List<Integer> responses = rootToResponseChains.get(entry.getKey());
+			double[][] matrix = new double[keys.size()][responses.size()];
+			for (int i = 0; i < keys.size(); i++) {
+				int k = keys.get(i);
+				for (int j = 0; j < responses.size(); j++) {
+					int r = responses.get(j);
+					Integer overlap = keyOverlaps.get(k).get(r);
+					if (overlap != null) {
+						matrix[i][j] = (entityBased)
+								? 2.0 * overlap / (keyChains[k].length + responseChains[r].length)
+								: overlap;
+					}
+				}
+			}
+			similarity += maximumWeightAssignment(matrix);
+		}
+		return similarity;
+	}
+
+	private static void addToListMap(int key, int value, Map<Integer, List<Integer>> map) {
+		List<Integer> list = map.get(key);
+		if (list == null) {
+			list = new ArrayList<Integer>();
+			map.put(key, list);
+		}
+		list.add(value);
+	}
+
+	private static int find(int[] parent, int i) {
+		while (parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	private static void union(int[] parent, int i, int j) {
+		parent[find(parent, i)] = find(parent, j);
+	}
+
+	/**
+	 * Kuhn-Munkres (Hungarian) algorithm
+	 * 
+	 * @param weights
+	 * @return the maximum total weight of a one-to-one assignment of rows to columns
+	 */
+	static double maximumWeightAssignment(double[][] weights) {
+		if (weights.length == 0 || weights[0].length == 0) {
+			return 0;
+		}
+		/* the algorithm below requires rows <= columns */
+		if (weights.length > weights[0].length) {
+			double[][] transposed = new double[weights[0].length][weights.length];
+			for (int i = 0; i < weights.length; i++) {
+				for (int j = 0; j < weights[0].length; j++) {
+					transposed[j][i] = weights[i][j];
+				}
+			}
+			weights = transposed;
+		}
+		int n = weights.length;
+		int m = weights[0].length;
+		double[] u = new double[n + 1];
+		double[] v = new double[m + 1];
+		int[] p = new int[m + 1];
+		int[] way = new int[m + 1];
+		for (int i = 1; i <= n; i++) {
+			p[0] = i;
+			int j0 = 0;
+			double[] minv = new double[m + 1];
+			Arrays.fill(minv, Double.POSITIVE_INFINITY);
+			boolean[] used = new boolean[m + 1];
+			do {
+				used[j0] = true;
+				int i0 = p[j0];
+				double delta = Double.POSITIVE_INFINITY;
+				int j1 = 0;
+				for (int j = 1; j <= m; j++) {
+					if (!used[j]) {
+						/* costs are negated weights since the algorithm minimizes */
+						double cur = -weights[i0 - 1][j - 1] - u[i0] - v[j];
+						if (cur < minv[j]) {
+							minv[j] = cur;
+							way[j] = j0;
+						}
+						if (minv[j] < delta) {
+							delta = minv[j];
+							j1 = j;
+						}
+					}
+				}
+				for (int j = 0; j <= m; j++) {
+					if (used[j]) {
+						u[p[j]] += delta;
+						v[j] -= delta;
+					} else {
+						minv[j] -= delta;
+					}
+				}
+				j0 = j1;
+			} while (p[j0] != 0);
+			do {
+				int j1 = way[j0];
+				p[j0] = p[j1];
+				j0 = j1;
+			} while (j0 != 0);
+		}
+		double total = 0;
+		for (int j = 1; j <= m; j++) {
+			if (p[j] != 0) {
+				total += weights[p[j] - 1][j - 1];
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * BLANC as extended by Luo et al. (2014) to handle key and response mention sets that differ.
+	 * Coreference links are mention pairs in the same chain; non-coreference links are mention
+	 * pairs in different chains. Link intersections are computed from the chain overlap counts so
+	 * that mention pairs are never enumerated.
+	 */
+	private static BlancScore blanc(int[][] keyChains, int[][] responseChains,
+			List<Map<Integer, Integer>> keyOverlaps, int[] keyChainOf, int[] responseChainOf) {
+		double keyMentions = mentionTotal(keyChains);
+		double responseMentions = mentionTotal(responseChains);
+
+		double keyCorefLinks = 0;
+		for (int[] chain : keyChains) {
+			keyCorefLinks += pairs(chain.length);
+		}
+		double responseCorefLinks = 0;
+		for (int[] chain : responseChains) {
+			responseCorefLinks += pairs(chain.length);
+		}
+
+		/* links shared by a key chain and a response chain */
+		double commonCorefLinks = 0;
+		for (Map<Integer, Integer> overlap : keyOverlaps) {
+			for (int count : overlap.values()) {
+				commonCorefLinks += pairs(count);
+			}
+		}
+
+		double keyNonCorefLinks = pairs(keyMentions) - keyCorefLinks;
+		double responseNonCorefLinks = pairs(responseMentions) - responseCorefLinks;
+
+		/*
+		 * non-coreference links common to key and response are pairs of mentions present in both
+		 * that are in different key chains and in different response chains
+		 */
+		double commonMentions = 0;
+		Map<Integer, Integer> keyChainToCommonCount = new HashMap<Integer, Integer>();
+		Map<Integer, Integer> responseChainToCommonCount = new HashMap<Integer, Integer>();
+		for (int mention = 0; mention < keyChainOf.length; mention++) {
+			if (keyChainOf[mention] > -1 && responseChainOf[mention] > -1) {
+				commonMentions++;
+				increment(keyChainOf[mention], keyChainToCommonCount);
+				increment(responseChainOf[mention], responseChainToCommonCount);
+			}
+		}
+		double sameKeyChain = 0;
+		for (int count : keyChainToCommonCount.values()) {
+			sameKeyChain += pairs(count);
+		}
+		double sameResponseChain = 0;
+		for (int count : responseChainToCommonCount.values()) {
+			sameResponseChain += pairs(count);
+		}
+		double commonNonCorefLinks = pairs(commonMentions) - sameKeyChain - sameResponseChain + commonCorefLinks;
+
+		return new BlancScore(
+				new CorefScore(commonCorefLinks, keyCorefLinks, commonCorefLinks, responseCorefLinks),
+				new CorefScore(commonNonCorefLinks, keyNonCorefLinks, commonNonCorefLinks, responseNonCorefLinks));
+	}
+
+	private static void increment(int key, Map<Integer, Integer> map) {
+		Integer count = map.get(key);
+		map.put(key, (count == null) ? 1 : count + 1);
+	}
+
+	private static double pairs(double n) {
+		return n * (n - 1) / 2;
+	}
+
+	/**
+	 * @param args
+	 *            <ol>
+	 *            <li>key directory</li>
+	 *            <li>response directory</li>
+	 *            <li>txt directory</li>
+	 *            <li>optional: thread count (defaults to the number of available processors)</li>
+	 *            </ol>
+	 */
+	public static void main(String[] args) {
+		File keyDirectory = new File(args[0]);
+		File responseDirectory = new File(args[1]);
+		File txtDirectory = new File(args[2]);
+		int threadCount = (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+		try {
+			Map<String, Map<Metric, CorefScore>> documentScores = new CoNLLCoref2012Scorer(threadCount)
+					.scoreDocuments(keyDirectory, responseDirectory, txtDirectory, CharacterEncoding.UTF_8);
+			for (Entry<Metric, CorefScore> entry : aggregate(documentScores.values()).entrySet()) {
+				System.out.println(entry.getKey().name() + "\t" + entry.getValue().toString());
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Error while scoring CoNLLCoref files.", e);
+		}
+	}
+
+}
@@ -0,0 +1,217 @@
+package edu.ucdenver.ccp.file.conversion.conllcoref2012;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+/**
+ * Accumulates the recall and precision numerators and denominators for a single coreference
+ * metric. Scores for multiple documents are combined by summing these counts (micro-averaging),
+ * which is how the CoNLL-2011/12 reference scorer aggregates corpus-level results.
+ */
+public class CorefScore {
+
+	private double recallNumerator;
+	private double recallDenominator;
+	private double precisionNumerator;
+	private double precisionDenominator;
+
+	public CorefScore() {
+		this(0, 0, 0, 0);
+	}
+
+	public CorefScore(double recallNumerator, double recallDenominator, double precisionNumerator,
+			double precisionDenominator) {
+		this.recallNumerator = recallNumerator;
+		this.recallDenominator = recallDenominator;
+		this.precisionNumerator = precisionNumerator;
+		this.precisionDenominator = precisionDenominator;
+	}
+
+	/**
+	 * adds the counts from the input score to this score
+	 * 
+	 * @param score
+	 */
+	public void add(CorefScore score) {
+		recallNumerator += score.recallNumerator;
+		recallDenominator += score.recallDenominator;
+		precisionNumerator += score.precisionNumerator;
+		precisionDenominator += score.precisionDenominator;
+	}
+
+	public double getRecall() {
+		return recall();
+	}
+
+	public double getPrecision() {
+		return precision();
+	}
+
+	public double getF1() {
+		return f1(recall(), precision());
+	}
+
+	/*
+	 * the private methods below are used so that subclasses overriding the public getters do not
+	 * alter the computation of the F1 score for the counts stored in this class
+	 */
+
+	private double recall() {
+		return (recallDenominator == 0) ? 0 : recallNumerator / recallDenominator;
+	}
+
+	private double precision() {
+		return (precisionDenominator == 0) ? 0 : precisionNumerator / precisionDenominator;
+	}
+
+	public double getRecallNumerator() {
+		return recallNumerator;
+	}
+
+	public double getRecallDenominator() {
+		return recallDenominator;
+	}
+
+	public double getPrecisionNumerator() {
+		return precisionNumerator;
+	}
+
+	public double getPrecisionDenominator() {
+		return precisionDenominator;
+	}
+
+	static double f1(double recall, double precision) {
+		return (recall + precision == 0) ? 0 : 2 * recall * precision / (recall + precision);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Recall: (%.1f / %.1f) %.2f%%\tPrecision: (%.1f / %.1f) %.2f%%\tF1: %.2f%%",
+				recallNumerator, recallDenominator, recall() * 100, precisionNumerator, precisionDenominator,
+				precision() * 100, getF1() * 100);
+	}
+
+	/**
+	 * BLANC averages the scores computed over coreference links and over non-coreference links.
+	 * The coreference link counts are stored in the parent class; the non-coreference link counts
+	 * are stored separately.
+	 */
+	public static class BlancScore extends CorefScore {
+
+		private final CorefScore nonCoreferenceScore;
+
+		public BlancScore() {
+			this(new CorefScore(), new CorefScore());
+		}
+
+		public BlancScore(CorefScore coreferenceScore, CorefScore nonCoreferenceScore) {
+			super(coreferenceScore.recallNumerator, coreferenceScore.recallDenominator,
+					coreferenceScore.precisionNumerator, coreferenceScore.precisionDenominator);
+			this.nonCoreferenceScore = nonCoreferenceScore;
+		}
+
+		@Override
+		public void add(CorefScore score) {
+			super.add(score);
+			if (score instanceof BlancScore) {
+				nonCoreferenceScore.add(((BlancScore) score).nonCoreferenceScore);
+			}
+		}
+
+		public CorefScore getCoreferenceScore() {
+			return new CorefScore(getRecallNumerator(), getRecallDenominator(), getPrecisionNumerator(),
+					getPrecisionDenominator());
+		}
+
+		public CorefScore getNonCoreferenceScore() {
+			return nonCoreferenceScore;
+		}
+
+		/**
+		 * @return true if there are no coreference links in either the key or the response
+		 */
+		private boolean noCoreferenceLinks() {
+			return getRecallDenominator() == 0 && getPrecisionDenominator() == 0;
+		}
+
+		/**
+		 * @return true if there are no non-coreference links in either the key or the response
+		 */
+		private boolean noNonCoreferenceLinks() {
+			return nonCoreferenceScore.getRecallDenominator() == 0
+					&& nonCoreferenceScore.getPrecisionDenominator() == 0;
+		}
+
+		@Override
+		public double getRecall() {
+			if (noNonCoreferenceLinks()) {
+				return super.getRecall();
+			}
+			if (noCoreferenceLinks()) {
+				return nonCoreferenceScore.getRecall();
+			}
+			return (super.getRecall() + nonCoreferenceScore.getRecall()) / 2;
+		}
+
+		@Override
+		public double getPrecision() {
+			if (noNonCoreferenceLinks()) {
+				return super.getPrecision();
+			}
+			if (noCoreferenceLinks()) {
+				return nonCoreferenceScore.getPrecision();
+			}
+			return (super.getPrecision() + nonCoreferenceScore.getPrecision()) / 2;
+		}
+
+		@Override
+		public double getF1() {
+			if (noNonCoreferenceLinks()) {
+				return super.getF1();
+			}
+			if (noCoreferenceLinks()) {
+				return nonCoreferenceScore.getF1();
+			}
+			return (super.getF1() + nonCoreferenceScore.getF1()) / 2;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Recall: %.2f%%\tPrecision: %.2f%%\tF1: %.2f%%", getRecall() * 100,
+					getPrecision() * 100, getF1() * 100);
+		}
+	}
+
+}
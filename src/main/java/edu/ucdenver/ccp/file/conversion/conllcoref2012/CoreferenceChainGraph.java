@@ -0,0 +1,432 @@
+package edu.ucdenver.ccp.file.conversion.conllcoref2012;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import edu.ucdenver.ccp.common.collections.CollectionsUtil;
+import edu.ucdenver.ccp.file.conversion.conllcoref2012.CoNLLCoref2012DocumentWriter.MatchDueTo;
+import edu.ucdenver.ccp.file.conversion.diagnostics.DiagnosticEvent;
+import edu.ucdenver.ccp.file.conversion.diagnostics.DiagnosticType;
+import edu.ucdenver.ccp.file.conversion.diagnostics.Diagnostics;
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
+import edu.ucdenver.ccp.nlp.core.mention.ComplexSlotMention;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultComplexSlotMention;
+
+/**
+ * The identity chains of a single document along with an index from each chain member to the
+ * chain(s) it belongs to and an index from chain head span (the span of the first member) to
+ * chain. Both indexes are updated incrementally as members are added, removed, or replaced and as
+ * chains are merged, so the chains can be modified repeatedly without being rebuilt. Identity
+ * chain annotations are only created when the graph is exported using
+ * {@link #toIdentityChainAnnotations(TextAnnotationFactory, String)}.
+ */
+public class CoreferenceChainGraph {
+
+	/**
+	 * A single identity chain. Chains are compared by identity.
+	 */
+	public static final class Chain {
+		private final Set<TextAnnotation> members = new HashSet<TextAnnotation>();
+		private TextAnnotation head;
+
+		private Chain() {
+			// created by the graph only
+		}
+
+		/**
+		 * @return an unmodifiable view of the chain members
+		 */
+		public Set<TextAnnotation> getMembers() {
+			return Collections.unmodifiableSet(members);
+		}
+
+		/**
+		 * @return the first member of the chain in span order, or null if the chain is empty
+		 */
+		public TextAnnotation getHead() {
+			return head;
+		}
+
+		public int size() {
+			return members.size();
+		}
+	}
+
+	private final String sourceId;
+	private final Set<Chain> chains = new LinkedHashSet<Chain>();
+	private final Map<TextAnnotation, Set<Chain>> memberToChainsMap = new HashMap<TextAnnotation, Set<Chain>>();
+	private final Map<List<Span>, List<Chain>> headSpanToChainsMap = new HashMap<List<Span>, List<Chain>>();
+
+	/**
+	 * @param sourceId
+	 * @param chainMemberSets
+	 *            the members of each chain
+	 */
+	public CoreferenceChainGraph(String sourceId, Collection<? extends Collection<TextAnnotation>> chainMemberSets) {
+		this.sourceId = sourceId;
+		for (Collection<TextAnnotation> members : chainMemberSets) {
+			Chain chain = new Chain();
+			chains.add(chain);
+			for (TextAnnotation member : members) {
+				addMember(chain, member);
+			}
+		}
+	}
+
+	/**
+	 * Builds the graph from the IDENTITY chain annotations in the input collection. Missing chain
+	 * head noun phrases are created and chains with fewer than two members are excluded, see
+	 * {@link CoNLLCoref2012DocumentWriter#getCoreferenceChains(TextAnnotationFactory, String, Collection, Set)}
+	 * 
+	 * @param sourceId
+	 * @param factory
+	 * @param documentText
+	 * @param annotations
+	 * @param npAnnotations
+	 *            optional. if present then any newly created np annots are added to the set.
+	 * @return
+	 */
+	public static CoreferenceChainGraph fromIdentityChainAnnotations(String sourceId, TextAnnotationFactory factory,
+			String documentText, Collection<TextAnnotation> annotations, Set<TextAnnotation> npAnnotations) {
+		return new CoreferenceChainGraph(sourceId, CoNLLCoref2012DocumentWriter
+				.getCoreferenceChains(factory, documentText, annotations, npAnnotations).values());
+	}
+
+	public String getSourceId() {
+		return sourceId;
+	}
+
+	/**
+	 * @return an unmodifiable view of the chains in the graph
+	 */
+	public Set<Chain> getChains() {
+		return Collections.unmodifiableSet(chains);
+	}
+
+	/**
+	 * @param member
+	 * @return the chains that contain the specified annotation
+	 */
+	public Set<Chain> getChains(TextAnnotation member) {
+		Set<Chain> memberChains = memberToChainsMap.get(member);
+		return (memberChains == null) ? Collections.<Chain>emptySet() : Collections.unmodifiableSet(memberChains);
+	}
+
+	/**
+	 * @param headSpans
+	 * @return the chains whose first member has the specified spans
+	 */
+	public List<Chain> getChainsWithHead(List<Span> headSpans) {
+		List<Chain> headChains = headSpanToChainsMap.get(headSpans);
+		return (headChains == null) ? Collections.<Chain>emptyList() : Collections.unmodifiableList(headChains);
+	}
+
+	/**
+	 * @param chain
+	 * @param member
+	 * @return true if the member was not already a member of the chain
+	 */
+	public boolean addMember(Chain chain, TextAnnotation member) {
+		if (!chain.members.add(member)) {
+			return false;
+		}
+		CollectionsUtil.addToOne2ManyUniqueMap(member, chain, memberToChainsMap);
+		if (chain.head == null || TextAnnotation.BY_SPAN().compare(member, chain.head) < 0) {
+			setHead(chain, member);
+		}
+		return true;
+	}
+
+	/**
+	 * @param chain
+	 * @param member
+	 * @return true if the annotation was a member of the chain
+	 */
+	public boolean removeMember(Chain chain, TextAnnotation member) {
+		if (!chain.members.remove(member)) {
+			return false;
+		}
+		Set<Chain> memberChains = memberToChainsMap.get(member);
+		memberChains.remove(chain);
+		if (memberChains.isEmpty()) {
+			memberToChainsMap.remove(member);
+		}
+		if (chain.head.equals(member)) {
+			TextAnnotation head = null;
+			for (TextAnnotation ta : chain.members) {
+				if (head == null || TextAnnotation.BY_SPAN().compare(ta, head) < 0) {
+					head = ta;
+				}
+			}
+			setHead(chain, head);
+		}
+		return true;
+	}
+
+	/**
+	 * Replaces the annotation with another annotation in every chain that it is a member of
+	 * 
+	 * @param member
+	 * @param replacement
+	 * @return the chains that were updated
+	 */
+	public List<Chain> replaceMember(TextAnnotation member, TextAnnotation replacement) {
+		List<Chain> updatedChains = new ArrayList<Chain>(getChains(member));
+		for (Chain chain : updatedChains) {
+			removeMember(chain, member);
+			addMember(chain, replacement);
+		}
+		return updatedChains;
+	}
+
+	public void removeChain(Chain chain) {
+		for (TextAnnotation member : new ArrayList<TextAnnotation>(chain.members)) {
+			removeMember(chain, member);
+		}
+		chains.remove(chain);
+	}
+
+	/**
+	 * Removes chains that have fewer than two members
+	 * 
+	 * @return the number of chains removed
+	 */
+	public int removeSingletonChains() {
+		int count = 0;
+		for (Chain chain : new ArrayList<Chain>(chains)) {
+			if (chain.size() < 2) {
+				if (Diagnostics.isEnabled(DiagnosticType.SINGLETON_CHAIN_EXCLUDED)) {
+					Diagnostics.report(DiagnosticEvent.forAnnotations(DiagnosticType.SINGLETON_CHAIN_EXCLUDED,
+							sourceId, null, new ArrayList<TextAnnotation>(chain.members)));
+				}
+				removeChain(chain);
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Chain members that share identical spans are expected to be a Noun Phrase and an APPOS
+	 * relation annotation. For consistency the Noun Phrase is replaced by the APPOS annotation in
+	 * every chain. Chains that then share a member are merged (transitively) into a single chain.
+	 * 
+	 * @param matchDueTo
+	 * @return the number of chains removed by merging
+	 */
+	public int mergeChainsWithSharedMembers(MatchDueTo matchDueTo) {
+		/* replace Noun Phrase chain members with APPOS chain members that have identical spans */
+		Map<List<Span>, Set<TextAnnotation>> spanToMembersMap = new HashMap<List<Span>, Set<TextAnnotation>>();
+		for (TextAnnotation member : memberToChainsMap.keySet()) {
+			CollectionsUtil.addToOne2ManyUniqueMap(member.getSpans(), member, spanToMembersMap);
+		}
+		for (Set<TextAnnotation> members : spanToMembersMap.values()) {
+			if (members.size() > 1) {
+				if (members.size() > 2) {
+					throw new IllegalStateException(
+							"Did not expect more than 2 annotations here. Expected 1 Noun Phrase and 1 Appos with identical spans.");
+				}
+				TextAnnotation npAnnot = CoNLLCoref2012DocumentWriter.getNpAnnot(members);
+				TextAnnotation apposAnnot = CoNLLCoref2012DocumentWriter.getApposAnnot(members);
+				List<Chain> swappedChains = replaceMember(npAnnot, apposAnnot);
+				if (Diagnostics.isEnabled(DiagnosticType.NOUN_PHRASE_REPLACED_BY_APPOS)) {
+					Diagnostics.report(DiagnosticEvent.forGroups(DiagnosticType.NOUN_PHRASE_REPLACED_BY_APPOS,
+							sourceId, null, CollectionsUtil.createList(npAnnot, apposAnnot), toMemberSets(swappedChains)));
+				}
+			}
+		}
+
+		/* union chains that share a member */
+		Map<Chain, Chain> parentMap = new IdentityHashMap<Chain, Chain>();
+		Map<Chain, List<TextAnnotation>> rootToSharedMembersMap = new IdentityHashMap<Chain, List<TextAnnotation>>();
+		for (Entry<TextAnnotation, Set<Chain>> entry : memberToChainsMap.entrySet()) {
+			if (entry.getValue().size() > 1) {
+				Chain root = null;
+				for (Chain chain : entry.getValue()) {
+					Chain chainRoot = find(parentMap, chain);
+					if (root == null) {
+						root = chainRoot;
+					} else if (chainRoot != root) {
+						parentMap.put(chainRoot, root);
+						List<TextAnnotation> shared = rootToSharedMembersMap.remove(chainRoot);
+						if (shared != null) {
+							addSharedMembers(rootToSharedMembersMap, root, shared);
+						}
+					}
+				}
+				addSharedMembers(rootToSharedMembersMap, root, Collections.singletonList(entry.getKey()));
+			}
+		}
+		if (parentMap.isEmpty()) {
+			return 0;
+		}
+
+		/* group chains by root, preserving chain order */
+		Map<Chain, List<Chain>> rootToChainsMap = new LinkedHashMap<Chain, List<Chain>>();
+		for (Chain chain : chains) {
+			Chain root = find(parentMap, chain);
+			if (rootToSharedMembersMap.containsKey(root)) {
+				List<Chain> component = rootToChainsMap.get(root);
+				if (component == null) {
+					component = new ArrayList<Chain>();
+					rootToChainsMap.put(root, component);
+				}
+				component.add(chain);
+			}
+		}
+
+		int mergeCount = 0;
+		for (Entry<Chain, List<Chain>> entry : rootToChainsMap.entrySet()) {
+			List<Chain> component = entry.getValue();
+			if (Diagnostics.isEnabled(DiagnosticType.CHAINS_MERGED)) {
+				Diagnostics.report(DiagnosticEvent.forGroups(DiagnosticType.CHAINS_MERGED, sourceId,
+						(matchDueTo == MatchDueTo.SPAN_TO_TOKEN_BOUNDARY_MATCH)
+								? "caused by matching spans to token boundaries" : null,
+						rootToSharedMembersMap.get(entry.getKey()), toMemberSets(component)));
+			}
+			Chain mergedChain = component.get(0);
+			for (Chain chain : component.subList(1, component.size())) {
+				for (TextAnnotation member : new ArrayList<TextAnnotation>(chain.members)) {
+					addMember(mergedChain, member);
+				}
+				removeChain(chain);
+				mergeCount++;
+			}
+		}
+		return mergeCount;
+	}
+
+	private static Chain find(Map<Chain, Chain> parentMap, Chain chain) {
+		Chain root = chain;
+		while (parentMap.containsKey(root)) {
+			root = parentMap.get(root);
+		}
+		/* path compression */
+		while (chain != root) {
+			Chain parent = parentMap.get(chain);
+			parentMap.put(chain, root);
+			chain = parent;
+		}
+		return root;
+	}
+
+	private static void addSharedMembers(Map<Chain, List<TextAnnotation>> rootToSharedMembersMap, Chain root,
+			List<TextAnnotation> shared) {
+		List<TextAnnotation> rootShared = rootToSharedMembersMap.get(root);
+		if (rootShared == null) {
+			rootShared = new ArrayList<TextAnnotation>();
+			rootToSharedMembersMap.put(root, rootShared);
+		}
+		rootShared.addAll(shared);
+	}
+
+	/**
+	 * @return a snapshot of the members of each chain
+	 */
+	public Set<Set<TextAnnotation>> toMemberSets() {
+		return new HashSet<Set<TextAnnotation>>(toMemberSets(chains));
+	}
+
+	private static List<Set<TextAnnotation>> toMemberSets(Collection<Chain> chains) {
+		List<Set<TextAnnotation>> memberSets = new ArrayList<Set<TextAnnotation>>();
+		for (Chain chain : chains) {
+			memberSets.add(new HashSet<TextAnnotation>(chain.members));
+		}
+		return memberSets;
+	}
+
+	/**
+	 * @param factory
+	 * @param documentText
+	 * @return an IDENTITY chain annotation for each chain in the graph. Each chain annotation spans
+	 *         its first member and its coreferring strings slot is filled with the members in span
+	 *         order.
+	 */
+	public Set<TextAnnotation> toIdentityChainAnnotations(TextAnnotationFactory factory, String documentText) {
+		Set<TextAnnotation> identityChainAnnots = new HashSet<TextAnnotation>();
+		for (Chain chain : chains) {
+			List<TextAnnotation> taList = new ArrayList<TextAnnotation>(chain.members);
+			Collections.sort(taList, TextAnnotation.BY_SPAN());
+			TextAnnotation identChainAnnot = factory.createAnnotation(taList.get(0).getSpans(), documentText,
+					new DefaultClassMention(CoNLLCoref2012DocumentReader.IDENTITY_CHAIN));
+
+			ComplexSlotMention csm = new DefaultComplexSlotMention(
+					CoNLLCoref2012DocumentReader.IDENTITY_CHAIN_COREFERRING_STRINGS_SLOT);
+			identChainAnnot.getClassMention().addComplexSlotMention(csm);
+
+			for (TextAnnotation chainMember : taList) {
+				csm.addClassMention(chainMember.getClassMention());
+			}
+			identityChainAnnots.add(identChainAnnot);
+		}
+		return identityChainAnnots;
+	}
+
+	private void setHead(Chain chain, TextAnnotation head) {
+		if (chain.head != null) {
+			List<Chain> headChains = headSpanToChainsMap.get(chain.head.getSpans());
+			headChains.remove(chain);
+			if (headChains.isEmpty()) {
+				headSpanToChainsMap.remove(chain.head.getSpans());
+			}
+		}
+		chain.head = head;
+		if (head != null) {
+			List<Chain> headChains = headSpanToChainsMap.get(head.getSpans());
+			if (headChains == null) {
+				headChains = new ArrayList<Chain>(1);
+				headSpanToChainsMap.put(new ArrayList<Span>(head.getSpans()), headChains);
+			}
+			headChains.add(chain);
+		}
+	}
+
+}
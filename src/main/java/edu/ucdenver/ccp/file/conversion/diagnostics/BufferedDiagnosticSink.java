@@ -0,0 +1,80 @@
+package edu.ucdenver.ccp.file.conversion.diagnostics;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Renders events of the specified types into an in-memory buffer using the same format as the
+ * {@link LoggerDiagnosticSink}; events of other types are passed to a delegate sink. Intended for
+ * collecting the events for a single document so that they can be written out later, e.g. as part
+ * of a per-document report.
+ */
+public class BufferedDiagnosticSink implements DiagnosticSink {
+
+	private final StringBuffer buffer;
+	private final Set<DiagnosticType> bufferedTypes;
+	private final DiagnosticSink delegate;
+
+	/**
+	 * @param buffer
+	 * @param bufferedTypes
+	 * @param delegate
+	 *            receives events that are not of a buffered type
+	 */
+	public BufferedDiagnosticSink(StringBuffer buffer, Set<DiagnosticType> bufferedTypes, DiagnosticSink delegate) {
+		this.buffer = buffer;
+		this.bufferedTypes = (bufferedTypes.isEmpty()) ? EnumSet.noneOf(DiagnosticType.class)
+				: EnumSet.copyOf(bufferedTypes);
+		this.delegate = delegate;
+	}
+
+	@Override
+	public boolean isEnabled(DiagnosticType type) {
+		return bufferedTypes.contains(type) || delegate.isEnabled(type);
+	}
+
+	@Override
+	public void report(DiagnosticEvent event) {
+		if (bufferedTypes.contains(event.getType())) {
+			buffer.append(LoggerDiagnosticSink.toLogString(event) + "\n\n");
+		} else {
+			delegate.report(event);
+		}
+	}
+
+}
@@ -0,0 +1,81 @@
+package edu.ucdenver.ccp.file.conversion.diagnostics;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts events by type. Counting is contention-free under parallel load.
+ */
+public class CountingDiagnosticSink implements DiagnosticSink {
+
+	private final Map<DiagnosticType, LongAdder> typeToCountMap = new EnumMap<DiagnosticType, LongAdder>(
+			DiagnosticType.class);
+
+	public CountingDiagnosticSink() {
+		for (DiagnosticType type : DiagnosticType.values()) {
+			typeToCountMap.put(type, new LongAdder());
+		}
+	}
+
+	@Override
+	public boolean isEnabled(DiagnosticType type) {
+		return true;
+	}
+
+	@Override
+	public void report(DiagnosticEvent event) {
+		typeToCountMap.get(event.getType()).increment();
+	}
+
+	public long getCount(DiagnosticType type) {
+		return typeToCountMap.get(type).sum();
+	}
+
+	/**
+	 * @return a snapshot of the current counts
+	 */
+	public Map<DiagnosticType, Long> getCounts() {
+		Map<DiagnosticType, Long> counts = new EnumMap<DiagnosticType, Long>(DiagnosticType.class);
+		for (DiagnosticType type : DiagnosticType.values()) {
+			counts.put(type, getCount(type));
+		}
+		return counts;
+	}
+
+}
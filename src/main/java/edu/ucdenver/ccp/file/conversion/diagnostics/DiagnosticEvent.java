@@ -0,0 +1,96 @@
+package edu.ucdenver.ccp.file.conversion.diagnostics;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import lombok.Data;
+
+/**
+ * A single diagnostic event. Events hold references to the spans and annotations involved; any
+ * rendering of those objects to text is left to the {@link DiagnosticSink} so that constructing an
+ * event is cheap.
+ */
+@Data
+public class DiagnosticEvent {
+	private final DiagnosticType type;
+	private final String sourceId;
+	/**
+	 * short free-text detail, e.g. the reason for a curated change. Callers should only pass
+	 * strings that are already available, not strings built specifically for the event.
+	 */
+	private final String detail;
+	private final List<Span> spans;
+	private final List<TextAnnotation> annotations;
+	/**
+	 * groups of related annotations, e.g. the chains that were merged
+	 */
+	private final List<? extends Collection<TextAnnotation>> annotationGroups;
+
+	public DiagnosticEvent(DiagnosticType type, String sourceId, String detail, List<Span> spans,
+			List<TextAnnotation> annotations, List<? extends Collection<TextAnnotation>> annotationGroups) {
+		this.type = type;
+		this.sourceId = sourceId;
+		this.detail = detail;
+		this.spans = (spans == null) ? Collections.<Span>emptyList() : spans;
+		this.annotations = (annotations == null) ? Collections.<TextAnnotation>emptyList() : annotations;
+		this.annotationGroups = (annotationGroups == null) ? Collections.<Collection<TextAnnotation>>emptyList()
+				: annotationGroups;
+	}
+
+	public static DiagnosticEvent forSpans(DiagnosticType type, String sourceId, List<Span> spans) {
+		return new DiagnosticEvent(type, sourceId, null, spans, null, null);
+	}
+
+	public static DiagnosticEvent forAnnotations(DiagnosticType type, String sourceId, String detail,
+			List<TextAnnotation> annotations) {
+		return new DiagnosticEvent(type, sourceId, detail, null, annotations, null);
+	}
+
+	public static DiagnosticEvent forAnnotation(DiagnosticType type, String sourceId, String detail,
+			TextAnnotation annotation) {
+		return new DiagnosticEvent(type, sourceId, detail, null, Collections.singletonList(annotation), null);
+	}
+
+	public static DiagnosticEvent forGroups(DiagnosticType type, String sourceId, String detail,
+			List<TextAnnotation> annotations, List<? extends Collection<TextAnnotation>> annotationGroups) {
+		return new DiagnosticEvent(type, sourceId, detail, null, annotations, annotationGroups);
+	}
+}
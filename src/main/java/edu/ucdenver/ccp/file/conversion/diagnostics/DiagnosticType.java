@@ -0,0 +1,79 @@
+package edu.ucdenver.ccp.file.conversion.diagnostics;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import org.apache.log4j.Level;
+
+/**
+ * The kinds of events reported while converting and cleaning annotations. Each type has a default
+ * log level that is used by the {@link LoggerDiagnosticSink}.
+ */
+public enum DiagnosticType {
+	SPANS_CONSOLIDATED("Consolidating overlapping spans", Level.WARN),
+	SPANS_SPLICED("Splicing adjacent discontinuous spans", Level.WARN),
+	ANNOTATION_TRIMMED("Detected leading or trailing whitespace for annotation", Level.INFO),
+	BLANK_ANNOTATION_REMOVED("Detected BLANK annotation", Level.INFO),
+	REDUNDANT_CHAIN_MEMBER_REMOVED("Observed redundant annotation in single chain... removing it", Level.INFO),
+	SINGLETON_CHAIN_EXCLUDED("Excluding IDENT chain of length 1", Level.INFO),
+	NOUN_PHRASE_INFERRED("Creating missing Noun Phrase annotation inferred from coreference annotation", Level.INFO),
+	NOUN_PHRASE_REPLACED_BY_APPOS("Swapping Noun Phrase for APPOS annotation in identity chain(s)", Level.INFO),
+	CHAINS_MERGED("Merging chains based on shared coreferring string", Level.INFO),
+	CURATED_CHAIN_ADDITION("Curated addition of annotation to IDENTITY chain", Level.INFO),
+	CURATED_CHAIN_REMOVAL("Curated removal of annotation from IDENTITY chain", Level.INFO),
+	APPOS_HEAD_INFERRED("Auto-populating APPOS Head slot with noun phrase", Level.INFO),
+	APPOS_RELATION_EXCLUDED("Excluding APPOS relation", Level.INFO),
+	CROSS_DIVISION_ANNOTATION_EXCLUDED("Excluding annotation that crosses a document division boundary", Level.WARN),
+	CROSS_DIVISION_RELATION_EXCLUDED("Excluding relation between annotations in different document divisions",
+			Level.WARN),
+	CROSS_TRACK_RELATION_EXCLUDED("Excluding relation between annotations of different annotation tracks",
+			Level.WARN);
+
+	private final String description;
+	private final Level level;
+
+	private DiagnosticType(String description, Level level) {
+		this.description = description;
+		this.level = level;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public Level getLevel() {
+		return level;
+	}
+}
@@ -0,0 +1,116 @@
+package edu.ucdenver.ccp.file.conversion.diagnostics;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+/**
+ * Entry point for reporting diagnostic events. The active sink is shared by all threads and
+ * defaults to a {@link LoggerDiagnosticSink}; it can be overridden for a single thread using
+ * {@link #setThreadSink(DiagnosticSink)}. Events should be reported using the pattern below
+ * so that no event objects or strings are created when the event type is disabled:
+ * 
+ * <pre>
+ * if (Diagnostics.isEnabled(DiagnosticType.SPANS_SPLICED)) {
+ * 	Diagnostics.report(DiagnosticEvent.forSpans(DiagnosticType.SPANS_SPLICED, sourceId, spans));
+ * }
+ * </pre>
+ */
+public class Diagnostics {
+
+	private static volatile DiagnosticSink sink = new LoggerDiagnosticSink();
+	private static final ThreadLocal<DiagnosticSink> threadSink = new ThreadLocal<DiagnosticSink>();
+
+	private Diagnostics() {
+		// static utility class
+	}
+
+	public static DiagnosticSink getSink() {
+		return sink;
+	}
+
+	/**
+	 * @param diagnosticSink
+	 *            the sink to use; if null, all events are disabled
+	 */
+	public static void setSink(DiagnosticSink diagnosticSink) {
+		sink = (diagnosticSink == null) ? NoOpDiagnosticSink.INSTANCE : diagnosticSink;
+	}
+
+	/**
+	 * Overrides the shared sink for the current thread, e.g. to collect the events for the
+	 * document being processed by a worker thread
+	 * 
+	 * @param diagnosticSink
+	 *            the sink to use for the current thread; if null, the shared sink is used
+	 */
+	public static void setThreadSink(DiagnosticSink diagnosticSink) {
+		if (diagnosticSink == null) {
+			threadSink.remove();
+		} else {
+			threadSink.set(diagnosticSink);
+		}
+	}
+
+	private static DiagnosticSink getActiveSink() {
+		DiagnosticSink diagnosticSink = threadSink.get();
+		return (diagnosticSink == null) ? sink : diagnosticSink;
+	}
+
+	public static boolean isEnabled(DiagnosticType type) {
+		return getActiveSink().isEnabled(type);
+	}
+
+	public static void report(DiagnosticEvent event) {
+		getActiveSink().report(event);
+	}
+
+	/**
+	 * disables all diagnostic events
+	 */
+	static final class NoOpDiagnosticSink implements DiagnosticSink {
+		static final NoOpDiagnosticSink INSTANCE = new NoOpDiagnosticSink();
+
+		@Override
+		public boolean isEnabled(DiagnosticType type) {
+			return false;
+		}
+
+		@Override
+		public void report(DiagnosticEvent event) {
+			// do nothing
+		}
+	}
+
+}
@@ -0,0 +1,138 @@
+package edu.ucdenver.ccp.file.conversion.diagnostics;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+
+/**
+ * Writes each event as a single line of JSON. Writes are synchronized on the sink; the caller is
+ * responsible for closing the underlying writer.
+ */
+public class JsonLinesDiagnosticSink implements DiagnosticSink {
+
+	private final Writer writer;
+	private final Set<DiagnosticType> enabledTypes;
+	private final Gson gson = new Gson();
+
+	/**
+	 * @param writer
+	 *            all event types are written
+	 */
+	public JsonLinesDiagnosticSink(Writer writer) {
+		this(writer, EnumSet.allOf(DiagnosticType.class));
+	}
+
+	public JsonLinesDiagnosticSink(Writer writer, Set<DiagnosticType> enabledTypes) {
+		this.writer = writer;
+		this.enabledTypes = EnumSet.copyOf(enabledTypes);
+	}
+
+	@Override
+	public boolean isEnabled(DiagnosticType type) {
+		return enabledTypes.contains(type);
+	}
+
+	@Override
+	public void report(DiagnosticEvent event) {
+		String json = gson.toJson(toJson(event));
+		synchronized (this) {
+			try {
+				writer.write(json);
+				writer.write("\n");
+			} catch (IOException e) {
+				throw new IllegalStateException("Error while writing diagnostic event.", e);
+			}
+		}
+	}
+
+	static JsonObject toJson(DiagnosticEvent event) {
+		JsonObject json = new JsonObject();
+		json.addProperty("type", event.getType().name());
+		json.addProperty("sourceid", event.getSourceId());
+		if (event.getDetail() != null) {
+			json.addProperty("detail", event.getDetail());
+		}
+		if (!event.getSpans().isEmpty()) {
+			json.add("spans", toJson(event.getSpans()));
+		}
+		if (!event.getAnnotations().isEmpty()) {
+			json.add("annotations", toJson(event.getAnnotations()));
+		}
+		if (!event.getAnnotationGroups().isEmpty()) {
+			JsonArray groups = new JsonArray();
+			for (Collection<TextAnnotation> group : event.getAnnotationGroups()) {
+				groups.add(toJson(group));
+			}
+			json.add("groups", groups);
+		}
+		return json;
+	}
+
+	private static JsonArray toJson(Collection<TextAnnotation> annotations) {
+		JsonArray array = new JsonArray();
+		for (TextAnnotation ta : annotations) {
+			JsonObject annot = new JsonObject();
+			annot.addProperty("type", ta.getClassMention().getMentionName());
+			annot.add("spans", toJson(ta.getSpans()));
+			annot.addProperty("text", ta.getCoveredText());
+			array.add(annot);
+		}
+		return array;
+	}
+
+	private static JsonArray toJson(Iterable<Span> spans) {
+		JsonArray array = new JsonArray();
+		for (Span span : spans) {
+			JsonArray spanArray = new JsonArray();
+			spanArray.add(span.getSpanStart());
+			spanArray.add(span.getSpanEnd());
+			array.add(spanArray);
+		}
+		return array;
+	}
+
+}
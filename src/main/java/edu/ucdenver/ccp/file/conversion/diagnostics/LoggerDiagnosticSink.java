@@ -0,0 +1,104 @@
+package edu.ucdenver.ccp.file.conversion.diagnostics;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import edu.ucdenver.ccp.file.conversion.conllcoref2012.CoNLLCoref2012DocumentWriter;
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+
+/**
+ * Writes events to a log4j logger, each at the default level of its {@link DiagnosticType}. Event
+ * types are only enabled if the logger is enabled for their level, so the (potentially large) log
+ * strings are never built when the level is turned off.
+ */
+public class LoggerDiagnosticSink implements DiagnosticSink {
+
+	private final Logger logger;
+
+	public LoggerDiagnosticSink() {
+		this(Logger.getLogger(Diagnostics.class));
+	}
+
+	public LoggerDiagnosticSink(Logger logger) {
+		this.logger = logger;
+	}
+
+	@Override
+	public boolean isEnabled(DiagnosticType type) {
+		return logger.isEnabledFor(type.getLevel());
+	}
+
+	@Override
+	public void report(DiagnosticEvent event) {
+		logger.log(event.getType().getLevel(), toLogString(event));
+	}
+
+	static String toLogString(DiagnosticEvent event) {
+		StringBuffer sb = new StringBuffer();
+		sb.append("#### " + event.getType().getDescription() + " (" + event.getSourceId() + ")");
+		if (event.getDetail() != null) {
+			sb.append(" -- " + event.getDetail());
+		}
+		if (!event.getSpans().isEmpty()) {
+			sb.append(" : ");
+			for (int i = 0; i < event.getSpans().size(); i++) {
+				Span span = event.getSpans().get(i);
+				sb.append(((i > 0) ? " + " : "") + span.toString());
+			}
+		}
+		for (TextAnnotation ta : event.getAnnotations()) {
+			sb.append("\n" + CoNLLCoref2012DocumentWriter.toLogString(ta));
+		}
+		int groupCount = 0;
+		for (Collection<TextAnnotation> group : event.getAnnotationGroups()) {
+			List<TextAnnotation> taList = new ArrayList<TextAnnotation>(group);
+			Collections.sort(taList, TextAnnotation.BY_SPAN());
+			for (TextAnnotation ta : taList) {
+				sb.append("\n> chain " + groupCount + " -- " + CoNLLCoref2012DocumentWriter.toLogString(ta));
+			}
+			groupCount++;
+		}
+		return sb.toString();
+	}
+
+}
@@ -33,52 +33,31 @@ package edu.ucdenver.ccp.file.conversion.knowtator;
  * OF THE POSSIBILITY OF SUCH DAMAGE.
  * #L%
  */
-
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
-
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBElement;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
-import javax.xml.stream.EventFilter;
-import javax.xml.stream.XMLEventReader;
-import javax.xml.stream.XMLInputFactory;
+
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamReader;
 
-import edu.ucdenver.ccp.common.collections.CollectionsUtil;
 import edu.ucdenver.ccp.common.file.CharacterEncoding;
 import edu.ucdenver.ccp.common.io.StreamUtil;
 import edu.ucdenver.ccp.file.conversion.DocumentReader;
 import edu.ucdenver.ccp.file.conversion.TextDocument;
 import edu.ucdenver.ccp.file.conversion.util.DocumentReaderUtil;
-import edu.ucdenver.ccp.knowtator.Annotation;
-import edu.ucdenver.ccp.knowtator.Annotations;
-import edu.ucdenver.ccp.knowtator.Annotator;
-import edu.ucdenver.ccp.knowtator.ClassMention;
-import edu.ucdenver.ccp.knowtator.ComplexSlotMention;
-import edu.ucdenver.ccp.knowtator.ComplexSlotMentionValue;
-import edu.ucdenver.ccp.knowtator.HasSlotMention;
-import edu.ucdenver.ccp.knowtator.Mention;
-import edu.ucdenver.ccp.knowtator.MentionClass;
-import edu.ucdenver.ccp.knowtator.MentionSlot;
-import edu.ucdenver.ccp.knowtator.Span;
-import edu.ucdenver.ccp.knowtator.StringSlotMention;
+import edu.ucdenver.ccp.file.conversion.util.XmlUtil;
+import edu.ucdenver.ccp.nlp.core.annotation.Annotator;
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
-import edu.ucdenver.ccp.nlp.core.mention.PrimitiveSlotMention;
 import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
 import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultComplexSlotMention;
-import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultPrimitiveSlotMentionFactory;
 import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultStringSlotMention;
 
 public class KnowtatorDocumentReader extends DocumentReader {
@@ -92,145 +71,333 @@ public class KnowtatorDocumentReader extends DocumentReader {
 			List<TextAnnotation> annotations = getAnnotations(inputStream);
 			DocumentReaderUtil.validateSpans(annotations, documentText, sourceId);
 			td.addAnnotations(annotations);
-		} catch (XMLStreamException | JAXBException e) {
-			throw new IOException("Error while reading Knowtator2 file.", e);
+		} catch (XMLStreamException e) {
+			throw new IOException("Error while reading Knowtator file.", e);
 		}
 		return td;
 	}
 
-	public static List<TextAnnotation> getAnnotations(InputStream knowtatorStream)
-			throws XMLStreamException, JAXBException, FileNotFoundException {
+	/**
+	 * Streams through the Knowtator XML using a StAX cursor. Annotations, class mentions and slot
+	 * mentions are recorded as their elements are encountered; the id references between them
+	 * (annotation to class mention, class mention to slot mention, complex slot mention to class
+	 * mention) are resolved once the end of the file has been reached as the Knowtator format lists
+	 * all annotations prior to any of the mentions they reference. References to ids that do not
+	 * resolve to a mention are skipped. Mention ids are interned into a {@link MentionTable} as they
+	 * are read so that annotations and slot references are tracked by int index rather than by id
+	 * string.
+	 * 
+	 * @param knowtatorStream
+	 * @return the annotations in the order they appear in the Knowtator file
+	 * @throws XMLStreamException
+	 */
+	public static List<TextAnnotation> getAnnotations(InputStream knowtatorStream) throws XMLStreamException {
+		XMLStreamReader reader = XmlUtil.getInputFactory().createXMLStreamReader(knowtatorStream);
+		try {
+			return getAnnotations(reader);
+		} finally {
+			reader.close();
+		}
+	}
 
-		Class<?> entryClass = Annotations.class;
-		JAXBContext ctx = JAXBContext.newInstance(entryClass);
-		Unmarshaller um = ctx.createUnmarshaller();
-		XMLInputFactory xmlif = XMLInputFactory.newInstance();
-		XMLEventReader xmler = xmlif.createXMLEventReader(knowtatorStream);
-		EventFilter filter = new EventFilter() {
-			public boolean accept(XMLEvent event) {
-				return event.isStartElement();
-			}
-		};
-		XMLEventReader xmlfer = xmlif.createFilteredReader(xmler, filter);
-		// StartElement e = (StartElement) xmlfer.nextEvent();
+	private static List<TextAnnotation> getAnnotations(XMLStreamReader reader) throws XMLStreamException {
+		String textSource = null;
+		List<AnnotationRecord> annotationRecords = new ArrayList<AnnotationRecord>();
 
-		List<TextAnnotation> annotationsToReturn = new ArrayList<TextAnnotation>();
+		MentionTable mentionTable = new MentionTable();
 
-		Map<String, Set<String>> csmIdToValueMap = new HashMap<String, Set<String>>();
-		Map<String, Set<String>> cmIdToValueMap = new HashMap<String, Set<String>>();
-
-		Map<String, DefaultClassMention> cmIdToCmMap = new HashMap<String, DefaultClassMention>();
-		Map<String, DefaultComplexSlotMention> csmIdToCsmMap = new HashMap<String, DefaultComplexSlotMention>();
-		Map<String, DefaultStringSlotMention> ssmIdToSsmMap = new HashMap<String, DefaultStringSlotMention>();
-
-		while (xmlfer.peek() != null) {
-			JAXBElement<?> unmarshalledElement = um.unmarshal(xmler, entryClass);
-			Object o = unmarshalledElement.getValue();
-
-			if (Annotations.class.isInstance(o)) {
-				Annotations a = (Annotations) o;
-
-				for (Object mention : a.getClassMentionOrComplexSlotMentionOrStringSlotMention()) {
-					if (ComplexSlotMention.class.isInstance(mention)) {
-						ComplexSlotMention csm = (ComplexSlotMention) mention;
-						List<ComplexSlotMentionValue> complexSlotMentionValues = csm.getComplexSlotMentionValue();
-						String id = csm.getId();
-						MentionSlot mentionSlot = csm.getMentionSlot();
-						String id2 = mentionSlot.getId();
-
-						csmIdToCsmMap.put(id, new DefaultComplexSlotMention(id2));
-						for (ComplexSlotMentionValue csmv : complexSlotMentionValues) {
-							String value = csmv.getValue();
-							CollectionsUtil.addToOne2ManyUniqueMap(id, value, csmIdToValueMap);
-						}
-					} else if (StringSlotMention.class.isInstance(mention)) {
-						StringSlotMention ssm = (StringSlotMention) mention;
-						String id = ssm.getId();
-						String slotName = ssm.getMentionSlot().getId();
-						String slotValue = ssm.getStringSlotMentionValue().getValue();
-						DefaultStringSlotMention dssm = new DefaultStringSlotMention(slotName);
-						dssm.addSlotValue(slotValue);
-						ssmIdToSsmMap.put(id, dssm);
-					} else if (ClassMention.class.isInstance(mention)) {
-						ClassMention cm = (ClassMention) mention;
-						String id = cm.getId();
-						MentionClass mentionClass = cm.getMentionClass();
-						List<HasSlotMention> hasSlotMention = cm.getHasSlotMention();
-						String content = mentionClass.getContent();
-						String id2 = mentionClass.getId();
-
-						DefaultClassMention dcm = new DefaultClassMention(id2);
-						cmIdToCmMap.put(id, dcm);
-						for (HasSlotMention hsm : hasSlotMention) {
-							String id3 = hsm.getId();
-							CollectionsUtil.addToOne2ManyUniqueMap(id, id3, cmIdToValueMap);
-						}
-					} else {
-						throw new IllegalArgumentException(
-								"Unhandled slot mention type: " + mention.getClass().getName());
-					}
-				}
+		/* the annotation element currently being read, or null if not within an annotation element */
+		AnnotationRecord annotationRecord = null;
 
-				/* add CMs to CSMs as slot values */
-				for (Entry<String, Set<String>> entry : csmIdToValueMap.entrySet()) {
-					DefaultComplexSlotMention dcsm = csmIdToCsmMap.get(entry.getKey());
-					for (String cmId : entry.getValue()) {
-						DefaultClassMention dcm = cmIdToCmMap.get(cmId);
-						dcsm.addClassMention(dcm);
-					}
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("annotation")) {
+				annotationRecord = null;
+				continue;
+			}
+			if (event != XMLStreamConstants.START_ELEMENT) {
+				continue;
+			}
+			switch (reader.getLocalName()) {
+			case "annotations":
+				textSource = reader.getAttributeValue(null, "textSource");
+				break;
+			case "annotation":
+				annotationRecord = new AnnotationRecord();
+				annotationRecords.add(annotationRecord);
+				break;
+			case "mention":
+				checkWithinAnnotation(annotationRecord, reader);
+				annotationRecord.mentionIndex = mentionTable.intern(reader.getAttributeValue(null, "id"));
+				break;
+			case "annotator":
+				checkWithinAnnotation(annotationRecord, reader);
+				annotationRecord.annotatorId = reader.getAttributeValue(null, "id");
+				annotationRecord.annotatorName = reader.getElementText();
+				break;
+			case "span":
+				checkWithinAnnotation(annotationRecord, reader);
+				annotationRecord.addSpan(Integer.parseInt(reader.getAttributeValue(null, "start")),
+						Integer.parseInt(reader.getAttributeValue(null, "end")));
+				break;
+			case "spannedText":
+				checkWithinAnnotation(annotationRecord, reader);
+				annotationRecord.spannedText = reader.getElementText();
+				break;
+			case "classMention":
+				readClassMention(reader, mentionTable);
+				break;
+			case "complexSlotMention":
+				readComplexSlotMention(reader, mentionTable);
+				break;
+			case "stringSlotMention":
+				readStringSlotMention(reader, mentionTable);
+				break;
+			default:
+				/* creationDate is not used */
+				break;
+			}
+		}
+
+		/* add CMs to CSMs as slot values */
+		for (int index = 0; index < mentionTable.size(); index++) {
+			DefaultComplexSlotMention dcsm = mentionTable.getMention(index, DefaultComplexSlotMention.class);
+			if (dcsm == null) {
+				continue;
+			}
+			for (int i = 0; i < mentionTable.referenceCounts[index]; i++) {
+				DefaultClassMention dcm = mentionTable.getMention(mentionTable.references[index][i],
+						DefaultClassMention.class);
+				if (dcm != null) {
+					dcsm.addClassMention(dcm);
 				}
+			}
+		}
 
-				/* add CSMs and SSMs as slots to CMs */
-				for (Entry<String, Set<String>> entry : cmIdToValueMap.entrySet()) {
-					DefaultClassMention dcm = cmIdToCmMap.get(entry.getKey());
-					for (String csmOrSsmId : entry.getValue()) {
-						if (csmIdToCsmMap.containsKey(csmOrSsmId)) {
-						DefaultComplexSlotMention dcsm = csmIdToCsmMap.get(csmOrSsmId);
-						dcm.addComplexSlotMention(dcsm);
-						} else {
-							DefaultStringSlotMention dssm = ssmIdToSsmMap.get(csmOrSsmId);
-							dcm.addPrimitiveSlotMention(dssm);
-						}
-					}
+		/* add CSMs and SSMs as slots to CMs */
+		for (int index = 0; index < mentionTable.size(); index++) {
+			DefaultClassMention dcm = mentionTable.getMention(index, DefaultClassMention.class);
+			if (dcm == null) {
+				continue;
+			}
+			for (int i = 0; i < mentionTable.referenceCounts[index]; i++) {
+				Object slotMention = mentionTable.mentions[mentionTable.references[index][i]];
+				if (slotMention instanceof DefaultComplexSlotMention) {
+					dcm.addComplexSlotMention((DefaultComplexSlotMention) slotMention);
+				} else if (slotMention instanceof DefaultStringSlotMention) {
+					dcm.addPrimitiveSlotMention((DefaultStringSlotMention) slotMention);
 				}
+			}
+		}
 
-				/* now create annotations and link to appropriate CM */
-				TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults(a.getTextSource());
-				for (Annotation annot : a.getAnnotation()) {
-					Annotator annotator = annot.getAnnotator();
-					String annotatorId = "";
-					String annotatorContent = "Unknown Annotator";
-					if (annotator != null) {
-						annotatorId = annotator.getId();
-						annotatorContent = annotator.getContent();
-					}
-					String creationDate = annot.getCreationDate();
-					Mention mention = annot.getMention();
-					String mentionId = mention.getId();
-					List<Span> spans = annot.getSpan();
-					String spannedText = annot.getSpannedText();
-
-					if (!spans.isEmpty()) {
-						TextAnnotation ta = null;
-						for (Span span : spans) {
-							if (ta == null) {
-								ta = factory.createAnnotation(span.getStart().intValue(), span.getEnd().intValue(),
-										spannedText, cmIdToCmMap.get(mentionId));
-								ta.setAnnotationID(mentionId);
-							} else {
-								ta.addSpan(new edu.ucdenver.ccp.nlp.core.annotation.Span(span.getStart().intValue(),
-										span.getEnd().intValue()));
-							}
-						}
-						ta.setAnnotator(new edu.ucdenver.ccp.nlp.core.annotation.Annotator(annotatorId,
-								annotatorContent, null));
-						annotationsToReturn.add(ta);
-					}
+		/* now create annotations and link to appropriate CM */
+		List<TextAnnotation> annotationsToReturn = new ArrayList<TextAnnotation>();
+		TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults(textSource);
+		for (AnnotationRecord record : annotationRecords) {
+			if (record.spanCount > 0) {
+				TextAnnotation ta = factory.createAnnotation(record.spanOffsets[0], record.spanOffsets[1],
+						record.spannedText, mentionTable.getMention(record.mentionIndex, DefaultClassMention.class));
+				ta.setAnnotationID(mentionTable.getId(record.mentionIndex));
+				for (int i = 1; i < record.spanCount; i++) {
+					ta.addSpan(new Span(record.spanOffsets[2 * i], record.spanOffsets[2 * i + 1]));
 				}
+				ta.setAnnotator(new Annotator(record.annotatorId, record.annotatorName, null));
+				annotationsToReturn.add(ta);
 			}
 		}
 
 		return annotationsToReturn;
 	}
 
+	private static void checkWithinAnnotation(AnnotationRecord annotationRecord, XMLStreamReader reader)
+			throws XMLStreamException {
+		if (annotationRecord == null) {
+			throw new XMLStreamException(
+					"Encountered " + reader.getLocalName() + " element outside of an annotation element.",
+					reader.getLocation());
+		}
+	}
+
+	/**
+	 * Reads a classMention element; the reader is positioned on its start element.
+	 */
+	private static void readClassMention(XMLStreamReader reader, MentionTable mentionTable)
+			throws XMLStreamException {
+		int index = mentionTable.intern(reader.getAttributeValue(null, "id"));
+		while (nextChildElement(reader, "classMention")) {
+			switch (reader.getLocalName()) {
+			case "mentionClass":
+				mentionTable.mentions[index] = new DefaultClassMention(reader.getAttributeValue(null, "id"));
+				break;
+			case "hasSlotMention":
+				mentionTable.addReference(index, mentionTable.intern(reader.getAttributeValue(null, "id")));
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Reads a complexSlotMention element; the reader is positioned on its start element. The slot
+	 * mention is created even if it has no values.
+	 */
+	private static void readComplexSlotMention(XMLStreamReader reader, MentionTable mentionTable)
+			throws XMLStreamException {
+		int index = mentionTable.intern(reader.getAttributeValue(null, "id"));
+		String slotName = null;
+		while (nextChildElement(reader, "complexSlotMention")) {
+			switch (reader.getLocalName()) {
+			case "mentionSlot":
+				slotName = reader.getAttributeValue(null, "id");
+				break;
+			case "complexSlotMentionValue":
+				mentionTable.addReference(index, mentionTable.intern(reader.getAttributeValue(null, "value")));
+				break;
+			default:
+				break;
+			}
+		}
+		mentionTable.mentions[index] = new DefaultComplexSlotMention(slotName);
+	}
+
+	/**
+	 * Reads a stringSlotMention element; the reader is positioned on its start element. The slot
+	 * mention is created even if it has no value.
+	 */
+	private static void readStringSlotMention(XMLStreamReader reader, MentionTable mentionTable)
+			throws XMLStreamException {
+		int index = mentionTable.intern(reader.getAttributeValue(null, "id"));
+		String slotName = null;
+		List<String> slotValues = new ArrayList<String>();
+		while (nextChildElement(reader, "stringSlotMention")) {
+			switch (reader.getLocalName()) {
+			case "mentionSlot":
+				slotName = reader.getAttributeValue(null, "id");
+				break;
+			case "stringSlotMentionValue":
+				slotValues.add(reader.getAttributeValue(null, "value"));
+				break;
+			default:
+				break;
+			}
+		}
+		DefaultStringSlotMention dssm = new DefaultStringSlotMention(slotName);
+		for (String slotValue : slotValues) {
+			dssm.addSlotValue(slotValue);
+		}
+		mentionTable.mentions[index] = dssm;
+	}
+
+	/**
+	 * Advances the reader to the start of the next element within the specified element
+	 * 
+	 * @return false once the end of the specified element has been reached
+	 */
+	private static boolean nextChildElement(XMLStreamReader reader, String elementName) throws XMLStreamException {
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				return true;
+			}
+			if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals(elementName)) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The information from a single annotation element that is needed once its class mention has
+	 * been resolved. Span offsets are stored as consecutive start/end pairs.
+	 */
+	private static class AnnotationRecord {
+		/* index of the mention id in the MentionTable, or -1 if the annotation has no mention element */
+		private int mentionIndex = -1;
+		private String annotatorId = "";
+		private String annotatorName = "Unknown Annotator";
+		private String spannedText;
+		private int[] spanOffsets = new int[2];
+		private int spanCount = 0;
+
+		private void addSpan(int start, int end) {
+			if (2 * spanCount + 2 > spanOffsets.length) {
+				int[] expanded = new int[spanOffsets.length * 2];
+				System.arraycopy(spanOffsets, 0, expanded, 0, spanOffsets.length);
+				spanOffsets = expanded;
+			}
+			spanOffsets[2 * spanCount] = start;
+			spanOffsets[2 * spanCount + 1] = end;
+			spanCount++;
+		}
+	}
+
+	/**
+	 * Interns the mention ids of a single Knowtator file. Each distinct id, whether it is first seen
+	 * as a mention element or as a reference to one, is assigned the next int index. The class, complex
+	 * slot or string slot mention with that id and the (unique) indexes of the mentions it references
+	 * are stored in arrays by index, so the id strings are only held once.
+	 */
+	private static class MentionTable {
+		private final Map<String, Integer> idToIndex = new HashMap<String, Integer>();
+		private final List<String> ids = new ArrayList<String>();
+		private Object[] mentions = new Object[16];
+		private int[][] references = new int[16][];
+		private int[] referenceCounts = new int[16];
+
+		private int intern(String id) {
+			Integer index = idToIndex.get(id);
+			if (index == null) {
+				index = ids.size();
+				idToIndex.put(id, index);
+				ids.add(id);
+				if (index == mentions.length) {
+					int capacity = mentions.length * 2;
+					mentions = Arrays.copyOf(mentions, capacity);
+					references = Arrays.copyOf(references, capacity);
+					referenceCounts = Arrays.copyOf(referenceCounts, capacity);
+				}
+			}
+			return index;
+		}
+
+		private int size() {
+			return ids.size();
+		}
+
+		private String getId(int index) {
+			return (index < 0) ? null : ids.get(index);
+		}
+
+		/**
+		 * @return the mention stored at the specified index if it is of the specified type, otherwise
+		 *         null
+		 */
+		private <T> T getMention(int index, Class<T> type) {
+			if (index < 0 || !type.isInstance(mentions[index])) {
+				return null;
+			}
+			return type.cast(mentions[index]);
+		}
+
+		private void addReference(int index, int referencedIndex) {
+			int[] referenced = references[index];
+			int count = referenceCounts[index];
+			if (referenced == null) {
+				referenced = new int[2];
+			}
+			for (int i = 0; i < count; i++) {
+				if (referenced[i] == referencedIndex) {
+					return;
+				}
+			}
+			if (count == referenced.length) {
+				referenced = Arrays.copyOf(referenced, count * 2);
+			}
+			referenced[count] = referencedIndex;
+			references[index] = referenced;
+			referenceCounts[index] = count + 1;
+		}
+	}
+
 }
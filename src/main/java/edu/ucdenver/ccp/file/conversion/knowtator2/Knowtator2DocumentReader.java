@@ -33,17 +33,15 @@ package edu.ucdenver.ccp.file.conversion.knowtator2;
  * OF THE POSSIBILITY OF SUCH DAMAGE.
  * #L%
  */
-
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
@@ -56,8 +54,10 @@ import javax.xml.stream.events.XMLEvent;
 import edu.ucdenver.ccp.common.file.CharacterEncoding;
 import edu.ucdenver.ccp.common.io.StreamUtil;
 import edu.ucdenver.ccp.file.conversion.DocumentReader;
+import edu.ucdenver.ccp.file.conversion.MentionGraph;
 import edu.ucdenver.ccp.file.conversion.TextDocument;
 import edu.ucdenver.ccp.file.conversion.util.DocumentReaderUtil;
+import edu.ucdenver.ccp.file.conversion.util.XmlUtil;
 import edu.ucdenver.ccp.knowtator2.Annotation;
 import edu.ucdenver.ccp.knowtator2.Document;
 import edu.ucdenver.ccp.knowtator2.GraphSpace;
@@ -74,14 +74,15 @@ public class Knowtator2DocumentReader extends DocumentReader {
 	@Override
 	public TextDocument readDocument(String sourceId, String sourceDb, InputStream inputStream,
 			InputStream documentTextStream, CharacterEncoding encoding) throws IOException {
-//		return getMentionGraphs(sourceId, sourceDb, inputStream, documentTextStream, encoding);
-
 		String documentText = StreamUtil.toString(new InputStreamReader(documentTextStream, encoding.getDecoder()));
 		TextDocument td = new TextDocument(sourceId, sourceDb, documentText);
 		try {
-			List<TextAnnotation> annotations = getAnnotations(inputStream);
+			List<TextAnnotation> annotations = new ArrayList<TextAnnotation>();
+			List<MentionGraph> mentionGraphs = new ArrayList<MentionGraph>();
+			parse(inputStream, annotations, mentionGraphs);
 			DocumentReaderUtil.validateSpans(annotations, documentText, sourceId);
 			td.addAnnotations(annotations);
+			td.setMentionGraphs(mentionGraphs);
 		} catch (XMLStreamException | JAXBException e) {
 			throw new IOException("Error while reading Knowtator2 file.", e);
 		}
@@ -89,13 +90,33 @@ public class Knowtator2DocumentReader extends DocumentReader {
 		return td;
 	}
 
+	/**
+	 * @param knowtator2Stream
+	 * @return the annotations in the Knowtator2 file. Relations from the graph
+	 *         spaces are added to the annotations as complex slot mentions.
+	 * @throws XMLStreamException
+	 * @throws JAXBException
+	 * @throws FileNotFoundException
+	 */
 	public static List<TextAnnotation> getAnnotations(InputStream knowtator2Stream)
 			throws XMLStreamException, JAXBException, FileNotFoundException {
+		List<TextAnnotation> annotations = new ArrayList<TextAnnotation>();
+		parse(knowtator2Stream, annotations, new ArrayList<MentionGraph>());
+		return annotations;
+	}
+
+	/**
+	 * Populates the specified lists with the annotations and graph spaces in the
+	 * Knowtator2 file. Each graph space becomes a {@link MentionGraph}, retaining
+	 * triple quantifiers and values, and its triples are also added to the
+	 * annotations as complex slot mentions.
+	 */
+	private static void parse(InputStream knowtator2Stream, List<TextAnnotation> annotationsToReturn,
+			List<MentionGraph> mentionGraphsToReturn) throws XMLStreamException, JAXBException {
 
 		Class<?> entryClass = KnowtatorProject.class;
-		JAXBContext ctx = JAXBContext.newInstance(entryClass);
-		Unmarshaller um = ctx.createUnmarshaller();
-		XMLInputFactory xmlif = XMLInputFactory.newInstance();
+		Unmarshaller um = XmlUtil.getUnmarshaller(entryClass);
+		XMLInputFactory xmlif = XmlUtil.getInputFactory();
 		XMLEventReader xmler = xmlif.createXMLEventReader(knowtator2Stream);
 		EventFilter filter = new EventFilter() {
 			public boolean accept(XMLEvent event) {
@@ -103,9 +124,6 @@ public class Knowtator2DocumentReader extends DocumentReader {
 			}
 		};
 		XMLEventReader xmlfer = xmlif.createFilteredReader(xmler, filter);
-		// StartElement e = (StartElement) xmlfer.nextEvent();
-
-		List<TextAnnotation> annotationsToReturn = new ArrayList<TextAnnotation>();
 
 		while (xmlfer.peek() != null) {
 			JAXBElement<?> unmarshalledElement = um.unmarshal(xmler, entryClass);
@@ -116,14 +134,13 @@ public class Knowtator2DocumentReader extends DocumentReader {
 				Document d = project.getDocument();
 				String documentId = d.getId();
 				TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults(documentId.toString());
-				Map<String, TextAnnotation> idToAnnotMap = new HashMap<String, TextAnnotation>();
+				/* annotations are returned in the order in which they appear in the file */
+				Map<String, TextAnnotation> idToAnnotMap = new LinkedHashMap<String, TextAnnotation>();
 
 				List<Annotation> annotations = d.getAnnotations();
 				for (Annotation annot : annotations) {
 					edu.ucdenver.ccp.knowtator2.Class clazz = annot.getClazz();
 					String annotType = clazz.getId();
-					@SuppressWarnings("unused")
-					String annotTypeLabel = clazz.getLabel();
 					String id = annot.getId();
 					List<Span> spans = annot.getSpen();
 
@@ -140,175 +157,36 @@ public class Knowtator2DocumentReader extends DocumentReader {
 					idToAnnotMap.put(id, ta);
 				}
 
-				Map<String, String> vertexToAnnotIdMap = new HashMap<String, String>();
 				List<GraphSpace> graphSpaces = d.getGraphSpaces();
-				if (graphSpaces != null && !graphSpaces.isEmpty()) {
+				if (graphSpaces != null) {
 					for (GraphSpace graphSpace : graphSpaces) {
-						for (Vertex vertex : graphSpace.getVertices()) {
-							String vertexId = vertex.getId();
-							String annotationId = vertex.getAnnotation();
-							vertexToAnnotIdMap.put(vertexId, annotationId);
-						}
-
-						for (Triple triple : graphSpace.getTriples()) {
-							String subjectVertexId = triple.getSubject();
-							String property = triple.getProperty();
-							String objectVertexId = triple.getObject();
-							String value = triple.getValue();
-							String quantifier = triple.getQuantifier();
-
-							if (!quantifier.isEmpty() || !value.isEmpty()) {
-								throw new IllegalStateException(
-										"This parser not yet able to handle quantifiers and/or values. Further development needed.");
+						MentionGraph.Builder builder = new MentionGraph.Builder(graphSpace.getId());
+						try {
+							for (Vertex vertex : graphSpace.getVertices()) {
+								TextAnnotation ta = idToAnnotMap.get(vertex.getAnnotation());
+								if (ta == null) {
+									throw new XMLStreamException("Vertex " + vertex.getId()
+											+ " references unknown annotation: " + vertex.getAnnotation());
+								}
+								builder.addVertex(vertex.getId(), ta);
 							}
-
-							TextAnnotation subjTa = idToAnnotMap.get(vertexToAnnotIdMap.get(subjectVertexId));
-							String relationType = property;
-							TextAnnotation objTa = idToAnnotMap.get(vertexToAnnotIdMap.get(objectVertexId));
-
-							DocumentReader.createAnnotationRelation(subjTa, objTa, relationType);
+							for (Triple triple : graphSpace.getTriples()) {
+								builder.addEdge(triple.getId(), triple.getSubject(), triple.getProperty(),
+										triple.getObject(), triple.getQuantifier(), triple.getValue(),
+										triple.getAnnotator());
+							}
+						} catch (IllegalArgumentException e) {
+							/* duplicate vertex ids or triples that reference unknown vertices */
+							throw new XMLStreamException(e.getMessage(), e);
 						}
+						MentionGraph mentionGraph = builder.build();
+						mentionGraph.addComplexSlotMentions();
+						mentionGraphsToReturn.add(mentionGraph);
 					}
 				}
 				annotationsToReturn.addAll(idToAnnotMap.values());
 			}
 		}
- 
-		return annotationsToReturn;
 	}
 
-//	public TextDocument getMentionGraphs(String sourceId, String sourceDb, File knowtator2File, File txtFile,
-//			CharacterEncoding encoding) throws IOException {
-//		return getMentionGraphs(sourceId, sourceDb, new FileInputStream(knowtator2File), new FileInputStream(txtFile),
-//				encoding);
-//	}
-//
-//	public TextDocument getMentionGraphs(String sourceId, String sourceDb, InputStream inputStream,
-//			InputStream documentTextStream, CharacterEncoding encoding) throws IOException {
-//		String documentText = StreamUtil.toString(new InputStreamReader(documentTextStream, encoding.getDecoder()));
-//		TextDocument td = new TextDocument(sourceId, sourceDb, documentText);
-//		try {
-//			List<MentionGraph> mentionGraphs = getMentionGraphs(td, inputStream);
-//
-//			DocumentReaderUtil.validateSpans(td.getAnnotations(), documentText, sourceId);
-//			td.setMentionGraphs(mentionGraphs);
-//		} catch (XMLStreamException | JAXBException e) {
-//			throw new IOException("Error while reading Knowtator2 file.", e);
-//		}
-//		return td;
-//	}
-//
-//	public static List<MentionGraph> getMentionGraphs(TextDocument td, InputStream knowtator2Stream)
-//			throws XMLStreamException, JAXBException, FileNotFoundException {
-//
-//		Class<?> entryClass = KnowtatorProject.class;
-//		JAXBContext ctx = JAXBContext.newInstance(entryClass);
-//		Unmarshaller um = ctx.createUnmarshaller();
-//		XMLInputFactory xmlif = XMLInputFactory.newInstance();
-//		XMLEventReader xmler = xmlif.createXMLEventReader(knowtator2Stream);
-//		EventFilter filter = new EventFilter() {
-//			public boolean accept(XMLEvent event) {
-//				return event.isStartElement();
-//			}
-//		};
-//		XMLEventReader xmlfer = xmlif.createFilteredReader(xmler, filter);
-//		// StartElement e = (StartElement) xmlfer.nextEvent();
-//
-//		List<MentionGraph> mentionGraphs = new ArrayList<MentionGraph>();
-//
-//		while (xmlfer.peek() != null) {
-//			JAXBElement<?> unmarshalledElement = um.unmarshal(xmler, entryClass);
-//			Object o = unmarshalledElement.getValue();
-//
-//			if (KnowtatorProject.class.isInstance(o)) {
-//				KnowtatorProject project = (KnowtatorProject) o;
-//				Document d = project.getDocument();
-//				String documentId = d.getId();
-//				TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults(documentId.toString());
-//				Map<String, TextAnnotation> idToAnnotMap = new HashMap<String, TextAnnotation>();
-//
-//				List<Annotation> annotations = d.getAnnotations();
-//				for (Annotation annot : annotations) {
-//					edu.ucdenver.ccp.knowtator2.Class clazz = annot.getClazz();
-//					String annotType = clazz.getId();
-//					@SuppressWarnings("unused")
-//					String annotTypeLabel = clazz.getLabel();
-//					String id = annot.getId();
-//					List<Span> spans = annot.getSpen();
-//
-//					String coveredText = spans.get(0).getContent();
-//					for (int i = 1; i < spans.size(); i++) {
-//						coveredText += (" " + spans.get(i).getContent());
-//					}
-//					TextAnnotation ta = factory.createAnnotation(spans.get(0).getStart().intValue(),
-//							spans.get(0).getEnd().intValue(), coveredText, new DefaultClassMention(annotType));
-//					for (int i = 1; i < spans.size(); i++) {
-//						ta.addSpan(new edu.ucdenver.ccp.nlp.core.annotation.Span(spans.get(i).getStart().intValue(),
-//								spans.get(i).getEnd().intValue()));
-//					}
-//					idToAnnotMap.put(id, ta);
-//					td.addAnnotation(ta);
-//				}
-//
-//				Map<String, String> vertexToAnnotIdMap = new HashMap<String, String>();
-//				List<GraphSpace> graphSpaces = d.getGraphSpaces();
-//				if (graphSpaces != null) {
-//					for (GraphSpace graphSpace : graphSpaces) {
-//						MentionGraph mg = new MentionGraph(graphSpace.getId());
-//
-//						/* link vertex ids to annotation ids */
-//						for (Vertex vertex : graphSpace.getVertices()) {
-//							String vertexId = vertex.getId();
-//							String annotationId = vertex.getAnnotation();
-//							vertexToAnnotIdMap.put(vertexId, annotationId);
-//						}
-//
-//						for (Triple triple : graphSpace.getTriples()) {
-//							String subjectVertexId = triple.getSubject();
-//							String property = triple.getProperty();
-//							String objectVertexId = triple.getObject();
-//							String value = triple.getValue();
-//							String quantifier = triple.getQuantifier();
-//
-////						!quantifier.isEmpty() ||
-//							if (!value.isEmpty()) {
-////								throw new IllegalStateException(
-////										"This parser not yet able to handle quantifiers and/or values. Further development needed.");
-////								System.out.println("Non empty value not handled: " + value);
-//							}
-//
-//							String subjectAnnotId = vertexToAnnotIdMap.get(subjectVertexId);
-//							String objectAnnotId = vertexToAnnotIdMap.get(objectVertexId);
-//
-//							TextAnnotation subjTa = idToAnnotMap.get(subjectAnnotId);
-//							TextAnnotation objTa = idToAnnotMap.get(objectAnnotId);
-//
-//							MentionGraphNode sourceNode = null;
-//							if (!mg.containsNode(subjectVertexId)) {
-//								sourceNode = mg.addNode(subjectVertexId, subjTa);
-//							} else {
-//								sourceNode = mg.getNode(subjectVertexId);
-//							}
-//
-//							MentionGraphNode targetNode = null;
-//							if (!mg.containsNode(objectVertexId)) {
-//								targetNode = mg.addNode(objectVertexId, objTa);
-//							} else {
-//								targetNode = mg.getNode(objectVertexId);
-//							}
-//
-//							mg.addEdge(triple.getId(), property, sourceNode, targetNode);
-//
-////							DocumentReader.createAnnotationRelation(subjTa, objTa, relationType);
-//						}
-//						if (mg.getNodes().size() > 0) {
-//							mentionGraphs.add(mg);
-//						}
-//					}
-//				}
-//			}
-//		}
-//		return mentionGraphs;
-//	}
-
 }
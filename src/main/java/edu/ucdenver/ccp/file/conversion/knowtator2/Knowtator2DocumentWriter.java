@@ -33,51 +33,101 @@ package edu.ucdenver.ccp.file.conversion.knowtator2;
  * OF THE POSSIBILITY OF SUCH DAMAGE.
  * #L%
  */
-
 import java.io.IOException;
 import java.io.OutputStream;
-import java.math.BigInteger;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBElement;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 import edu.ucdenver.ccp.common.file.CharacterEncoding;
 import edu.ucdenver.ccp.file.conversion.DocumentWriter;
+import edu.ucdenver.ccp.file.conversion.MentionGraph;
 import edu.ucdenver.ccp.file.conversion.TextDocument;
-import edu.ucdenver.ccp.knowtator2.Annotation;
-import edu.ucdenver.ccp.knowtator2.Document;
-import edu.ucdenver.ccp.knowtator2.GraphSpace;
-import edu.ucdenver.ccp.knowtator2.KnowtatorProject;
-import edu.ucdenver.ccp.knowtator2.ObjectFactory;
-import edu.ucdenver.ccp.knowtator2.Span;
-import edu.ucdenver.ccp.knowtator2.Triple;
-import edu.ucdenver.ccp.knowtator2.Vertex;
+import edu.ucdenver.ccp.file.conversion.util.XmlUtil;
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.core.mention.ClassMention;
 import edu.ucdenver.ccp.nlp.core.mention.ComplexSlotMention;
 
+/**
+ * Writes Knowtator2 XML directly to an {@link XMLStreamWriter} while walking
+ * the annotations, i.e. without first building the JAXB object tree. The output
+ * matches the document structure (element and attribute order, formatting) that
+ * the JAXB marshaller produces for the generated knowtator2 classes.
+ * <p>
+ * If the document has {@link MentionGraph}s, they are written as the graph
+ * spaces after being rebuilt from the complex slot mentions of the annotations
+ * (see {@link MentionGraph#fromComplexSlotMentions(List, Collection)}), so
+ * relations added or removed since reading are reflected while the quantifiers
+ * and values of the remaining triples are retained. Otherwise a single graph
+ * space is derived from the complex slot mentions of the annotations.
+ */
 public class Knowtator2DocumentWriter extends DocumentWriter {
 
+	private static final String INDENT = "    ";
+
+	private final boolean prettyPrint;
+
+	public Knowtator2DocumentWriter() {
+		this(true);
+	}
+
+	/**
+	 * @param prettyPrint
+	 *            if true, elements are written on separate, indented lines
+	 */
+	public Knowtator2DocumentWriter(boolean prettyPrint) {
+		this.prettyPrint = prettyPrint;
+	}
+
 	@Override
 	public void serialize(TextDocument td, OutputStream outputStream, CharacterEncoding encoding) throws IOException {
+		Writer writer = new OutputStreamWriter(outputStream, encoding.getEncoder());
+		writer.write("<?xml version=\"1.0\" encoding=\"" + encoding.getCharacterSetName() + "\" standalone=\"yes\"?>");
+		try {
+			XMLStreamWriter xmlWriter = XmlUtil.getOutputFactory().createXMLStreamWriter(writer);
+			serialize(td, xmlWriter);
+			if (prettyPrint) {
+				xmlWriter.writeCharacters("\n");
+			}
+			/* closing the XMLStreamWriter does not close the underlying writer */
+			xmlWriter.close();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+		writer.flush();
+	}
 
-		KnowtatorProject project = new ObjectFactory().createKnowtatorProject();
+	/**
+	 * Writes the knowtator-project element for the specified document. No XML
+	 * declaration is written.
+	 * 
+	 * @param td
+	 * @param xmlWriter
+	 * @throws XMLStreamException
+	 */
+	public void serialize(TextDocument td, XMLStreamWriter xmlWriter) throws XMLStreamException {
 		String documentId = td.getSourceid();
-		Document d = new ObjectFactory().createDocument();
-		d.setId(documentId);
-		d.setTextFile(documentId + ".txt");
 
-		project.setDocument(d);
+		writeStartElement(xmlWriter, "knowtator-project", 0);
+		writeStartElement(xmlWriter, "document", 1);
+		writeAttribute(xmlWriter, "id", documentId);
+		writeAttribute(xmlWriter, "text-file", documentId + ".txt");
 
 		Map<TextAnnotation, String> annotToIdMap = new HashMap<TextAnnotation, String>();
+		/*
+		 * graph vertices reference annotation instances, which must be distinguished
+		 * even when they are equal, e.g. duplicate annotations
+		 */
+		Map<TextAnnotation, String> annotInstanceToIdMap = new IdentityHashMap<TextAnnotation, String>();
 
 		int annotationCount = 0;
 		int spanCount = 0;
@@ -100,34 +150,40 @@ public class Knowtator2DocumentWriter extends DocumentWriter {
 					: Integer.toString(annotationCount++);
 
 			annotToIdMap.put(annot, annotationId);
+			annotInstanceToIdMap.put(annot, annotationId);
 
-			Annotation annotation = new ObjectFactory().createAnnotation();
-			annotation.setAnnotator(annot.getAnnotator().getName());
-			annotation.setId(annotationId);
-			annotation.setType("identity");
+			writeStartElement(xmlWriter, "annotation", 2);
+			writeAttribute(xmlWriter, "annotator", annot.getAnnotator().getName());
+			writeAttribute(xmlWriter, "id", annotationId);
+			writeAttribute(xmlWriter, "type", "identity");
 
-			edu.ucdenver.ccp.knowtator2.Class clazz = new ObjectFactory().createClass();
-			clazz.setId(annot.getClassMention().getMentionName());
-			clazz.setLabel(annot.getClassMention().getMentionName());
-			annotation.setClazz(clazz);
+			writeEmptyElement(xmlWriter, "class", 3);
+			writeAttribute(xmlWriter, "id", annot.getClassMention().getMentionName());
+			writeAttribute(xmlWriter, "label", annot.getClassMention().getMentionName());
 
-			for (edu.ucdenver.ccp.nlp.core.annotation.Span span : annot.getSpans()) {
-				Span knowtatorSpan = new ObjectFactory().createSpan();
-				knowtatorSpan.setContent(td.getText().substring(span.getSpanStart(), span.getSpanEnd()));
-				knowtatorSpan.setEnd(new BigInteger(Integer.toString(span.getSpanEnd())));
-				knowtatorSpan.setStart(new BigInteger(Integer.toString(span.getSpanStart())));
-				knowtatorSpan.setId(documentId + "-" + spanCount++);
-
-				annotation.getSpen().add(knowtatorSpan);
+			for (Span span : annot.getSpans()) {
+				writeStartElement(xmlWriter, "span", 3);
+				writeAttribute(xmlWriter, "end", Integer.toString(span.getSpanEnd()));
+				writeAttribute(xmlWriter, "id", documentId + "-" + spanCount++);
+				writeAttribute(xmlWriter, "start", Integer.toString(span.getSpanStart()));
+				xmlWriter.writeCharacters(td.getText().substring(span.getSpanStart(), span.getSpanEnd()));
+				/* span content is written inline so there is no indentation before the end tag */
+				xmlWriter.writeEndElement();
 			}
 
-			d.getAnnotations().add(annotation);
+			writeEndElement(xmlWriter, 2);
 		}
 
-		GraphSpace gs = new GraphSpace();
-		gs.setId("Old Knowtator Relations");
+		List<MentionGraph> mentionGraphs = td.getMentionGraphs();
+		if (mentionGraphs != null && !mentionGraphs.isEmpty()) {
+			for (MentionGraph mentionGraph : MentionGraph.fromComplexSlotMentions(mentionGraphs,
+					sortedAnnotationList)) {
+				writeGraphSpace(xmlWriter, mentionGraph, annotInstanceToIdMap);
+			}
+		} else if (hasRelations) {
+			writeStartElement(xmlWriter, "graph-space", 2);
+			writeAttribute(xmlWriter, "id", "Old Knowtator Relations");
 
-		if (hasRelations) {
 			/* Add Vertices */
 			Map<String, String> annotIdToVertexIdMap = new HashMap<String, String>();
 			int nodeCount = 0;
@@ -136,10 +192,9 @@ public class Knowtator2DocumentWriter extends DocumentWriter {
 				String annotId = annotToIdMap.get(annot);
 				String vertexId = "node_" + nodeCount++;
 				annotIdToVertexIdMap.put(annotId, vertexId);
-				Vertex v = new Vertex();
-				v.setAnnotation(annotId);
-				v.setId(vertexId);
-				gs.getVertices().add(v);
+				writeEmptyElement(xmlWriter, "vertex", 3);
+				writeAttribute(xmlWriter, "annotation", annotId);
+				writeAttribute(xmlWriter, "id", vertexId);
 			}
 
 			/* Add Triples */
@@ -154,36 +209,94 @@ public class Knowtator2DocumentWriter extends DocumentWriter {
 						for (ClassMention cm : csm.getClassMentions()) {
 							TextAnnotation targetAnnot = cm.getTextAnnotation();
 							String targetAnnotId = annotToIdMap.get(targetAnnot);
-							Triple t = new ObjectFactory().createTriple();
-							t.setAnnotator(annot.getAnnotator().getName());
-							t.setId("edge_" + tripleCount++);
-							t.setSubject(annotIdToVertexIdMap.get(sourceAnnotId));
-							t.setProperty(relationType);
-							t.setObject(annotIdToVertexIdMap.get(targetAnnotId));
-							t.setQuantifier("");
-							t.setValue("");
-							gs.getTriples().add(t);
+							writeEmptyElement(xmlWriter, "triple", 3);
+							writeAttribute(xmlWriter, "annotator", annot.getAnnotator().getName());
+							writeAttribute(xmlWriter, "id", "edge_" + tripleCount++);
+							writeAttribute(xmlWriter, "object", annotIdToVertexIdMap.get(targetAnnotId));
+							writeAttribute(xmlWriter, "property", relationType);
+							writeAttribute(xmlWriter, "quantifier", "");
+							writeAttribute(xmlWriter, "subject", annotIdToVertexIdMap.get(sourceAnnotId));
+							writeAttribute(xmlWriter, "value", "");
 						}
 					}
 				}
 			}
+			writeEndElement(xmlWriter, 2);
+		} else {
+			writeEmptyElement(xmlWriter, "graph-space", 2);
+			writeAttribute(xmlWriter, "id", "Old Knowtator Relations");
 		}
 
-		// System.out.println("TRIPLE COUNT: " + gs.getTriple().size());
-		d.getGraphSpaces().add(gs);
+		writeEndElement(xmlWriter, 1);
+		writeEndElement(xmlWriter, 0);
+	}
 
-		/* write the Document as XML */
-		try {
-			JAXBElement<KnowtatorProject> jaxbElement = new JAXBElement<KnowtatorProject>(
-					new QName("", "knowtator-project"), KnowtatorProject.class, project);
-			JAXBContext jaxbContext = JAXBContext.newInstance(project.getClass());
-			Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
-			jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-			jaxbMarshaller.marshal(jaxbElement, outputStream);
-		} catch (JAXBException e) {
-			throw new IOException(e);
+	private void writeGraphSpace(XMLStreamWriter xmlWriter, MentionGraph mentionGraph,
+			Map<TextAnnotation, String> annotToIdMap) throws XMLStreamException {
+		if (mentionGraph.getVertexCount() == 0) {
+			writeEmptyElement(xmlWriter, "graph-space", 2);
+			writeAttribute(xmlWriter, "id", mentionGraph.getGraphSpaceId());
+			return;
+		}
+		writeStartElement(xmlWriter, "graph-space", 2);
+		writeAttribute(xmlWriter, "id", mentionGraph.getGraphSpaceId());
+		for (int v = 0; v < mentionGraph.getVertexCount(); v++) {
+			String annotationId = annotToIdMap.get(mentionGraph.getAnnotation(v));
+			if (annotationId == null) {
+				throw new XMLStreamException("The annotation of vertex " + mentionGraph.getVertexId(v)
+						+ " in graph space " + mentionGraph.getGraphSpaceId()
+						+ " is not one of the document's annotations: " + mentionGraph.getAnnotation(v));
+			}
+			writeEmptyElement(xmlWriter, "vertex", 3);
+			writeAttribute(xmlWriter, "annotation", annotationId);
+			writeAttribute(xmlWriter, "id", mentionGraph.getVertexId(v));
+		}
+		for (int e = 0; e < mentionGraph.getEdgeCount(); e++) {
+			writeEmptyElement(xmlWriter, "triple", 3);
+			writeAttribute(xmlWriter, "annotator", mentionGraph.getEdgeAnnotator(e));
+			writeAttribute(xmlWriter, "id", mentionGraph.getEdgeId(e));
+			writeAttribute(xmlWriter, "object", mentionGraph.getVertexId(mentionGraph.getEdgeTarget(e)));
+			writeAttribute(xmlWriter, "property", mentionGraph.getEdgeProperty(e));
+			writeAttribute(xmlWriter, "quantifier", mentionGraph.getEdgeQuantifier(e));
+			writeAttribute(xmlWriter, "subject", mentionGraph.getVertexId(mentionGraph.getEdgeSource(e)));
+			writeAttribute(xmlWriter, "value", mentionGraph.getEdgeValue(e));
+		}
+		writeEndElement(xmlWriter, 2);
+	}
+
+	private void writeStartElement(XMLStreamWriter xmlWriter, String name, int depth) throws XMLStreamException {
+		indent(xmlWriter, depth);
+		xmlWriter.writeStartElement(name);
+	}
+
+	private void writeEmptyElement(XMLStreamWriter xmlWriter, String name, int depth) throws XMLStreamException {
+		indent(xmlWriter, depth);
+		xmlWriter.writeEmptyElement(name);
+	}
+
+	private void writeEndElement(XMLStreamWriter xmlWriter, int depth) throws XMLStreamException {
+		indent(xmlWriter, depth);
+		xmlWriter.writeEndElement();
+	}
+
+	private void indent(XMLStreamWriter xmlWriter, int depth) throws XMLStreamException {
+		if (prettyPrint) {
+			StringBuilder sb = new StringBuilder("\n");
+			for (int i = 0; i < depth; i++) {
+				sb.append(INDENT);
+			}
+			xmlWriter.writeCharacters(sb.toString());
 		}
+	}
 
+	/**
+	 * null-valued attributes are omitted, consistent with the JAXB marshaller
+	 */
+	private static void writeAttribute(XMLStreamWriter xmlWriter, String name, String value)
+			throws XMLStreamException {
+		if (value != null) {
+			xmlWriter.writeAttribute(name, value);
+		}
 	}
 
 }
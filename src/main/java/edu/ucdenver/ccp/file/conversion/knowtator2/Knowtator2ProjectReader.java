@@ -0,0 +1,255 @@
+package edu.ucdenver.ccp.file.conversion.knowtator2;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileUtil;
+import edu.ucdenver.ccp.file.conversion.TextDocument;
+import edu.ucdenver.ccp.file.conversion.util.XmlUtil;
+import lombok.Data;
+
+/**
+ * Reads all documents in a Knowtator-2 project. The per-document annotation
+ * XML files are expected in the Annotations/ directory of the project and the
+ * document text files in the Articles/ directory. If either directory does not
+ * exist, the project directory itself is searched instead. The text file for
+ * each document is located using the text-file attribute of its document
+ * element.
+ * <p>
+ * Documents are parsed in parallel and returned in source id order. Only a
+ * bounded number of documents are parsed ahead of the document currently being
+ * consumed, so memory use does not grow with the size of the project.
+ */
+public class Knowtator2ProjectReader {
+
+	public static final String ANNOTATIONS_DIRECTORY_NAME = "Annotations";
+	public static final String ARTICLES_DIRECTORY_NAME = "Articles";
+
+	@Data
+	public static class ProjectDocument {
+		private final String sourceId;
+		private final File annotationFile;
+		private final File textFile;
+	}
+
+	/**
+	 * @param projectDirectory
+	 * @return the documents in the project sorted by source id
+	 * @throws IOException
+	 */
+	public static List<ProjectDocument> getProjectDocuments(File projectDirectory) throws IOException {
+		File annotationDirectory = getSubdirectory(projectDirectory, ANNOTATIONS_DIRECTORY_NAME);
+		File articlesDirectory = getSubdirectory(projectDirectory, ARTICLES_DIRECTORY_NAME);
+
+		List<ProjectDocument> documents = new ArrayList<ProjectDocument>();
+		for (Iterator<File> fileIter = FileUtil.getFileIterator(annotationDirectory, false, ".xml"); fileIter
+				.hasNext();) {
+			File annotationFile = fileIter.next();
+			try (InputStream xmlStream = new FileInputStream(annotationFile)) {
+				documents.add(getProjectDocument(annotationFile, xmlStream, articlesDirectory));
+			} catch (XMLStreamException e) {
+				throw new IOException("Error while reading Knowtator2 file: " + annotationFile.getAbsolutePath(), e);
+			}
+		}
+
+		Collections.sort(documents, new Comparator<ProjectDocument>() {
+			@Override
+			public int compare(ProjectDocument pd1, ProjectDocument pd2) {
+				return pd1.getSourceId().compareTo(pd2.getSourceId());
+			}
+		});
+		for (int i = 1; i < documents.size(); i++) {
+			if (documents.get(i).getSourceId().equals(documents.get(i - 1).getSourceId())) {
+				throw new IllegalStateException("Duplicate document id (" + documents.get(i).getSourceId()
+						+ ") in Knowtator2 project files: " + documents.get(i - 1).getAnnotationFile().getName()
+						+ " and " + documents.get(i).getAnnotationFile().getName());
+			}
+		}
+		return documents;
+	}
+
+	private static File getSubdirectory(File projectDirectory, String name) {
+		File directory = new File(projectDirectory, name);
+		return directory.isDirectory() ? directory : projectDirectory;
+	}
+
+	/**
+	 * Reads only as far as the document element to retrieve the document id and
+	 * text file name
+	 */
+	private static ProjectDocument getProjectDocument(File annotationFile, InputStream xmlStream,
+			File articlesDirectory) throws XMLStreamException, FileNotFoundException {
+		XMLStreamReader reader = XmlUtil.getInputFactory().createXMLStreamReader(xmlStream);
+		try {
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("document")) {
+					String sourceId = reader.getAttributeValue(null, "id");
+					String textFileName = reader.getAttributeValue(null, "text-file");
+					if (textFileName == null) {
+						textFileName = sourceId + ".txt";
+					}
+					File textFile = new File(articlesDirectory, textFileName);
+					if (!textFile.exists()) {
+						throw new FileNotFoundException("Text file for document " + sourceId + " not found: "
+								+ textFile.getAbsolutePath());
+					}
+					return new ProjectDocument(sourceId, annotationFile, textFile);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		throw new IllegalArgumentException(
+				"No document element found in Knowtator2 file: " + annotationFile.getAbsolutePath());
+	}
+
+	/**
+	 * @param projectDirectory
+	 * @param sourceDb
+	 * @param encoding
+	 * @param threadCount
+	 * @return an iterator over the documents in the project in source id order.
+	 *         The iterator releases its threads once it is exhausted; if iteration
+	 *         is abandoned early it should be closed. Errors encountered while
+	 *         reading a document are thrown from {@link Iterator#next()} as
+	 *         {@link UncheckedIOException}.
+	 * @throws IOException
+	 */
+	public static DocumentIterator readDocuments(File projectDirectory, String sourceDb, CharacterEncoding encoding,
+			int threadCount) throws IOException {
+		return new DocumentIterator(getProjectDocuments(projectDirectory), sourceDb, encoding, threadCount);
+	}
+
+	public static class DocumentIterator implements Iterator<TextDocument>, Closeable {
+
+		private final Iterator<ProjectDocument> documentIter;
+		private final String sourceDb;
+		private final CharacterEncoding encoding;
+		private final int maxPending;
+		private final ExecutorService executor;
+		private final Deque<Future<TextDocument>> pending = new ArrayDeque<Future<TextDocument>>();
+
+		private DocumentIterator(List<ProjectDocument> documents, String sourceDb, CharacterEncoding encoding,
+				int threadCount) {
+			this.documentIter = documents.iterator();
+			this.sourceDb = sourceDb;
+			this.encoding = encoding;
+			/* keep each thread busy while the consumer works on the current document */
+			this.maxPending = 2 * threadCount;
+			this.executor = Executors.newFixedThreadPool(threadCount);
+			fill();
+		}
+
+		private void fill() {
+			while (pending.size() < maxPending && documentIter.hasNext()) {
+				final ProjectDocument document = documentIter.next();
+				pending.add(executor.submit(new Callable<TextDocument>() {
+					@Override
+					public TextDocument call() throws IOException {
+						return new Knowtator2DocumentReader().readDocument(document.getSourceId(), sourceDb,
+								document.getAnnotationFile(), document.getTextFile(), encoding);
+					}
+				}));
+			}
+			if (pending.isEmpty()) {
+				close();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !pending.isEmpty();
+		}
+
+		@Override
+		public TextDocument next() {
+			if (pending.isEmpty()) {
+				throw new NoSuchElementException();
+			}
+			Future<TextDocument> future = pending.removeFirst();
+			try {
+				TextDocument td = future.get();
+				fill();
+				return td;
+			} catch (InterruptedException e) {
+				close();
+				Thread.currentThread().interrupt();
+				throw new UncheckedIOException(
+						new IOException("Interrupted while reading Knowtator2 project documents.", e));
+			} catch (ExecutionException e) {
+				close();
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw new UncheckedIOException((IOException) cause);
+				}
+				throw new UncheckedIOException(new IOException("Error while reading Knowtator2 project document.",
+						cause));
+			}
+		}
+
+		@Override
+		public void close() {
+			pending.clear();
+			executor.shutdownNow();
+		}
+
+	}
+
+}
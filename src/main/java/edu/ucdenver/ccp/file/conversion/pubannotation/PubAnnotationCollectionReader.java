@@ -0,0 +1,488 @@
+package edu.ucdenver.ccp.file.conversion.pubannotation;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.file.conversion.TextDocument;
+
+/**
+ * Reads collections of PubAnnotation documents, either as JSON lines (one
+ * document object per line) or as a JSON array of document objects. Documents
+ * are parsed one at a time as the collection is iterated, so a collection never
+ * has to be held in memory. The sourceid, sourcedb and text of each document
+ * are taken from the JSON; annotations in tracks are included, see
+ * {@link PubAnnotationDocumentReader}.
+ * <p>
+ * JSON lines files can also be parsed in parallel. The file is divided into
+ * byte ranges that are parsed independently; each line is parsed as part of the
+ * range in which it starts.
+ */
+public class PubAnnotationCollectionReader {
+
+	/**
+	 * the approximate number of bytes of a JSON lines file that are parsed by a
+	 * single task when reading in parallel
+	 */
+	public static final long DEFAULT_RANGE_SIZE = 4L * 1024 * 1024;
+
+	/**
+	 * @param collectionFile
+	 * @param encoding
+	 * @param format
+	 * @return an iterator over the documents in the collection in file order. The
+	 *         iterator closes the file once it is exhausted; if iteration is
+	 *         abandoned early it should be closed. Errors encountered while reading
+	 *         a document are thrown from {@link Iterator#next()} as
+	 *         {@link UncheckedIOException}.
+	 * @throws IOException
+	 */
+	public static DocumentIterator readDocuments(File collectionFile, CharacterEncoding encoding,
+			PubAnnotationCollectionFormat format) throws IOException {
+		InputStream inputStream = new FileInputStream(collectionFile);
+		try {
+			return readDocuments(inputStream, encoding, format);
+		} catch (IOException e) {
+			inputStream.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param inputStream
+	 *            is closed when the returned iterator is closed or exhausted
+	 * @param encoding
+	 * @param format
+	 * @return an iterator over the documents in the collection in stream order
+	 * @throws IOException
+	 */
+	public static DocumentIterator readDocuments(InputStream inputStream, CharacterEncoding encoding,
+			PubAnnotationCollectionFormat format) throws IOException {
+		switch (format) {
+		case JSON_ARRAY:
+			return new JsonArrayIterator(new InputStreamReader(inputStream, encoding.getDecoder()));
+		case JSON_LINES:
+			return new JsonLinesIterator(new BufferedReader(new InputStreamReader(inputStream, encoding.getDecoder())));
+		default:
+			throw new IllegalArgumentException("Unhandled PubAnnotation collection format: " + format.name());
+		}
+	}
+
+	/**
+	 * Parses a JSON lines file in parallel using the
+	 * {@link #DEFAULT_RANGE_SIZE}
+	 * 
+	 * @see #readJsonLines(File, CharacterEncoding, int, long)
+	 */
+	public static DocumentIterator readJsonLines(File jsonLinesFile, CharacterEncoding encoding, int threadCount) {
+		return readJsonLines(jsonLinesFile, encoding, threadCount, DEFAULT_RANGE_SIZE);
+	}
+
+	/**
+	 * Parses a JSON lines file in parallel. The file is divided into byte ranges
+	 * of the specified size; ranges are parsed concurrently and their documents
+	 * are returned in file order. Only a bounded number of ranges are parsed ahead
+	 * of the range currently being consumed.
+	 * <p>
+	 * Line boundaries are located at the byte level, so the encoding must be one
+	 * in which the newline character is encoded as a single byte that does not
+	 * occur within other characters, e.g. UTF-8 or ASCII.
+	 * 
+	 * @param jsonLinesFile
+	 * @param encoding
+	 * @param threadCount
+	 * @param rangeSize
+	 *            the number of bytes per range
+	 * @return an iterator over the documents in file order. The iterator releases
+	 *         its threads once it is exhausted; if iteration is abandoned early it
+	 *         should be closed. Errors encountered while reading a document are
+	 *         thrown from {@link Iterator#next()} as {@link UncheckedIOException}.
+	 */
+	public static DocumentIterator readJsonLines(File jsonLinesFile, CharacterEncoding encoding, int threadCount,
+			long rangeSize) {
+		if (rangeSize < 1) {
+			throw new IllegalArgumentException("Range size must be positive: " + rangeSize);
+		}
+		return new ParallelJsonLinesIterator(jsonLinesFile, encoding, threadCount, rangeSize);
+	}
+
+	/**
+	 * Parses the lines that start within the specified byte range of a JSON lines
+	 * file. Blank lines are ignored.
+	 * 
+	 * @param jsonLinesFile
+	 * @param start
+	 *            inclusive
+	 * @param end
+	 *            exclusive
+	 * @param encoding
+	 * @return the documents in the range in file order
+	 * @throws IOException
+	 */
+	static List<TextDocument> readJsonLines(File jsonLinesFile, long start, long end, CharacterEncoding encoding)
+			throws IOException {
+		final List<TextDocument> documents = new ArrayList<TextDocument>();
+		readLines(jsonLinesFile, start, end, encoding, new LineHandler() {
+			@Override
+			public void handleLine(String line, long offset) throws IOException {
+				documents.add(parseLine(line, "byte offset " + offset));
+			}
+		});
+		return documents;
+	}
+
+	/**
+	 * Receives the non-blank lines of a JSON lines file
+	 */
+	interface LineHandler {
+		/**
+		 * @param line
+		 * @param offset
+		 *            the byte offset of the start of the line in the file
+		 * @throws IOException
+		 */
+		void handleLine(String line, long offset) throws IOException;
+	}
+
+	/**
+	 * Passes the non-blank lines that start within the specified byte range of a
+	 * file to the handler in file order
+	 * 
+	 * @param file
+	 * @param start
+	 *            inclusive
+	 * @param end
+	 *            exclusive
+	 * @param encoding
+	 * @param handler
+	 * @throws IOException
+	 */
+	static void readLines(File file, long start, long end, CharacterEncoding encoding, LineHandler handler)
+			throws IOException {
+		try (FileInputStream fileStream = new FileInputStream(file)) {
+			/*
+			 * a line starts at the range start only if it is preceded by a newline;
+			 * otherwise the remainder of the line belongs to the previous range
+			 */
+			long position = Math.max(0, start - 1);
+			fileStream.getChannel().position(position);
+			InputStream inputStream = new BufferedInputStream(fileStream, 64 * 1024);
+			int b;
+			if (start > 0) {
+				while ((b = inputStream.read()) != -1) {
+					position++;
+					if (b == '\n') {
+						break;
+					}
+				}
+			}
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			while (position < end) {
+				long lineStart = position;
+				line.reset();
+				while ((b = inputStream.read()) != -1) {
+					position++;
+					if (b == '\n') {
+						break;
+					}
+					line.write(b);
+				}
+				String lineStr = line.toString(encoding.getCharacterSetName());
+				if (!lineStr.trim().isEmpty()) {
+					handler.handleLine(lineStr, lineStart);
+				}
+				if (b == -1) {
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param json
+	 *            a single PubAnnotation document object
+	 * @param location
+	 *            describes the location of the line for error messages
+	 * @return the document
+	 * @throws IOException
+	 */
+	private static TextDocument parseLine(String json, String location) throws IOException {
+		try (JsonReader jsonReader = new JsonReader(new StringReader(json))) {
+			TextDocument td = PubAnnotationDocumentReader.readDocument(null, null, jsonReader, null);
+			if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+				throw new IOException("Unexpected content following the PubAnnotation document.");
+			}
+			return td;
+		} catch (IOException | IllegalStateException e) {
+			throw new IOException("Error while reading PubAnnotation document at " + location + ".", e);
+		}
+	}
+
+	public static abstract class DocumentIterator implements Iterator<TextDocument>, Closeable {
+		@Override
+		public abstract void close();
+	}
+
+	private static class JsonArrayIterator extends DocumentIterator {
+		private final JsonReader jsonReader;
+		private boolean done = false;
+		private int documentIndex = 0;
+
+		public JsonArrayIterator(Reader reader) throws IOException {
+			this.jsonReader = new JsonReader(reader);
+			try {
+				jsonReader.beginArray();
+			} catch (IOException | IllegalStateException e) {
+				close();
+				throw new IOException("PubAnnotation collection is not a JSON array.", e);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (done) {
+				return false;
+			}
+			try {
+				if (jsonReader.hasNext()) {
+					return true;
+				}
+				jsonReader.endArray();
+			} catch (IOException e) {
+				close();
+				throw new UncheckedIOException(e);
+			}
+			close();
+			return false;
+		}
+
+		@Override
+		public TextDocument next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			try {
+				return PubAnnotationDocumentReader.readDocument(null, null, jsonReader, null);
+			} catch (IOException | IllegalStateException e) {
+				close();
+				throw new UncheckedIOException(new IOException(
+						"Error while reading PubAnnotation document at array index " + documentIndex + ".", e));
+			} finally {
+				documentIndex++;
+			}
+		}
+
+		@Override
+		public void close() {
+			done = true;
+			try {
+				jsonReader.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private static class JsonLinesIterator extends DocumentIterator {
+		private final BufferedReader reader;
+		private String nextLine;
+		private long lineNumber = 0;
+
+		public JsonLinesIterator(BufferedReader reader) throws IOException {
+			this.reader = reader;
+			advance();
+		}
+
+		/**
+		 * moves to the next non-blank line
+		 */
+		private void advance() throws IOException {
+			while ((nextLine = reader.readLine()) != null) {
+				lineNumber++;
+				if (!nextLine.trim().isEmpty()) {
+					return;
+				}
+			}
+			close();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextLine != null;
+		}
+
+		@Override
+		public TextDocument next() {
+			if (nextLine == null) {
+				throw new NoSuchElementException();
+			}
+			try {
+				TextDocument td = parseLine(nextLine, "line " + lineNumber);
+				advance();
+				return td;
+			} catch (IOException e) {
+				close();
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		@Override
+		public void close() {
+			nextLine = null;
+			try {
+				reader.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private static class ParallelJsonLinesIterator extends DocumentIterator {
+		private final File jsonLinesFile;
+		private final CharacterEncoding encoding;
+		private final long fileLength;
+		private final long rangeSize;
+		private long nextRangeStart = 0;
+		private final int maxPending;
+		private final ExecutorService executor;
+		private final Deque<Future<List<TextDocument>>> pending = new ArrayDeque<Future<List<TextDocument>>>();
+		private Iterator<TextDocument> currentRangeIter = Collections.<TextDocument>emptyList().iterator();
+
+		public ParallelJsonLinesIterator(File jsonLinesFile, CharacterEncoding encoding, int threadCount,
+				long rangeSize) {
+			this.jsonLinesFile = jsonLinesFile;
+			this.encoding = encoding;
+			this.fileLength = jsonLinesFile.length();
+			this.rangeSize = rangeSize;
+			/* keep each thread busy while the consumer works on the current range */
+			this.maxPending = 2 * threadCount;
+			this.executor = Executors.newFixedThreadPool(threadCount);
+			fill();
+		}
+
+		private void fill() {
+			while (pending.size() < maxPending && nextRangeStart < fileLength) {
+				final long start = nextRangeStart;
+				final long end = Math.min(fileLength, start + rangeSize);
+				nextRangeStart = end;
+				pending.add(executor.submit(new Callable<List<TextDocument>>() {
+					@Override
+					public List<TextDocument> call() throws IOException {
+						return readJsonLines(jsonLinesFile, start, end, encoding);
+					}
+				}));
+			}
+			if (pending.isEmpty()) {
+				executor.shutdownNow();
+			}
+		}
+
+		/**
+		 * @return true if a document is available; ranges that contain no document
+		 *         starts are skipped
+		 */
+		@Override
+		public boolean hasNext() {
+			while (!currentRangeIter.hasNext()) {
+				if (pending.isEmpty()) {
+					return false;
+				}
+				Future<List<TextDocument>> future = pending.removeFirst();
+				try {
+					currentRangeIter = future.get().iterator();
+					fill();
+				} catch (InterruptedException e) {
+					close();
+					Thread.currentThread().interrupt();
+					throw new UncheckedIOException(
+							new IOException("Interrupted while reading PubAnnotation documents.", e));
+				} catch (ExecutionException e) {
+					close();
+					Throwable cause = e.getCause();
+					if (cause instanceof IOException) {
+						throw new UncheckedIOException((IOException) cause);
+					}
+					throw new UncheckedIOException(
+							new IOException("Error while reading PubAnnotation documents.", cause));
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public TextDocument next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return currentRangeIter.next();
+		}
+
+		@Override
+		public void close() {
+			pending.clear();
+			nextRangeStart = fileLength;
+			currentRangeIter = Collections.<TextDocument>emptyList().iterator();
+			executor.shutdownNow();
+		}
+	}
+
+}
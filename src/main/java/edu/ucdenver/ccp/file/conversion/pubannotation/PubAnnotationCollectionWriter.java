@@ -0,0 +1,139 @@
+package edu.ucdenver.ccp.file.conversion.pubannotation;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.google.gson.stream.JsonWriter;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileWriterUtil;
+import edu.ucdenver.ccp.file.conversion.TextDocument;
+
+/**
+ * Writes a collection of documents to a single PubAnnotation file, either as
+ * JSON lines (one document object per line) or as a JSON array of document
+ * objects. Each document is written as soon as it is passed to
+ * {@link #write(TextDocument)}, so an entire corpus can be exported without
+ * holding it in memory. The collection is complete once the writer has been
+ * closed.
+ */
+public class PubAnnotationCollectionWriter implements Closeable {
+
+	private final BufferedWriter writer;
+	private final PubAnnotationCollectionFormat format;
+	private final PubAnnotationDocumentWriter documentWriter;
+	/* used for all documents of a JSON array; null for JSON lines */
+	private final JsonWriter arrayWriter;
+
+	public PubAnnotationCollectionWriter(File collectionFile, CharacterEncoding encoding,
+			PubAnnotationCollectionFormat format, boolean writeTracks) throws IOException {
+		this(new FileOutputStream(collectionFile), encoding, format, writeTracks);
+	}
+
+	/**
+	 * @param outputStream
+	 *            is closed when this writer is closed
+	 * @param encoding
+	 * @param format
+	 * @param writeTracks
+	 *            if true, the annotations of each document are written as
+	 *            PubAnnotation tracks, one per annotator
+	 * @throws IOException
+	 */
+	public PubAnnotationCollectionWriter(OutputStream outputStream, CharacterEncoding encoding,
+			PubAnnotationCollectionFormat format, boolean writeTracks) throws IOException {
+		this.writer = FileWriterUtil.initBufferedWriter(outputStream, encoding);
+		this.format = format;
+		this.documentWriter = new PubAnnotationDocumentWriter(writeTracks);
+		if (format == PubAnnotationCollectionFormat.JSON_ARRAY) {
+			arrayWriter = new JsonWriter(writer);
+			arrayWriter.beginArray();
+		} else {
+			arrayWriter = null;
+		}
+	}
+
+	/**
+	 * @param td
+	 *            if the document is divided, each division is written as a
+	 *            separate document object
+	 * @throws IOException
+	 */
+	public void write(TextDocument td) throws IOException {
+		if (PubAnnotationDivisions.isDivided(td)) {
+			for (TextDocument divisionDoc : PubAnnotationDivisions.split(td)) {
+				writeDocument(divisionDoc);
+			}
+		} else {
+			writeDocument(td);
+		}
+	}
+
+	private void writeDocument(TextDocument td) throws IOException {
+		switch (format) {
+		case JSON_ARRAY:
+			documentWriter.serialize(td, arrayWriter);
+			break;
+		case JSON_LINES:
+			/*
+			 * JsonWriter only permits a single top-level value, so each line gets its
+			 * own. JsonWriter does not buffer, and without indentation the document is
+			 * written on a single line.
+			 */
+			documentWriter.serialize(td, new JsonWriter(writer));
+			writer.write('\n');
+			break;
+		default:
+			throw new IllegalArgumentException("Unhandled PubAnnotation collection format: " + format.name());
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (arrayWriter != null) {
+			arrayWriter.endArray();
+			arrayWriter.close();
+		} else {
+			writer.close();
+		}
+	}
+
+}
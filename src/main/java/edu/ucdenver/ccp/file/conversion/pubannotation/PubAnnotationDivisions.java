@@ -0,0 +1,436 @@
+package edu.ucdenver.ccp.file.conversion.pubannotation;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.file.conversion.DocumentDivision;
+import edu.ucdenver.ccp.file.conversion.DocumentReader;
+import edu.ucdenver.ccp.file.conversion.TextDocument;
+import edu.ucdenver.ccp.file.conversion.diagnostics.DiagnosticEvent;
+import edu.ucdenver.ccp.file.conversion.diagnostics.DiagnosticType;
+import edu.ucdenver.ccp.file.conversion.diagnostics.Diagnostics;
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
+import edu.ucdenver.ccp.nlp.core.mention.ClassMention;
+import edu.ucdenver.ccp.nlp.core.mention.ComplexSlotMention;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
+
+/**
+ * PubAnnotation represents long documents as divisions (divs), each with its own
+ * text and division-local annotation offsets. This class converts between a
+ * divided document, i.e. a {@link TextDocument} with
+ * {@link TextDocument#getDivisions()} in document-global coordinates, and the
+ * per-division documents, each of which has a single division spanning its
+ * text.
+ * <p>
+ * Because divisions are independent of one another, they can be read and
+ * written in parallel.
+ */
+public class PubAnnotationDivisions {
+
+	/**
+	 * separates the division texts when a document text is assembled from its
+	 * divisions
+	 */
+	public static final String DIVISION_SEPARATOR = "\n";
+
+	/**
+	 * @param td
+	 * @return true if the document consists of divisions, other than a single
+	 *         division that spans the entire document text
+	 */
+	public static boolean isDivided(TextDocument td) {
+		return td.getDivisions() != null && !td.getDivisions().isEmpty() && getDivisionId(td) == null;
+	}
+
+	/**
+	 * @param td
+	 * @return the division id if the document is a single division that spans the
+	 *         entire document text, e.g. a document read from a PubAnnotation
+	 *         division; null otherwise
+	 */
+	public static String getDivisionId(TextDocument td) {
+		List<DocumentDivision> divisions = td.getDivisions();
+		if (divisions != null && divisions.size() == 1) {
+			DocumentDivision division = divisions.get(0);
+			if (division.getSpanStart() == 0 && division.getSpanEnd() == td.getText().length()) {
+				return division.getDivisionId();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Splits a document into one document per division. Annotation offsets are
+	 * translated to division-local coordinates. Annotations that cross a division
+	 * boundary, and relations between annotations in different divisions, cannot
+	 * be represented and are excluded (reported as diagnostic events).
+	 * 
+	 * @param td
+	 *            a document with divisions
+	 * @return the division documents, ordered by division start
+	 */
+	public static List<TextDocument> split(TextDocument td) {
+		if (td.getDivisions() == null || td.getDivisions().isEmpty()) {
+			throw new IllegalArgumentException("Document " + td.getSourceid() + " has no divisions.");
+		}
+		List<DocumentDivision> divisions = new ArrayList<DocumentDivision>(td.getDivisions());
+		Collections.sort(divisions, new Comparator<DocumentDivision>() {
+			@Override
+			public int compare(DocumentDivision d1, DocumentDivision d2) {
+				return Integer.compare(d1.getSpanStart(), d2.getSpanStart());
+			}
+		});
+		int[] divisionStarts = new int[divisions.size()];
+		List<TextDocument> divisionDocs = new ArrayList<TextDocument>();
+		for (int i = 0; i < divisions.size(); i++) {
+			DocumentDivision division = divisions.get(i);
+			if (i > 0 && division.getSpanStart() < divisions.get(i - 1).getSpanEnd()) {
+				throw new IllegalArgumentException("Overlapping divisions (" + divisions.get(i - 1).getDivisionId()
+						+ ", " + division.getDivisionId() + ") in document " + td.getSourceid());
+			}
+			divisionStarts[i] = division.getSpanStart();
+			TextDocument divisionDoc = new TextDocument(td.getSourceid(), td.getSourcedb(),
+					td.getText().substring(division.getSpanStart(), division.getSpanEnd()));
+			divisionDoc.setDivisions(Collections
+					.singletonList(new DocumentDivision(division.getDivisionId(), 0, division.getLength())));
+			divisionDocs.add(divisionDoc);
+		}
+		if (td.getAnnotations() == null) {
+			return divisionDocs;
+		}
+
+		TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults(td.getSourceid());
+		/* maps each original annotation to its division-local copy and division */
+		Map<TextAnnotation, TextAnnotation> annotToCopyMap = new IdentityHashMap<TextAnnotation, TextAnnotation>();
+		Map<TextAnnotation, Integer> annotToDivisionMap = new IdentityHashMap<TextAnnotation, Integer>();
+		for (TextAnnotation annot : td.getAnnotations()) {
+			if (copyToDivision(annot, divisions, divisionStarts, factory, annotToCopyMap, annotToDivisionMap)) {
+				divisionDocs.get(annotToDivisionMap.get(annot)).addAnnotation(annotToCopyMap.get(annot));
+			} else if (Diagnostics.isEnabled(DiagnosticType.CROSS_DIVISION_ANNOTATION_EXCLUDED)) {
+				Diagnostics.report(DiagnosticEvent.forAnnotation(DiagnosticType.CROSS_DIVISION_ANNOTATION_EXCLUDED,
+						td.getSourceid(), null, annot));
+			}
+		}
+		for (TextAnnotation annot : td.getAnnotations()) {
+			TextAnnotation copy = annotToCopyMap.get(annot);
+			if (copy == null) {
+				continue;
+			}
+			for (ComplexSlotMention csm : annot.getClassMention().getComplexSlotMentions()) {
+				for (ClassMention cm : csm.getClassMentions()) {
+					TextAnnotation target = cm.getTextAnnotation();
+					/*
+					 * relation targets need not be in the annotation list, so they are
+					 * copied as needed
+					 */
+					if (copyToDivision(target, divisions, divisionStarts, factory, annotToCopyMap,
+							annotToDivisionMap) && annotToDivisionMap.get(target).equals(annotToDivisionMap.get(annot))) {
+						DocumentReader.createAnnotationRelation(copy, annotToCopyMap.get(target),
+								csm.getMentionName());
+					} else if (Diagnostics.isEnabled(DiagnosticType.CROSS_DIVISION_RELATION_EXCLUDED)) {
+						Diagnostics.report(DiagnosticEvent.forAnnotations(
+								DiagnosticType.CROSS_DIVISION_RELATION_EXCLUDED, td.getSourceid(),
+								csm.getMentionName(), Arrays.asList(annot, target)));
+					}
+				}
+			}
+		}
+		return divisionDocs;
+	}
+
+	/**
+	 * Creates a division-local copy of the annotation, unless one already exists
+	 * 
+	 * @return true if the annotation lies within a single division and has been
+	 *         copied
+	 */
+	private static boolean copyToDivision(TextAnnotation annot, List<DocumentDivision> divisions,
+			int[] divisionStarts, TextAnnotationFactory factory, Map<TextAnnotation, TextAnnotation> annotToCopyMap,
+			Map<TextAnnotation, Integer> annotToDivisionMap) {
+		if (annotToCopyMap.containsKey(annot)) {
+			return true;
+		}
+		Span aggregateSpan = annot.getAggregateSpan();
+		int index = Arrays.binarySearch(divisionStarts, aggregateSpan.getSpanStart());
+		if (index < 0) {
+			/* the division that starts before the annotation */
+			index = -index - 2;
+		}
+		if (index < 0 || !divisions.get(index).contains(aggregateSpan)) {
+			return false;
+		}
+		DocumentDivision division = divisions.get(index);
+		TextAnnotation copy = null;
+		for (Span span : annot.getSpans()) {
+			int spanStart = division.toLocalOffset(span.getSpanStart());
+			int spanEnd = division.toLocalOffset(span.getSpanEnd());
+			if (copy == null) {
+				copy = factory.createAnnotation(spanStart, spanEnd, annot.getCoveredText(),
+						new DefaultClassMention(annot.getClassMention().getMentionName()));
+			} else {
+				copy.addSpan(new Span(spanStart, spanEnd));
+			}
+		}
+		copy.setAnnotator(annot.getAnnotator());
+		annotToCopyMap.put(annot, copy);
+		annotToDivisionMap.put(annot, index);
+		return true;
+	}
+
+	/**
+	 * Joins division documents into a single document. The annotation offsets
+	 * of the division documents are translated to document-global coordinates in
+	 * place.
+	 * 
+	 * @param sourceId
+	 * @param sourceDb
+	 * @param divisionDocs
+	 *            in document order; the division id of each is taken from its
+	 *            single division, or from its position if it has none
+	 * @param documentText
+	 *            if not null, each division text is located in order in this text;
+	 *            otherwise the document text is assembled from the division texts
+	 *            separated by {@link #DIVISION_SEPARATOR}
+	 * @return the joined document with its divisions
+	 * @throws IllegalArgumentException
+	 *             if the document text is not null and the division texts cannot
+	 *             be located in it, see {@link #canLocate(List, String)}
+	 */
+	public static TextDocument join(String sourceId, String sourceDb, List<TextDocument> divisionDocs,
+			String documentText) {
+		StringBuilder textBuilder = (documentText == null) ? new StringBuilder() : null;
+		int[] divisionStarts = null;
+		if (documentText != null) {
+			divisionStarts = locate(divisionDocs, documentText);
+			if (divisionStarts == null) {
+				throw new IllegalArgumentException(
+						"Unable to locate the division texts in the document text of document " + sourceId);
+			}
+		}
+		List<DocumentDivision> divisions = new ArrayList<DocumentDivision>();
+		List<TextAnnotation> annotations = new ArrayList<TextAnnotation>();
+		for (int i = 0; i < divisionDocs.size(); i++) {
+			TextDocument divisionDoc = divisionDocs.get(i);
+			String divisionText = divisionDoc.getText();
+			int divisionStart;
+			if (documentText == null) {
+				if (i > 0) {
+					textBuilder.append(DIVISION_SEPARATOR);
+				}
+				divisionStart = textBuilder.length();
+				textBuilder.append(divisionText);
+			} else {
+				divisionStart = divisionStarts[i];
+			}
+			String divisionId = (divisionDoc.getDivisions() != null && divisionDoc.getDivisions().size() == 1)
+					? divisionDoc.getDivisions().get(0).getDivisionId()
+					: Integer.toString(i);
+			DocumentDivision division = new DocumentDivision(divisionId, divisionStart,
+					divisionStart + divisionText.length());
+			divisions.add(division);
+
+			if (divisionDoc.getAnnotations() != null) {
+				Set<TextAnnotation> translated = Collections
+						.newSetFromMap(new IdentityHashMap<TextAnnotation, Boolean>());
+				for (TextAnnotation annot : divisionDoc.getAnnotations()) {
+					toGlobal(annot, division, translated);
+					for (ComplexSlotMention csm : annot.getClassMention().getComplexSlotMentions()) {
+						for (ClassMention cm : csm.getClassMentions()) {
+							toGlobal(cm.getTextAnnotation(), division, translated);
+						}
+					}
+				}
+				annotations.addAll(divisionDoc.getAnnotations());
+			}
+		}
+		TextDocument td = new TextDocument(sourceId, sourceDb,
+				(documentText == null) ? textBuilder.toString() : documentText);
+		td.setDivisions(divisions);
+		td.addAnnotations(annotations);
+		return td;
+	}
+
+	/**
+	 * @param divisionDocs
+	 * @param documentText
+	 * @return true if the text of each division can be located, in order, in the
+	 *         document text, i.e. if the divisions can be joined using the
+	 *         document text
+	 */
+	public static boolean canLocate(List<TextDocument> divisionDocs, String documentText) {
+		return locate(divisionDocs, documentText) != null;
+	}
+
+	/**
+	 * @return the start offset of each division text in the document text, or
+	 *         null if a division text cannot be located
+	 */
+	private static int[] locate(List<TextDocument> divisionDocs, String documentText) {
+		int[] divisionStarts = new int[divisionDocs.size()];
+		int searchFrom = 0;
+		for (int i = 0; i < divisionDocs.size(); i++) {
+			String divisionText = divisionDocs.get(i).getText();
+			divisionStarts[i] = documentText.indexOf(divisionText, searchFrom);
+			if (divisionStarts[i] < 0) {
+				return null;
+			}
+			searchFrom = divisionStarts[i] + divisionText.length();
+		}
+		return divisionStarts;
+	}
+
+	private static void toGlobal(TextAnnotation annot, DocumentDivision division, Set<TextAnnotation> translated) {
+		if (translated.add(annot)) {
+			List<Span> globalSpans = new ArrayList<Span>();
+			for (Span span : annot.getSpans()) {
+				globalSpans.add(new Span(division.toGlobalOffset(span.getSpanStart()),
+						division.toGlobalOffset(span.getSpanEnd())));
+			}
+			annot.setSpans(globalSpans);
+		}
+	}
+
+	/**
+	 * Reads PubAnnotation division files in parallel and joins them into a single
+	 * document
+	 * 
+	 * @param sourceId
+	 *            if null, the sourceid of the first division is used
+	 * @param sourceDb
+	 *            if null, the sourcedb of the first division is used
+	 * @param divisionFiles
+	 *            in document order
+	 * @param documentText
+	 *            may be null, see {@link #join(String, String, List, String)}
+	 * @param encoding
+	 * @param threadCount
+	 * @return the joined document
+	 * @throws IOException
+	 */
+	public static TextDocument readDivisions(String sourceId, String sourceDb, List<File> divisionFiles,
+			String documentText, final CharacterEncoding encoding, int threadCount) throws IOException {
+		List<Callable<TextDocument>> tasks = new ArrayList<Callable<TextDocument>>();
+		for (final File divisionFile : divisionFiles) {
+			tasks.add(new Callable<TextDocument>() {
+				@Override
+				public TextDocument call() throws IOException {
+					try (InputStream inputStream = new FileInputStream(divisionFile)) {
+						return new PubAnnotationDocumentReader().readDocument(null, null, inputStream, null,
+								encoding);
+					}
+				}
+			});
+		}
+		List<TextDocument> divisionDocs = invokeAll(tasks, threadCount);
+		if (!divisionDocs.isEmpty()) {
+			if (sourceId == null) {
+				sourceId = divisionDocs.get(0).getSourceid();
+			}
+			if (sourceDb == null) {
+				sourceDb = divisionDocs.get(0).getSourcedb();
+			}
+		}
+		return join(sourceId, sourceDb, divisionDocs, documentText);
+	}
+
+	/**
+	 * Splits the document into its divisions and writes each division to its own
+	 * PubAnnotation file, in parallel. Files are named
+	 * [sourceid]-[divisionid].json.
+	 * 
+	 * @param td
+	 *            a document with divisions
+	 * @param outputDirectory
+	 * @param encoding
+	 * @param threadCount
+	 * @return the division files in document order
+	 * @throws IOException
+	 */
+	public static List<File> writeDivisions(TextDocument td, File outputDirectory, final CharacterEncoding encoding,
+			int threadCount) throws IOException {
+		List<Callable<File>> tasks = new ArrayList<Callable<File>>();
+		for (final TextDocument divisionDoc : split(td)) {
+			final File divisionFile = new File(outputDirectory,
+					td.getSourceid() + "-" + divisionDoc.getDivisions().get(0).getDivisionId() + ".json");
+			tasks.add(new Callable<File>() {
+				@Override
+				public File call() throws IOException {
+					new PubAnnotationDocumentWriter().serialize(divisionDoc, divisionFile, encoding);
+					return divisionFile;
+				}
+			});
+		}
+		return invokeAll(tasks, threadCount);
+	}
+
+	private static <T> List<T> invokeAll(List<Callable<T>> tasks, int threadCount) throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<T> results = new ArrayList<T>();
+			for (Future<T> future : executor.invokeAll(tasks)) {
+				results.add(future.get());
+			}
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while processing PubAnnotation divisions.", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Error while processing PubAnnotation divisions.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
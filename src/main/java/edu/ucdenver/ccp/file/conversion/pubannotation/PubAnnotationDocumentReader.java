@@ -33,84 +33,494 @@ package edu.ucdenver.ccp.file.conversion.pubannotation;
  * OF THE POSSIBILITY OF SUCH DAMAGE.
  * #L%
  */
-
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import edu.ucdenver.ccp.common.file.CharacterEncoding;
 import edu.ucdenver.ccp.common.io.StreamUtil;
+import edu.ucdenver.ccp.file.conversion.DocumentDivision;
 import edu.ucdenver.ccp.file.conversion.DocumentReader;
 import edu.ucdenver.ccp.file.conversion.TextDocument;
-import edu.ucdenver.ccp.file.conversion.pubannotation.PubAnnotationDocumentWriter.Denotation;
-import edu.ucdenver.ccp.file.conversion.pubannotation.PubAnnotationDocumentWriter.Document;
-import edu.ucdenver.ccp.file.conversion.pubannotation.PubAnnotationDocumentWriter.Relation;
 import edu.ucdenver.ccp.file.conversion.util.DocumentReaderUtil;
+import edu.ucdenver.ccp.nlp.core.annotation.Annotator;
 import edu.ucdenver.ccp.nlp.core.annotation.Span;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
 import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
 
+/**
+ * Reads PubAnnotation JSON using a streaming {@link JsonReader}. Denotations and
+ * relations are processed as they are encountered, so the JSON document is
+ * never materialized as an object model. As before, annotation covered text is
+ * taken from the document text embedded in the JSON; the separately supplied
+ * document text is used for covered text only if the JSON has no text, and is
+ * replaced by the embedded text if it is not supplied. Annotations in
+ * PubAnnotation tracks are read along with the top-level annotations. A JSON
+ * array of divisions is read as a single divided document, see
+ * {@link PubAnnotationDivisions}.
+ */
 public class PubAnnotationDocumentReader extends DocumentReader {
 
+	/**
+	 * @param documentTextFile
+	 *            may be null, in which case the text embedded in the PubAnnotation
+	 *            JSON is used
+	 */
+	@Override
+	public TextDocument readDocument(String sourceId, String sourceDb, File inputFile, File documentTextFile,
+			CharacterEncoding encoding) throws IOException {
+		if (documentTextFile == null) {
+			try (InputStream inputStream = new FileInputStream(inputFile)) {
+				return readDocument(sourceId, sourceDb, inputStream, null, encoding);
+			}
+		}
+		return super.readDocument(sourceId, sourceDb, inputFile, documentTextFile, encoding);
+	}
+
+	/**
+	 * @param documentTextStream
+	 *            may be null, in which case the text embedded in the PubAnnotation
+	 *            JSON is used
+	 */
 	@Override
 	public TextDocument readDocument(String sourceId, String sourceDb, InputStream inputStream,
 			InputStream documentTextStream, CharacterEncoding encoding) throws IOException {
-		String documentText = StreamUtil.toString(new InputStreamReader(documentTextStream, encoding.getDecoder()));
+		String documentText = null;
+		if (documentTextStream != null) {
+			documentText = StreamUtil.toString(new InputStreamReader(documentTextStream, encoding.getDecoder()));
+		}
+		try (JsonReader jsonReader = new JsonReader(new InputStreamReader(inputStream, encoding.getDecoder()))) {
+			if (jsonReader.peek() == JsonToken.BEGIN_ARRAY) {
+				/* a divided document is represented as an array of divisions */
+				List<TextDocument> divisionDocs = new ArrayList<TextDocument>();
+				jsonReader.beginArray();
+				while (jsonReader.hasNext()) {
+					divisionDocs.add(readDocument(sourceId, sourceDb, jsonReader, null));
+				}
+				jsonReader.endArray();
+				if (!divisionDocs.isEmpty()) {
+					sourceId = divisionDocs.get(0).getSourceid();
+					sourceDb = divisionDocs.get(0).getSourcedb();
+				}
+				if (documentText != null && !PubAnnotationDivisions.canLocate(divisionDocs, documentText)) {
+					/*
+					 * as for a single document, the text embedded in the JSON is used if the
+					 * supplied text does not match it, e.g. if it is empty
+					 */
+					documentText = null;
+				}
+				return PubAnnotationDivisions.join(sourceId, sourceDb, divisionDocs, documentText);
+			}
+			return readDocument(sourceId, sourceDb, jsonReader, documentText);
+		}
+	}
+
+	/**
+	 * Reads a single PubAnnotation document object from the specified
+	 * {@link JsonReader}. The reader must be positioned at the start of the
+	 * object and is left positioned after its end, so consecutive documents can
+	 * be read from a collection, see {@link PubAnnotationCollectionReader}.
+	 * 
+	 * @param sourceId
+	 *            if null, the sourceid in the JSON is used
+	 * @param sourceDb
+	 *            if null, the sourcedb in the JSON is used
+	 * @param jsonReader
+	 * @param documentText
+	 *            if null, the text embedded in the JSON is used
+	 * @return the document and its annotations, including the annotations of all
+	 *         tracks. If the JSON is a division of a larger document, i.e. it has a
+	 *         divid, the document has a single division that spans its text.
+	 * @throws IOException
+	 */
+	public static TextDocument readDocument(String sourceId, String sourceDb, JsonReader jsonReader,
+			String documentText) throws IOException {
+		ParsedDocument parsedDocument = parse(jsonReader, documentText);
+		if (sourceId == null) {
+			sourceId = parsedDocument.sourceId;
+		}
+		if (sourceDb == null) {
+			sourceDb = parsedDocument.sourceDb;
+		}
+		if (documentText == null) {
+			documentText = parsedDocument.text;
+		}
+		if (documentText == null) {
+			throw new IOException("No document text available for document " + sourceId
+					+ ". The PubAnnotation JSON does not contain text and no document text was provided.");
+		}
 		TextDocument td = new TextDocument(sourceId, sourceDb, documentText);
-		List<TextAnnotation> annotations = getAnnotations(inputStream, encoding);
+		if (parsedDocument.divisionId != null) {
+			td.setDivisions(Collections.singletonList(
+					new DocumentDivision(parsedDocument.divisionId, 0, documentText.length())));
+		}
+		List<TextAnnotation> annotations = parsedDocument.getAnnotations();
 		DocumentReaderUtil.validateSpans(annotations, documentText, sourceId);
 		td.addAnnotations(annotations);
 		return td;
 	}
 
+	/**
+	 * @param pubAnnotationStream
+	 * @param encoding
+	 * @return the annotations in the PubAnnotation JSON, including the annotations
+	 *         of all tracks; covered text is taken from the embedded document text
+	 * @throws JsonIOException
+	 *             if the JSON cannot be read
+	 */
 	public static List<TextAnnotation> getAnnotations(InputStream pubAnnotationStream, CharacterEncoding encoding) {
-		TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults();
+		try (JsonReader jsonReader = new JsonReader(
+				new InputStreamReader(pubAnnotationStream, encoding.getDecoder()))) {
+			return parse(jsonReader, null).getAnnotations();
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
 
-		Map<String, TextAnnotation> idToAnnotMap = new HashMap<String, TextAnnotation>();
+	/**
+	 * @param jsonReader
+	 * @param documentText
+	 *            used for the annotation covered text if the JSON does not embed
+	 *            the document text; may be null
+	 */
+	private static ParsedDocument parse(JsonReader jsonReader, String documentText) throws IOException {
+		ParsedDocument parsedDocument = new ParsedDocument(documentText);
+		/* denotations and relations at the top level of the document */
+		AnnotationTrack documentTrack = parsedDocument.addTrack();
+		jsonReader.beginObject();
+		while (jsonReader.hasNext()) {
+			String name = jsonReader.nextName();
+			switch (name) {
+			case "text":
+				parsedDocument.setText(jsonReader.nextString());
+				break;
+			case "sourceid":
+				parsedDocument.sourceId = jsonReader.nextString();
+				break;
+			case "sourcedb":
+				parsedDocument.sourceDb = jsonReader.nextString();
+				break;
+			case "divid":
+				parsedDocument.divisionId = jsonReader.nextString();
+				break;
+			case "tracks":
+				jsonReader.beginArray();
+				while (jsonReader.hasNext()) {
+					readTrack(jsonReader, parsedDocument.addTrack());
+				}
+				jsonReader.endArray();
+				break;
+			default:
+				if (!readTrackMember(name, jsonReader, documentTrack)) {
+					/* modifications, etc. are not used */
+					jsonReader.skipValue();
+				}
+				break;
+			}
+		}
+		jsonReader.endObject();
+		parsedDocument.finish();
+		return parsedDocument;
+	}
 
-		Gson gson = new Gson();
-		Document document = gson.fromJson(new InputStreamReader(pubAnnotationStream, encoding.getDecoder()),
-				Document.class);
+	private static void readTrack(JsonReader jsonReader, AnnotationTrack track) throws IOException {
+		jsonReader.beginObject();
+		while (jsonReader.hasNext()) {
+			if (!readTrackMember(jsonReader.nextName(), jsonReader, track)) {
+				jsonReader.skipValue();
+			}
+		}
+		jsonReader.endObject();
+	}
+
+	/**
+	 * Reads the members that are shared by the document object and the track
+	 * objects
+	 * 
+	 * @return true if the member value was consumed, false if it should be skipped
+	 */
+	private static boolean readTrackMember(String name, JsonReader jsonReader, AnnotationTrack track)
+			throws IOException {
+		switch (name) {
+		case "project":
+			if (jsonReader.peek() == JsonToken.NULL) {
+				jsonReader.nextNull();
+			} else {
+				track.setProject(jsonReader.nextString());
+			}
+			return true;
+		case "denotations":
+			jsonReader.beginArray();
+			while (jsonReader.hasNext()) {
+				readDenotation(jsonReader, track);
+			}
+			jsonReader.endArray();
+			track.setDenotationsRead();
+			return true;
+		case "relations":
+			jsonReader.beginArray();
+			while (jsonReader.hasNext()) {
+				readRelation(jsonReader, track);
+			}
+			jsonReader.endArray();
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private static void readDenotation(JsonReader jsonReader, AnnotationTrack track) throws IOException {
+		String id = null;
+		String obj = null;
+		int begin = -1;
+		int end = -1;
+		jsonReader.beginObject();
+		while (jsonReader.hasNext()) {
+			switch (jsonReader.nextName()) {
+			case "id":
+				id = jsonReader.nextString();
+				break;
+			case "obj":
+				obj = jsonReader.nextString();
+				break;
+			case "span":
+				jsonReader.beginObject();
+				while (jsonReader.hasNext()) {
+					String name = jsonReader.nextName();
+					if (name.equals("begin")) {
+						begin = jsonReader.nextInt();
+					} else if (name.equals("end")) {
+						end = jsonReader.nextInt();
+					} else {
+						jsonReader.skipValue();
+					}
+				}
+				jsonReader.endObject();
+				break;
+			default:
+				jsonReader.skipValue();
+				break;
+			}
+		}
+		jsonReader.endObject();
+		track.addDenotation(id, begin, end, obj);
+	}
 
-		String documentText = document.getText();
+	private static void readRelation(JsonReader jsonReader, AnnotationTrack track) throws IOException {
+		String subj = null;
+		String pred = null;
+		String obj = null;
+		jsonReader.beginObject();
+		while (jsonReader.hasNext()) {
+			String name = jsonReader.nextName();
+			if (jsonReader.peek() == JsonToken.NULL) {
+				jsonReader.nextNull();
+				continue;
+			}
+			switch (name) {
+			case "subj":
+				subj = jsonReader.nextString();
+				break;
+			case "pred":
+				pred = jsonReader.nextString();
+				break;
+			case "obj":
+				obj = jsonReader.nextString();
+				break;
+			default:
+				jsonReader.skipValue();
+				break;
+			}
+		}
+		jsonReader.endObject();
+		track.addRelation(subj, pred, obj);
+	}
+
+	/**
+	 * Holds the document-level state while the JSON is read: the document text and
+	 * the annotation tracks. The denotations and relations at the top level of the
+	 * document form the first track.
+	 */
+	private static class ParsedDocument {
+		private final TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults();
+		/* the supplied document text, used if the JSON does not embed the text */
+		private final String suppliedText;
+		private String text;
+		private String sourceId;
+		private String sourceDb;
+		private String divisionId;
+		private final List<AnnotationTrack> tracks = new ArrayList<AnnotationTrack>();
 
-		/* create an annotation for every denotation */
-		for (Denotation denot : document.getDenotations()) {
-			TextAnnotation annot = factory.createAnnotation(denot.getSpan().getBegin(), denot.getSpan().getEnd(),
-					documentText.substring(denot.getSpan().getBegin(), denot.getSpan().getEnd()),
-					new DefaultClassMention(denot.getObj()));
-			idToAnnotMap.put(denot.getId(), annot);
+		public ParsedDocument(String suppliedText) {
+			this.suppliedText = suppliedText;
 		}
 
-		/* now add relations */
-		for (Relation rel : document.getRelations()) {
-			TextAnnotation subjAnnot = idToAnnotMap.get(rel.getSubj());
-			TextAnnotation objAnnot = idToAnnotMap.get(rel.getObj());
-			String relationType = rel.getPred();
+		public AnnotationTrack addTrack() {
+			AnnotationTrack track = new AnnotationTrack(this);
+			tracks.add(track);
+			return track;
+		}
 
-			if (relationType.equals(PubAnnotationDocumentWriter.LEXICALLY_CHAINED_PREDICATE)) {
+		public void setText(String embeddedText) {
+			this.text = embeddedText;
+			for (AnnotationTrack track : tracks) {
+				track.processPendingDenotations();
+			}
+		}
+
+		public void finish() throws IOException {
+			if (text == null && suppliedText != null) {
+				setText(suppliedText);
+			}
+			for (AnnotationTrack track : tracks) {
+				track.finish();
+			}
+		}
+
+		public List<TextAnnotation> getAnnotations() {
+			List<TextAnnotation> annotations = new ArrayList<TextAnnotation>();
+			for (AnnotationTrack track : tracks) {
+				annotations.addAll(track.idToAnnotMap.values());
+			}
+			return annotations;
+		}
+	}
+
+	/**
+	 * Accumulates the annotations of a single track as denotations and relations
+	 * are read. Denotation ids are local to a track. JSON object members are
+	 * unordered, so denotations that precede the embedded document text, and
+	 * relations that precede the denotations, are held until they can be
+	 * resolved. For typical PubAnnotation JSON (text, then denotations, then
+	 * relations) no buffering takes place. If the track names a project, the
+	 * project is used as the annotator of its annotations.
+	 */
+	private static class AnnotationTrack {
+		private final ParsedDocument document;
+		private final Map<String, TextAnnotation> idToAnnotMap = new LinkedHashMap<String, TextAnnotation>();
+		private String project;
+		private boolean denotationsRead = false;
+
+		private final List<PendingDenotation> pendingDenotations = new ArrayList<PendingDenotation>();
+		private final List<String[]> pendingRelations = new ArrayList<String[]>();
+
+		public AnnotationTrack(ParsedDocument document) {
+			this.document = document;
+		}
+
+		public void setProject(String project) {
+			this.project = project;
+		}
+
+		public void addDenotation(String id, int begin, int end, String obj) {
+			if (document.text == null) {
+				pendingDenotations.add(new PendingDenotation(id, begin, end, obj));
+			} else {
+				createAnnotation(id, begin, end, obj);
+			}
+		}
+
+		public void processPendingDenotations() {
+			for (PendingDenotation denot : pendingDenotations) {
+				createAnnotation(denot.id, denot.begin, denot.end, denot.obj);
+			}
+			pendingDenotations.clear();
+			processPendingRelations();
+		}
+
+		public void setDenotationsRead() {
+			denotationsRead = true;
+			processPendingRelations();
+		}
+
+		private void createAnnotation(String id, int begin, int end, String obj) {
+			TextAnnotation annot = document.factory.createAnnotation(begin, end,
+					document.text.substring(begin, end), new DefaultClassMention(obj));
+			idToAnnotMap.put(id, annot);
+		}
+
+		/**
+		 * relations can only be resolved once all denotations have been turned into
+		 * annotations
+		 */
+		private boolean canProcessRelations() {
+			return denotationsRead && document.text != null;
+		}
+
+		public void addRelation(String subj, String pred, String obj) {
+			if (canProcessRelations()) {
+				processRelation(subj, pred, obj);
+			} else {
+				pendingRelations.add(new String[] { subj, pred, obj });
+			}
+		}
+
+		private void processPendingRelations() {
+			if (canProcessRelations()) {
+				for (String[] relation : pendingRelations) {
+					processRelation(relation[0], relation[1], relation[2]);
+				}
+				pendingRelations.clear();
+			}
+		}
+
+		private void processRelation(String subj, String pred, String obj) {
+			TextAnnotation subjAnnot = idToAnnotMap.get(subj);
+			TextAnnotation objAnnot = idToAnnotMap.get(obj);
+
+			if (pred.equals(PubAnnotationDocumentWriter.LEXICALLY_CHAINED_PREDICATE)) {
 				/*
-				 * then the subj and obj annotations need to be combined b/c
-				 * they are a discontinuous span annotation
+				 * then the subj and obj annotations need to be combined b/c they are a
+				 * discontinuous span annotation
 				 */
-
 				Span span = objAnnot.getAggregateSpan();
 				subjAnnot.addSpan(span);
-				idToAnnotMap.remove(rel.getObj());
+				idToAnnotMap.remove(obj);
 			} else {
-				DocumentReader.createAnnotationRelation(subjAnnot, objAnnot, relationType);
+				DocumentReader.createAnnotationRelation(subjAnnot, objAnnot, pred);
 			}
 		}
 
-		return new ArrayList<TextAnnotation>(idToAnnotMap.values());
+		public void finish() throws IOException {
+			if (!pendingDenotations.isEmpty()) {
+				throw new IOException("Unable to create annotations. The PubAnnotation JSON does not contain text.");
+			}
+			/* a track without a denotations member */
+			denotationsRead = true;
+			processPendingRelations();
+			if (project != null) {
+				Annotator annotator = new Annotator(project, project, null);
+				for (TextAnnotation annot : idToAnnotMap.values()) {
+					annot.setAnnotator(annotator);
+				}
+			}
+		}
+	}
+
+	private static class PendingDenotation {
+		private final String id;
+		private final int begin;
+		private final int end;
+		private final String obj;
+
+		public PendingDenotation(String id, int begin, int end, String obj) {
+			this.id = id;
+			this.begin = begin;
+			this.end = end;
+			this.obj = obj;
+		}
 	}
 
 }
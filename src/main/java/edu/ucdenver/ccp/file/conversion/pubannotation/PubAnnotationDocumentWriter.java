@@ -33,289 +33,369 @@ package edu.ucdenver.ccp.file.conversion.pubannotation;
  * OF THE POSSIBILITY OF SUCH DAMAGE.
  * #L%
  */
-
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.annotations.Expose;
+import com.google.gson.stream.JsonWriter;
 
 import edu.ucdenver.ccp.common.file.CharacterEncoding;
 import edu.ucdenver.ccp.common.file.FileWriterUtil;
 import edu.ucdenver.ccp.file.conversion.DocumentWriter;
 import edu.ucdenver.ccp.file.conversion.TextDocument;
+import edu.ucdenver.ccp.file.conversion.diagnostics.DiagnosticEvent;
+import edu.ucdenver.ccp.file.conversion.diagnostics.DiagnosticType;
+import edu.ucdenver.ccp.file.conversion.diagnostics.Diagnostics;
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.core.mention.ClassMention;
 import edu.ucdenver.ccp.nlp.core.mention.ComplexSlotMention;
-import lombok.Data;
 
 /**
- * Currently does not handle modifications or annotation tracks. For details,
- * see http://www.pubannotation.org/docs/annotation-format/
+ * Currently does not handle modifications. Annotation tracks are written, one
+ * per annotator, if the writer is constructed with writeTracks=true. A relation
+ * is written only in the track of its source annotation, so relations whose
+ * target belongs to a different annotator are excluded. For details, see
+ * http://www.pubannotation.org/docs/annotation-format/
+ * <p>
+ * The JSON is written incrementally using a {@link JsonWriter}. Denotations are
+ * written as soon as they are created; relations must follow the denotations
+ * array in the output so they are buffered as int triples until all
+ * denotations have been written.
  */
 public class PubAnnotationDocumentWriter extends DocumentWriter {
 
 	public static final String FRAGMENT_INDICATOR = "_FRAGMENT";
 	public static final String LEXICALLY_CHAINED_PREDICATE = "_lexicallyChainedTo";
 
+	/**
+	 * if true, annotations are grouped by annotator and each group is written as
+	 * a PubAnnotation track whose project is the annotator name
+	 */
+	private final boolean writeTracks;
+
+	public PubAnnotationDocumentWriter() {
+		this(false);
+	}
+
+	public PubAnnotationDocumentWriter(boolean writeTracks) {
+		this.writeTracks = writeTracks;
+	}
+
 	@Override
 	public void serialize(TextDocument td, OutputStream outputStream, CharacterEncoding encoding) throws IOException {
-		Document d = new Document(td.getSourceid(), td.getSourcedb(), td.getText());
+		try (JsonWriter jsonWriter = new JsonWriter(FileWriterUtil.initBufferedWriter(outputStream, encoding))) {
+			if (PubAnnotationDivisions.isDivided(td)) {
+				/* a divided document is written as an array of divisions */
+				jsonWriter.beginArray();
+				for (TextDocument divisionDoc : PubAnnotationDivisions.split(td)) {
+					serialize(divisionDoc, jsonWriter);
+				}
+				jsonWriter.endArray();
+			} else {
+				serialize(td, jsonWriter);
+			}
+		}
+	}
 
+	/**
+	 * Writes the document as a single JSON object to the specified
+	 * {@link JsonWriter}. Divisions of a divided document are not split out; use
+	 * {@link PubAnnotationDivisions#split(TextDocument)} to write them
+	 * individually. The output matches the default Gson output, i.e. HTML
+	 * characters are escaped and null members are omitted. The writer's own
+	 * settings for both are restored before returning.
+	 * 
+	 * @param td
+	 * @param jsonWriter
+	 * @throws IOException
+	 */
+	public void serialize(TextDocument td, JsonWriter jsonWriter) throws IOException {
+		boolean htmlSafe = jsonWriter.isHtmlSafe();
+		boolean serializeNulls = jsonWriter.getSerializeNulls();
+		jsonWriter.setHtmlSafe(true);
+		jsonWriter.setSerializeNulls(false);
 		try {
-			// create all denotations
-			Map<String, Denotation> annotKeyToDenotationMap = new HashMap<String, Denotation>();
-			for (TextAnnotation annot : td.getAnnotations()) {
-				Denotation subjDenotation = addDenotation(d, annotKeyToDenotationMap, annot);
-				// add a Relation to the document for each ComplexSlotMention
-				for (ComplexSlotMention csm : annot.getClassMention().getComplexSlotMentions()) {
-					addRelation(d, annotKeyToDenotationMap, subjDenotation, csm);
+			writeDocument(td, jsonWriter);
+		} finally {
+			jsonWriter.setHtmlSafe(htmlSafe);
+			jsonWriter.setSerializeNulls(serializeNulls);
+		}
+	}
+
+	private void writeDocument(TextDocument td, JsonWriter jsonWriter) throws IOException {
+		jsonWriter.beginObject();
+		jsonWriter.name("sourceid").value(td.getSourceid());
+		jsonWriter.name("sourcedb").value(td.getSourcedb());
+		String divisionId = PubAnnotationDivisions.getDivisionId(td);
+		if (divisionId != null) {
+			/* PubAnnotation division ids are integers */
+			if (divisionId.matches("\\d{1,9}")) {
+				jsonWriter.name("divid").value(Integer.parseInt(divisionId));
+			} else {
+				jsonWriter.name("divid").value(divisionId);
+			}
+		}
+		jsonWriter.name("text").value(td.getText());
+
+		if (writeTracks) {
+			Map<String, List<TextAnnotation>> projectToAnnotsMap = groupByAnnotator(td.getAnnotations());
+			if (!projectToAnnotsMap.isEmpty()) {
+				jsonWriter.name("tracks").beginArray();
+				for (Entry<String, List<TextAnnotation>> entry : projectToAnnotsMap.entrySet()) {
+					jsonWriter.beginObject();
+					jsonWriter.name("project").value(entry.getKey());
+					writeAnnotations(td.getSourceid(), entry.getKey(), entry.getValue(), jsonWriter);
+					jsonWriter.endObject();
 				}
+				jsonWriter.endArray();
 			}
+		} else {
+			writeAnnotations(td.getSourceid(), null, td.getAnnotations(), jsonWriter);
+		}
 
-			Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
-			String json = gson.toJson(d);
+		jsonWriter.endObject();
+	}
 
-			try (BufferedWriter writer = FileWriterUtil.initBufferedWriter(outputStream, encoding)) {
-				writer.write(json);
+	/**
+	 * @param annotations
+	 * @return the annotations grouped by annotator name in order of first
+	 *         appearance; annotations without an annotator are grouped under a null
+	 *         project
+	 */
+	private static Map<String, List<TextAnnotation>> groupByAnnotator(List<TextAnnotation> annotations) {
+		Map<String, List<TextAnnotation>> projectToAnnotsMap = new LinkedHashMap<String, List<TextAnnotation>>();
+		if (annotations != null) {
+			for (TextAnnotation annot : annotations) {
+				String project = getProject(annot);
+				List<TextAnnotation> trackAnnots = projectToAnnotsMap.get(project);
+				if (trackAnnots == null) {
+					trackAnnots = new ArrayList<TextAnnotation>();
+					projectToAnnotsMap.put(project, trackAnnots);
+				}
+				trackAnnots.add(annot);
 			}
-
-		} catch (CloneNotSupportedException e) {
-			throw new IOException("Error while generating PubAnnotation JSON.", e);
 		}
+		return projectToAnnotsMap;
+	}
+
+	private static String getProject(TextAnnotation annot) {
+		return (annot.getAnnotator() == null) ? null : annot.getAnnotator().getName();
 	}
 
-	public void addRelation(Document d, Map<String, Denotation> annotKeyToDenotationMap, Denotation subjDenotation,
-			ComplexSlotMention csm) throws CloneNotSupportedException {
-		String relationType = csm.getMentionName();
-		for (ClassMention cm : csm.getClassMentions()) {
-			TextAnnotation relationObjectAnnot = cm.getTextAnnotation();
-			Denotation objDenotation = addDenotation(d, annotKeyToDenotationMap, relationObjectAnnot);
-			Relation r = new Relation(subjDenotation.getId(), relationType, objDenotation.getId());
-			d.addRelation(r);
+	/**
+	 * Writes the denotations and relations members for the specified annotations.
+	 * If tracks are written, relation targets must belong to the track's project
+	 * otherwise they would appear in more than one track.
+	 */
+	private void writeAnnotations(String sourceId, String project, List<TextAnnotation> annotations,
+			JsonWriter jsonWriter) throws IOException {
+		DocumentJsonWriter documentWriter = new DocumentJsonWriter(jsonWriter);
+		if (annotations != null) {
+			for (TextAnnotation annot : annotations) {
+				int subjDenotation = documentWriter.addDenotation(annot);
+				// add a Relation to the document for each ComplexSlotMention
+				for (ComplexSlotMention csm : annot.getClassMention().getComplexSlotMentions()) {
+					String relationType = csm.getMentionName();
+					for (ClassMention cm : csm.getClassMentions()) {
+						TextAnnotation target = cm.getTextAnnotation();
+						if (writeTracks && !Objects.equals(project, getProject(target))) {
+							if (Diagnostics.isEnabled(DiagnosticType.CROSS_TRACK_RELATION_EXCLUDED)) {
+								Diagnostics.report(DiagnosticEvent.forAnnotations(
+										DiagnosticType.CROSS_TRACK_RELATION_EXCLUDED, sourceId, relationType,
+										Arrays.asList(annot, target)));
+							}
+							continue;
+						}
+						int objDenotation = documentWriter.addDenotation(target);
+						documentWriter.addRelation(subjDenotation, relationType, objDenotation);
+					}
+				}
+			}
 		}
+		documentWriter.endDenotations();
+		documentWriter.writeRelations();
 	}
 
-	public Denotation addDenotation(Document d, Map<String, Denotation> annotKeyToDenotationMap, TextAnnotation annot)
-			throws CloneNotSupportedException {
-		String annotKey = annot.getSpans().toString() + annot.getClassMention().getMentionName();
-		Denotation denotationToReturn = null;
-		if (!annotKeyToDenotationMap.containsKey(annotKey)) {
-			Denotation denotation = null;
-			for (int i = 0; i < annot.getSpans().size(); i++) {
-				edu.ucdenver.ccp.nlp.core.annotation.Span span = annot.getSpans().get(i);
-				String type = (i < annot.getSpans().size() - 1) ? FRAGMENT_INDICATOR
-						: annot.getClassMention().getMentionName();
-				Denotation denot = new Denotation(span.getSpanStart(), span.getSpanEnd(), type);
-				Denotation docDenotation = d.addDenotation(denot);
+	/**
+	 * Tracks the denotations and relations of a single document. Denotations and
+	 * relations are identified by int index (denotation T[n] has index n);
+	 * duplicates are detected using keys composed of span offsets and interned
+	 * type/predicate ids, so no per-annotation strings are created.
+	 */
+	private static class DocumentJsonWriter {
+		private final JsonWriter jsonWriter;
+
+		private final Map<String, Integer> typeToIdMap = new HashMap<String, Integer>();
+		private final List<String> types = new ArrayList<String>();
+
+		private final Map<DenotationKey, Integer> denotationKeyToIndexMap = new HashMap<DenotationKey, Integer>();
+		private int denotationCount = 0;
+
+		private final Set<RelationKey> relationKeys = new HashSet<RelationKey>();
+		/* buffered relations stored as consecutive (subj, predicate id, obj) triples */
+		private int[] relations = new int[48];
+		private int relationCount = 0;
+
+		public DocumentJsonWriter(JsonWriter jsonWriter) {
+			this.jsonWriter = jsonWriter;
+		}
+
+		private int getTypeId(String type) {
+			Integer id = typeToIdMap.get(type);
+			if (id == null) {
+				id = types.size();
+				types.add(type);
+				typeToIdMap.put(type, id);
+			}
+			return id;
+		}
+
+		/**
+		 * Adds a denotation for each span of the annotation; discontinuous spans are
+		 * linked using the {@link PubAnnotationDocumentWriter#LEXICALLY_CHAINED_PREDICATE}
+		 * relation
+		 * 
+		 * @param annot
+		 * @return the index of the denotation for the final span of the annotation
+		 * @throws IOException
+		 */
+		public int addDenotation(TextAnnotation annot) throws IOException {
+			List<Span> spans = annot.getSpans();
+			int denotation = -1;
+			for (int i = 0; i < spans.size(); i++) {
+				Span span = spans.get(i);
+				String type = (i < spans.size() - 1) ? FRAGMENT_INDICATOR : annot.getClassMention().getMentionName();
+				int spanDenotation = addDenotation(span.getSpanStart(), span.getSpanEnd(), type);
 
 				/*
 				 * if discontinuous span, add the _lexicallyChainedTo relation
 				 */
-
 				if (i > 0) {
-					Relation r = new Relation(docDenotation.getId(), LEXICALLY_CHAINED_PREDICATE, denotation.getId());
-					d.addRelation(r);
+					addRelation(spanDenotation, LEXICALLY_CHAINED_PREDICATE, denotation);
 				}
 
-				denotation = docDenotation;
+				denotation = spanDenotation;
 			}
-			annotKeyToDenotationMap.put(annotKey, denotation);
-			denotationToReturn = denotation;
-		} else {
-			denotationToReturn = annotKeyToDenotationMap.get(annotKey);
+			return denotation;
 		}
-		return denotationToReturn;
-	}
 
-	@Data
-	static class Denotation {
-		@Expose
-		private String id;
-		@Expose
-		private final Span span;
-		@Expose
-		private final String obj;
-
-		public Denotation(int begin, int end, String obj) {
-			this.span = new Span(begin, end);
-			this.obj = obj;
+		private int addDenotation(int begin, int end, String type) throws IOException {
+			int typeId = getTypeId(type);
+			DenotationKey key = new DenotationKey(begin, end, typeId);
+			Integer index = denotationKeyToIndexMap.get(key);
+			if (index == null) {
+				index = ++denotationCount;
+				denotationKeyToIndexMap.put(key, index);
+				if (index == 1) {
+					jsonWriter.name("denotations").beginArray();
+				}
+				jsonWriter.beginObject();
+				jsonWriter.name("id").value("T" + index);
+				jsonWriter.name("span").beginObject();
+				jsonWriter.name("begin").value(begin);
+				jsonWriter.name("end").value(end);
+				jsonWriter.endObject();
+				jsonWriter.name("obj").value(type);
+				jsonWriter.endObject();
+			}
+			return index;
 		}
 
-		/* equals() and hashcode() ignore the id field */
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			Denotation other = (Denotation) obj;
-			if (this.obj == null) {
-				if (other.obj != null)
-					return false;
-			} else if (!this.obj.equals(other.obj))
-				return false;
-			if (span == null) {
-				if (other.span != null)
-					return false;
-			} else if (!span.equals(other.span))
-				return false;
-			return true;
+		public void addRelation(int subjDenotation, String predicate, int objDenotation) {
+			int predicateId = getTypeId(predicate);
+			if (relationKeys.add(new RelationKey(subjDenotation, predicateId, objDenotation))) {
+				if (3 * relationCount + 3 > relations.length) {
+					relations = Arrays.copyOf(relations, 2 * relations.length);
+				}
+				relations[3 * relationCount] = subjDenotation;
+				relations[3 * relationCount + 1] = predicateId;
+				relations[3 * relationCount + 2] = objDenotation;
+				relationCount++;
+			}
 		}
 
-		@Override
-		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + ((obj == null) ? 0 : obj.hashCode());
-			result = prime * result + ((span == null) ? 0 : span.hashCode());
-			return result;
+		public void endDenotations() throws IOException {
+			if (denotationCount > 0) {
+				jsonWriter.endArray();
+			}
 		}
 
-		@Override
-		protected Denotation clone() throws CloneNotSupportedException {
-			return new Denotation(this.getSpan().getBegin(), this.getSpan().getEnd(), this.obj);
+		public void writeRelations() throws IOException {
+			if (relationCount == 0) {
+				return;
+			}
+			jsonWriter.name("relations").beginArray();
+			for (int i = 0; i < relationCount; i++) {
+				jsonWriter.beginObject();
+				jsonWriter.name("id").value("R" + (i + 1));
+				jsonWriter.name("subj").value("T" + relations[3 * i]);
+				jsonWriter.name("pred").value(types.get(relations[3 * i + 1]));
+				jsonWriter.name("obj").value("T" + relations[3 * i + 2]);
+				jsonWriter.endObject();
+			}
+			jsonWriter.endArray();
 		}
-
 	}
 
-	@Data
-	static class Span {
-		@Expose
+	private static final class DenotationKey {
 		private final int begin;
-		@Expose
 		private final int end;
-	}
+		private final int typeId;
 
-	@Data
-	static class Relation {
-		@Expose
-		private String id;
-		@Expose
-		private final String subj;
-		@Expose
-		private final String pred;
-		@Expose
-		private final String obj;
+		public DenotationKey(int begin, int end, int typeId) {
+			this.begin = begin;
+			this.end = end;
+			this.typeId = typeId;
+		}
 
 		@Override
 		public boolean equals(Object obj) {
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			Relation other = (Relation) obj;
-			if (this.obj == null) {
-				if (other.obj != null)
-					return false;
-			} else if (!this.obj.equals(other.obj))
-				return false;
-			if (pred == null) {
-				if (other.pred != null)
-					return false;
-			} else if (!pred.equals(other.pred))
+			if (!(obj instanceof DenotationKey)) {
 				return false;
-			if (subj == null) {
-				if (other.subj != null)
-					return false;
-			} else if (!subj.equals(other.subj))
-				return false;
-			return true;
+			}
+			DenotationKey other = (DenotationKey) obj;
+			return begin == other.begin && end == other.end && typeId == other.typeId;
 		}
 
 		@Override
 		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + ((obj == null) ? 0 : obj.hashCode());
-			result = prime * result + ((pred == null) ? 0 : pred.hashCode());
-			result = prime * result + ((subj == null) ? 0 : subj.hashCode());
-			return result;
-		}
-
-		@Override
-		protected Relation clone() throws CloneNotSupportedException {
-			return new Relation(this.getSubj(), this.getPred(), this.getObj());
+			return 31 * (31 * begin + end) + typeId;
 		}
-
 	}
 
-	@Data
-	static class Document {
-		@Expose
-		private final String sourceid;
-		@Expose
-		private final String sourcedb;
-		@Expose
-		private final String text;
-
-		/*
-		 * Fields lacking @Expose annotation will not be serialized to JSON
-		 */
-
-		private int denotationIndex = 1;
-		private int relationIndex = 1;
-
-		private Map<Denotation, String> denotToIdMap;
-		@Expose
-		private List<Denotation> denotations;
+	private static final class RelationKey {
+		private final int subj;
+		private final int predicateId;
+		private final int obj;
 
-		private Map<Relation, String> relationToIdMap;
-		@Expose
-		private List<Relation> relations;
-
-		public Denotation addDenotation(Denotation d) throws CloneNotSupportedException {
-			if (denotations == null) {
-				denotations = new ArrayList<Denotation>();
-				denotToIdMap = new HashMap<Denotation, String>();
-			}
-			Denotation denot = d.clone();
-			if (denotToIdMap.containsKey(d)) {
-				String denotId = denotToIdMap.get(d);
-				denot.setId(denotId);
-			} else {
-				String denotId = "T" + denotationIndex++;
-				denot.setId(denotId);
-				denotToIdMap.put(denot, denotId);
-				denotations.add(denot);
-			}
-			return denot;
+		public RelationKey(int subj, int predicateId, int obj) {
+			this.subj = subj;
+			this.predicateId = predicateId;
+			this.obj = obj;
 		}
 
-		public Relation addRelation(Relation r) throws CloneNotSupportedException {
-			if (relations == null) {
-				relations = new ArrayList<Relation>();
-				relationToIdMap = new HashMap<Relation, String>();
-			}
-			Relation rel = r.clone();
-			if (relationToIdMap.containsKey(rel)) {
-				String relId = relationToIdMap.get(rel);
-				rel.setId(relId);
-			} else {
-				String relId = "R" + relationIndex++;
-				rel.setId(relId);
-				relationToIdMap.put(rel, relId);
-				relations.add(rel);
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof RelationKey)) {
+				return false;
 			}
-			return rel;
-		}
-
-		public boolean containsDenotation(Denotation d) {
-			return denotToIdMap.containsKey(d);
+			RelationKey other = (RelationKey) o;
+			return subj == other.subj && predicateId == other.predicateId && obj == other.obj;
 		}
 
-		public boolean containsRelation(Relation r) {
-			return relationToIdMap.containsKey(r);
+		@Override
+		public int hashCode() {
+			return 31 * (31 * subj + predicateId) + obj;
 		}
 	}
 
@@ -34,6 +34,616 @@ package edu.ucdenver.ccp.file.conversion.pubannotation;
  * #L%
  */
 
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.file.conversion.pubannotation.PubAnnotationCollectionReader.LineHandler;
+import lombok.Data;
+
+/**
+ * Validates PubAnnotation JSON without converting it. Documents are checked
+ * directly from the JSON token stream for:
+ * <ul>
+ * <li>span offsets that fall outside of the document text</li>
+ * <li>duplicate denotation ids (ids are local to each track)</li>
+ * <li>relation subjects and objects that do not refer to a denotation</li>
+ * <li>malformed {@value PubAnnotationDocumentWriter#LEXICALLY_CHAINED_PREDICATE}
+ * chains, i.e. chains that branch or form cycles, fragments that are not part
+ * of a chain, and chains that do not end in a typed denotation</li>
+ * </ul>
+ * Only a single document is held in memory at a time (per thread). JSON lines
+ * collections are validated in parallel across byte ranges of the file.
+ * <p>
+ * Errors are written to a report, one tab-delimited line per error: the
+ * location of the document in the file, the sourcedb:sourceid of the document,
+ * and a description of the error. The number of errors reported per document
+ * is limited. The report ends with a summary line.
+ */
 public class PubAnnotationFileValidator {
 
+	public static final int DEFAULT_MAX_ERRORS_PER_DOCUMENT = 10;
+
+	@Data
+	public static class ValidationSummary {
+		private long documentCount;
+		private long invalidDocumentCount;
+		private long errorCount;
+
+		private void add(ValidationSummary summary) {
+			documentCount += summary.documentCount;
+			invalidDocumentCount += summary.invalidDocumentCount;
+			errorCount += summary.errorCount;
+		}
+
+		public boolean isValid() {
+			return errorCount == 0;
+		}
+
+		@Override
+		public String toString() {
+			return "# documents: " + documentCount + " invalid documents: " + invalidDocumentCount + " errors: "
+					+ errorCount;
+		}
+	}
+
+	/**
+	 * @param jsonReader
+	 *            positioned at the start of a PubAnnotation document object
+	 * @return the errors found in the document; empty if the document is valid
+	 * @throws IOException
+	 *             if the JSON is malformed
+	 */
+	public static List<String> validateDocument(JsonReader jsonReader) throws IOException {
+		DocumentValidator validator = new DocumentValidator(Integer.MAX_VALUE);
+		validator.read(jsonReader);
+		return validator.finish();
+	}
+
+	/**
+	 * Validates a single PubAnnotation document, or a collection of documents
+	 * formatted as a JSON array
+	 * 
+	 * @param inputStream
+	 * @param encoding
+	 * @param report
+	 *            the error report is written here
+	 * @param maxErrorsPerDocument
+	 * @return a summary of the validation
+	 * @throws IOException
+	 */
+	public static ValidationSummary validate(InputStream inputStream, CharacterEncoding encoding, Writer report,
+			int maxErrorsPerDocument) throws IOException {
+		ValidationSummary summary = new ValidationSummary();
+		try (JsonReader jsonReader = new JsonReader(new InputStreamReader(inputStream, encoding.getDecoder()))) {
+			if (jsonReader.peek() == JsonToken.BEGIN_OBJECT) {
+				validate(jsonReader, "document", summary, report, maxErrorsPerDocument);
+			} else {
+				jsonReader.beginArray();
+				for (int index = 0; jsonReader.hasNext(); index++) {
+					validate(jsonReader, "document " + index, summary, report, maxErrorsPerDocument);
+				}
+				jsonReader.endArray();
+			}
+		} catch (MalformedJsonException | EOFException | IllegalStateException | NumberFormatException e) {
+			/* the position in the token stream is lost, so validation cannot continue */
+			summary.documentCount++;
+			summary.invalidDocumentCount++;
+			summary.errorCount++;
+			writeError(report, "unknown", null, null, "malformed JSON, validation stopped: " + e.getMessage());
+		}
+		report.write(summary.toString());
+		report.write('\n');
+		report.flush();
+		return summary;
+	}
+
+	private static void validate(JsonReader jsonReader, String location, ValidationSummary summary, Writer report,
+			int maxErrorsPerDocument) throws IOException {
+		DocumentValidator validator = new DocumentValidator(maxErrorsPerDocument);
+		validator.read(jsonReader);
+		validator.finish();
+		validator.report(location, summary, report);
+	}
+
+	/**
+	 * Validates a file in the specified collection format. JSON lines files are
+	 * validated in parallel; a malformed line is reported and validation
+	 * continues with the next line.
+	 * 
+	 * @param collectionFile
+	 * @param encoding
+	 * @param format
+	 * @param threadCount
+	 *            ignored for JSON arrays
+	 * @param report
+	 *            the error report is written here
+	 * @return a summary of the validation
+	 * @throws IOException
+	 */
+	public static ValidationSummary validate(File collectionFile, CharacterEncoding encoding,
+			PubAnnotationCollectionFormat format, int threadCount, Writer report) throws IOException {
+		switch (format) {
+		case JSON_ARRAY:
+			try (InputStream inputStream = new FileInputStream(collectionFile)) {
+				return validate(inputStream, encoding, report, DEFAULT_MAX_ERRORS_PER_DOCUMENT);
+			}
+		case JSON_LINES:
+			return validateJsonLines(collectionFile, encoding, threadCount, report, DEFAULT_MAX_ERRORS_PER_DOCUMENT);
+		default:
+			throw new IllegalArgumentException("Unhandled PubAnnotation collection format: " + format.name());
+		}
+	}
+
+	/**
+	 * Validates a JSON lines file in parallel. The file is divided into byte
+	 * ranges that are validated concurrently; the report lines for each range
+	 * are written in file order. Locations in the report are byte offsets of the
+	 * start of the document line. Ranges of
+	 * {@link PubAnnotationCollectionReader#DEFAULT_RANGE_SIZE} bytes are used.
+	 * 
+	 * @param jsonLinesFile
+	 * @param encoding
+	 * @param threadCount
+	 * @param report
+	 * @param maxErrorsPerDocument
+	 * @return a summary of the validation
+	 * @throws IOException
+	 */
+	public static ValidationSummary validateJsonLines(File jsonLinesFile, CharacterEncoding encoding,
+			int threadCount, Writer report, int maxErrorsPerDocument) throws IOException {
+		return validateJsonLines(jsonLinesFile, encoding, threadCount, PubAnnotationCollectionReader.DEFAULT_RANGE_SIZE,
+				report, maxErrorsPerDocument);
+	}
+
+	/**
+	 * Validates a JSON lines file in parallel, see
+	 * {@link #validateJsonLines(File, CharacterEncoding, int, Writer, int)}
+	 * 
+	 * @param jsonLinesFile
+	 * @param encoding
+	 * @param threadCount
+	 * @param rangeSize
+	 *            the number of bytes in each range; a line belongs to the range in
+	 *            which it starts
+	 * @param report
+	 * @param maxErrorsPerDocument
+	 * @return a summary of the validation
+	 * @throws IOException
+	 */
+	public static ValidationSummary validateJsonLines(final File jsonLinesFile, final CharacterEncoding encoding,
+			int threadCount, long rangeSize, Writer report, final int maxErrorsPerDocument) throws IOException {
+		if (rangeSize < 1) {
+			throw new IllegalArgumentException("Range size must be positive: " + rangeSize);
+		}
+		long fileLength = jsonLinesFile.length();
+		/* limits the report lines held in memory */
+		int maxPending = 2 * threadCount;
+
+		ValidationSummary summary = new ValidationSummary();
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			Deque<Future<RangeResult>> pending = new ArrayDeque<Future<RangeResult>>();
+			long nextRangeStart = 0;
+			while (nextRangeStart < fileLength || !pending.isEmpty()) {
+				while (pending.size() < maxPending && nextRangeStart < fileLength) {
+					final long start = nextRangeStart;
+					final long end = Math.min(fileLength, start + rangeSize);
+					nextRangeStart = end;
+					pending.add(executor.submit(new Callable<RangeResult>() {
+						@Override
+						public RangeResult call() throws IOException {
+							return validateRange(jsonLinesFile, start, end, encoding, maxErrorsPerDocument);
+						}
+					}));
+				}
+				RangeResult result = pending.removeFirst().get();
+				summary.add(result.summary);
+				report.write(result.report.toString());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while validating PubAnnotation file: " + jsonLinesFile.getAbsolutePath(),
+					e);
+		} catch (ExecutionException e) {
+			throw new IOException("Error while validating PubAnnotation file: " + jsonLinesFile.getAbsolutePath(),
+					e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		report.write(summary.toString());
+		report.write('\n');
+		report.flush();
+		return summary;
+	}
+
+	private static class RangeResult {
+		private final ValidationSummary summary = new ValidationSummary();
+		private final StringBuilder report = new StringBuilder();
+	}
+
+	private static RangeResult validateRange(File jsonLinesFile, long start, long end, CharacterEncoding encoding,
+			final int maxErrorsPerDocument) throws IOException {
+		final RangeResult result = new RangeResult();
+		PubAnnotationCollectionReader.readLines(jsonLinesFile, start, end, encoding, new LineHandler() {
+			@Override
+			public void handleLine(String line, long offset) throws IOException {
+				String location = "offset " + offset;
+				DocumentValidator validator = new DocumentValidator(maxErrorsPerDocument);
+				try (JsonReader jsonReader = new JsonReader(new StringReader(line))) {
+					validator.read(jsonReader);
+					if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+						validator.addError("unexpected content following the document");
+					}
+					validator.finish();
+				} catch (MalformedJsonException | EOFException | IllegalStateException | NumberFormatException e) {
+					validator.addError("malformed JSON: " + e.getMessage());
+				}
+				validator.report(location, result.summary, result.report);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Writes a single report line; line breaks and tabs in the message, e.g. from
+	 * JSON parser messages, are replaced so that each error occupies one line
+	 */
+	private static void writeError(Appendable report, String location, String sourceDb, String sourceId,
+			String message) throws IOException {
+		message = message.replaceAll("\\s*[\\t\\r\\n]\\s*", " ");
+		report.append(location).append('\t').append(String.valueOf(sourceDb)).append(':')
+				.append(String.valueOf(sourceId)).append('\t').append(message).append('\n');
+	}
+
+	/**
+	 * Collects the denotations and relations of a single document as they are
+	 * read; the checks are performed by {@link #finish()} because JSON object
+	 * members are unordered, e.g. the text may follow the denotations.
+	 */
+	private static class DocumentValidator {
+		private final int maxErrors;
+		private final List<String> errors = new ArrayList<String>();
+		private int errorCount = 0;
+		private String sourceId;
+		private String sourceDb;
+		/* -1 if the document has no text */
+		private int textLength = -1;
+		private final List<TrackValidator> tracks = new ArrayList<TrackValidator>();
+
+		public DocumentValidator(int maxErrors) {
+			this.maxErrors = maxErrors;
+		}
+
+		public void addError(String message) {
+			if (errorCount++ < maxErrors) {
+				errors.add(message);
+			}
+		}
+
+		public void read(JsonReader jsonReader) throws IOException {
+			TrackValidator documentTrack = addTrack("");
+			jsonReader.beginObject();
+			while (jsonReader.hasNext()) {
+				String name = jsonReader.nextName();
+				if (jsonReader.peek() == JsonToken.NULL) {
+					jsonReader.nextNull();
+					continue;
+				}
+				switch (name) {
+				case "text":
+					textLength = jsonReader.nextString().length();
+					break;
+				case "sourceid":
+					sourceId = jsonReader.nextString();
+					break;
+				case "sourcedb":
+					sourceDb = jsonReader.nextString();
+					break;
+				case "tracks":
+					jsonReader.beginArray();
+					for (int index = 0; jsonReader.hasNext(); index++) {
+						TrackValidator track = addTrack("tracks[" + index + "] ");
+						jsonReader.beginObject();
+						while (jsonReader.hasNext()) {
+							if (!track.readMember(jsonReader.nextName(), jsonReader)) {
+								jsonReader.skipValue();
+							}
+						}
+						jsonReader.endObject();
+					}
+					jsonReader.endArray();
+					break;
+				default:
+					if (!documentTrack.readMember(name, jsonReader)) {
+						jsonReader.skipValue();
+					}
+					break;
+				}
+			}
+			jsonReader.endObject();
+		}
+
+		private TrackValidator addTrack(String label) {
+			TrackValidator track = new TrackValidator(this, label);
+			tracks.add(track);
+			return track;
+		}
+
+		/**
+		 * @return the errors in the document (limited to the maximum number of
+		 *         errors)
+		 */
+		public List<String> finish() {
+			if (textLength < 0) {
+				addError("document has no text");
+			}
+			for (TrackValidator track : tracks) {
+				track.validate();
+			}
+			return errors;
+		}
+
+		public void report(String location, ValidationSummary summary, Appendable report) throws IOException {
+			summary.documentCount++;
+			if (errorCount > 0) {
+				summary.invalidDocumentCount++;
+				summary.errorCount += errorCount;
+				for (String error : errors) {
+					writeError(report, location, sourceDb, sourceId, error);
+				}
+				if (errorCount > errors.size()) {
+					writeError(report, location, sourceDb, sourceId,
+							(errorCount - errors.size()) + " additional errors not reported");
+				}
+			}
+		}
+	}
+
+	private static class TrackValidator {
+		private static final int MISSING = Integer.MIN_VALUE;
+		private final DocumentValidator document;
+		/* prefixed to error messages to identify the track */
+		private final String label;
+		private final Map<String, int[]> idToSpanMap = new LinkedHashMap<String, int[]>();
+		private final Set<String> fragmentIds = new LinkedHashSet<String>();
+		private final List<String[]> relations = new ArrayList<String[]>();
+		private int denotationIndex = 0;
+
+		public TrackValidator(DocumentValidator document, String label) {
+			this.document = document;
+			this.label = label;
+		}
+
+		/**
+		 * @return true if the member value was consumed, false if it should be
+		 *         skipped
+		 */
+		public boolean readMember(String name, JsonReader jsonReader) throws IOException {
+			switch (name) {
+			case "denotations":
+				jsonReader.beginArray();
+				while (jsonReader.hasNext()) {
+					readDenotation(jsonReader);
+				}
+				jsonReader.endArray();
+				return true;
+			case "relations":
+				jsonReader.beginArray();
+				while (jsonReader.hasNext()) {
+					readRelation(jsonReader);
+				}
+				jsonReader.endArray();
+				return true;
+			default:
+				return false;
+			}
+		}
+
+		private void readDenotation(JsonReader jsonReader) throws IOException {
+			String id = null;
+			String obj = null;
+			int[] span = null;
+			jsonReader.beginObject();
+			while (jsonReader.hasNext()) {
+				String name = jsonReader.nextName();
+				if (jsonReader.peek() == JsonToken.NULL) {
+					jsonReader.nextNull();
+					continue;
+				}
+				switch (name) {
+				case "id":
+					id = jsonReader.nextString();
+					break;
+				case "obj":
+					obj = jsonReader.nextString();
+					break;
+				case "span":
+					span = new int[] { MISSING, MISSING };
+					jsonReader.beginObject();
+					while (jsonReader.hasNext()) {
+						String spanName = jsonReader.nextName();
+						if (spanName.equals("begin")) {
+							span[0] = jsonReader.nextInt();
+						} else if (spanName.equals("end")) {
+							span[1] = jsonReader.nextInt();
+						} else {
+							jsonReader.skipValue();
+						}
+					}
+					jsonReader.endObject();
+					break;
+				default:
+					jsonReader.skipValue();
+					break;
+				}
+			}
+			jsonReader.endObject();
+
+			if (id == null) {
+				id = "denotations[" + denotationIndex + "]";
+				document.addError(label + id + ": missing id");
+			}
+			denotationIndex++;
+			if (idToSpanMap.containsKey(id)) {
+				/* relations cannot be resolved unambiguously; the first denotation is used */
+				document.addError(label + "denotation " + id + ": duplicate id");
+				return;
+			}
+			if (obj == null) {
+				document.addError(label + "denotation " + id + ": missing obj");
+			} else if (obj.equals(PubAnnotationDocumentWriter.FRAGMENT_INDICATOR)) {
+				fragmentIds.add(id);
+			}
+			if (span == null || span[0] == MISSING || span[1] == MISSING) {
+				document.addError(label + "denotation " + id + ": missing span begin or end");
+				span = null;
+			}
+			idToSpanMap.put(id, span);
+		}
+
+		private void readRelation(JsonReader jsonReader) throws IOException {
+			String id = null;
+			String subj = null;
+			String pred = null;
+			String obj = null;
+			jsonReader.beginObject();
+			while (jsonReader.hasNext()) {
+				String name = jsonReader.nextName();
+				if (jsonReader.peek() == JsonToken.NULL) {
+					jsonReader.nextNull();
+					continue;
+				}
+				switch (name) {
+				case "id":
+					id = jsonReader.nextString();
+					break;
+				case "subj":
+					subj = jsonReader.nextString();
+					break;
+				case "pred":
+					pred = jsonReader.nextString();
+					break;
+				case "obj":
+					obj = jsonReader.nextString();
+					break;
+				default:
+					jsonReader.skipValue();
+					break;
+				}
+			}
+			jsonReader.endObject();
+			if (id == null) {
+				id = "relations[" + relations.size() + "]";
+			}
+			relations.add(new String[] { id, subj, pred, obj });
+		}
+
+		public void validate() {
+			if (document.textLength >= 0) {
+				for (Entry<String, int[]> entry : idToSpanMap.entrySet()) {
+					int[] span = entry.getValue();
+					if (span != null && (span[0] < 0 || span[0] >= span[1] || span[1] > document.textLength)) {
+						document.addError(label + "denotation " + entry.getKey() + ": span [" + span[0] + ", "
+								+ span[1] + ") is not within the text (length " + document.textLength + ")");
+					}
+				}
+			}
+
+			/* maps the subject of each chain relation to its object, and vice versa */
+			Map<String, String> chainSubjToObjMap = new LinkedHashMap<String, String>();
+			Map<String, String> chainObjToSubjMap = new LinkedHashMap<String, String>();
+			for (String[] relation : relations) {
+				String id = relation[0];
+				String subj = relation[1];
+				String pred = relation[2];
+				String obj = relation[3];
+				boolean resolved = true;
+				if (pred == null) {
+					document.addError(label + "relation " + id + ": missing pred");
+				}
+				if (subj == null || !idToSpanMap.containsKey(subj)) {
+					document.addError(label + "relation " + id + ": subj " + subj + " does not refer to a denotation");
+					resolved = false;
+				}
+				if (obj == null || !idToSpanMap.containsKey(obj)) {
+					document.addError(label + "relation " + id + ": obj " + obj + " does not refer to a denotation");
+					resolved = false;
+				}
+				if (resolved && PubAnnotationDocumentWriter.LEXICALLY_CHAINED_PREDICATE.equals(pred)) {
+					if (chainSubjToObjMap.containsKey(subj)) {
+						document.addError(label + "relation " + id + ": denotation " + subj
+								+ " is the subj of more than one chain relation");
+					} else if (chainObjToSubjMap.containsKey(obj)) {
+						document.addError(label + "relation " + id + ": denotation " + obj
+								+ " is the obj of more than one chain relation");
+					} else {
+						chainSubjToObjMap.put(subj, obj);
+						chainObjToSubjMap.put(obj, subj);
+					}
+				}
+			}
+			validateChains(chainSubjToObjMap, chainObjToSubjMap);
+		}
+
+		/**
+		 * A discontinuous annotation is written as a chain of denotations, one per
+		 * span: the denotation for the final span carries the annotation type and is
+		 * chained to the denotation for the preceding span, which is a fragment, and
+		 * so on. Each fragment must therefore be the obj of a chain relation, and
+		 * each chain must start at a denotation that is not a fragment.
+		 */
+		private void validateChains(Map<String, String> chainSubjToObjMap, Map<String, String> chainObjToSubjMap) {
+			Set<String> visited = new HashSet<String>();
+			for (String subj : chainSubjToObjMap.keySet()) {
+				if (!chainObjToSubjMap.containsKey(subj)) {
+					/* the start of a chain */
+					if (fragmentIds.contains(subj)) {
+						document.addError(label + "denotation " + subj + ": chain starts at a fragment");
+					}
+					for (String id = subj; id != null; id = chainSubjToObjMap.get(id)) {
+						visited.add(id);
+					}
+				}
+			}
+			for (String obj : chainObjToSubjMap.keySet()) {
+				if (!visited.contains(obj)) {
+					document.addError(label + "denotation " + obj + ": chain forms a cycle");
+				} else if (!fragmentIds.contains(obj)) {
+					document.addError(label + "denotation " + obj + ": chained denotation is not a fragment");
+				}
+			}
+			for (String fragmentId : fragmentIds) {
+				if (!chainObjToSubjMap.containsKey(fragmentId)) {
+					document.addError(label + "denotation " + fragmentId + ": fragment is not part of a chain");
+				}
+			}
+		}
+	}
+
 }
@@ -0,0 +1,193 @@
+package edu.ucdenver.ccp.file.conversion.treebank;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import edu.emory.clir.clearnlp.component.mode.morph.AbstractMPAnalyzer;
+import edu.emory.clir.clearnlp.component.utils.NLPUtils;
+import edu.emory.clir.clearnlp.constituent.CTReader;
+import edu.emory.clir.clearnlp.constituent.CTTree;
+import edu.emory.clir.clearnlp.conversion.AbstractC2DConverter;
+import edu.emory.clir.clearnlp.conversion.EnglishC2DConverter;
+import edu.emory.clir.clearnlp.conversion.headrule.HeadRuleMap;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.util.lang.TLanguage;
+
+/**
+ * Converts treebank constituency parses to dependency trees in memory using
+ * the ClearNLP library, performing the same steps as the ClearNLP C2DConvert
+ * command-line utility for English. The head rules are loaded once per JVM and
+ * shared; the converter and morphological analyzer are not thread safe, so
+ * each thread should use its own instance of this class, e.g. the one returned
+ * by {@link #getThreadConverter(HeadRule)}.
+ */
+class ClearNlpDependencyConverter {
+
+	private static final Logger logger = Logger.getLogger(ClearNlpDependencyConverter.class);
+
+	private static final Map<HeadRule, HeadRuleMap> headRuleMaps = new EnumMap<HeadRule, HeadRuleMap>(HeadRule.class);
+
+	/* converters are expensive to create, so each thread keeps one per head rule */
+	private static final ThreadLocal<Map<HeadRule, ClearNlpDependencyConverter>> threadConverters = new ThreadLocal<Map<HeadRule, ClearNlpDependencyConverter>>() {
+		@Override
+		protected Map<HeadRule, ClearNlpDependencyConverter> initialValue() {
+			return new EnumMap<HeadRule, ClearNlpDependencyConverter>(HeadRule.class);
+		}
+	};
+
+	private final AbstractC2DConverter converter;
+	private final AbstractMPAnalyzer analyzer;
+	private final CTReader sentenceReader = new CTReader();
+
+	public ClearNlpDependencyConverter(HeadRuleMap headRuleMap) {
+		this.converter = new EnglishC2DConverter(headRuleMap);
+		this.analyzer = NLPUtils.getMPAnalyzer(TLanguage.ENGLISH);
+	}
+
+	/**
+	 * @param headRule
+	 * @return the head rules, loaded from the classpath the first time they
+	 *         are requested
+	 * @throws IOException
+	 */
+	public static synchronized HeadRuleMap getHeadRuleMap(HeadRule headRule) throws IOException {
+		HeadRuleMap headRuleMap = headRuleMaps.get(headRule);
+		if (headRuleMap == null) {
+			InputStream headRuleStream = HeadRule.class.getClassLoader().getResourceAsStream(headRule.path());
+			if (headRuleStream == null) {
+				throw new FileNotFoundException("Head rule file not found on the classpath: " + headRule.path());
+			}
+			try {
+				headRuleMap = new HeadRuleMap(headRuleStream);
+			} finally {
+				headRuleStream.close();
+			}
+			headRuleMaps.put(headRule, headRuleMap);
+		}
+		return headRuleMap;
+	}
+
+	/**
+	 * @param headRule
+	 * @return the converter for the specified head rule that is cached for the
+	 *         current thread, creating it the first time it is requested
+	 * @throws IOException
+	 */
+	public static ClearNlpDependencyConverter getThreadConverter(HeadRule headRule) throws IOException {
+		Map<HeadRule, ClearNlpDependencyConverter> converters = threadConverters.get();
+		ClearNlpDependencyConverter converter = converters.get(headRule);
+		if (converter == null) {
+			converter = new ClearNlpDependencyConverter(getHeadRuleMap(headRule));
+			converters.put(headRule, converter);
+		}
+		return converter;
+	}
+
+	/**
+	 * @param sentence
+	 *            the parenthesized constituency parse of a single sentence
+	 * @return the dependency tree, or null if the tree has no tokens, e.g. one
+	 *         containing only empty categories
+	 * @throws IOException
+	 *             if the sentence does not contain a constituency tree
+	 */
+	public DEPTree convertSentence(String sentence) throws IOException {
+		sentenceReader.open(new ByteArrayInputStream(sentence.getBytes(StandardCharsets.UTF_8)));
+		CTTree constituencyTree = sentenceReader.nextTree();
+		if (constituencyTree == null) {
+			throw new IOException("No constituency tree found in treebank sentence: " + sentence);
+		}
+		return toDependencyTree(constituencyTree, 1);
+	}
+
+	/**
+	 * @param treebankStream
+	 * @return a dependency tree for each constituency tree, in order. The entry
+	 *         for a tree that has no tokens, e.g. one containing only empty
+	 *         categories, is null.
+	 */
+	public List<DEPTree> convert(InputStream treebankStream) {
+		List<DEPTree> dependencyTrees = new ArrayList<DEPTree>();
+		CTReader reader = new CTReader(treebankStream);
+		CTTree constituencyTree;
+		while ((constituencyTree = reader.nextTree()) != null) {
+			dependencyTrees.add(toDependencyTree(constituencyTree, dependencyTrees.size() + 1));
+		}
+		return dependencyTrees;
+	}
+
+	private DEPTree toDependencyTree(CTTree constituencyTree, int treeNumber) {
+		DEPTree dependencyTree = converter.toDEPTree(constituencyTree);
+		if (dependencyTree == null) {
+			logger.warn("No token in tree " + treeNumber + ": " + constituencyTree.toStringLine());
+		} else {
+			analyzer.process(dependencyTree);
+		}
+		return dependencyTree;
+	}
+
+	/**
+	 * Writes the dependency trees in the CoNLL-X format, with the part of
+	 * speech repeated in both the coarse and fine-grained columns and a blank
+	 * line following each sentence.
+	 * 
+	 * @param treebankStream
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void writeConllX(InputStream treebankStream, Writer writer) throws IOException {
+		for (DEPTree dependencyTree : convert(treebankStream)) {
+			if (dependencyTree != null) {
+				for (String line : dependencyTree.toString().split("\\n")) {
+					writer.write(TreebankToDependencyConverter.repeatPOSColumn(line) + "\n");
+				}
+				writer.write("\n");
+			}
+		}
+	}
+
+}
@@ -0,0 +1,203 @@
+package edu.ucdenver.ccp.file.conversion.treebank;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.cleartk.util.treebank.TopTreebankNode;
+import org.cleartk.util.treebank.TreebankFormatParser;
+import org.cleartk.util.treebank.TreebankNode;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.io.StreamUtil;
+import edu.ucdenver.ccp.file.conversion.DocumentReader;
+import edu.ucdenver.ccp.file.conversion.TextDocument;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
+
+/**
+ * Produces the same constituent annotations as {@link TreebankDocumentReader},
+ * but builds them directly from the nodes returned by
+ * {@link TreebankFormatParser} instead of routing the treebank through a JCas
+ * and the TreebankGoldAnnotator. This reader does not depend on the UIMA
+ * runtime, so it is cheap to run in plain worker threads.
+ * <p>
+ * The treebank is parsed one sentence at a time as it is read. Annotations
+ * are added in the order in which {@link TreebankDocumentReader} iterates the
+ * UIMA annotation index: by ascending begin offset, then by descending end
+ * offset. Nodes that share a span, e.g. unary chains and empty -NONE- nodes,
+ * are ordered as the UIMA index orders them; see {@link UimaIndexOrder}. This
+ * ordering was matched against uimaj-core 2.5.0 (the version used by
+ * cleartk 2.0.0 and uimaFIT 2.0.0); DirectTreebankDocumentReaderTest compares
+ * the output with that of {@link TreebankDocumentReader} so that a change in a
+ * later UIMA version is detected.
+ */
+public class DirectTreebankDocumentReader extends DocumentReader {
+
+	@Override
+	public TextDocument readDocument(String sourceId, String sourceDb, InputStream inputStream,
+			InputStream documentTextStream, CharacterEncoding encoding) throws IOException {
+
+		String documentText = StreamUtil.toString(new InputStreamReader(documentTextStream, encoding.getDecoder()));
+
+		TextDocument td = new TextDocument(sourceId, sourceDb, documentText);
+		TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults(sourceId);
+
+		/*
+		 * sentences are parsed as they are read so that neither the complete
+		 * treebank nor the complete set of parse trees is held in memory
+		 */
+		Reader treebankReader = new InputStreamReader(inputStream, encoding.getDecoder());
+		UimaIndexOrder indexOrder = new UimaIndexOrder();
+		try {
+			int textOffset = 0;
+			for (Iterator<String> sentenceIter = TreebankFormatParser.splitSentences(treebankReader); sentenceIter
+					.hasNext();) {
+				TopTreebankNode topNode = TreebankFormatParser.parse(sentenceIter.next(), documentText, textOffset);
+				textOffset = topNode.getTextEnd();
+				addAnnotations(topNode, td.getText(), factory, indexOrder);
+			}
+			td.addAnnotations(indexOrder.getAnnotations());
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Error while parsing treebank for document: " + sourceId, e);
+		}
+
+		return td;
+	}
+
+	/**
+	 * Adds the annotations for the descendants of the top node in post-order, the
+	 * order in which the TreebankGoldAnnotator adds them to the CAS indexes
+	 */
+	private static void addAnnotations(TreebankNode node, String documentText, TextAnnotationFactory factory,
+			UimaIndexOrder indexOrder) {
+		for (TreebankNode child : node.getChildren()) {
+			addAnnotations(child, documentText, factory, indexOrder);
+			int begin = child.getTextBegin();
+			int end = child.getTextEnd();
+			TextAnnotation annot = factory.createAnnotation(begin, end, documentText.substring(begin, end),
+					new DefaultClassMention(child.getType()));
+			indexOrder.add(annot, child.isLeaf());
+		}
+	}
+
+	/**
+	 * Orders annotations as the UIMA 2.5.0 annotation index orders the TreebankNode
+	 * annotations created by the TreebankGoldAnnotator. UIMA keeps a sorted index
+	 * per type, so terminal and non-terminal nodes are indexed separately. An
+	 * annotation that does not sort after the last annotation in its index is
+	 * placed using a binary search and is inserted after whichever annotation
+	 * with an equal span the search finds, so the order of annotations with
+	 * equal spans depends on the order in which they are added. When iterating,
+	 * the two indexes are merged, with non-terminal nodes preceding terminal
+	 * nodes that share their span.
+	 */
+	static class UimaIndexOrder {
+		private final List<TextAnnotation> nonTerminals = new ArrayList<TextAnnotation>();
+		private final List<TextAnnotation> terminals = new ArrayList<TextAnnotation>();
+
+		void add(TextAnnotation annot, boolean isTerminal) {
+			insert(isTerminal ? terminals : nonTerminals, annot);
+		}
+
+		List<TextAnnotation> getAnnotations() {
+			List<TextAnnotation> annotations = new ArrayList<TextAnnotation>(nonTerminals.size() + terminals.size());
+			int i = 0;
+			int j = 0;
+			while (i < nonTerminals.size() || j < terminals.size()) {
+				if (j == terminals.size()
+						|| (i < nonTerminals.size() && compare(nonTerminals.get(i), terminals.get(j)) <= 0)) {
+					annotations.add(nonTerminals.get(i++));
+				} else {
+					annotations.add(terminals.get(j++));
+				}
+			}
+			return annotations;
+		}
+
+		private static void insert(List<TextAnnotation> index, TextAnnotation annot) {
+			int size = index.size();
+			if (size == 0 || compare(index.get(size - 1), annot) < 0) {
+				index.add(annot);
+				return;
+			}
+			int position = binarySearch(index, annot);
+			index.add((position >= 0) ? position + 1 : -(position + 1), annot);
+		}
+
+		/**
+		 * @return the index of an annotation with a span equal to that of the
+		 *         specified annotation, or (-(insertion point) - 1)
+		 */
+		private static int binarySearch(List<TextAnnotation> index, TextAnnotation annot) {
+			int low = 0;
+			int high = index.size() - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int c = compare(annot, index.get(mid));
+				if (c == 0) {
+					return mid;
+				}
+				if (c < 0) {
+					high = mid - 1;
+				} else {
+					low = mid + 1;
+				}
+			}
+			return -low - 1;
+		}
+
+		/**
+		 * by ascending begin offset, then by descending end offset
+		 */
+		private static int compare(TextAnnotation annot1, TextAnnotation annot2) {
+			if (annot1.getAnnotationSpanStart() != annot2.getAnnotationSpanStart()) {
+				return Integer.compare(annot1.getAnnotationSpanStart(), annot2.getAnnotationSpanStart());
+			}
+			return Integer.compare(annot2.getAnnotationSpanEnd(), annot1.getAnnotationSpanEnd());
+		}
+	}
+
+}
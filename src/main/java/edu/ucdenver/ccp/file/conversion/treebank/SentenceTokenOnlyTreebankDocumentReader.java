@@ -37,20 +37,12 @@ package edu.ucdenver.ccp.file.conversion.treebank;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.Iterator;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
 
-import org.apache.uima.UIMAException;
-import org.apache.uima.analysis_engine.AnalysisEngine;
-import org.apache.uima.fit.component.ViewCreatorAnnotator;
-import org.apache.uima.fit.factory.AnalysisEngineFactory;
-import org.apache.uima.fit.factory.JCasFactory;
-import org.apache.uima.fit.factory.TypeSystemDescriptionFactory;
-import org.apache.uima.fit.util.JCasUtil;
-import org.apache.uima.jcas.JCas;
-import org.apache.uima.resource.metadata.TypeSystemDescription;
-import org.cleartk.corpus.penntreebank.PennTreebankReader;
-import org.cleartk.corpus.penntreebank.TreebankGoldAnnotator;
-import org.cleartk.syntax.constituent.type.TreebankNode;
+import org.cleartk.util.treebank.TreebankFormatParser;
+import org.cleartk.util.treebank.TreebankFormatParser.LeafHandler;
 
 import edu.ucdenver.ccp.common.file.CharacterEncoding;
 import edu.ucdenver.ccp.common.io.StreamUtil;
@@ -60,58 +52,62 @@ import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
 import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
 
+/**
+ * Reads only the tokens, typed with their part-of-speech, and the sentences
+ * of a treebank. Only the leaves of the parse trees are needed, so the
+ * treebank is scanned with
+ * {@link TreebankFormatParser#scanLeaves(java.io.Reader, int, String, LeafHandler)}
+ * rather than parsed into constituents.
+ */
 public class SentenceTokenOnlyTreebankDocumentReader extends DocumentReader {
 
 	@Override
 	public TextDocument readDocument(String sourceId, String sourceDb, InputStream inputStream,
 			InputStream documentTextStream, CharacterEncoding encoding) throws IOException {
 
-		try {
-			TypeSystemDescription tsd = TypeSystemDescriptionFactory
-					.createTypeSystemDescription("org.cleartk.syntax.constituent.TypeSystem");
-
-			AnalysisEngine treebankGoldAnnotator = AnalysisEngineFactory
-					.createEngine(TreebankGoldAnnotator.getDescription(), TreebankGoldAnnotator.PARAM_POST_TREES, true);
-
-			JCas jCas = JCasFactory.createJCas(tsd);
-			String documentText = StreamUtil.toString(new InputStreamReader(documentTextStream, encoding.getDecoder()));
-			jCas.setDocumentText(documentText);
-
-			JCas treebankView = ViewCreatorAnnotator.createViewSafely(jCas, PennTreebankReader.TREEBANK_VIEW);
-			String treebank = StreamUtil.toString(new InputStreamReader(inputStream, encoding.getDecoder()));
-			treebankView.setSofaDataString(treebank, "text/plain");
-			treebankGoldAnnotator.process(jCas);
-			treebankGoldAnnotator.collectionProcessComplete();
-
-			TextDocument td = new TextDocument(sourceId, sourceDb, documentText);
-			TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults(sourceId);
+		final String documentText = StreamUtil
+				.toString(new InputStreamReader(documentTextStream, encoding.getDecoder()));
+		final TextDocument td = new TextDocument(sourceId, sourceDb, documentText);
+		final TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults(sourceId);
 
-			for (Iterator<TreebankNode> nodeIter = JCasUtil.iterator(jCas, TreebankNode.class); nodeIter.hasNext();) {
-				TreebankNode node = nodeIter.next();
-
-				int begin = node.getBegin();
-				int end = node.getEnd();
-				String nodeType = node.getNodeType();
-				boolean isLeaf = node.getLeaf();
-
-				if (isLeaf && (end - begin > 0)) {
-					TextAnnotation annot = factory.createAnnotation(begin, end, documentText.substring(begin, end),
-							new DefaultClassMention(nodeType));
-					td.addAnnotation(annot);
-				}
-
-				if (nodeType.equals("TOP")) {
-					TextAnnotation annot = factory.createAnnotation(begin, end, documentText.substring(begin, end),
-							new DefaultClassMention("sentence"));
-					td.addAnnotation(annot);
-				}
-			}
-
-			return td;
-		} catch (UIMAException e) {
-			throw new IOException(e);
+		try {
+			TreebankFormatParser.scanLeaves(new InputStreamReader(inputStream, encoding.getDecoder()), 0,
+					documentText, new LeafHandler() {
+
+						/*
+						 * tokens are held until the sentence is complete so that
+						 * each sentence annotation precedes its tokens
+						 */
+						private final List<TextAnnotation> sentenceTokens = new ArrayList<TextAnnotation>();
+
+						@Override
+						public void handleLeaf(String type, int textBegin, int textEnd) {
+							if (textEnd - textBegin > 0) {
+								sentenceTokens.add(factory.createAnnotation(textBegin, textEnd,
+										documentText.substring(textBegin, textEnd), new DefaultClassMention(type)));
+							}
+						}
+
+						@Override
+						public void handleSentence(String type, int textBegin, int textEnd) {
+							if (type.equals("TOP")) {
+								td.addAnnotation(factory.createAnnotation(textBegin, textEnd,
+										documentText.substring(textBegin, textEnd),
+										new DefaultClassMention("sentence")));
+							}
+							if (!sentenceTokens.isEmpty()) {
+								td.addAnnotations(sentenceTokens);
+								sentenceTokens.clear();
+							}
+						}
+					});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Error while parsing treebank for document: " + sourceId, e);
 		}
 
+		return td;
 	}
 
 }
@@ -0,0 +1,181 @@
+package edu.ucdenver.ccp.file.conversion.treebank;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.cleartk.util.treebank.TreebankFormatParser;
+import org.cleartk.util.treebank.TreebankFormatParser.LeafHandler;
+
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.io.StreamUtil;
+import edu.ucdenver.ccp.file.conversion.DocumentReader;
+import edu.ucdenver.ccp.file.conversion.TextDocument;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
+
+/**
+ * Reads the tokens and sentences of a treebank, as the
+ * {@link SentenceTokenOnlyTreebankDocumentReader} does, and adds the
+ * dependency relations obtained by converting each constituency tree in
+ * memory. Each token annotation is typed with its part-of-speech and is linked
+ * to its head token by a complex slot mention named with the dependency label,
+ * matching the annotations produced by the CoNLL-U reader, so that treebank
+ * input can be written to any output format without intermediate CoNLL files.
+ */
+public class TreebankDependencyDocumentReader extends DocumentReader {
+
+	private final HeadRule headRule;
+
+	public TreebankDependencyDocumentReader() {
+		this(HeadRule.CONLL);
+	}
+
+	public TreebankDependencyDocumentReader(HeadRule headRule) {
+		this.headRule = headRule;
+	}
+
+	/**
+	 * The treebank is read one sentence at a time; each sentence is aligned with
+	 * the document text and converted before the next one is read, so the
+	 * treebank is never held in memory as a whole.
+	 */
+	@Override
+	public TextDocument readDocument(String sourceId, String sourceDb, InputStream inputStream,
+			InputStream documentTextStream, CharacterEncoding encoding) throws IOException {
+
+		final String documentText = StreamUtil
+				.toString(new InputStreamReader(documentTextStream, encoding.getDecoder()));
+		TextDocument td = new TextDocument(sourceId, sourceDb, documentText);
+		TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults(sourceId);
+		ClearNlpDependencyConverter converter = ClearNlpDependencyConverter.getThreadConverter(headRule);
+
+		int textOffset = 0;
+		int sentenceIndex = 0;
+		try {
+			for (Iterator<String> sentenceIter = TreebankFormatParser
+					.splitSentences(new InputStreamReader(inputStream, encoding.getDecoder())); sentenceIter
+							.hasNext(); sentenceIndex++) {
+				String sentence = sentenceIter.next();
+				SentenceLeafHandler handler = new SentenceLeafHandler(factory, documentText);
+				TreebankFormatParser.scanLeaves(new StringReader(sentence), textOffset, documentText, handler);
+				textOffset = handler.sentenceEnd;
+
+				if (handler.sentence != null) {
+					td.addAnnotation(handler.sentence);
+				}
+				if (!handler.tokens.isEmpty()) {
+					td.addAnnotations(handler.tokens);
+					addDependencyRelations(sourceId, sentenceIndex, handler.tokens,
+							converter.convertSentence(sentence));
+				}
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Error while parsing treebank for document: " + sourceId, e);
+		}
+
+		return td;
+	}
+
+	/**
+	 * Collects the token and sentence annotations of a single treebank sentence
+	 */
+	private static class SentenceLeafHandler implements LeafHandler {
+		private final TextAnnotationFactory factory;
+		private final String documentText;
+
+		private final List<TextAnnotation> tokens = new ArrayList<TextAnnotation>();
+		private TextAnnotation sentence;
+		private int sentenceEnd;
+
+		public SentenceLeafHandler(TextAnnotationFactory factory, String documentText) {
+			this.factory = factory;
+			this.documentText = documentText;
+		}
+
+		@Override
+		public void handleLeaf(String type, int textBegin, int textEnd) {
+			/* empty categories have no text and are dropped by the dependency conversion */
+			if (textEnd - textBegin > 0) {
+				tokens.add(factory.createAnnotation(textBegin, textEnd, documentText.substring(textBegin, textEnd),
+						new DefaultClassMention(type)));
+			}
+		}
+
+		@Override
+		public void handleSentence(String type, int textBegin, int textEnd) {
+			if (type.equals("TOP")) {
+				sentence = factory.createAnnotation(textBegin, textEnd, documentText.substring(textBegin, textEnd),
+						new DefaultClassMention("sentence"));
+			}
+			sentenceEnd = textEnd;
+		}
+	}
+
+	/**
+	 * Links each token to its head token. Node 0 of the dependency tree is the
+	 * artificial root, so node n corresponds to token n-1 of the sentence.
+	 */
+	private static void addDependencyRelations(String sourceId, int sentenceIndex, List<TextAnnotation> tokens,
+			DEPTree dependencyTree) throws IOException {
+		if (dependencyTree == null) {
+			return;
+		}
+		if (dependencyTree.size() - 1 != tokens.size()) {
+			throw new IOException("Dependency tree for sentence " + (sentenceIndex + 1) + " of document " + sourceId
+					+ " has " + (dependencyTree.size() - 1) + " tokens, but the treebank has " + tokens.size() + ".");
+		}
+		for (int id = 1; id < dependencyTree.size(); id++) {
+			DEPNode node = dependencyTree.get(id);
+			DEPNode head = node.getHead();
+			if (head != null && head.getID() > 0) {
+				createAnnotationRelation(tokens.get(id - 1), tokens.get(head.getID() - 1), node.getLabel());
+			}
+		}
+	}
+
+}
@@ -40,16 +40,8 @@ import java.io.InputStreamReader;
 import java.util.Iterator;
 
 import org.apache.uima.UIMAException;
-import org.apache.uima.analysis_engine.AnalysisEngine;
-import org.apache.uima.fit.component.ViewCreatorAnnotator;
-import org.apache.uima.fit.factory.AnalysisEngineFactory;
-import org.apache.uima.fit.factory.JCasFactory;
-import org.apache.uima.fit.factory.TypeSystemDescriptionFactory;
 import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
-import org.apache.uima.resource.metadata.TypeSystemDescription;
-import org.cleartk.corpus.penntreebank.PennTreebankReader;
-import org.cleartk.corpus.penntreebank.TreebankGoldAnnotator;
 import org.cleartk.syntax.constituent.type.TreebankNode;
 
 import edu.ucdenver.ccp.common.file.CharacterEncoding;
@@ -67,48 +59,54 @@ public class TreebankDocumentReader extends DocumentReader {
 			InputStream documentTextStream, CharacterEncoding encoding) throws IOException {
 
 		try {
-			TypeSystemDescription tsd = TypeSystemDescriptionFactory
-					.createTypeSystemDescription("org.cleartk.syntax.constituent.TypeSystem");
-
-			AnalysisEngine treebankGoldAnnotator = AnalysisEngineFactory
-					.createEngine(TreebankGoldAnnotator.getDescription(), TreebankGoldAnnotator.PARAM_POST_TREES, true);
-
-			JCas jCas = JCasFactory.createJCas(tsd);
 			String documentText = StreamUtil.toString(new InputStreamReader(documentTextStream, encoding.getDecoder()));
-			jCas.setDocumentText(documentText);
-
-			JCas treebankView = ViewCreatorAnnotator.createViewSafely(jCas, PennTreebankReader.TREEBANK_VIEW);
 			String treebank = StreamUtil.toString(new InputStreamReader(inputStream, encoding.getDecoder()));
-			treebankView.setSofaDataString(treebank, "text/plain");
-			treebankGoldAnnotator.process(jCas);
-			treebankGoldAnnotator.collectionProcessComplete();
-
-			TextDocument td = new TextDocument(sourceId, sourceDb, documentText);
-			TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults(sourceId);
-
-			for (Iterator<TreebankNode> nodeIter = JCasUtil.iterator(jCas, TreebankNode.class); nodeIter.hasNext();) {
-				TreebankNode node = nodeIter.next();
-
-				int begin = node.getBegin();
-				int end = node.getEnd();
-				String nodeType = node.getNodeType();
-				@SuppressWarnings("unused")
-				String nodeValue = node.getNodeValue();
-				@SuppressWarnings("unused")
-				boolean isLeaf = node.getLeaf();
-
-				if (!nodeType.equals("TOP")) {
-					TextAnnotation annot = factory.createAnnotation(begin, end, documentText.substring(begin, end),
-							new DefaultClassMention(nodeType));
-					td.addAnnotation(annot);
-				}
+			try {
+				return toTextDocument(sourceId, sourceDb, documentText,
+						TreebankGoldAnnotatorCache.process(documentText, treebank));
+			} finally {
+				/* do not hold on to the treebank nodes of this document */
+				TreebankGoldAnnotatorCache.reset();
 			}
-
-			return td;
 		} catch (UIMAException e) {
 			throw new IOException(e);
 		}
 
 	}
 
+	private static TextDocument toTextDocument(String sourceId, String sourceDb, String documentText, JCas jCas) {
+		TextDocument td = new TextDocument(sourceId, sourceDb, documentText);
+		TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults(sourceId);
+
+		for (Iterator<TreebankNode> nodeIter = JCasUtil.iterator(jCas, TreebankNode.class); nodeIter.hasNext();) {
+			TreebankNode node = nodeIter.next();
+
+			int begin = node.getBegin();
+			int end = node.getEnd();
+			String nodeType = node.getNodeType();
+			@SuppressWarnings("unused")
+			String nodeValue = node.getNodeValue();
+			@SuppressWarnings("unused")
+			boolean isLeaf = node.getLeaf();
+
+			if (!nodeType.equals("TOP")) {
+				TextAnnotation annot = factory.createAnnotation(begin, end, documentText.substring(begin, end),
+						new DefaultClassMention(nodeType));
+				td.addAnnotation(annot);
+			}
+		}
+
+		return td;
+	}
+
+	/**
+	 * Frees the treebank annotator and JCas cached for the current thread, e.g.
+	 * when a pooled worker thread is done reading treebank documents. A later
+	 * call to {@link #readDocument(String, String, InputStream, InputStream, CharacterEncoding)}
+	 * on the same thread creates new ones.
+	 */
+	public static void release() {
+		TreebankGoldAnnotatorCache.release();
+	}
+
 }
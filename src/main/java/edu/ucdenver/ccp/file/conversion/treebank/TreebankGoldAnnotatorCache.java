@@ -0,0 +1,127 @@
+package edu.ucdenver.ccp.file.conversion.treebank;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.component.ViewCreatorAnnotator;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.factory.TypeSystemDescriptionFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.cleartk.corpus.penntreebank.PennTreebankReader;
+import org.cleartk.corpus.penntreebank.TreebankGoldAnnotator;
+
+/**
+ * Caches the {@link TreebankGoldAnnotator} engine and the {@link JCas} used by
+ * the treebank document readers. Creating the type system, the engine and the
+ * CAS costs far more than parsing a typical treebank file, so the type system
+ * is resolved once per JVM and each thread keeps its own engine and JCas.
+ * Callers should {@link #reset()} the JCas once they are done with a document so
+ * that its treebank view and nodes are not retained, and threads that are done
+ * reading should {@link #release()} the cache.
+ */
+class TreebankGoldAnnotatorCache {
+
+	private static final String TYPE_SYSTEM_NAME = "org.cleartk.syntax.constituent.TypeSystem";
+
+	private static class TypeSystemHolder {
+		private static final TypeSystemDescription TYPE_SYSTEM = TypeSystemDescriptionFactory
+				.createTypeSystemDescription(TYPE_SYSTEM_NAME);
+	}
+
+	private static final ThreadLocal<TreebankGoldAnnotatorCache> CACHE = new ThreadLocal<TreebankGoldAnnotatorCache>();
+
+	private final AnalysisEngine treebankGoldAnnotator;
+	private final JCas jCas;
+
+	private TreebankGoldAnnotatorCache() throws UIMAException {
+		this.treebankGoldAnnotator = AnalysisEngineFactory.createEngine(TreebankGoldAnnotator.getDescription(),
+				TreebankGoldAnnotator.PARAM_POST_TREES, true);
+		this.jCas = JCasFactory.createJCas(TypeSystemHolder.TYPE_SYSTEM);
+	}
+
+	/**
+	 * Runs the {@link TreebankGoldAnnotator} over the specified treebank using
+	 * the engine and JCas cached for the current thread.
+	 * 
+	 * @param documentText
+	 * @param treebank
+	 * @return the processed JCas. It is reset by {@link #reset()} and by the next
+	 *         call made on the same thread, so it must not be retained beyond the
+	 *         current document.
+	 * @throws UIMAException
+	 */
+	static JCas process(String documentText, String treebank) throws UIMAException {
+		TreebankGoldAnnotatorCache cache = CACHE.get();
+		if (cache == null) {
+			cache = new TreebankGoldAnnotatorCache();
+			CACHE.set(cache);
+		}
+		JCas jCas = cache.jCas;
+		jCas.reset();
+		jCas.setDocumentText(documentText);
+
+		JCas treebankView = ViewCreatorAnnotator.createViewSafely(jCas, PennTreebankReader.TREEBANK_VIEW);
+		treebankView.setSofaDataString(treebank, "text/plain");
+		cache.treebankGoldAnnotator.process(jCas);
+		return jCas;
+	}
+
+	/**
+	 * Resets the JCas cached for the current thread, if any, so that it does not
+	 * hold on to the annotations of the last document processed
+	 */
+	static void reset() {
+		TreebankGoldAnnotatorCache cache = CACHE.get();
+		if (cache != null) {
+			cache.jCas.reset();
+		}
+	}
+
+	/**
+	 * Frees the engine and JCas cached for the current thread. A later call to
+	 * {@link #process(String, String)} on the same thread creates new ones.
+	 */
+	static void release() {
+		TreebankGoldAnnotatorCache cache = CACHE.get();
+		if (cache != null) {
+			CACHE.remove();
+			cache.treebankGoldAnnotator.destroy();
+		}
+	}
+
+}
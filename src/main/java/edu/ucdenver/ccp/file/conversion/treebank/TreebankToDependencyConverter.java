@@ -37,15 +37,23 @@ package edu.ucdenver.ccp.file.conversion.treebank;
 import java.io.BufferedWriter;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.tools.ant.util.StringUtils;
 
 import edu.emory.clir.clearnlp.bin.C2DConvert;
+import edu.emory.clir.clearnlp.conversion.headrule.HeadRuleMap;
 import edu.ucdenver.ccp.common.collections.CollectionsUtil;
 import edu.ucdenver.ccp.common.file.CharacterEncoding;
 import edu.ucdenver.ccp.common.file.FileUtil;
@@ -59,6 +67,14 @@ import edu.ucdenver.ccp.common.io.ClassPathUtil;
  */
 public class TreebankToDependencyConverter {
 
+	/**
+	 * Converts each treebank file in the treebank directory to a CoNLL-X file in
+	 * the dependency directory by running the ClearNLP C2DConvert utility once
+	 * per file. Output files are named as by
+	 * {@link #convert(File, File, HeadRule, int)}.
+	 * 
+	 * @see #convert(File, File, HeadRule, int)
+	 */
 	public static void convert(File treebankDirectory, File dependencyDirectory, HeadRule headRule) throws IOException {
 
 		File headRuleFile = File.createTempFile("headrule_en", ".txt");
@@ -70,9 +86,7 @@ public class TreebankToDependencyConverter {
 					treeFile.getAbsolutePath(), "-l", "english" };
 			C2DConvert.main(convertArgs);
 			File outputFile = new File(treeFile.getAbsolutePath() + ".dep");
-			File conllFile = repeatPOSColumn(outputFile);
-			FileUtil.copy(conllFile, dependencyDirectory);
-			FileUtil.deleteFile(conllFile);
+			repeatPOSColumn(outputFile, new File(dependencyDirectory, getConllFileName(treeFile)));
 			FileUtil.deleteFile(outputFile);
 		}
 	}
@@ -85,27 +99,102 @@ public class TreebankToDependencyConverter {
 	 * @throws IOException
 	 */
 	static File repeatPOSColumn(File depFile) throws IOException {
-		CharacterEncoding encoding = CharacterEncoding.UTF_8;
 		File conlluFile = new File(StringUtils.removeSuffix(depFile.getAbsolutePath(), "tree.dep") + "conll");
+		repeatPOSColumn(depFile, conlluFile);
+		return conlluFile;
+	}
 
-		try (BufferedWriter writer = FileWriterUtil.initBufferedWriter(conlluFile)) {
+	private static void repeatPOSColumn(File depFile, File conllFile) throws IOException {
+		CharacterEncoding encoding = CharacterEncoding.UTF_8;
+		try (BufferedWriter writer = FileWriterUtil.initBufferedWriter(conllFile)) {
 			for (StreamLineIterator lineIter = new StreamLineIterator(depFile, encoding); lineIter.hasNext();) {
-				String line = lineIter.next().getText();
-
-				if (line.trim().isEmpty()) {
-					writer.write("\n");
-				} else {
-					List<String> tokens = new ArrayList<String>(Arrays.asList(line.split("\\t")));
-					// replicate the POS for both course and fine-grained columns
-					tokens.add(4, tokens.get(3));
-					// remove final column (which is empty) to get down to 10 columns total
-					tokens.remove(tokens.size() - 1);
-					String updatedLine = CollectionsUtil.createDelimitedString(tokens, "\t");
-					writer.write(updatedLine + "\n");
+				writer.write(repeatPOSColumn(lineIter.next().getText()) + "\n");
+			}
+		}
+	}
+
+	/**
+	 * @param line
+	 *            a line of ClearNLP dependency output
+	 * @return the line in the CoNLL-X format, with the part of speech repeated in
+	 *         the course and fine-grained columns. Blank lines are returned empty.
+	 */
+	static String repeatPOSColumn(String line) {
+		if (line.trim().isEmpty()) {
+			return "";
+		}
+		List<String> tokens = new ArrayList<String>(Arrays.asList(line.split("\\t")));
+		// replicate the POS for both course and fine-grained columns
+		tokens.add(4, tokens.get(3));
+		// remove final column (which is empty) to get down to 10 columns total
+		tokens.remove(tokens.size() - 1);
+		return CollectionsUtil.createDelimitedString(tokens, "\t");
+	}
+
+	/**
+	 * Converts each treebank file in the treebank directory to a CoNLL-X file in
+	 * the dependency directory without leaving the JVM. The head rules are
+	 * loaded once and files are converted in memory on a pool of worker
+	 * threads, each with its own ClearNLP converter, so no intermediate files
+	 * are written. The output for [name].tree is written to [name].conll; other
+	 * file names have .conll appended.
+	 * 
+	 * @param treebankDirectory
+	 * @param dependencyDirectory
+	 * @param headRule
+	 * @param threadCount
+	 *            must be at least 1
+	 * @return the CoNLL-X files that were written, in no particular order
+	 * @throws IOException
+	 */
+	public static List<File> convert(File treebankDirectory, final File dependencyDirectory, HeadRule headRule,
+			int threadCount) throws IOException {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("Thread count must be at least 1: " + threadCount);
+		}
+		final HeadRuleMap headRuleMap = ClearNlpDependencyConverter.getHeadRuleMap(headRule);
+		final ThreadLocal<ClearNlpDependencyConverter> converters = new ThreadLocal<ClearNlpDependencyConverter>() {
+			@Override
+			protected ClearNlpDependencyConverter initialValue() {
+				return new ClearNlpDependencyConverter(headRuleMap);
+			}
+		};
+
+		List<Callable<File>> tasks = new ArrayList<Callable<File>>();
+		for (Iterator<File> fileIter = FileUtil.getFileIterator(treebankDirectory, false); fileIter.hasNext();) {
+			final File treeFile = fileIter.next();
+			tasks.add(new Callable<File>() {
+				@Override
+				public File call() throws IOException {
+					File conllFile = new File(dependencyDirectory, getConllFileName(treeFile));
+					try (InputStream treebankStream = new FileInputStream(treeFile);
+							BufferedWriter writer = FileWriterUtil.initBufferedWriter(conllFile)) {
+						converters.get().writeConllX(treebankStream, writer);
+					}
+					return conllFile;
 				}
+			});
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<File> conllFiles = new ArrayList<File>();
+			for (Future<File> future : executor.invokeAll(tasks)) {
+				conllFiles.add(future.get());
 			}
+			return conllFiles;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while converting treebank files.", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Error while converting treebank files.", e.getCause());
+		} finally {
+			executor.shutdownNow();
 		}
-		return conlluFile;
+	}
+
+	static String getConllFileName(File treeFile) {
+		return StringUtils.removeSuffix(treeFile.getName(), ".tree") + ".conll";
 	}
 
 }
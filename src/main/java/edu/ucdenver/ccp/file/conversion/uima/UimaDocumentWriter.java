@@ -40,7 +40,9 @@ import java.io.OutputStream;
 import org.apache.uima.UIMAException;
 import org.apache.uima.cas.impl.XmiCasSerializer;
 import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.factory.TypeSystemDescriptionFactory;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
 import org.apache.uima.util.XMLSerializer;
 import org.xml.sax.SAXException;
 
@@ -50,27 +52,82 @@ import edu.ucdenver.ccp.file.conversion.TextDocument;
 import edu.ucdenver.ccp.nlp.uima.util.TypeSystemUtil;
 import edu.ucdenver.ccp.nlp.uima.util.UIMA_Util;
 
+/**
+ * Serializes documents to the UIMA XMI format. Creating a CAS costs far more
+ * than populating and serializing one for a typical document, so the type
+ * system is resolved once per JVM and each thread keeps its own JCas and XMI
+ * serializer; the JCas is reset after each document so that it does not hold
+ * on to the annotations of the last document written. Threads that are done
+ * writing, e.g. pooled worker threads, should call {@link #release()} to free
+ * their JCas.
+ */
 public class UimaDocumentWriter extends DocumentWriter {
 
+	private static class TypeSystemHolder {
+		private static final TypeSystemDescription TYPE_SYSTEM = TypeSystemDescriptionFactory
+				.createTypeSystemDescription(TypeSystemUtil.CCP_TYPE_SYSTEM);
+	}
+
+	private static class CasHolder {
+		private final JCas jCas;
+		private final XmiCasSerializer serializer;
+
+		private CasHolder() throws UIMAException {
+			this.jCas = JCasFactory.createJCas(TypeSystemHolder.TYPE_SYSTEM);
+			this.serializer = new XmiCasSerializer(jCas.getTypeSystem());
+		}
+	}
+
+	private static final ThreadLocal<CasHolder> CAS_HOLDER = new ThreadLocal<CasHolder>();
+
+	/**
+	 * Writes the document to the output stream. The stream is flushed but not
+	 * closed, so several documents may be written to a stream owned by the
+	 * caller.
+	 */
 	@Override
 	public void serialize(TextDocument td, OutputStream outputStream, CharacterEncoding encoding) throws IOException {
 
 		try {
-			JCas jCas = JCasFactory.createJCas(TypeSystemUtil.CCP_TYPE_SYSTEM);
-			jCas.setDocumentText(td.getText());
-			UIMA_Util.setDocumentID(jCas, td.getSourceid());
+			CasHolder casHolder = getCasHolder();
+			JCas jCas = casHolder.jCas;
+			jCas.reset();
+			try {
+				jCas.setDocumentText(td.getText());
+				UIMA_Util.setDocumentID(jCas, td.getSourceid());
 
-			UIMA_Util uimaUtil = new UIMA_Util();
-			uimaUtil.putTextAnnotationsIntoJCas(jCas, td.getAnnotations());
+				UIMA_Util uimaUtil = new UIMA_Util();
+				uimaUtil.putTextAnnotationsIntoJCas(jCas, td.getAnnotations());
 
-			XmiCasSerializer serializer = new XmiCasSerializer(jCas.getTypeSystem());
-			XMLSerializer xmlSerializer = new XMLSerializer(outputStream, false);
-			serializer.serialize(jCas.getCas(), xmlSerializer.getContentHandler());
-			outputStream.close();
+				XMLSerializer xmlSerializer = new XMLSerializer(outputStream, false);
+				casHolder.serializer.serialize(jCas.getCas(), xmlSerializer.getContentHandler());
+				outputStream.flush();
+			} finally {
+				/* do not hold on to the annotations of this document */
+				jCas.reset();
+			}
 		} catch (UIMAException | SAXException e) {
 			throw new IOException("Error serializing to the UIMA XMI format.", e);
 		}
 
 	}
 
+	private static CasHolder getCasHolder() throws UIMAException {
+		CasHolder casHolder = CAS_HOLDER.get();
+		if (casHolder == null) {
+			casHolder = new CasHolder();
+			CAS_HOLDER.set(casHolder);
+		}
+		return casHolder;
+	}
+
+	/**
+	 * Frees the JCas and serializer cached for the current thread. A later call
+	 * to {@link #serialize(TextDocument, OutputStream, CharacterEncoding)} on the
+	 * same thread creates new ones.
+	 */
+	public static void release() {
+		CAS_HOLDER.remove();
+	}
+
 }
@@ -36,7 +36,6 @@ package edu.ucdenver.ccp.file.conversion.util;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 
 import edu.ucdenver.ccp.nlp.core.annotation.Span;
@@ -73,37 +72,10 @@ public class DocumentReaderUtil {
 		return annotsWithInvalidSpans;
 	}
 
+	/**
+	 * @see SpanNormalizer#consolidateAdjacentSpans(List, String, String)
+	 */
 	public static List<Span> consolidateAdjacentSpans(List<Span> spans, String documentText, String sourceId) {
-		List<Span> updatedSpans = new ArrayList<Span>();
-		if (spans.size() > 1) {
-
-			Collections.sort(spans, Span.ASCENDING());
-			Span currentSpan = new Span(spans.get(0).getSpanStart(), spans.get(0).getSpanEnd());
-			for (int i = 1; i < spans.size(); i++) {
-				Span nextSpan = spans.get(i);
-				if (nextSpan.overlaps(currentSpan)) {
-					// if the spans overlap, then take the maximal span
-					currentSpan.setSpanEnd(Math.max(currentSpan.getSpanEnd(), nextSpan.getSpanEnd()));
-					System.err.println("WARNING: Consolidating overlapping spans (" + sourceId + ") : "
-							+ currentSpan.toString() + " + " + nextSpan.toString());
-				} else {
-					String interveningText = documentText.substring(currentSpan.getSpanEnd(), nextSpan.getSpanStart());
-					if (interveningText.trim().isEmpty()) {
-						// then we need to splice these spans together
-						System.err.println("WARNING: Splicing adjacent discontinuous spans (" + sourceId + ") : "
-								+ currentSpan.toString() + " + " + nextSpan.toString());
-						currentSpan.setSpanEnd(nextSpan.getSpanEnd());
-					} else {
-						// no splice between the current and next spans, so add the current span to
-						// the
-						// updated list and reset the current span as the next span.
-						updatedSpans.add(currentSpan);
-						currentSpan = nextSpan;
-					}
-				}
-			}
-			updatedSpans.add(currentSpan);
-		}
-		return updatedSpans;
+		return SpanNormalizer.consolidateAdjacentSpans(spans, documentText, sourceId);
 	}
 }
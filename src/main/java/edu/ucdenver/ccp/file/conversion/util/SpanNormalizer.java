@@ -0,0 +1,257 @@
+package edu.ucdenver.ccp.file.conversion.util;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edu.ucdenver.ccp.common.collections.CollectionsUtil;
+import edu.ucdenver.ccp.file.conversion.diagnostics.DiagnosticEvent;
+import edu.ucdenver.ccp.file.conversion.diagnostics.DiagnosticType;
+import edu.ucdenver.ccp.file.conversion.diagnostics.Diagnostics;
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+import edu.ucdenver.ccp.nlp.core.annotation.SpanUtils;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+
+/**
+ * Span trimming and consolidation routines shared by the document readers and writers. The
+ * document text is scanned in place using a precomputed whitespace table, so no intermediate
+ * strings are created while determining the updated span offsets.
+ * 
+ * Whitespace is defined as in {@link String#trim()}, i.e. any character with a code point less than
+ * or equal to U+0020.
+ */
+public class SpanNormalizer {
+
+	private static final boolean[] WHITESPACE = new boolean[128];
+
+	static {
+		for (char c = 0; c <= ' '; c++) {
+			WHITESPACE[c] = true;
+		}
+	}
+
+	public static boolean isWhitespace(char c) {
+		return c < WHITESPACE.length && WHITESPACE[c];
+	}
+
+	/**
+	 * @param text
+	 * @param start
+	 * @param end
+	 * @return true if the text in the range [start, end) consists only of whitespace (or is empty)
+	 */
+	public static boolean isBlank(CharSequence text, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (!isWhitespace(text.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if all of the input spans cover only whitespace
+	 */
+	public static boolean isBlank(List<Span> spans, CharSequence text) {
+		for (Span span : spans) {
+			if (!isBlank(text, span.getSpanStart(), span.getSpanEnd())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the offset of the first non-whitespace character in the range [start, end), or end if
+	 *         there is none
+	 */
+	public static int trimStart(CharSequence text, int start, int end) {
+		while (start < end && isWhitespace(text.charAt(start))) {
+			start++;
+		}
+		return start;
+	}
+
+	/**
+	 * @return the offset following the last non-whitespace character in the range [start, end), or
+	 *         start if there is none
+	 */
+	public static int trimEnd(CharSequence text, int start, int end) {
+		while (end > start && isWhitespace(text.charAt(end - 1))) {
+			end--;
+		}
+		return end;
+	}
+
+	/**
+	 * @param spans
+	 *            assumed to be sorted in ascending order
+	 * @param text
+	 * @return true if the first span starts with whitespace or the last span ends with whitespace
+	 */
+	public static boolean hasLeadingOrTrailingWhitespace(List<Span> spans, CharSequence text) {
+		if (spans.isEmpty()) {
+			return false;
+		}
+		Span first = spans.get(0);
+		Span last = spans.get(spans.size() - 1);
+		return (first.getSpanStart() < first.getSpanEnd() && isWhitespace(text.charAt(first.getSpanStart())))
+				|| (last.getSpanStart() < last.getSpanEnd() && isWhitespace(text.charAt(last.getSpanEnd() - 1)));
+	}
+
+	/**
+	 * Removes leading whitespace from the start of the first span and trailing whitespace from the
+	 * end of the last span. Component spans that are left empty are dropped. Discontinuous spans
+	 * remain discontinuous.
+	 * 
+	 * @param spans
+	 *            assumed to be sorted in ascending order
+	 * @param text
+	 * @return the trimmed spans; the input list is returned if no trimming was necessary. If the
+	 *         spans cover only whitespace then a single empty span located at the start of the
+	 *         first input span is returned.
+	 */
+	public static List<Span> trimSpans(List<Span> spans, CharSequence text) {
+		if (!hasLeadingOrTrailingWhitespace(spans, text)) {
+			return spans;
+		}
+
+		int first = 0;
+		int firstStart = -1;
+		for (; first < spans.size(); first++) {
+			Span span = spans.get(first);
+			firstStart = trimStart(text, span.getSpanStart(), span.getSpanEnd());
+			if (firstStart < span.getSpanEnd()) {
+				break;
+			}
+		}
+		if (first == spans.size()) {
+			int start = spans.get(0).getSpanStart();
+			List<Span> emptySpan = new ArrayList<Span>();
+			emptySpan.add(new Span(start, start));
+			return emptySpan;
+		}
+
+		int last = spans.size() - 1;
+		int lastEnd = -1;
+		for (; last >= first; last--) {
+			Span span = spans.get(last);
+			int start = (last == first) ? firstStart : span.getSpanStart();
+			lastEnd = trimEnd(text, start, span.getSpanEnd());
+			if (lastEnd > start) {
+				break;
+			}
+		}
+
+		List<Span> trimmedSpans = new ArrayList<Span>(last - first + 1);
+		for (int i = first; i <= last; i++) {
+			Span span = spans.get(i);
+			int start = (i == first) ? firstStart : span.getSpanStart();
+			int end = (i == last) ? lastEnd : span.getSpanEnd();
+			trimmedSpans.add(new Span(start, end));
+		}
+		return trimmedSpans;
+	}
+
+	/**
+	 * removes any leading/trailing whitespace from the annotation. The annotation covered text is
+	 * only updated if its spans change.
+	 * 
+	 * @param documentText
+	 * @param annot
+	 * @return true if the annotation spans were modified
+	 */
+	public static boolean trimAnnotation(String documentText, TextAnnotation annot) {
+		List<Span> spans = annot.getSpans();
+		List<Span> trimmedSpans = trimSpans(spans, documentText);
+		if (trimmedSpans == spans) {
+			return false;
+		}
+		annot.setSpans(trimmedSpans);
+		annot.setCoveredText(SpanUtils.getCoveredText(trimmedSpans, documentText));
+		return true;
+	}
+
+	/**
+	 * Combines spans that overlap, and spans that are separated only by whitespace. The input list
+	 * is sorted in place; the input Span objects are not modified.
+	 * 
+	 * @param spans
+	 * @param documentText
+	 * @param sourceId
+	 * @return the consolidated spans. If the input contains one or fewer spans, an empty list is
+	 *         returned.
+	 */
+	public static List<Span> consolidateAdjacentSpans(List<Span> spans, String documentText, String sourceId) {
+		List<Span> updatedSpans = new ArrayList<Span>();
+		if (spans.size() > 1) {
+			Collections.sort(spans, Span.ASCENDING());
+			int currentStart = spans.get(0).getSpanStart();
+			int currentEnd = spans.get(0).getSpanEnd();
+			for (int i = 1; i < spans.size(); i++) {
+				Span nextSpan = spans.get(i);
+				if (nextSpan.getSpanStart() < currentEnd && currentStart < nextSpan.getSpanEnd()) {
+					/* if the spans overlap, then take the maximal span */
+					currentEnd = Math.max(currentEnd, nextSpan.getSpanEnd());
+					if (Diagnostics.isEnabled(DiagnosticType.SPANS_CONSOLIDATED)) {
+						Diagnostics.report(DiagnosticEvent.forSpans(DiagnosticType.SPANS_CONSOLIDATED, sourceId,
+								CollectionsUtil.createList(new Span(currentStart, currentEnd), nextSpan)));
+					}
+				} else if (isBlank(documentText, currentEnd, nextSpan.getSpanStart())) {
+					/* then we need to splice these spans together */
+					if (Diagnostics.isEnabled(DiagnosticType.SPANS_SPLICED)) {
+						Diagnostics.report(DiagnosticEvent.forSpans(DiagnosticType.SPANS_SPLICED, sourceId,
+								CollectionsUtil.createList(new Span(currentStart, currentEnd), nextSpan)));
+					}
+					currentEnd = nextSpan.getSpanEnd();
+				} else {
+					/*
+					 * no splice between the current and next spans, so add the current span to the
+					 * updated list and reset the current span as the next span.
+					 */
+					updatedSpans.add(new Span(currentStart, currentEnd));
+					currentStart = nextSpan.getSpanStart();
+					currentEnd = nextSpan.getSpanEnd();
+				}
+			}
+			updatedSpans.add(new Span(currentStart, currentEnd));
+		}
+		return updatedSpans;
+	}
+
+}
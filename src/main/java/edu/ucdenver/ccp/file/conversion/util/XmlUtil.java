@@ -0,0 +1,147 @@
+package edu.ucdenver.ccp.file.conversion.util;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+
+/**
+ * Shared XML infrastructure for the JAXB/StAX-based document readers and
+ * writers. Creating a {@link JAXBContext} requires reflection over the bound
+ * classes and is often more expensive than parsing a small document, so
+ * contexts are created once per class and shared. {@link Unmarshaller} and
+ * {@link Marshaller} instances are not thread-safe and are therefore cached
+ * per thread. The StAX factories are configured once and only used to create
+ * readers/writers, which is safe to do concurrently.
+ */
+public class XmlUtil {
+
+	private static final ConcurrentMap<Class<?>, JAXBContext> CONTEXTS = new ConcurrentHashMap<Class<?>, JAXBContext>();
+
+	private static final ThreadLocal<Map<Class<?>, Unmarshaller>> UNMARSHALLERS = new ThreadLocal<Map<Class<?>, Unmarshaller>>() {
+		@Override
+		protected Map<Class<?>, Unmarshaller> initialValue() {
+			return new HashMap<Class<?>, Unmarshaller>();
+		}
+	};
+
+	private static final ThreadLocal<Map<Class<?>, Marshaller>> MARSHALLERS = new ThreadLocal<Map<Class<?>, Marshaller>>() {
+		@Override
+		protected Map<Class<?>, Marshaller> initialValue() {
+			return new HashMap<Class<?>, Marshaller>();
+		}
+	};
+
+	private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+	private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+	/**
+	 * @param boundClass
+	 * @return the shared {@link JAXBContext} for the specified class, created on
+	 *         first use
+	 * @throws JAXBException
+	 */
+	public static JAXBContext getContext(Class<?> boundClass) throws JAXBException {
+		JAXBContext ctx = CONTEXTS.get(boundClass);
+		if (ctx == null) {
+			ctx = JAXBContext.newInstance(boundClass);
+			JAXBContext existing = CONTEXTS.putIfAbsent(boundClass, ctx);
+			if (existing != null) {
+				ctx = existing;
+			}
+		}
+		return ctx;
+	}
+
+	/**
+	 * @param boundClass
+	 * @return an {@link Unmarshaller} for the specified class that is owned by
+	 *         the calling thread. It must not be handed to other threads.
+	 * @throws JAXBException
+	 */
+	public static Unmarshaller getUnmarshaller(Class<?> boundClass) throws JAXBException {
+		Map<Class<?>, Unmarshaller> unmarshallers = UNMARSHALLERS.get();
+		Unmarshaller um = unmarshallers.get(boundClass);
+		if (um == null) {
+			um = getContext(boundClass).createUnmarshaller();
+			unmarshallers.put(boundClass, um);
+		}
+		return um;
+	}
+
+	/**
+	 * @param boundClass
+	 * @param formattedOutput
+	 *            if true, the output is pretty-printed
+	 * @return a {@link Marshaller} for the specified class that is owned by the
+	 *         calling thread. It must not be handed to other threads.
+	 * @throws JAXBException
+	 */
+	public static Marshaller getMarshaller(Class<?> boundClass, boolean formattedOutput) throws JAXBException {
+		Map<Class<?>, Marshaller> marshallers = MARSHALLERS.get();
+		Marshaller m = marshallers.get(boundClass);
+		if (m == null) {
+			m = getContext(boundClass).createMarshaller();
+			marshallers.put(boundClass, m);
+		}
+		/* the marshaller is reused so the property is (re)set on every request */
+		m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formattedOutput);
+		return m;
+	}
+
+	/**
+	 * @return the shared {@link XMLInputFactory}
+	 */
+	public static XMLInputFactory getInputFactory() {
+		return INPUT_FACTORY;
+	}
+
+	/**
+	 * @return the shared {@link XMLOutputFactory}
+	 */
+	public static XMLOutputFactory getOutputFactory() {
+		return OUTPUT_FACTORY;
+	}
+
+}
@@ -34,9 +34,15 @@ package org.cleartk.util.treebank;
  * #L%
  */
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EmptyStackException;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Stack;
+import java.util.NoSuchElementException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -60,6 +66,14 @@ import java.util.regex.Pattern;
  * {@link #movePastWhiteSpaceChars(String, int)} to include Unicode Character
  * 'THIN SPACE' (U+2009)
  * 
+ * CHANGES: 10/19/26 -- {@link #parse(String, String, int)} rewritten as a
+ * single pass over the parse string. Constituents are classified in place
+ * instead of by matching regular expressions against a substring for every
+ * node, the consumed plain text is tracked by length instead of being copied,
+ * and whitespace is skipped using a lookup table. Parsing is now linear in
+ * the length of the parse and independent of the position of the sentence in
+ * the document.
+ * 
  * <br>
  * Copyright (c) 2007-2008, Regents of the University of Colorado <br>
  * All rights reserved.
@@ -96,38 +110,79 @@ public class TreebankFormatParser {
 	public static TreebankNode getLeafNode(String parseFragment) {
 		Matcher leafNodeMatcher = leafNodePattern.matcher(parseFragment);
 		if (leafNodeMatcher.matches()) {
-			String type = leafNodeMatcher.group(1);
-			String value = leafNodeMatcher.group(2);
-			TreebankNode node = new TreebankNode();
-			node.setType(getTypeFromType(type));
-			node.setTags(getTagsFromType(type));
-			node.setValue(value);
-			node.setLeaf(true);
-			// the token and the value will almost always be the same except for
-			// a few special values (e.g. "-RCB-", "-LCB-", and "-NONE-")
-			String token = getToken(node.getValue(), node.getType());
-			node.setText(token);
-			return node;
+			return createLeafNode(leafNodeMatcher.group(1), leafNodeMatcher.group(2));
 		}
 		return null;
 	}
 
+	/**
+	 * Equivalent to {@link #getLeafNode(String)} applied to the constituent
+	 * spanning from the '(' at parseBegin to the ')' at parseEnd, without
+	 * taking a substring of the parse or matching a regular expression.
+	 */
+	private static TreebankNode getLeafNode(String parse, int parseBegin, int parseEnd) {
+		int typeEnd = skipLabelChars(parse, parseBegin + 1, parseEnd);
+		if (typeEnd == parseBegin + 1 || typeEnd == parseEnd || parse.charAt(typeEnd) != ' ') {
+			return null;
+		}
+		int valueEnd = skipLabelChars(parse, typeEnd + 1, parseEnd);
+		if (valueEnd == typeEnd + 1) {
+			return null;
+		}
+		for (int i = valueEnd; i < parseEnd; i++) {
+			if (!isRegexWhiteSpace(parse.charAt(i))) {
+				return null;
+			}
+		}
+		return createLeafNode(parse.substring(parseBegin + 1, typeEnd), parse.substring(typeEnd + 1, valueEnd));
+	}
+
+	private static TreebankNode createLeafNode(String type, String value) {
+		TreebankNode node = new TreebankNode();
+		node.setType(getTypeFromType(type));
+		node.setTags(getTagsFromType(type));
+		node.setValue(value);
+		node.setLeaf(true);
+		// the token and the value will almost always be the same except for
+		// a few special values (e.g. "-RCB-", "-LCB-", and "-NONE-")
+		String token = getToken(node.getValue(), node.getType());
+		node.setText(token);
+		return node;
+	}
+
+	/**
+	 * @return the index of the first character at or after index that is not
+	 *         part of a type or value label, i.e. matched by [^( )]
+	 */
+	private static int skipLabelChars(String parse, int index, int parseEnd) {
+		while (index < parseEnd) {
+			char c = parse.charAt(index);
+			if (c == '(' || c == ' ' || c == ')') {
+				break;
+			}
+			index++;
+		}
+		return index;
+	}
+
+	private static final Pattern tagSeparatorPattern = Pattern.compile("[-=]");
+
 	private static String getTypeFromType(String fullType) {
 		if (fullType.startsWith("-"))
 			return fullType.substring(0, fullType.indexOf('-', 1) + 1);
 
-		return fullType.split("[-=]")[0];
+		return tagSeparatorPattern.split(fullType)[0];
 	}
 
 	private static String[] getTagsFromType(String fullType) {
 		if (fullType.startsWith("-")) {
 			String rest = fullType.substring(fullType.indexOf('-', 1) + 1);
 			if (rest.length() > 0)
-				return rest.split("[-=]");
+				return tagSeparatorPattern.split(rest);
 			else
 				return new String[0];
 		} else {
-			String[] parts = fullType.split("[-=]");
+			String[] parts = tagSeparatorPattern.split(fullType);
 			String[] tags = new String[parts.length - 1];
 
 			for (int i = 1; i < parts.length; i++)
@@ -169,6 +224,18 @@ public class TreebankFormatParser {
 		return null;
 	}
 
+	/**
+	 * Equivalent to {@link #getType(String)} applied to the parse starting at
+	 * the '(' at parseBegin.
+	 */
+	private static String getType(String parse, int parseBegin, int parseEnd) {
+		int typeEnd = skipLabelChars(parse, parseBegin + 1, parseEnd);
+		if (typeEnd == parseBegin + 1) {
+			return null;
+		}
+		return parse.substring(parseBegin + 1, typeEnd);
+	}
+
 	public static final String cleanUPRegex1 = "\\s+";
 
 	private static final Pattern cleanUpPattern1 = Pattern.compile(cleanUPRegex1, Pattern.MULTILINE);
@@ -336,41 +403,35 @@ public class TreebankFormatParser {
 			TopTreebankNode topNode = new TopTreebankNode();
 			parse = prepareString(parse);
 			// used to capture the plain text of the sentence.
-			StringBuffer consumedText = new StringBuffer();
+			ConsumedText consumedText = new ConsumedText(text);
 			if (text != null) {
 				textOffset = movePastWhiteSpaceChars(text, textOffset);
-				consumedText.append(text.substring(0, textOffset));
+				consumedText.skipTo(textOffset);
 			}
+			// the last ')' closes the top node
+			int topNodeEnd = parse.lastIndexOf(')');
 
-			Stack<Integer> parseOffsetStack = new Stack<Integer>();
-			Stack<Integer> plainTextOffsetStack = new Stack<Integer>();
+			IntStack parseOffsetStack = new IntStack();
+			IntStack plainTextOffsetStack = new IntStack();
 
 			// keeps the nodes that are waiting for their parents to be
 			// completed.
-			Stack<TreebankNode> parseStack = new Stack<TreebankNode>();
+			List<TreebankNode> parseStack = new ArrayList<TreebankNode>();
 
 			for (int ci = 0; ci < parse.length(); ci++) {
 				char c = parse.charAt(ci);
 				if (c == '(') {
-					// at the start of each constituent we will push the
-					// starting
-					// index of it
-					// w.r.t. the parse string.
-					parseOffsetStack.push(ci);
-					// also push the starting index w.r.t. the plain text of the
+					// at the start of each constituent we push its starting index
+					// w.r.t. the parse string and w.r.t. the plain text of the
 					// sentence.
+					parseOffsetStack.push(ci);
 					plainTextOffsetStack.push(consumedText.length());
 				} else if (c == ')') {
 					int begin = parseOffsetStack.pop();
 					int end = ci;
-					// the portion of the parse string that corresponds to the
-					// constituent that
-					// we found the left bracket for ')'.
-					String subParse = parse.substring(begin, end + 1);
-
 					int textBegin = plainTextOffsetStack.pop();
 
-					TreebankNode node = getLeafNode(subParse);
+					TreebankNode node = getLeafNode(parse, begin, end);
 					if (node != null) {
 						node.setTopNode(topNode);
 						node.setParseBegin(begin);
@@ -379,21 +440,17 @@ public class TreebankFormatParser {
 
 						if (token.length() > 0) {
 							int realBegin = movePastWhiteSpaceChars(text, textBegin);
-							consumedText.append(text.substring(textBegin, realBegin));
-							consumedText.append(token);
+							consumedText.append(realBegin, token);
 							node.setTextBegin(realBegin);
 							node.setTextEnd(realBegin + token.length());
-
 						} else {
 							node.setTextBegin(textBegin);
 							node.setTextEnd(textBegin + token.length());
 						}
 						checkText(node, text);
-						parseStack.push(node);
+						parseStack.add(node);
 					} else {
-						if (parse.lastIndexOf(')') == ci) // the last ')' is the
-															// top
-							// node.
+						if (ci == topNodeEnd)
 							node = topNode; // this is the instance that will be
 						// returned.
 						else
@@ -401,38 +458,35 @@ public class TreebankFormatParser {
 						node.setTopNode(topNode);
 						node.setParseBegin(begin);
 						node.setParseEnd(end + 1);
-						String type = getType(subParse);
+						String type = getType(parse, begin, end);
+						if (type == null) {
+							throw new IllegalArgumentException("Missing constituent type at parse offset " + begin);
+						}
 						node.setType(getTypeFromType(type));
 						node.setTags(getTagsFromType(type));
 						node.setLeaf(false);
-						// keep adding the nodes on the stack until it is empty
-						// or
-						// the next node on the stack starts before the current
-						// node
-						// (i.e. has a different
-						// parent than the current node that will be completed
-						// later.)
-						while (parseStack.size() > 0 && parseStack.peek().getParseBegin() > node.getParseBegin()) {
-							TreebankNode child = parseStack.pop();
+						// keep adding the nodes on the stack until it is empty or
+						// the next node on the stack starts before the current node
+						// (i.e. has a different parent than the current node that
+						// will be completed later.)
+						while (parseStack.size() > 0
+								&& parseStack.get(parseStack.size() - 1).getParseBegin() > node.getParseBegin()) {
+							TreebankNode child = parseStack.remove(parseStack.size() - 1);
 							node.addChild(child);
 							child.setParent(node);
 						}
-						// we typically add a token followed by a space to
-						// plainText, except when the
-						// token is an empty string as it is when the
-						// corresponding
-						// type is -NONE-
 						int realBegin = movePastWhiteSpaceChars(text, textBegin);
 						node.setTextBegin(realBegin);
 						node.setTextEnd(Math.max(realBegin, consumedText.length()));
-
-						try {
+						// a constituent that consumed no text, e.g. one whose only
+						// child is a -NONE- node, has empty text
+						if (realBegin < consumedText.length()) {
 							node.setText(consumedText.substring(node.getTextBegin(), node.getTextEnd()));
-						} catch (StringIndexOutOfBoundsException sioobe) {
+						} else {
 							node.setText("");
 						}
 						checkText(node, text);
-						parseStack.push(node);
+						parseStack.add(node);
 					}
 				}
 			}
@@ -445,23 +499,138 @@ public class TreebankFormatParser {
 		}
 	}
 
+	/**
+	 * The plain text consumed while aligning a parse with the document text.
+	 * It is identical to the document text except where
+	 * {@link #checkText(TreebankNode, String)} has allowed a trailing period of
+	 * a token to align with a different character, so rather than copying the
+	 * text only its length and the positions at which it differs are kept.
+	 */
+	private static class ConsumedText {
+		private final String text;
+		private int length = 0;
+		private int[] diffPositions = new int[0];
+		private char[] diffChars = new char[0];
+		private int diffCount = 0;
+
+		public ConsumedText(String text) {
+			this.text = text;
+		}
+
+		public int length() {
+			return length;
+		}
+
+		/**
+		 * Consumes the document text up to the specified offset
+		 */
+		public void skipTo(int offset) {
+			length = offset;
+		}
+
+		/**
+		 * Consumes the document text up to the specified offset followed by the
+		 * token
+		 */
+		public void append(int offset, String token) {
+			for (int i = 0; i < token.length(); i++) {
+				int position = offset + i;
+				if (position >= text.length() || text.charAt(position) != token.charAt(i)) {
+					addDiff(position, token.charAt(i));
+				}
+			}
+			length = offset + token.length();
+		}
+
+		private void addDiff(int position, char c) {
+			if (diffCount == diffPositions.length) {
+				diffPositions = Arrays.copyOf(diffPositions, Math.max(4, 2 * diffCount));
+				diffChars = Arrays.copyOf(diffChars, diffPositions.length);
+			}
+			diffPositions[diffCount] = position;
+			diffChars[diffCount] = c;
+			diffCount++;
+		}
+
+		public String substring(int begin, int end) {
+			if (end > length) {
+				throw new StringIndexOutOfBoundsException(end);
+			}
+			// positions are added in increasing order
+			int diffIndex = Arrays.binarySearch(diffPositions, 0, diffCount, begin);
+			if (diffIndex < 0) {
+				diffIndex = -diffIndex - 1;
+			}
+			if (diffIndex == diffCount || diffPositions[diffIndex] >= end) {
+				return text.substring(begin, end);
+			}
+			char[] chars = new char[end - begin];
+			text.getChars(begin, Math.min(end, text.length()), chars, 0);
+			for (; diffIndex < diffCount && diffPositions[diffIndex] < end; diffIndex++) {
+				chars[diffPositions[diffIndex] - begin] = diffChars[diffIndex];
+			}
+			return new String(chars);
+		}
+	}
+
+	private static class IntStack {
+		private int[] values = new int[32];
+		private int size = 0;
+
+		public void push(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, 2 * size);
+			}
+			values[size++] = value;
+		}
+
+		public int pop() {
+			if (size == 0) {
+				throw new EmptyStackException();
+			}
+			return values[--size];
+		}
+	}
+
 	/* ======== CHANGE 3/20/19 ======== */
 	/*
 	 * updated whitespace pattern to include Unicode Character 'THIN SPACE'
 	 * (U+2009)
 	 */
-	private static final String whiteSpacePatternStr = "\\s\\u2009";
-	private static final Pattern nonwhiteSpaceCharPattern = Pattern.compile("[^" + whiteSpacePatternStr + "]");
-
 	/* Original pattern is shown below */
 	// private static final Pattern nonwhiteSpaceCharPattern =
 	// Pattern.compile("[^\\s]");
 	/* ====== END CHANGE 3/20/19 ====== */
 
+	/*
+	 * the characters matched by the regular expression [\\s\\u2009], i.e. the
+	 * ASCII whitespace characters plus THIN SPACE (U+2009)
+	 */
+	private static final boolean[] ASCII_WHITE_SPACE = new boolean[128];
+	static {
+		for (char c : new char[] { ' ', '\t', '\n', '\u000B', '\f', '\r' }) {
+			ASCII_WHITE_SPACE[c] = true;
+		}
+	}
+
+	private static final char THIN_SPACE = '\u2009';
+
+	private static boolean isRegexWhiteSpace(char c) {
+		return c < ASCII_WHITE_SPACE.length && ASCII_WHITE_SPACE[c];
+	}
+
+	private static boolean isWhiteSpace(char c) {
+		return isRegexWhiteSpace(c) || c == THIN_SPACE;
+	}
+
 	public static int movePastWhiteSpaceChars(String text, int textOffset) {
-		Matcher matcher = nonwhiteSpaceCharPattern.matcher(text);
-		if (matcher.find(textOffset)) {
-			return matcher.start();
+		if (textOffset < 0 || textOffset > text.length()) {
+			throw new IndexOutOfBoundsException("Illegal start index: " + textOffset);
+		}
+		for (int i = textOffset; i < text.length(); i++) {
+			if (!isWhiteSpace(text.charAt(i))) {
+				return i;
+			}
 		}
 		return textOffset;
 	}
@@ -535,6 +704,103 @@ public class TreebankFormatParser {
 		return lines;
 	}
 
+	/**
+	 * Splits treebanked sentences as they are read, tracking the parenthesis
+	 * depth rather than splitting the entire contents with a regular
+	 * expression. A sentence starts at a '(' outside of any other sentence and
+	 * ends at its matching ')', so memory use is bounded by the longest
+	 * sentence rather than the size of the file. This accepts both the native
+	 * Penn Treebank layout, where sentences span multiple lines, and one
+	 * sentence per line.
+	 * 
+	 * @param reader
+	 *            treebank parenthesized parses. The reader is not closed.
+	 * @return an iterator over the individual sentence parses. An
+	 *         {@link IOException} thrown by the reader is rethrown as an
+	 *         {@link UncheckedIOException}. Unbalanced parentheses, or text
+	 *         outside of a sentence, cause an {@link IllegalArgumentException}.
+	 */
+	public static Iterator<String> splitSentences(Reader reader) {
+		return new SentenceIterator(reader);
+	}
+
+	private static class SentenceIterator implements Iterator<String> {
+		private final Reader reader;
+		private final char[] buffer = new char[8192];
+		private int bufferLength = 0;
+		private int bufferIndex = 0;
+		private final StringBuilder sentence = new StringBuilder();
+		private String nextSentence;
+
+		public SentenceIterator(Reader reader) {
+			this.reader = reader;
+			this.nextSentence = readSentence();
+		}
+
+		private int read() {
+			if (bufferIndex == bufferLength) {
+				try {
+					bufferLength = reader.read(buffer);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				bufferIndex = 0;
+				if (bufferLength < 0) {
+					bufferLength = 0;
+					return -1;
+				}
+			}
+			return buffer[bufferIndex++];
+		}
+
+		private String readSentence() {
+			int c;
+			// skip to the start of the next sentence
+			while ((c = read()) != '(') {
+				if (c == -1) {
+					return null;
+				}
+				if (!isWhiteSpace((char) c)) {
+					throw new IllegalArgumentException(
+							"Unexpected character outside of a treebank sentence: '" + (char) c + "'");
+				}
+			}
+			sentence.setLength(0);
+			sentence.append('(');
+			int depth = 1;
+			while (depth > 0) {
+				c = read();
+				if (c == -1) {
+					throw new IllegalArgumentException(
+							"Parentheses counts do not match for treebank sentence: " + sentence);
+				}
+				if (c == '(') {
+					depth++;
+				} else if (c == ')') {
+					depth--;
+				}
+				sentence.append((char) c);
+			}
+			return sentence.toString();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextSentence != null;
+		}
+
+		@Override
+		public String next() {
+			if (nextSentence == null) {
+				throw new NoSuchElementException();
+			}
+			String currentSentence = nextSentence;
+			nextSentence = readSentence();
+			return currentSentence;
+		}
+
+	}
+
 	public static boolean parensMatch(String contents) {
 		int leftParenCount = 0;
 		int rightParenCount = 0;
@@ -576,4 +842,178 @@ public class TreebankFormatParser {
 		return returnValues;
 	}
 
+	/**
+	 * This method parses an entire documents worth of treebanked sentences,
+	 * reading one sentence at a time.
+	 * 
+	 * @param parse
+	 *            a single document provided as treebank parenthesized parses.
+	 *            The reader is not closed.
+	 * @param textOffset
+	 *            a value that corresponds to the character offset of the first
+	 *            character of the document. The appropriate value for this
+	 *            method will typically be 0.
+	 * @param text
+	 *            a single document provided as plain text
+	 * @see #splitSentences(Reader)
+	 */
+	public static List<TopTreebankNode> parseDocument(Reader parse, int textOffset, String text) {
+		List<TopTreebankNode> returnValues = new ArrayList<TopTreebankNode>();
+		for (Iterator<String> sentenceIter = splitSentences(parse); sentenceIter.hasNext();) {
+			TopTreebankNode topNode = parse(sentenceIter.next(), text, textOffset);
+			textOffset = topNode.getTextEnd();
+			returnValues.add(topNode);
+		}
+		return returnValues;
+	}
+
+	/**
+	 * Receives the leaves and sentences found by
+	 * {@link TreebankFormatParser#scanLeaves(Reader, int, String, LeafHandler)}
+	 */
+	public interface LeafHandler {
+		/**
+		 * Called for each leaf in document order, including leaves without
+		 * text, e.g. -NONE- leaves, which have equal begin and end offsets
+		 */
+		void handleLeaf(String type, int textBegin, int textEnd);
+
+		/**
+		 * Called after the leaves of each sentence have been handled. The type
+		 * is TOP unless the sentence is a bare constituent, e.g. "(S ...)"
+		 * rather than "( (S ...) )".
+		 */
+		void handleSentence(String type, int textBegin, int textEnd);
+	}
+
+	/**
+	 * Aligns the leaves and sentences of the treebanked sentences with the
+	 * document text without building any {@link TreebankNode}s. The leaf and
+	 * sentence offsets match those of the corresponding nodes returned by
+	 * {@link #parseDocument(Reader, int, String)}.
+	 * 
+	 * @param parse
+	 *            a single document provided as treebank parenthesized parses.
+	 *            The reader is not closed.
+	 * @param textOffset
+	 *            a value that corresponds to the character offset of the first
+	 *            character of the document. The appropriate value for this
+	 *            method will typically be 0.
+	 * @param text
+	 *            a single document provided as plain text
+	 * @param handler
+	 */
+	public static void scanLeaves(Reader parse, int textOffset, String text, LeafHandler handler) {
+		for (Iterator<String> sentenceIter = splitSentences(parse); sentenceIter.hasNext();) {
+			String sentence = sentenceIter.next();
+			try {
+				textOffset = scanSentenceLeaves(sentence, text, textOffset, handler);
+			} catch (RuntimeException e) {
+				throw new IllegalArgumentException("exception thrown when parsing the following: " + sentence, e);
+			}
+		}
+	}
+
+	/**
+	 * @return the end offset of the sentence
+	 */
+	private static int scanSentenceLeaves(String sentence, String text, int textOffset, LeafHandler handler) {
+		int sentenceBegin = movePastWhiteSpaceChars(text, textOffset);
+		String sentenceType = null;
+		int consumedLength = sentenceBegin;
+		// the position at which the trailing period of a token was aligned to a
+		// different character; see checkText(TreebankNode, String)
+		int periodPosition = -1;
+		// the most recent '(' and whether its constituent has no children so far
+		int openIndex = -1;
+		boolean innermost = false;
+
+		for (int ci = 0; ci < sentence.length(); ci++) {
+			char c = sentence.charAt(ci);
+			if (c == '(') {
+				if (ci == 0) {
+					int next = skipRegexWhiteSpace(sentence, 1);
+					if (next < sentence.length() && sentence.charAt(next) == '(') {
+						sentenceType = "TOP";
+						continue;
+					}
+				}
+				int typeEnd = skipRawLabelChars(sentence, ci + 1);
+				if (typeEnd == ci + 1) {
+					throw new IllegalArgumentException("Missing constituent type at parse offset " + ci);
+				}
+				if (sentenceType == null) {
+					sentenceType = getTypeFromType(sentence.substring(ci + 1, typeEnd));
+				}
+				openIndex = ci;
+				innermost = true;
+			} else if (c == ')' && innermost) {
+				innermost = false;
+				// a leaf has the form (TYPE VALUE)
+				int typeEnd = skipRawLabelChars(sentence, openIndex + 1);
+				int valueBegin = skipRegexWhiteSpace(sentence, typeEnd);
+				int valueEnd = skipRawLabelChars(sentence, valueBegin);
+				if (valueBegin == typeEnd || valueEnd == valueBegin || skipRegexWhiteSpace(sentence, valueEnd) != ci) {
+					continue;
+				}
+				String type = getTypeFromType(sentence.substring(openIndex + 1, typeEnd));
+				String token = getToken(sentence.substring(valueBegin, valueEnd), type);
+
+				int textBegin = consumedLength;
+				int textEnd = consumedLength;
+				if (token.length() > 0) {
+					if (periodPosition >= 0) {
+						throw new IllegalArgumentException(
+								"plain text does not align with tokens in treebank parse at offset " + periodPosition);
+					}
+					textBegin = movePastWhiteSpaceChars(text, consumedLength);
+					textEnd = textBegin + token.length();
+					String plainText = text.substring(textBegin, textEnd);
+					consumedLength = textEnd;
+					if (!token.equals(plainText)) {
+						if (token.endsWith(".") && token.regionMatches(0, plainText, 0, token.length() - 1)) {
+							periodPosition = textEnd - 1;
+							textEnd--;
+						} else {
+							throw new IllegalArgumentException(
+									"plain text does not align with tokens in treebank parse.  node text = '" + token
+											+ "'  plain text = '" + plainText + "'");
+						}
+					}
+				}
+				handler.handleLeaf(type, textBegin, textEnd);
+			}
+		}
+
+		int sentenceEnd = Math.max(sentenceBegin, consumedLength);
+		if (periodPosition >= 0 && periodPosition == sentenceEnd - 1) {
+			sentenceEnd--;
+		}
+		handler.handleSentence(sentenceType, sentenceBegin, sentenceEnd);
+		return sentenceEnd;
+	}
+
+	/**
+	 * @return the index of the first character at or after index that is not
+	 *         part of a type or value label in a parse that has not been
+	 *         prepared by {@link #prepareString(String)}
+	 */
+	private static int skipRawLabelChars(String parse, int index) {
+		while (index < parse.length()) {
+			char c = parse.charAt(index);
+			if (c == '(' || c == ')' || isRegexWhiteSpace(c)) {
+				break;
+			}
+			index++;
+		}
+		return index;
+	}
+
+	private static int skipRegexWhiteSpace(String parse, int index) {
+		while (index < parse.length() && isRegexWhiteSpace(parse.charAt(index))) {
+			index++;
+		}
+		return index;
+	}
+
 }
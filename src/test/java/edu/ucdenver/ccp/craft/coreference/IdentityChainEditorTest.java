@@ -0,0 +1,140 @@
+package edu.ucdenver.ccp.craft.coreference;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.ucdenver.ccp.common.collections.CollectionsUtil;
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.io.ClassPathUtil;
+import edu.ucdenver.ccp.craft.coreference.CuratedChainEdit.Operation;
+import edu.ucdenver.ccp.file.conversion.conllcoref2012.CoNLLCoref2012DocumentReader;
+import edu.ucdenver.ccp.file.conversion.conllcoref2012.CoreferenceChainGraph;
+import edu.ucdenver.ccp.file.conversion.conllcoref2012.CoreferenceChainGraph.Chain;
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
+
+public class IdentityChainEditorTest {
+
+	// 0123456789012345678901234567890123456789
+	private static final String DOCUMENT_TEXT = "The red car. It is fast. The car is red.";
+
+	private final TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults("12345");
+
+	@Test
+	public void testLoadCraftEdits() throws IOException {
+		Map<String, List<CuratedChainEdit>> edits = CuratedChainEdit.load(ClassPathUtil
+				.getResourceStreamFromClasspath(CleanCorefAnnotations.class, CuratedChainEdit.CRAFT_V3_1_EDITS_RESOURCE),
+				CharacterEncoding.UTF_8);
+		int editCount = 0;
+		for (List<CuratedChainEdit> docEdits : edits.values()) {
+			editCount += docEdits.size();
+		}
+		assertEquals(251, editCount);
+
+		CuratedChainEdit edit = edits.get("11532192").get(0);
+		assertEquals(Operation.REMOVE, edit.getOperation());
+		assertEquals(CollectionsUtil.createList(new Span(4093, 4107)), edit.getChainSpans());
+		assertEquals(CollectionsUtil.createList(new Span(38589, 38596), new Span(38609, 38613)),
+				edit.getMemberSpans());
+		assertEquals(edit, CuratedChainEdit.parse(edit.toTsvString(), 1));
+	}
+
+	@Test
+	public void testRemoveFromBothChainsThenReAdd() {
+		TextAnnotation carNp = createNp(8, 11);
+		TextAnnotation itNp = createNp(13, 15);
+		TextAnnotation theCarNp = createNp(25, 32);
+		Set<TextAnnotation> npAnnotations = new HashSet<TextAnnotation>(
+				CollectionsUtil.createList(carNp, itNp, theCarNp));
+
+		/* two chains that both start with 'car' */
+		List<List<TextAnnotation>> chains = new ArrayList<List<TextAnnotation>>();
+		chains.add(CollectionsUtil.createList(carNp, itNp));
+		chains.add(CollectionsUtil.createList(carNp, theCarNp));
+		CoreferenceChainGraph graph = new CoreferenceChainGraph("12345", chains);
+
+		List<Span> carSpans = CollectionsUtil.createList(new Span(8, 11));
+		List<CuratedChainEdit> edits = new ArrayList<CuratedChainEdit>();
+		edits.add(new CuratedChainEdit("12345", Operation.REMOVE, carSpans, carSpans, "remove"));
+		edits.add(new CuratedChainEdit("12345", Operation.REMOVE, carSpans, carSpans, "remove"));
+		edits.add(new CuratedChainEdit("12345", Operation.ADD, CollectionsUtil.createList(new Span(25, 32)),
+				carSpans, "re-add"));
+		/* adding 'red' requires a new noun phrase annotation */
+		edits.add(new CuratedChainEdit("12345", Operation.ADD, CollectionsUtil.createList(new Span(13, 15)),
+				CollectionsUtil.createList(new Span(4, 7)), "add"));
+
+		new IdentityChainEditor(graph, DOCUMENT_TEXT, npAnnotations, factory).apply(edits);
+
+		assertEquals(4, npAnnotations.size());
+		Chain carChain = graph.getChainsWithHead(carSpans).get(0);
+		assertEquals(CollectionsUtil.createSet(carNp, theCarNp), carChain.getMembers());
+		Chain redChain = graph.getChainsWithHead(CollectionsUtil.createList(new Span(4, 7))).get(0);
+		assertEquals(2, redChain.size());
+		assertTrue(redChain.getMembers().contains(itNp));
+		assertEquals(2, graph.getChains().size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMissingChain() {
+		TextAnnotation carNp = createNp(8, 11);
+		TextAnnotation itNp = createNp(13, 15);
+		Set<TextAnnotation> npAnnotations = new HashSet<TextAnnotation>(CollectionsUtil.createList(carNp, itNp));
+		List<List<TextAnnotation>> chains = new ArrayList<List<TextAnnotation>>();
+		chains.add(CollectionsUtil.createList(carNp, itNp));
+		new IdentityChainEditor(new CoreferenceChainGraph("12345", chains), DOCUMENT_TEXT, npAnnotations, factory)
+				.apply(new CuratedChainEdit("12345", Operation.REMOVE, CollectionsUtil.createList(new Span(13, 15)),
+						CollectionsUtil.createList(new Span(13, 15)), "no chain starts with 'It'"));
+	}
+
+	private TextAnnotation createNp(int spanStart, int spanEnd) {
+		return factory.createAnnotation(spanStart, spanEnd, DOCUMENT_TEXT.substring(spanStart, spanEnd),
+				new DefaultClassMention(CoNLLCoref2012DocumentReader.NOUN_PHRASE));
+	}
+
+}
@@ -0,0 +1,204 @@
+package edu.ucdenver.ccp.file.conversion;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.ucdenver.ccp.common.collections.CollectionsUtil;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
+import edu.ucdenver.ccp.nlp.core.mention.ComplexSlotMention;
+
+public class MentionGraphTest {
+
+	private static final TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults("12345");
+
+	@Test
+	public void testAdjacencyQueries() {
+		MentionGraph.Builder builder = new MentionGraph.Builder("GS1");
+		for (String vertexId : CollectionsUtil.createList("a", "b", "c", "d")) {
+			builder.addVertex(vertexId, null);
+		}
+		builder.addEdge("e1", "c", "part_of", "d", "", "", "CCP");
+		builder.addEdge("e2", "a", "has_attribute", "b", "", "", "CCP");
+		builder.addEdge("e3", "b", "part_of", "c", "some", "", "CCP");
+		builder.addEdge("e4", "a", "part_of", "c", "", "", "CCP");
+		MentionGraph graph = builder.build();
+
+		assertEquals(4, graph.getVertexCount());
+		assertEquals(4, graph.getEdgeCount());
+		assertEquals(2, graph.getPropertyCount());
+
+		int a = graph.getVertexIndex("a");
+		int b = graph.getVertexIndex("b");
+		int c = graph.getVertexIndex("c");
+		int d = graph.getVertexIndex("d");
+		assertEquals(-1, graph.getVertexIndex("z"));
+
+		/* edges are indexed in the order in which they were added */
+		for (int e = 0; e < graph.getEdgeCount(); e++) {
+			assertEquals("e" + (e + 1), graph.getEdgeId(e));
+		}
+		assertEquals(c, graph.getEdgeSource(0));
+		assertEquals(a, graph.getEdgeSource(3));
+
+		/* edges of a vertex retain the order in which they were added */
+		assertArrayEquals(new int[] { b, c }, graph.getSuccessors(a));
+		assertArrayEquals(new int[] { c }, graph.getSuccessors(a, graph.getPropertyId("part_of")));
+		assertArrayEquals(new int[] { b, a }, graph.getPredecessors(c));
+		assertEquals(0, graph.getOutDegree(d));
+		assertEquals(2, graph.getInDegree(c));
+
+		int edge = graph.getOutEdge(b, 0);
+		assertEquals("e3", graph.getEdgeId(edge));
+		assertEquals("part_of", graph.getEdgeProperty(edge));
+		assertEquals("some", graph.getEdgeQuantifier(edge));
+		assertEquals(c, graph.getEdgeTarget(edge));
+		assertEquals(a, graph.getEdgeSource(graph.getInEdge(c, 1)));
+
+		assertArrayEquals(new int[] { a, c, d }, graph.getShortestPath(a, d));
+		assertArrayEquals(new int[] { b }, graph.getShortestPath(b, b));
+		assertNull(graph.getShortestPath(d, a));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownVertex() {
+		MentionGraph.Builder builder = new MentionGraph.Builder("GS1");
+		builder.addVertex("a", null);
+		builder.addEdge("e1", "a", "part_of", "b", "", "", "CCP");
+	}
+
+	@Test
+	public void testComplexSlotMentionRoundTrip() {
+		TextAnnotation brca2 = factory.createAnnotation(0, 5, "BRCA2", "Protein", "CCP");
+		TextAnnotation ppard = factory.createAnnotation(6, 11, "PPARD", "Gene", "CCP");
+		TextAnnotation brca1 = factory.createAnnotation(12, 17, "BRCA1", "Gene", "CCP");
+		List<TextAnnotation> annotations = CollectionsUtil.createList(brca2, ppard, brca1);
+		DocumentReader.createAnnotationRelation(brca2, ppard, "related");
+		DocumentReader.createAnnotationRelation(brca2, brca1, "related");
+
+		MentionGraph graph = MentionGraph.fromComplexSlotMentions("GS1", annotations);
+		assertEquals(3, graph.getVertexCount());
+		assertEquals(2, graph.getEdgeCount());
+		assertEquals("node_0", graph.getVertexId(0));
+		assertEquals(brca2, graph.getAnnotation(graph.getEdgeSource(0)));
+		assertEquals("CCP", graph.getEdgeAnnotator(0));
+
+		/* convert back using copies of the annotations without slots */
+		List<TextAnnotation> copies = new ArrayList<TextAnnotation>();
+		MentionGraph.Builder builder = new MentionGraph.Builder("GS1");
+		for (int v = 0; v < graph.getVertexCount(); v++) {
+			TextAnnotation annot = graph.getAnnotation(v);
+			TextAnnotation copy = factory.createAnnotation(annot.getAnnotationSpanStart(),
+					annot.getAnnotationSpanEnd(), annot.getCoveredText(), annot.getClassMention().getMentionName(),
+					"CCP");
+			copies.add(copy);
+			builder.addVertex(graph.getVertexId(v), copy);
+		}
+		for (int e = 0; e < graph.getEdgeCount(); e++) {
+			builder.addEdge(graph.getEdgeId(e), graph.getVertexId(graph.getEdgeSource(e)), graph.getEdgeProperty(e),
+					graph.getVertexId(graph.getEdgeTarget(e)), "", "", graph.getEdgeAnnotator(e));
+		}
+		builder.build().addComplexSlotMentions();
+
+		/* both edges share a source and property so they are grouped into a single slot */
+		List<ComplexSlotMention> csms = new ArrayList<ComplexSlotMention>(
+				copies.get(0).getClassMention().getComplexSlotMentions());
+		assertEquals(1, csms.size());
+		assertEquals("related", csms.get(0).getMentionName());
+		assertEquals(2, csms.get(0).getClassMentions().size());
+	}
+
+	@Test
+	public void testNullSlotEdgesHaveNoSlotMentions() {
+		TextAnnotation brca2 = factory.createAnnotation(0, 5, "BRCA2", "Protein", "CCP");
+		TextAnnotation ppard = factory.createAnnotation(6, 11, "PPARD", "Gene", "CCP");
+		MentionGraph.Builder builder = new MentionGraph.Builder("GS1");
+		builder.addVertex("a", brca2);
+		builder.addVertex("b", ppard);
+		builder.addEdge("e1", "a", "NULL SLOT", "b", "", "", "CCP");
+		builder.build().addComplexSlotMentions();
+
+		assertTrue(brca2.getClassMention().getComplexSlotMentions().isEmpty());
+	}
+
+	@Test
+	public void testRebuildFromComplexSlotMentions() {
+		TextAnnotation brca2 = factory.createAnnotation(0, 5, "BRCA2", "Protein", "CCP");
+		TextAnnotation ppard = factory.createAnnotation(6, 11, "PPARD", "Gene", "CCP");
+		TextAnnotation brca1 = factory.createAnnotation(12, 17, "BRCA1", "Gene", "CCP");
+		MentionGraph.Builder builder = new MentionGraph.Builder("GS1");
+		builder.addVertex("a", brca2);
+		builder.addVertex("b", ppard);
+		builder.addVertex("c", brca1);
+		builder.addEdge("e1", "a", "related", "b", "some", "2", "CCP");
+		builder.addEdge("e2", "a", "NULL SLOT", "c", "", "", "CCP");
+		builder.addEdge("e3", "b", "part_of", "c", "", "", "CCP");
+		MentionGraph graph = builder.build();
+
+		/* e3 has been removed and a new relation added */
+		DocumentReader.createAnnotationRelation(brca2, ppard, "related");
+		DocumentReader.createAnnotationRelation(brca1, brca2, "part_of");
+
+		List<MentionGraph> rebuiltGraphs = MentionGraph.fromComplexSlotMentions(CollectionsUtil.createList(graph),
+				CollectionsUtil.createList(brca2, ppard, brca1));
+		assertEquals(1, rebuiltGraphs.size());
+		MentionGraph rebuilt = rebuiltGraphs.get(0);
+		assertEquals("GS1", rebuilt.getGraphSpaceId());
+		assertEquals(3, rebuilt.getVertexCount());
+		assertEquals(3, rebuilt.getEdgeCount());
+
+		assertEquals("e1", rebuilt.getEdgeId(0));
+		assertEquals("some", rebuilt.getEdgeQuantifier(0));
+		assertEquals("2", rebuilt.getEdgeValue(0));
+		assertEquals("e2", rebuilt.getEdgeId(1));
+		assertEquals("NULL SLOT", rebuilt.getEdgeProperty(1));
+
+		assertEquals("edge_0", rebuilt.getEdgeId(2));
+		assertEquals("part_of", rebuilt.getEdgeProperty(2));
+		assertEquals(rebuilt.getVertexIndex("c"), rebuilt.getEdgeSource(2));
+		assertEquals(rebuilt.getVertexIndex("a"), rebuilt.getEdgeTarget(2));
+		assertEquals("", rebuilt.getEdgeQuantifier(2));
+	}
+
+}
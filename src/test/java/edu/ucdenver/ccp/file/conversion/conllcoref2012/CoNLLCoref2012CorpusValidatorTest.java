@@ -0,0 +1,101 @@
+package edu.ucdenver.ccp.file.conversion.conllcoref2012;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.io.ClassPathUtil;
+import edu.ucdenver.ccp.file.conversion.conllcoref2012.CoNLLCoref2012CorpusValidator.Mode;
+import edu.ucdenver.ccp.file.conversion.conllcoref2012.CoNLLCoref2012CorpusValidator.Status;
+import edu.ucdenver.ccp.file.conversion.conllcoref2012.CoNLLCoref2012CorpusValidator.ValidationResult;
+
+public class CoNLLCoref2012CorpusValidatorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testValidateDocument() throws IOException {
+		CharacterEncoding encoding = CharacterEncoding.UTF_8;
+		File conllFile = folder.newFile("11532192.conll");
+		ClassPathUtil.copyClasspathResourceToFile(getClass(), "sample-craft.ident.conll", conllFile);
+		File txtFile = folder.newFile("11532192.txt");
+		ClassPathUtil.copyClasspathResourceToFile(getClass(), "sample-craft.txt", txtFile);
+
+		ValidationResult result = CoNLLCoref2012CorpusValidator.validateDocument("11532192", conllFile, txtFile,
+				encoding);
+		assertEquals(Status.PASSED, result.getStatus());
+		assertTrue(result.getInvalidSpans().isEmpty());
+		assertTrue(result.getChainErrors().isEmpty());
+
+		result = CoNLLCoref2012CorpusValidator.validateDocument("11532192", conllFile,
+				new File(folder.getRoot(), "missing.txt"), encoding);
+		assertEquals(Status.SKIPPED, result.getStatus());
+	}
+
+	@Test
+	public void testValidateCorpus() throws IOException {
+		CharacterEncoding encoding = CharacterEncoding.UTF_8;
+		File conllDirectory = folder.newFolder("conll");
+		File txtDirectory = folder.newFolder("txt");
+		ClassPathUtil.copyClasspathResourceToFile(getClass(), "sample-craft.ident.conll",
+				new File(conllDirectory, "11532192.conll"));
+		ClassPathUtil.copyClasspathResourceToFile(getClass(), "sample-craft.ident.conll",
+				new File(conllDirectory, "22222222.conll"));
+		ClassPathUtil.copyClasspathResourceToFile(getClass(), "sample-craft.txt", new File(txtDirectory, "11532192.txt"));
+
+		StringWriter report = new StringWriter();
+		boolean passed = new CoNLLCoref2012CorpusValidator(2, Mode.CONTINUE).validate(conllDirectory, txtDirectory,
+				report, encoding);
+		assertTrue(passed);
+
+		String[] lines = report.toString().split("\\n");
+		assertEquals("one report line per document", 2, lines.length);
+		assertTrue(report.toString().contains("\"status\":\"PASSED\""));
+		assertTrue(report.toString().contains("\"status\":\"SKIPPED\""));
+	}
+
+}
@@ -0,0 +1,111 @@
+package edu.ucdenver.ccp.file.conversion.conllcoref2012;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.io.ClassPathUtil;
+import edu.ucdenver.ccp.file.conversion.TextDocument;
+import edu.ucdenver.ccp.file.conversion.conllcoref2012.CoNLLCoref2012Scorer.Metric;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+
+public class CoNLLCoref2012ScorerTest {
+
+	private static final double DELTA = 0.0001;
+
+	/**
+	 * Example from Pradhan et al. (2014) Scoring Coreference Partitions of Predicted Mentions: A
+	 * Reference Implementation. Key: {a b c} {d e f g}; Response: {a b} {c d} {f g h i}
+	 */
+	@Test
+	public void testScoreExample() {
+		int a = 0, b = 1, c = 2, d = 3, e = 4, f = 5, g = 6, h = 7, i = 8;
+		int[][] keyChains = new int[][] { { a, b, c }, { d, e, f, g } };
+		int[][] responseChains = new int[][] { { a, b }, { c, d }, { f, g, h, i } };
+
+		Map<Metric, CorefScore> scores = CoNLLCoref2012Scorer.score(keyChains, responseChains, 9);
+
+		assertEquals(0.4, scores.get(Metric.MUC).getRecall(), DELTA);
+		assertEquals(0.4, scores.get(Metric.MUC).getPrecision(), DELTA);
+
+		assertEquals(5.0 / 12.0, scores.get(Metric.B_CUBED).getRecall(), DELTA);
+		assertEquals(0.5, scores.get(Metric.B_CUBED).getPrecision(), DELTA);
+
+		assertEquals(4.0 / 7.0, scores.get(Metric.CEAF_M).getRecall(), DELTA);
+		assertEquals(0.5, scores.get(Metric.CEAF_M).getPrecision(), DELTA);
+
+		assertEquals(0.65, scores.get(Metric.CEAF_E).getRecall(), DELTA);
+		assertEquals(1.3 / 3.0, scores.get(Metric.CEAF_E).getPrecision(), DELTA);
+
+		assertEquals((2.0 / 9.0 + 8.0 / 12.0) / 2, scores.get(Metric.BLANC).getRecall(), DELTA);
+		assertEquals((2.0 / 8.0 + 8.0 / 20.0) / 2, scores.get(Metric.BLANC).getPrecision(), DELTA);
+	}
+
+	@Test
+	public void testMaximumWeightAssignment() {
+		double[][] weights = new double[][] { { 0.8, 0.4, 0 }, { 0, 0.33, 0.5 } };
+		assertEquals(1.3, CoNLLCoref2012Scorer.maximumWeightAssignment(weights), DELTA);
+
+		/* more rows than columns */
+		weights = new double[][] { { 1, 2 }, { 3, 4 }, { 5, 1 } };
+		assertEquals(9, CoNLLCoref2012Scorer.maximumWeightAssignment(weights), DELTA);
+	}
+
+	@Test
+	public void testIdenticalKeyAndResponse() throws IOException {
+		CharacterEncoding encoding = CharacterEncoding.UTF_8;
+		InputStream conllStream = ClassPathUtil.getResourceStreamFromClasspath(getClass(), "sample-craft.ident.conll");
+		InputStream documentTextStream = ClassPathUtil.getResourceStreamFromClasspath(getClass(), "sample-craft.txt");
+		TextDocument td = new CoNLLCoref2012DocumentReader().readDocument("11532192", "PMID", conllStream,
+				documentTextStream, encoding);
+		List<TextAnnotation> annotations = td.getAnnotations();
+
+		Map<Metric, CorefScore> scores = CoNLLCoref2012Scorer.scoreDocument(annotations, annotations);
+		for (Metric metric : Metric.values()) {
+			assertEquals(metric.name() + " recall", 1.0, scores.get(metric).getRecall(), DELTA);
+			assertEquals(metric.name() + " precision", 1.0, scores.get(metric).getPrecision(), DELTA);
+		}
+	}
+
+}
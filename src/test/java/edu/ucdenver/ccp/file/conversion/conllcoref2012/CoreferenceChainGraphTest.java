@@ -0,0 +1,113 @@
+package edu.ucdenver.ccp.file.conversion.conllcoref2012;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.ucdenver.ccp.common.collections.CollectionsUtil;
+import edu.ucdenver.ccp.file.conversion.conllcoref2012.CoNLLCoref2012DocumentWriter.MatchDueTo;
+import edu.ucdenver.ccp.file.conversion.conllcoref2012.CoreferenceChainGraph.Chain;
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
+import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
+
+public class CoreferenceChainGraphTest {
+
+	private final TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults("12345");
+
+	@Test
+	public void testMergeChainsWithSharedMembers() {
+		TextAnnotation a = createAnnot(0, 1, CoNLLCoref2012DocumentReader.NOUN_PHRASE);
+		TextAnnotation b = createAnnot(2, 3, CoNLLCoref2012DocumentReader.NOUN_PHRASE);
+		TextAnnotation c = createAnnot(4, 5, CoNLLCoref2012DocumentReader.NOUN_PHRASE);
+		TextAnnotation d = createAnnot(6, 7, CoNLLCoref2012DocumentReader.NOUN_PHRASE);
+		TextAnnotation e = createAnnot(8, 9, CoNLLCoref2012DocumentReader.NOUN_PHRASE);
+		TextAnnotation f = createAnnot(10, 11, CoNLLCoref2012DocumentReader.NOUN_PHRASE);
+		TextAnnotation g = createAnnot(12, 13, CoNLLCoref2012DocumentReader.NOUN_PHRASE);
+
+		/* [a b] [c b] [d c] are transitively connected; [e f] is not; [g] is a singleton */
+		List<List<TextAnnotation>> chains = new ArrayList<List<TextAnnotation>>();
+		chains.add(CollectionsUtil.createList(a, b));
+		chains.add(CollectionsUtil.createList(c, b));
+		chains.add(CollectionsUtil.createList(d, c));
+		chains.add(CollectionsUtil.createList(e, f));
+		chains.add(CollectionsUtil.createList(g));
+		CoreferenceChainGraph graph = new CoreferenceChainGraph("12345", chains);
+
+		assertEquals(1, graph.removeSingletonChains());
+		assertEquals(2, graph.mergeChainsWithSharedMembers(MatchDueTo.SHARED_MENTION));
+
+		Set<Set<TextAnnotation>> expectedChains = CollectionsUtil.createSet(CollectionsUtil.createSet(a, b, c, d),
+				CollectionsUtil.createSet(e, f));
+		assertEquals(expectedChains, graph.toMemberSets());
+		assertEquals(1, graph.getChains(b).size());
+		assertEquals(a, graph.getChains(c).iterator().next().getHead());
+	}
+
+	@Test
+	public void testNounPhraseReplacedByAppos() {
+		TextAnnotation np = createAnnot(0, 5, CoNLLCoref2012DocumentReader.NOUN_PHRASE);
+		TextAnnotation appos = createAnnot(0, 5, CoNLLCoref2012DocumentReader.APPOS_RELATION);
+		TextAnnotation x = createAnnot(10, 11, CoNLLCoref2012DocumentReader.NOUN_PHRASE);
+		TextAnnotation y = createAnnot(20, 21, CoNLLCoref2012DocumentReader.NOUN_PHRASE);
+
+		List<List<TextAnnotation>> chains = new ArrayList<List<TextAnnotation>>();
+		chains.add(CollectionsUtil.createList(np, x));
+		chains.add(CollectionsUtil.createList(appos, y));
+		CoreferenceChainGraph graph = new CoreferenceChainGraph("12345", chains);
+
+		/* once the NP is replaced by the APPOS the chains share a member and are merged */
+		assertEquals(1, graph.mergeChainsWithSharedMembers(MatchDueTo.SHARED_MENTION));
+		assertEquals(CollectionsUtil.createSet(CollectionsUtil.createSet(appos, x, y)), graph.toMemberSets());
+		assertTrue(graph.getChains(np).isEmpty());
+
+		Chain chain = graph.getChainsWithHead(CollectionsUtil.createList(new Span(0, 5))).get(0);
+		assertEquals(appos, chain.getHead());
+	}
+
+	private TextAnnotation createAnnot(int spanStart, int spanEnd, String type) {
+		return factory.createAnnotation(spanStart, spanEnd, "", new DefaultClassMention(type));
+	}
+
+}
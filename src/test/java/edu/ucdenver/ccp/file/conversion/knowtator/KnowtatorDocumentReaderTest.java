@@ -36,10 +36,12 @@ package edu.ucdenver.ccp.file.conversion.knowtator;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.Rule;
@@ -49,7 +51,10 @@ import org.junit.rules.TemporaryFolder;
 import edu.ucdenver.ccp.common.collections.CollectionsUtil;
 import edu.ucdenver.ccp.common.file.CharacterEncoding;
 import edu.ucdenver.ccp.file.conversion.TextDocument;
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.mention.ComplexSlotMention;
+import edu.ucdenver.ccp.nlp.core.mention.PrimitiveSlotMention;
 
 public class KnowtatorDocumentReaderTest {
 
@@ -121,4 +126,115 @@ public class KnowtatorDocumentReaderTest {
 		}
 		
 	}
+
+	@Test
+	public void testSlotAndSpanResolution() throws IOException {
+		CharacterEncoding encoding = CharacterEncoding.UTF_8;
+
+		/* @formatter:on */
+		List<String> annotLines = CollectionsUtil.createList("<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+				"<annotations textSource=\"12345.txt\">", "<annotation>", "  <mention id=\"m1\" />",
+				"  <annotator id=\"a1\">Annotator One</annotator>", "  <span start=\"0\" end=\"3\" />",
+				"  <span start=\"10\" end=\"13\" />", "  <spannedText>The ... fox</spannedText>", "</annotation>",
+				"<annotation>", "  <mention id=\"m2\" />", "  <annotator id=\"a1\">Annotator One</annotator>",
+				"  <span start=\"4\" end=\"9\" />", "  <spannedText>quick</spannedText>", "</annotation>",
+				"<classMention id=\"m1\">", "  <mentionClass id=\"animal\">animal</mentionClass>",
+				"  <hasSlotMention id=\"csm1\" />", "  <hasSlotMention id=\"ssm1\" />", "</classMention>",
+				"<complexSlotMention id=\"csm1\">", "  <mentionSlot id=\"has_attribute\" />",
+				"  <complexSlotMentionValue value=\"m2\" />", "</complexSlotMention>",
+				"<stringSlotMention id=\"ssm1\">", "  <mentionSlot id=\"color\" />",
+				"  <stringSlotMentionValue value=\"brown\" />", "</stringSlotMention>", "<classMention id=\"m2\">",
+				"  <mentionClass id=\"attribute\">attribute</mentionClass>", "</classMention>", "</annotations>");
+		/* @formatter:off */
+
+		StringBuffer annotBuffer = new StringBuffer();
+		for (String line : annotLines) {
+			annotBuffer.append(line + "\n");
+		}
+
+		TextDocument td = new KnowtatorDocumentReader().readDocument("12345", "PMC",
+				new ByteArrayInputStream(annotBuffer.toString().getBytes()),
+				new ByteArrayInputStream("The quick fox".getBytes()), encoding);
+
+		List<TextAnnotation> annotations = td.getAnnotations();
+		assertEquals("there should be 2 annotations", 2, annotations.size());
+
+		TextAnnotation foxAnnot = annotations.get(0);
+		assertEquals("m1", foxAnnot.getAnnotationID());
+		assertEquals("Annotator One", foxAnnot.getAnnotator().getName());
+		assertEquals(CollectionsUtil.createList(new Span(0, 3), new Span(10, 13)), foxAnnot.getSpans());
+		assertEquals("animal", foxAnnot.getClassMention().getMentionName());
+
+		List<ComplexSlotMention> csms = new ArrayList<ComplexSlotMention>(
+				foxAnnot.getClassMention().getComplexSlotMentions());
+		assertEquals(1, csms.size());
+		assertEquals("has_attribute", csms.get(0).getMentionName());
+		assertEquals("attribute", csms.get(0).getClassMentions().iterator().next().getMentionName());
+
+		List<PrimitiveSlotMention> psms = new ArrayList<PrimitiveSlotMention>(
+				foxAnnot.getClassMention().getPrimitiveSlotMentions());
+		assertEquals(1, psms.size());
+		assertEquals("color", psms.get(0).getMentionName());
+		assertEquals("brown", psms.get(0).getSlotValues().iterator().next());
+	}
+
+	/**
+	 * A complex slot mention without values remains a complex slot mention, and ids that do not
+	 * resolve to a mention are skipped
+	 */
+	@Test
+	public void testEmptySlotAndUnresolvedIds() throws IOException {
+		CharacterEncoding encoding = CharacterEncoding.UTF_8;
+
+		/* @formatter:on */
+		List<String> annotLines = CollectionsUtil.createList("<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+				"<annotations textSource=\"12345.txt\">", "<annotation>", "  <mention id=\"m1\" />",
+				"  <annotator id=\"a1\">Annotator One</annotator>", "  <span start=\"0\" end=\"3\" />",
+				"  <spannedText>The</spannedText>", "</annotation>", "<classMention id=\"m1\">",
+				"  <mentionClass id=\"animal\">animal</mentionClass>", "  <hasSlotMention id=\"csm1\" />",
+				"  <hasSlotMention id=\"csm2\" />", "  <hasSlotMention id=\"missing\" />", "</classMention>",
+				"<complexSlotMention id=\"csm1\">", "  <mentionSlot id=\"has_attribute\" />",
+				"</complexSlotMention>", "<complexSlotMention id=\"csm2\">", "  <mentionSlot id=\"part_of\" />",
+				"  <complexSlotMentionValue value=\"missing\" />", "</complexSlotMention>", "</annotations>");
+		/* @formatter:off */
+
+		StringBuffer annotBuffer = new StringBuffer();
+		for (String line : annotLines) {
+			annotBuffer.append(line + "\n");
+		}
+
+		TextDocument td = new KnowtatorDocumentReader().readDocument("12345", "PMC",
+				new ByteArrayInputStream(annotBuffer.toString().getBytes()),
+				new ByteArrayInputStream("The quick fox".getBytes()), encoding);
+
+		List<TextAnnotation> annotations = td.getAnnotations();
+		assertEquals("there should be 1 annotation", 1, annotations.size());
+
+		List<ComplexSlotMention> csms = new ArrayList<ComplexSlotMention>(
+				annotations.get(0).getClassMention().getComplexSlotMentions());
+		assertEquals(2, csms.size());
+		for (ComplexSlotMention csm : csms) {
+			assertTrue(csm.getClassMentions().isEmpty());
+		}
+		assertTrue(annotations.get(0).getClassMention().getPrimitiveSlotMentions().isEmpty());
+	}
+
+	@Test(expected = IOException.class)
+	public void testSpanOutsideOfAnnotation() throws IOException {
+		/* @formatter:on */
+		List<String> annotLines = CollectionsUtil.createList("<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+				"<annotations textSource=\"12345.txt\">", "<annotation>", "  <mention id=\"m1\" />",
+				"  <span start=\"0\" end=\"3\" />", "</annotation>", "<span start=\"4\" end=\"9\" />",
+				"</annotations>");
+		/* @formatter:off */
+
+		StringBuffer annotBuffer = new StringBuffer();
+		for (String line : annotLines) {
+			annotBuffer.append(line + "\n");
+		}
+
+		new KnowtatorDocumentReader().readDocument("12345", "PMC",
+				new ByteArrayInputStream(annotBuffer.toString().getBytes()),
+				new ByteArrayInputStream("The quick fox".getBytes()), CharacterEncoding.UTF_8);
+	}
 }
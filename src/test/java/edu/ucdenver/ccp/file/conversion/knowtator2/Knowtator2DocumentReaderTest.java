@@ -37,9 +37,12 @@ package edu.ucdenver.ccp.file.conversion.knowtator2;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import javax.xml.bind.JAXBException;
@@ -49,10 +52,12 @@ import org.junit.Test;
 
 import edu.ucdenver.ccp.common.file.CharacterEncoding;
 import edu.ucdenver.ccp.common.io.ClassPathUtil;
+import edu.ucdenver.ccp.file.conversion.MentionGraph;
 import edu.ucdenver.ccp.file.conversion.TextDocument;
 import edu.ucdenver.ccp.nlp.core.annotation.Span;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
+import edu.ucdenver.ccp.nlp.core.mention.ComplexSlotMention;
 import edu.ucdenver.ccp.nlp.core.mention.impl.DefaultClassMention;
 
 public class Knowtator2DocumentReaderTest {
@@ -95,105 +100,108 @@ public class Knowtator2DocumentReaderTest {
 		assertTrue(annotations.contains(annot3));
 	}
 
-//	@Test
-//	public void testReadMentionGraph() throws XMLStreamException, JAXBException, IOException {
-//		InputStream knowtator2Stream = ClassPathUtil.getResourceStreamFromClasspath(getClass(), "sample_disc_adj.xml");
-//		InputStream txtStream = ClassPathUtil.getResourceStreamFromClasspath(getClass(), "17069463.txt");
-//
-//		TextDocument td = new Knowtator2DocumentReader().getMentionGraphs("17069463", "PMID", knowtator2Stream,
-//				txtStream, CharacterEncoding.UTF_8);
-//
-//		List<MentionGraph> mentionGraphs = td.getMentionGraphs();
-//		assertEquals(
-//				"this document has 4 annotations, but no relations between them, so it should have a zero mention graphs.",
-//				0, mentionGraphs.size());
-//		List<TextAnnotation> annotations = td.getAnnotations();
-//		assertEquals("the graph should have 4 annotations", 4, annotations.size());
-//
-//		TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults("17069463");
-//		TextAnnotation annot1 = factory.createAnnotation(23954, 23978, "high-fat (~10% fat) diet",
-//				new DefaultClassMention("IDENTITY chain"));
-//
-//		assertTrue(annotations.contains(annot1));
-//
-//		/*
-//		 * This annot originally was annotated using adjacent discontinuous spans. In
-//		 * this case, the spans should be combined into a single continuous span.
-//		 */
-//		// TextAnnotation annot2 = factory.createAnnotation(23929, 23974,
-//		// "inbred RanBP2+/− mice on high-fat (~10% fat) .. diet", new
-//		// DefaultClassMention("IDENTITY
-//		// chain"));
-//		// annot2.addSpan(new Span(23974, 23978));
-//
-//		TextAnnotation annot2 = factory.createAnnotation(23929, 23978,
-//				"inbred RanBP2+/− mice on high-fat (~10% fat) diet", new DefaultClassMention("IDENTITY chain"));
-//
-//		assertTrue(annotations.contains(annot2));
-//
-//		TextAnnotation annot3 = factory.createAnnotation(23954, 23962, "high-fat diet",
-//				new DefaultClassMention("IDENTITY chain"));
-//		annot3.addSpan(new Span(23974, 23978));
-//
-//		assertTrue(annotations.contains(annot3));
-//	}
-
-//	@Test
-//	public void testWithGraphSpace() throws XMLStreamException, JAXBException, IOException {
-//		InputStream knowtator2Stream = ClassPathUtil.getResourceStreamFromClasspath(getClass(), "sample.xml");
-//		InputStream txtStream = ClassPathUtil.getResourceStreamFromClasspath(getClass(), "17069463.txt");
-//
-//		TextDocument td = new Knowtator2DocumentReader().getMentionGraphs("17069463", "PMID", knowtator2Stream,
-//				txtStream, CharacterEncoding.UTF_8);
-//		Set<TextAnnotation> annotations = new HashSet<TextAnnotation>(td.getAnnotations());
-//
-//		assertEquals("there should be 6 annotations", 6, annotations.size());
-//
-//		TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults("11319941");
-//		TextAnnotation annot1 = factory.createAnnotation(30, 35, "mouse",
-//				new DefaultClassMention("http://www.owl-ontologies.com/unnamed.owl#NCBITaxon_10088"));
-//		TextAnnotation annot2 = factory.createAnnotation(36, 44, "striatum",
-//				new DefaultClassMention("http://www.owl-ontologies.com/unnamed.owl#UBERON_0002435"));
-//		TextAnnotation annot3 = factory.createAnnotation(58, 62, "QTLs",
-//				new DefaultClassMention("http://www.owl-ontologies.com/unnamed.owl#SO_EXT_0000771"));
-//		TextAnnotation annot4 = factory.createAnnotation(83, 89, "neuron",
-//				new DefaultClassMention("http://www.owl-ontologies.com/unnamed.owl#CL_0000540"));
-//		TextAnnotation annot5 = factory.createAnnotation(168, 173, "motor", new DefaultClassMention(
-//				"http://www.owl-ontologies.com/unnamed.owl#GO_EXT_biological_movement_or_translocation_process"));
-//		TextAnnotation annot6 = factory.createAnnotation(174, 182, "activity", new DefaultClassMention(
-//				"http://www.owl-ontologies.com/unnamed.owl#CCP:process_or_attribute_or_effect_of_activity"));
-//
-//		assertTrue(annotations.contains(annot1));
-//		assertTrue(annotations.contains(annot2));
-//		assertTrue(annotations.contains(annot3));
-//		assertTrue(annotations.contains(annot4));
-//		assertTrue(annotations.contains(annot5));
-//		assertTrue(annotations.contains(annot6));
-//
-//		List<MentionGraph> mentionGraphs = td.getMentionGraphs();
-//		assertEquals("there should be 2 mention graphs", 2, mentionGraphs.size());
-//
-//		MentionGraph mg1 = mentionGraphs.get(0);
-//		assertEquals("there should be 4 nodes", 4, mg1.getNodes().size());
-//		assertEquals("there should be 2 edges", 2, mg1.getEdges().size());
-//
-//		MentionGraph mg2 = mentionGraphs.get(1);
-//		assertEquals("there should be 2 nodes", 2, mg2.getNodes().size());
-//		assertEquals("there should be 1 edges", 1, mg2.getEdges().size());
-//		MentionGraphEdge edge = mg2.getEdges().iterator().next();
-//		assertEquals("11319941-351375", edge.getEdgeId());
-//		assertEquals(
-//				"http://www.owl-ontologies.com/unnamed.owl#is_process_or_attribute_or_effect_of_activity_of_or_in_bringing_about",
-//				edge.getType());
-//
-//		MentionGraphNode node1 = new MentionGraphNode("11319941-350786", annot5);
-//		MentionGraphNode node2 = new MentionGraphNode("11319941-350903", annot6);
-//
-//		assertTrue(mg2.containsNode(node1.getNodeId()));
-//		assertTrue(mg2.containsNode(node2.getNodeId()));
-//		assertTrue(mg2.getNodes().contains(node1));
-//		assertTrue(mg2.getNodes().contains(node2));
-//
-//	}
+	@Test
+	public void testReadMentionGraph() throws IOException {
+		InputStream knowtator2Stream = ClassPathUtil.getResourceStreamFromClasspath(getClass(), "sample_disc_adj.xml");
+		InputStream txtStream = ClassPathUtil.getResourceStreamFromClasspath(getClass(), "17069463.txt");
+
+		TextDocument td = new Knowtator2DocumentReader().readDocument("17069463", "PMID", knowtator2Stream, txtStream,
+				CharacterEncoding.UTF_8);
+
+		/* the graph space is retained so that it can be written back out, but it is empty */
+		List<MentionGraph> mentionGraphs = td.getMentionGraphs();
+		assertEquals("this document has a single graph space with no relations, so it should have one mention graph.",
+				1, mentionGraphs.size());
+		assertEquals("Old Knowtator Relations", mentionGraphs.get(0).getGraphSpaceId());
+		assertEquals(0, mentionGraphs.get(0).getVertexCount());
+		assertEquals(0, mentionGraphs.get(0).getEdgeCount());
+		List<TextAnnotation> annotations = td.getAnnotations();
+		assertEquals("the document should have 4 annotations", 4, annotations.size());
+
+		TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults("17069463");
+		TextAnnotation annot1 = factory.createAnnotation(23954, 23978, "high-fat (~10% fat) diet",
+				new DefaultClassMention("IDENTITY chain"));
+
+		assertTrue(annotations.contains(annot1));
+
+		/*
+		 * This annot originally was annotated using adjacent discontinuous spans. In
+		 * this case, the spans should be combined into a single continuous span.
+		 */
+		TextAnnotation annot2 = factory.createAnnotation(23929, 23978,
+				"inbred RanBP2+/− mice on high-fat (~10% fat) diet", new DefaultClassMention("IDENTITY chain"));
+
+		assertTrue(annotations.contains(annot2));
+
+		TextAnnotation annot3 = factory.createAnnotation(23954, 23962, "high-fat diet",
+				new DefaultClassMention("IDENTITY chain"));
+		annot3.addSpan(new Span(23974, 23978));
+
+		assertTrue(annotations.contains(annot3));
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnknownVertexAnnotation() throws IOException {
+		/* @formatter:off */
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+				+ "<knowtator-project>\n"
+				+ "    <document id=\"12345\" text-file=\"12345.txt\">\n"
+				+ "        <annotation annotator=\"CCP\" id=\"a1\" type=\"identity\">\n"
+				+ "            <class id=\"Protein\" label=\"Protein\"/>\n"
+				+ "            <span end=\"5\" id=\"12345-0\" start=\"0\">BRCA2</span>\n"
+				+ "        </annotation>\n"
+				+ "        <graph-space id=\"GS1\">\n"
+				+ "            <vertex annotation=\"a2\" id=\"node_0\"/>\n"
+				+ "        </graph-space>\n"
+				+ "    </document>\n"
+				+ "</knowtator-project>\n";
+		/* @formatter:on */
+		new Knowtator2DocumentReader().readDocument("12345", "PMC", new ByteArrayInputStream(xml.getBytes()),
+				new ByteArrayInputStream("BRCA2 is a gene".getBytes()), CharacterEncoding.UTF_8);
+	}
+
+	@Test
+	public void testWithGraphSpace() throws IOException {
+		InputStream knowtator2Stream = ClassPathUtil.getResourceStreamFromClasspath(getClass(), "sample.xml");
+		InputStream txtStream = ClassPathUtil.getResourceStreamFromClasspath(getClass(), "17069463.txt");
+
+		TextDocument td = new Knowtator2DocumentReader().readDocument("11319941", "PMID", knowtator2Stream,
+				txtStream, CharacterEncoding.UTF_8);
+		assertEquals("there should be 6 annotations", 6, td.getAnnotations().size());
+
+		List<MentionGraph> mentionGraphs = td.getMentionGraphs();
+		assertEquals("there should be 2 mention graphs", 2, mentionGraphs.size());
+
+		MentionGraph mg1 = mentionGraphs.get(0);
+		assertEquals("GS1", mg1.getGraphSpaceId());
+		assertEquals("there should be 4 vertices", 4, mg1.getVertexCount());
+		assertEquals("there should be 2 edges", 2, mg1.getEdgeCount());
+
+		MentionGraph mg2 = mentionGraphs.get(1);
+		assertEquals("GS2", mg2.getGraphSpaceId());
+		assertEquals("there should be 2 vertices", 2, mg2.getVertexCount());
+		assertEquals("there should be 1 edge", 1, mg2.getEdgeCount());
+		assertEquals("11319941-351375", mg2.getEdgeId(0));
+		assertEquals(
+				"http://www.owl-ontologies.com/unnamed.owl#is_process_or_attribute_or_effect_of_activity_of_or_in_bringing_about",
+				mg2.getEdgeProperty(0));
+		/* quantifiers were previously rejected by the reader; they are now retained */
+		assertEquals("some", mg2.getEdgeQuantifier(0));
+
+		int activityVertex = mg2.getVertexIndex("11319941-350903");
+		int motorVertex = mg2.getVertexIndex("11319941-350786");
+		assertEquals(activityVertex, mg2.getEdgeSource(0));
+		assertEquals(motorVertex, mg2.getEdgeTarget(0));
+
+		/* the relation is also available as a complex slot mention */
+		TextAnnotation activityAnnot = mg2.getAnnotation(activityVertex);
+		assertEquals("activity", activityAnnot.getCoveredText());
+		List<ComplexSlotMention> csms = new ArrayList<ComplexSlotMention>(
+				activityAnnot.getClassMention().getComplexSlotMentions());
+		assertEquals(1, csms.size());
+		assertEquals(mg2.getEdgeProperty(0), csms.get(0).getMentionName());
+		assertEquals(mg2.getAnnotation(motorVertex).getClassMention(),
+				csms.get(0).getClassMentions().iterator().next());
+	}
 
 }
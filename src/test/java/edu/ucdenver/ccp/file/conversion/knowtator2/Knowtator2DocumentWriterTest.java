@@ -36,6 +36,7 @@ package edu.ucdenver.ccp.file.conversion.knowtator2;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -45,6 +46,7 @@ import org.junit.Test;
 
 import edu.ucdenver.ccp.common.collections.CollectionsUtil;
 import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.file.conversion.DocumentReader;
 import edu.ucdenver.ccp.file.conversion.TextDocument;
 import edu.ucdenver.ccp.nlp.core.annotation.Span;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
@@ -179,4 +181,184 @@ public class Knowtator2DocumentWriterTest {
 
 	}
 
+	/**
+	 * Graph spaces are written as read: triples retain their order in the input,
+	 * even when it is not the order of their subject vertices, and vertices of
+	 * duplicate annotations reference their own annotations.
+	 */
+	@Test
+	public void testDocumentWriter_graphSpaceRoundTrip() throws IOException {
+		/* @formatter:off */
+		List<String> xmlLines = CollectionsUtil.createList(
+		"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>",
+		"<knowtator-project>",
+		"    <document id=\"12345\" text-file=\"12345.txt\">",
+		"        <annotation annotator=\"CCP\" id=\"a1\" type=\"identity\">",
+		"            <class id=\"Protein\" label=\"Protein\"/>",
+		"            <span end=\"5\" id=\"12345-0\" start=\"0\">BRCA2</span>",
+		"        </annotation>",
+		"        <annotation annotator=\"CCP\" id=\"a2\" type=\"identity\">",
+		"            <class id=\"Gene\" label=\"Gene\"/>",
+		"            <span end=\"60\" id=\"12345-1\" start=\"55\">PPARD</span>",
+		"        </annotation>",
+		"        <annotation annotator=\"CCP\" id=\"a3\" type=\"identity\">",
+		"            <class id=\"Gene\" label=\"Gene\"/>",
+		"            <span end=\"60\" id=\"12345-2\" start=\"55\">PPARD</span>",
+		"        </annotation>",
+		"        <graph-space id=\"GS1\">",
+		"            <vertex annotation=\"a3\" id=\"node_0\"/>",
+		"            <vertex annotation=\"a1\" id=\"node_1\"/>",
+		"            <vertex annotation=\"a2\" id=\"node_2\"/>",
+		"            <triple annotator=\"CCP\" id=\"edge_0\" object=\"node_0\" property=\"related\" quantifier=\"\" subject=\"node_2\" value=\"\"/>",
+		"            <triple annotator=\"CCP\" id=\"edge_1\" object=\"node_2\" property=\"interacts_with\" quantifier=\"some\" subject=\"node_1\" value=\"\"/>",
+		"            <triple annotator=\"CCP\" id=\"edge_2\" object=\"node_1\" property=\"related\" quantifier=\"\" subject=\"node_0\" value=\"\"/>",
+		"        </graph-space>",
+		"    </document>",
+		"</knowtator-project>");
+		/* @formatter:on */
+
+		StringBuffer sb = new StringBuffer();
+		for (String line : xmlLines) {
+			sb.append(line + "\n");
+		}
+		String serializedXml = readAndWrite(sb.toString());
+
+		/*
+		 * the reader does not retain annotation ids, so the annotations are numbered in
+		 * order when written
+		 */
+		List<String> expectedGraphLines = new ArrayList<String>();
+		for (String line : xmlLines) {
+			if (line.contains("<vertex") || line.contains("<triple")) {
+				expectedGraphLines.add(
+						line.replace("\"a1\"", "\"0\"").replace("\"a2\"", "\"1\"").replace("\"a3\"", "\"2\""));
+			}
+		}
+		List<String> graphLines = new ArrayList<String>();
+		for (String line : serializedXml.split("\\n")) {
+			if (line.contains("<vertex") || line.contains("<triple")) {
+				graphLines.add(line);
+			}
+		}
+		assertEquals("graph space not as expected", expectedGraphLines, graphLines);
+
+		/* a second round trip does not change the output */
+		assertEquals("XML not as expected", serializedXml, readAndWrite(serializedXml));
+	}
+
+	/**
+	 * Relations added or removed after reading are reflected in the graph space,
+	 * while the quantifier and value of a remaining triple are retained
+	 */
+	@Test
+	public void testDocumentWriter_graphSpaceReflectsModifiedRelations() throws IOException {
+		TextDocument td = read(GRAPH_SPACE_XML);
+		TextAnnotation brca2 = getAnnotation(td, "BRCA2");
+		TextAnnotation ppard = getAnnotation(td, "PPARD");
+		ppard.getClassMention().setComplexSlotMentions(new ArrayList<ComplexSlotMention>());
+		DocumentReader.createAnnotationRelation(ppard, brca2, "binds");
+
+		/*
+		 * the reader does not retain annotators, so the annotator of the new triple is
+		 * the default annotator and is not compared
+		 */
+		List<String> graphLines = new ArrayList<String>();
+		for (String line : write(td).split("\\n")) {
+			if (line.contains("<vertex") || line.contains("<triple")) {
+				graphLines.add(line.trim().replaceAll(" annotator=\"[^\"]*\"", ""));
+			}
+		}
+		/* @formatter:off */
+		assertEquals("graph space not as expected", CollectionsUtil.createList(
+				"<vertex annotation=\"0\" id=\"node_0\"/>",
+				"<vertex annotation=\"1\" id=\"node_1\"/>",
+				"<triple id=\"edge_0\" object=\"node_1\" property=\"interacts_with\" quantifier=\"some\" subject=\"node_0\" value=\"2\"/>",
+				"<triple id=\"edge_2\" object=\"node_0\" property=\"binds\" quantifier=\"\" subject=\"node_1\" value=\"\"/>"),
+				graphLines);
+		/* @formatter:on */
+	}
+
+	@Test(expected = IOException.class)
+	public void testDocumentWriter_vertexAnnotationNotInDocument() throws IOException {
+		TextDocument td = read(GRAPH_SPACE_XML);
+		TextAnnotation ppard = getAnnotation(td, "PPARD");
+		td.getAnnotations().remove(ppard);
+		/* BRCA2 still relates to PPARD, which can no longer be referenced by id */
+		write(td);
+	}
+
+	/* @formatter:off */
+	private static final String GRAPH_SPACE_XML =
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n" +
+			"<knowtator-project>\n" +
+			"    <document id=\"12345\" text-file=\"12345.txt\">\n" +
+			"        <annotation annotator=\"CCP\" id=\"a1\" type=\"identity\">\n" +
+			"            <class id=\"Protein\" label=\"Protein\"/>\n" +
+			"            <span end=\"5\" id=\"12345-0\" start=\"0\">BRCA2</span>\n" +
+			"        </annotation>\n" +
+			"        <annotation annotator=\"CCP\" id=\"a2\" type=\"identity\">\n" +
+			"            <class id=\"Gene\" label=\"Gene\"/>\n" +
+			"            <span end=\"60\" id=\"12345-1\" start=\"55\">PPARD</span>\n" +
+			"        </annotation>\n" +
+			"        <graph-space id=\"GS1\">\n" +
+			"            <vertex annotation=\"a1\" id=\"node_0\"/>\n" +
+			"            <vertex annotation=\"a2\" id=\"node_1\"/>\n" +
+			"            <triple annotator=\"CCP\" id=\"edge_0\" object=\"node_1\" property=\"interacts_with\" quantifier=\"some\" subject=\"node_0\" value=\"2\"/>\n" +
+			"            <triple annotator=\"CCP\" id=\"edge_1\" object=\"node_0\" property=\"related\" quantifier=\"\" subject=\"node_1\" value=\"\"/>\n" +
+			"        </graph-space>\n" +
+			"    </document>\n" +
+			"</knowtator-project>\n";
+	/* @formatter:on */
+
+	private static TextAnnotation getAnnotation(TextDocument td, String coveredText) {
+		for (TextAnnotation annot : td.getAnnotations()) {
+			if (annot.getCoveredText().equals(coveredText)) {
+				return annot;
+			}
+		}
+		throw new IllegalArgumentException("No annotation covers: " + coveredText);
+	}
+
+	private static String readAndWrite(String xml) throws IOException {
+		return write(read(xml));
+	}
+
+	private static TextDocument read(String xml) throws IOException {
+		String encoding = CharacterEncoding.UTF_8.getCharacterSetName();
+		return new Knowtator2DocumentReader().readDocument("12345", "PMC",
+				new ByteArrayInputStream(xml.getBytes(encoding)),
+				new ByteArrayInputStream(
+						"BRCA2 this is where the document text goes this is whe PPARD e the document text goes"
+								.getBytes(encoding)),
+				CharacterEncoding.UTF_8);
+	}
+
+	private static String write(TextDocument td) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		new Knowtator2DocumentWriter().serialize(td, outputStream, CharacterEncoding.UTF_8);
+		return outputStream.toString(CharacterEncoding.UTF_8.getCharacterSetName());
+	}
+
+	@Test
+	public void testDocumentWriter_noPrettyPrint() throws IOException {
+		TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults();
+
+		List<TextAnnotation> annotations = new ArrayList<TextAnnotation>();
+		annotations.add(factory.createAnnotation(0, 5, "BRCA2", "Protein", "CCP"));
+		TextDocument td = new TextDocument("12345", "PMC", "BRCA2 & co.");
+		td.setAnnotations(annotations);
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		new Knowtator2DocumentWriter(false).serialize(td, outputStream, CharacterEncoding.UTF_8);
+		String serializedXml = outputStream.toString(CharacterEncoding.UTF_8.getCharacterSetName());
+
+		String expectedXml = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+				+ "<knowtator-project><document id=\"12345\" text-file=\"12345.txt\">"
+				+ "<annotation annotator=\"CCP\" id=\"0\" type=\"identity\"><class id=\"Protein\" label=\"Protein\"/>"
+				+ "<span end=\"5\" id=\"12345-0\" start=\"0\">BRCA2</span></annotation>"
+				+ "<graph-space id=\"Old Knowtator Relations\"/></document></knowtator-project>";
+
+		assertEquals("XML not as expected", expectedXml, serializedXml);
+	}
+
 }
@@ -0,0 +1,112 @@
+package edu.ucdenver.ccp.file.conversion.knowtator2;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.ucdenver.ccp.common.collections.CollectionsUtil;
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileWriterUtil;
+import edu.ucdenver.ccp.file.conversion.TextDocument;
+import edu.ucdenver.ccp.file.conversion.knowtator2.Knowtator2ProjectReader.DocumentIterator;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
+
+public class Knowtator2ProjectReaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testReadDocumentsInSourceIdOrder() throws IOException {
+		File projectDirectory = folder.newFolder("project");
+		File annotationDirectory = new File(projectDirectory, Knowtator2ProjectReader.ANNOTATIONS_DIRECTORY_NAME);
+		File articlesDirectory = new File(projectDirectory, Knowtator2ProjectReader.ARTICLES_DIRECTORY_NAME);
+		annotationDirectory.mkdirs();
+		articlesDirectory.mkdirs();
+
+		/* document i has i annotations */
+		List<String> sourceIds = CollectionsUtil.createList("33333", "11111", "22222");
+		for (int i = 0; i < sourceIds.size(); i++) {
+			writeProjectDocument(annotationDirectory, articlesDirectory, sourceIds.get(i), i + 1);
+		}
+
+		List<String> readSourceIds = new ArrayList<String>();
+		List<Integer> annotationCounts = new ArrayList<Integer>();
+		DocumentIterator docIter = Knowtator2ProjectReader.readDocuments(projectDirectory, "PMC",
+				CharacterEncoding.UTF_8, 2);
+		while (docIter.hasNext()) {
+			TextDocument td = docIter.next();
+			readSourceIds.add(td.getSourceid());
+			annotationCounts.add(td.getAnnotations().size());
+		}
+		assertFalse(docIter.hasNext());
+
+		assertEquals(CollectionsUtil.createList("11111", "22222", "33333"), readSourceIds);
+		assertEquals(CollectionsUtil.createList(2, 3, 1), annotationCounts);
+	}
+
+	private static void writeProjectDocument(File annotationDirectory, File articlesDirectory, String sourceId,
+			int annotationCount) throws IOException {
+		String text = "BRCA2 PPARD BRCA1";
+		FileWriterUtil.printLines(CollectionsUtil.createList(text), new File(articlesDirectory, sourceId + ".txt"),
+				CharacterEncoding.UTF_8);
+
+		TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults(sourceId);
+		List<TextAnnotation> annotations = new ArrayList<TextAnnotation>();
+		for (int i = 0; i < annotationCount; i++) {
+			annotations.add(factory.createAnnotation(6 * i, 6 * i + 5, text.substring(6 * i, 6 * i + 5), "Gene", "CCP"));
+		}
+		TextDocument td = new TextDocument(sourceId, "PMC", text);
+		td.setAnnotations(annotations);
+
+		try (OutputStream outputStream = new FileOutputStream(new File(annotationDirectory, sourceId + ".xml"))) {
+			new Knowtator2DocumentWriter().serialize(td, outputStream, CharacterEncoding.UTF_8);
+		}
+	}
+
+}
@@ -0,0 +1,186 @@
+package edu.ucdenver.ccp.file.conversion.pubannotation;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.file.conversion.DocumentReader;
+import edu.ucdenver.ccp.file.conversion.TextDocument;
+import edu.ucdenver.ccp.file.conversion.pubannotation.PubAnnotationCollectionReader.DocumentIterator;
+import edu.ucdenver.ccp.nlp.core.annotation.Annotator;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
+
+public class PubAnnotationCollectionReaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final int DOCUMENT_COUNT = 25;
+
+	@Test
+	public void testReadJsonLines_withTracks() throws IOException {
+		/* denotation ids are local to each track */
+		/* @formatter:off */
+		String jsonLines = 
+			"{\"sourcedb\":\"PMC\",\"sourceid\":\"1\",\"text\":\"IRF-4 expression in CML\"," +
+			 "\"tracks\":[" +
+			   "{\"project\":\"proteins\",\"denotations\":[{\"id\":\"T1\",\"span\":{\"begin\":0,\"end\":5},\"obj\":\"Protein\"}]}," +
+			   "{\"project\":\"diseases\",\"denotations\":[{\"id\":\"T1\",\"span\":{\"begin\":20,\"end\":23},\"obj\":\"Disease\"}]}" +
+			 "]}\n" +
+			"\n" +
+			"{\"sourcedb\":\"PMC\",\"sourceid\":\"2\",\"text\":\"CML\"," +
+			 "\"denotations\":[{\"id\":\"T1\",\"span\":{\"begin\":0,\"end\":3},\"obj\":\"Disease\"}]}\n";
+		/* @formatter:on */
+
+		List<TextDocument> documents = new ArrayList<TextDocument>();
+		try (DocumentIterator docIter = PubAnnotationCollectionReader.readDocuments(
+				new ByteArrayInputStream(jsonLines.getBytes(CharacterEncoding.UTF_8.getCharacterSetName())),
+				CharacterEncoding.UTF_8, PubAnnotationCollectionFormat.JSON_LINES)) {
+			while (docIter.hasNext()) {
+				documents.add(docIter.next());
+			}
+		}
+
+		assertEquals(2, documents.size());
+		TextDocument td = documents.get(0);
+		assertEquals("1", td.getSourceid());
+		assertEquals("PMC", td.getSourcedb());
+		List<TextAnnotation> annotations = td.getAnnotations();
+		assertEquals(2, annotations.size());
+		Collections.sort(annotations, TextAnnotation.BY_SPAN());
+		assertEquals("IRF-4", annotations.get(0).getCoveredText());
+		assertEquals("proteins", annotations.get(0).getAnnotator().getName());
+		assertEquals("CML", annotations.get(1).getCoveredText());
+		assertEquals("diseases", annotations.get(1).getAnnotator().getName());
+
+		assertEquals("2", documents.get(1).getSourceid());
+		assertEquals(1, documents.get(1).getAnnotations().size());
+	}
+
+	@Test
+	public void testRoundTrip_jsonLines() throws IOException {
+		File collectionFile = writeCollection(PubAnnotationCollectionFormat.JSON_LINES);
+		try (DocumentIterator docIter = PubAnnotationCollectionReader.readDocuments(collectionFile,
+				CharacterEncoding.UTF_8, PubAnnotationCollectionFormat.JSON_LINES)) {
+			validateCollection(docIter);
+		}
+	}
+
+	@Test
+	public void testRoundTrip_jsonArray() throws IOException {
+		File collectionFile = writeCollection(PubAnnotationCollectionFormat.JSON_ARRAY);
+		try (DocumentIterator docIter = PubAnnotationCollectionReader.readDocuments(collectionFile,
+				CharacterEncoding.UTF_8, PubAnnotationCollectionFormat.JSON_ARRAY)) {
+			validateCollection(docIter);
+		}
+	}
+
+	@Test
+	public void testReadJsonLines_parallel() throws IOException {
+		File collectionFile = writeCollection(PubAnnotationCollectionFormat.JSON_LINES);
+		/* range sizes smaller than, close to, and larger than a single line */
+		for (long rangeSize : new long[] { 1, 97, 256, collectionFile.length() }) {
+			try (DocumentIterator docIter = PubAnnotationCollectionReader.readJsonLines(collectionFile,
+					CharacterEncoding.UTF_8, 3, rangeSize)) {
+				validateCollection(docIter);
+			}
+		}
+	}
+
+	private File writeCollection(PubAnnotationCollectionFormat format) throws IOException {
+		File collectionFile = folder.newFile("collection." + format.name().toLowerCase());
+		try (PubAnnotationCollectionWriter writer = new PubAnnotationCollectionWriter(collectionFile,
+				CharacterEncoding.UTF_8, format, true)) {
+			for (int i = 0; i < DOCUMENT_COUNT; i++) {
+				String sourceId = Integer.toString(i);
+				String documentText = "Document " + i + ": IFN-α regulates IRF-4\nin CML.";
+				TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults(sourceId);
+				int ifnStart = documentText.indexOf("IFN");
+				int irfStart = documentText.indexOf("IRF");
+				TextAnnotation ifnAnnot = factory.createAnnotation(ifnStart, ifnStart + 5, "IFN-α", "Protein");
+				ifnAnnot.setAnnotator(new Annotator("proteins", "proteins", null));
+				TextAnnotation irfAnnot = factory.createAnnotation(irfStart, irfStart + 5, "IRF-4", "Protein");
+				irfAnnot.setAnnotator(new Annotator("proteins", "proteins", null));
+				DocumentReader.createAnnotationRelation(ifnAnnot, irfAnnot, "regulates");
+				int cmlStart = documentText.indexOf("CML");
+				TextAnnotation cmlAnnot = factory.createAnnotation(cmlStart, cmlStart + 3, "CML", "Disease");
+				cmlAnnot.setAnnotator(new Annotator("diseases", "diseases", null));
+
+				TextDocument td = new TextDocument(sourceId, "PMC", documentText);
+				td.addAnnotation(ifnAnnot);
+				td.addAnnotation(irfAnnot);
+				td.addAnnotation(cmlAnnot);
+				writer.write(td);
+			}
+		}
+		return collectionFile;
+	}
+
+	private void validateCollection(DocumentIterator docIter) {
+		for (int i = 0; i < DOCUMENT_COUNT; i++) {
+			TextDocument td = docIter.next();
+			assertEquals(Integer.toString(i), td.getSourceid());
+			assertEquals("PMC", td.getSourcedb());
+			assertEquals("Document " + i + ": IFN-α regulates IRF-4\nin CML.", td.getText());
+
+			List<TextAnnotation> annotations = td.getAnnotations();
+			assertEquals(3, annotations.size());
+			Collections.sort(annotations, TextAnnotation.BY_SPAN());
+			assertEquals("IFN-α", annotations.get(0).getCoveredText());
+			assertEquals("proteins", annotations.get(0).getAnnotator().getName());
+			TextAnnotation regulated = annotations.get(0).getClassMention().getComplexSlotMentionByName("regulates")
+					.getClassMentions().iterator().next().getTextAnnotation();
+			assertEquals("IRF-4", regulated.getCoveredText());
+			assertEquals("CML", annotations.get(2).getCoveredText());
+			assertEquals("diseases", annotations.get(2).getAnnotator().getName());
+		}
+		assertFalse(docIter.hasNext());
+	}
+
+}
@@ -0,0 +1,209 @@
+package edu.ucdenver.ccp.file.conversion.pubannotation;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.ucdenver.ccp.common.collections.CollectionsUtil;
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.file.conversion.DocumentDivision;
+import edu.ucdenver.ccp.file.conversion.DocumentReader;
+import edu.ucdenver.ccp.file.conversion.TextDocument;
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
+
+public class PubAnnotationDivisionsTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/* @formatter:off */
+	private static final String DOCUMENT_TEXT = "Title\nIRF-4 expression in CML\nIFN-α therapy";
+	//                                           0123456789012345678901234567890123456789012
+	//                                                     1         2         3         4
+	/* @formatter:on */
+
+	private static TextDocument createDividedDocument() {
+		TextDocument td = new TextDocument("12345", "PMC", DOCUMENT_TEXT);
+		td.setDivisions(CollectionsUtil.createList(new DocumentDivision("0", 0, 5),
+				new DocumentDivision("1", 6, 29), new DocumentDivision("2", 30, 43)));
+
+		TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults("12345");
+		TextAnnotation irfAnnot = factory.createAnnotation(6, 11, "IRF-4", "Protein");
+		TextAnnotation cmlAnnot = factory.createAnnotation(26, 29, "CML", "Disease");
+		TextAnnotation ifnAnnot = factory.createAnnotation(30, 35, "IFN-α", "Protein");
+		TextAnnotation therapyAnnot = factory.createAnnotation(30, 33, "IFN therapy", "Treatment");
+		therapyAnnot.addSpan(new Span(36, 43));
+		/* crosses the boundary between divisions 0 and 1 */
+		TextAnnotation crossingAnnot = factory.createAnnotation(0, 11, "Title\nIRF-4", "Heading");
+
+		DocumentReader.createAnnotationRelation(irfAnnot, cmlAnnot, "associated_with");
+		/* relations between divisions cannot be represented */
+		DocumentReader.createAnnotationRelation(ifnAnnot, irfAnnot, "regulates");
+
+		td.addAnnotations(CollectionsUtil.createList(irfAnnot, cmlAnnot, ifnAnnot, therapyAnnot, crossingAnnot));
+		return td;
+	}
+
+	@Test
+	public void testSplit() {
+		List<TextDocument> divisionDocs = PubAnnotationDivisions.split(createDividedDocument());
+		assertEquals(3, divisionDocs.size());
+
+		assertEquals("Title", divisionDocs.get(0).getText());
+		assertNull("the crossing annotation is excluded", divisionDocs.get(0).getAnnotations());
+
+		TextDocument division1 = divisionDocs.get(1);
+		assertEquals("1", PubAnnotationDivisions.getDivisionId(division1));
+		assertEquals("IRF-4 expression in CML", division1.getText());
+		List<TextAnnotation> annotations = division1.getAnnotations();
+		assertEquals(2, annotations.size());
+		assertEquals(new Span(0, 5), annotations.get(0).getAggregateSpan());
+		assertEquals(new Span(20, 23), annotations.get(1).getAggregateSpan());
+		assertEquals("Disease", annotations.get(0).getClassMention().getComplexSlotMentionByName("associated_with")
+				.getClassMentions().iterator().next().getMentionName());
+
+		TextDocument division2 = divisionDocs.get(2);
+		annotations = division2.getAnnotations();
+		assertEquals(2, annotations.size());
+		assertNull("the cross-division relation is excluded",
+				annotations.get(0).getClassMention().getComplexSlotMentionByName("regulates"));
+		assertEquals(CollectionsUtil.createList(new Span(0, 3), new Span(6, 13)), annotations.get(1).getSpans());
+	}
+
+	@Test
+	public void testWriteAndReadDividedDocument() throws IOException {
+		TextDocument td = createDividedDocument();
+		assertTrue(PubAnnotationDivisions.isDivided(td));
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		new PubAnnotationDocumentWriter().serialize(td, outputStream, CharacterEncoding.UTF_8);
+		String json = outputStream.toString(CharacterEncoding.UTF_8.getCharacterSetName());
+		assertTrue("a divided document is written as an array of divisions", json.startsWith("["));
+		assertTrue(json.contains("\"divid\":2"));
+
+		/* the division texts are located in the supplied document text */
+		TextDocument readTd = new PubAnnotationDocumentReader().readDocument("12345", "PMC",
+				new ByteArrayInputStream(outputStream.toByteArray()),
+				new ByteArrayInputStream(DOCUMENT_TEXT.getBytes(CharacterEncoding.UTF_8.getCharacterSetName())),
+				CharacterEncoding.UTF_8);
+		assertEquals(DOCUMENT_TEXT, readTd.getText());
+		assertEquals(td.getDivisions(), readTd.getDivisions());
+
+		List<TextAnnotation> annotations = readTd.getAnnotations();
+		Collections.sort(annotations, TextAnnotation.BY_SPAN());
+		assertEquals(4, annotations.size());
+		assertEquals(new Span(6, 11), annotations.get(0).getAggregateSpan());
+		assertEquals(new Span(26, 29), annotations.get(1).getAggregateSpan());
+		for (TextAnnotation annot : annotations) {
+			if (annot.getClassMention().getMentionName().equals("Treatment")) {
+				assertEquals(CollectionsUtil.createList(new Span(30, 33), new Span(36, 43)), annot.getSpans());
+			}
+		}
+	}
+
+	@Test
+	public void testReadDividedDocument_noDocumentText() throws IOException {
+		/* @formatter:off */
+		String json = "[" +
+			"{\"sourcedb\":\"PMC\",\"sourceid\":\"12345\",\"divid\":0,\"text\":\"Title\"}," +
+			"{\"sourcedb\":\"PMC\",\"sourceid\":\"12345\",\"divid\":1,\"text\":\"IRF-4 expression in CML\"," +
+			 "\"denotations\":[{\"id\":\"T1\",\"span\":{\"begin\":20,\"end\":23},\"obj\":\"Disease\"}]}" +
+			"]";
+		/* @formatter:on */
+
+		TextDocument td = new PubAnnotationDocumentReader().readDocument(null, null,
+				new ByteArrayInputStream(json.getBytes(CharacterEncoding.UTF_8.getCharacterSetName())), null,
+				CharacterEncoding.UTF_8);
+		assertEquals("12345", td.getSourceid());
+		assertEquals("Title" + PubAnnotationDivisions.DIVISION_SEPARATOR + "IRF-4 expression in CML", td.getText());
+		assertEquals(new DocumentDivision("1", 6, 29), td.getDivisions().get(1));
+		assertEquals(1, td.getAnnotations().size());
+		assertEquals(new Span(26, 29), td.getAnnotations().get(0).getAggregateSpan());
+		assertEquals("CML", td.getAnnotations().get(0).getCoveredText());
+	}
+
+	@Test
+	public void testReadDividedDocument_unmatchedDocumentText() throws IOException {
+		/* @formatter:off */
+		String json = "[" +
+			"{\"sourcedb\":\"PMC\",\"sourceid\":\"12345\",\"divid\":0,\"text\":\"Title\"}," +
+			"{\"sourcedb\":\"PMC\",\"sourceid\":\"12345\",\"divid\":1,\"text\":\"IRF-4 expression in CML\"," +
+			 "\"denotations\":[{\"id\":\"T1\",\"span\":{\"begin\":20,\"end\":23},\"obj\":\"Disease\"}]}" +
+			"]";
+		/* @formatter:on */
+
+		/* an empty text file, in which the division texts cannot be located */
+		TextDocument td = new PubAnnotationDocumentReader().readDocument(null, null,
+				new ByteArrayInputStream(json.getBytes(CharacterEncoding.UTF_8.getCharacterSetName())),
+				new ByteArrayInputStream(new byte[0]), CharacterEncoding.UTF_8);
+		assertEquals("Title" + PubAnnotationDivisions.DIVISION_SEPARATOR + "IRF-4 expression in CML", td.getText());
+		assertEquals(new DocumentDivision("1", 6, 29), td.getDivisions().get(1));
+		assertEquals("CML", td.getAnnotations().get(0).getCoveredText());
+	}
+
+	@Test
+	public void testWriteAndReadDivisionFiles() throws IOException {
+		TextDocument td = createDividedDocument();
+		File outputDirectory = folder.newFolder("divisions");
+		List<File> divisionFiles = PubAnnotationDivisions.writeDivisions(td, outputDirectory,
+				CharacterEncoding.UTF_8, 3);
+		assertEquals(3, divisionFiles.size());
+		assertEquals("12345-1.json", divisionFiles.get(1).getName());
+
+		TextDocument readTd = PubAnnotationDivisions.readDivisions(null, null, divisionFiles, DOCUMENT_TEXT,
+				CharacterEncoding.UTF_8, 3);
+		assertEquals("PMC", readTd.getSourcedb());
+		assertEquals(td.getDivisions(), readTd.getDivisions());
+		assertEquals(4, readTd.getAnnotations().size());
+		assertFalse(PubAnnotationDivisions.isDivided(PubAnnotationDivisions.split(td).get(0)));
+	}
+
+}
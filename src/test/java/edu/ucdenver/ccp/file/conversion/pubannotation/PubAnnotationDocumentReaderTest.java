@@ -36,12 +36,14 @@ package edu.ucdenver.ccp.file.conversion.pubannotation;
 import static org.junit.Assert.assertEquals;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
 import org.junit.Test;
 
 import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.file.conversion.TextDocument;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.core.mention.ClassMention;
 
@@ -109,4 +111,119 @@ public class PubAnnotationDocumentReaderTest {
 
 	}
 
+	@Test
+	public void testReadDocument_embeddedText() throws IOException {
+
+		/* @formatter:off */
+		String pubAnnotationData = "{\n"+
+			   "\"sourcedb\": \"PMC\", \"sourceid\": \"12345\",\n"+
+			   "\"text\": \"IRF-4 expression in CML may be induced by IFN-α therapy\",\n"+
+			   "\"denotations\": [\n"+
+			   "   {\"id\": \"T1\", \"span\": {\"begin\": 0, \"end\": 5}, \"obj\": \"Protein\"}\n"+
+			   "]\n"+
+			"}";
+		/* @formatter:on */
+
+		TextDocument td = new PubAnnotationDocumentReader().readDocument("12345", "PMC",
+				new ByteArrayInputStream(pubAnnotationData.getBytes(CharacterEncoding.UTF_8.getCharacterSetName())),
+				null, CharacterEncoding.UTF_8);
+
+		assertEquals("IRF-4 expression in CML may be induced by IFN-α therapy", td.getText());
+		assertEquals(1, td.getAnnotations().size());
+		assertEquals("IRF-4", td.getAnnotations().get(0).getCoveredText());
+	}
+
+	@Test
+	public void testAnnotationDeserialization_textAndDenotationsLast() {
+
+		/* JSON object members are unordered; relations and denotations may precede the text */
+		/* @formatter:off */
+		String pubAnnotationData = "{\n"+
+			   "\"relations\": [\n"+
+			   "   {\"id\": \"R1\", \"subj\": \"T2\", \"pred\": \"regulates\", \"obj\": \"T1\"}\n"+
+			   "],\n"+
+			   "\"denotations\": [\n"+
+			   "   {\"id\": \"T1\", \"span\": {\"begin\": 0, \"end\": 5}, \"obj\": \"Protein\"},\n"+
+			   "   {\"id\": \"T2\", \"span\": {\"begin\": 42, \"end\": 47}, \"obj\": \"Promoter\"}\n"+
+			   "],\n"+
+			   "\"text\": \"IRF-4 expression in CML may be induced by IFN-α therapy\"\n"+
+			"}";
+		/* @formatter:on */
+
+		List<TextAnnotation> annotations = PubAnnotationDocumentReader
+				.getAnnotations(new ByteArrayInputStream(pubAnnotationData.getBytes()), CharacterEncoding.UTF_8);
+
+		assertEquals("expect 2 annotations", 2, annotations.size());
+		Collections.sort(annotations, TextAnnotation.BY_SPAN());
+		assertEquals("IRF-4", annotations.get(0).getCoveredText());
+		ClassMention cm = annotations.get(1).getClassMention().getComplexSlotMentionByName("regulates")
+				.getClassMentions().iterator().next();
+		assertEquals("Protein", cm.getMentionName());
+	}
+
+	@Test
+	public void testReadDocument_coveredTextFromEmbeddedText() throws IOException {
+
+		/* @formatter:off */
+		String pubAnnotationData = "{\n"+
+			   "\"text\": \"IRF-4 expression in CML may be induced by IFN-α therapy\",\n"+
+			   "\"denotations\": [\n"+
+			   "   {\"id\": \"T1\", \"span\": {\"begin\": 0, \"end\": 5}, \"obj\": \"Protein\"}\n"+
+			   "]\n"+
+			"}";
+		/* @formatter:on */
+		String documentText = "0123456789012345678901234567890123456789012345678901234";
+
+		TextDocument td = new PubAnnotationDocumentReader().readDocument("12345", "PMC",
+				new ByteArrayInputStream(pubAnnotationData.getBytes(CharacterEncoding.UTF_8.getCharacterSetName())),
+				new ByteArrayInputStream(documentText.getBytes()), CharacterEncoding.UTF_8);
+
+		/* the supplied text is the document text, but covered text comes from the JSON text */
+		assertEquals(documentText, td.getText());
+		assertEquals("IRF-4", td.getAnnotations().get(0).getCoveredText());
+	}
+
+	@Test
+	public void testReadDocument_coveredTextFromSuppliedText() throws IOException {
+
+		/* @formatter:off */
+		String pubAnnotationData = "{\n"+
+			   "\"denotations\": [\n"+
+			   "   {\"id\": \"T1\", \"span\": {\"begin\": 0, \"end\": 5}, \"obj\": \"Protein\"}\n"+
+			   "]\n"+
+			"}";
+		/* @formatter:on */
+		String documentText = "IRF-4 expression in CML may be induced by IFN-α therapy";
+
+		TextDocument td = new PubAnnotationDocumentReader().readDocument("12345", "PMC",
+				new ByteArrayInputStream(pubAnnotationData.getBytes(CharacterEncoding.UTF_8.getCharacterSetName())),
+				new ByteArrayInputStream(documentText.getBytes(CharacterEncoding.UTF_8.getCharacterSetName())),
+				CharacterEncoding.UTF_8);
+
+		/* the JSON does not embed the text, so the supplied text is used for covered text */
+		assertEquals(1, td.getAnnotations().size());
+		assertEquals("IRF-4", td.getAnnotations().get(0).getCoveredText());
+	}
+
+	@Test
+	public void testReadDocument_projectSetsAnnotator() throws IOException {
+
+		/* @formatter:off */
+		String pubAnnotationData = "{\n"+
+			   "\"text\": \"IRF-4 expression in CML may be induced by IFN-α therapy\",\n"+
+			   "\"project\": \"bionlp-st-ge-2016\",\n"+
+			   "\"denotations\": [\n"+
+			   "   {\"id\": \"T1\", \"span\": {\"begin\": 0, \"end\": 5}, \"obj\": \"Protein\"}\n"+
+			   "]\n"+
+			"}";
+		/* @formatter:on */
+
+		TextDocument td = new PubAnnotationDocumentReader().readDocument("12345", "PMC",
+				new ByteArrayInputStream(pubAnnotationData.getBytes(CharacterEncoding.UTF_8.getCharacterSetName())),
+				null, CharacterEncoding.UTF_8);
+
+		assertEquals(1, td.getAnnotations().size());
+		assertEquals("bionlp-st-ge-2016", td.getAnnotations().get(0).getAnnotator().getName());
+	}
+
 }
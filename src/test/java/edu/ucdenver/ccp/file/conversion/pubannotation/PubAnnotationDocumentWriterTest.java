@@ -35,14 +35,25 @@ package edu.ucdenver.ccp.file.conversion.pubannotation;
  */
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringWriter;
 
 import org.junit.Test;
 
+import com.google.gson.stream.JsonWriter;
+
 import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.file.conversion.DocumentReader;
 import edu.ucdenver.ccp.file.conversion.TextDocument;
+import edu.ucdenver.ccp.file.conversion.diagnostics.CountingDiagnosticSink;
+import edu.ucdenver.ccp.file.conversion.diagnostics.DiagnosticSink;
+import edu.ucdenver.ccp.file.conversion.diagnostics.DiagnosticType;
+import edu.ucdenver.ccp.file.conversion.diagnostics.Diagnostics;
+import edu.ucdenver.ccp.nlp.core.annotation.Annotator;
 import edu.ucdenver.ccp.nlp.core.annotation.Span;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
 import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotationFactory;
@@ -173,4 +184,93 @@ public class PubAnnotationDocumentWriterTest {
 		assertEquals("PubAnnotation JSON not as expected.", expectedJson, json);
 	}
 
+	@Test
+	public void testDuplicateDenotationsAndRelations() throws IOException {
+		String documentText = "PPARD is a gene.";
+		TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults("12345");
+		TextAnnotation annot = factory.createAnnotation(0, 5, "PPARD", "gene");
+		TextAnnotation duplicateAnnot = factory.createAnnotation(0, 5, "PPARD", "gene");
+		TextAnnotation geneAnnot = factory.createAnnotation(11, 15, "gene", "concept");
+
+		/* the same relation is asserted by both duplicate annotations */
+		for (TextAnnotation ta : new TextAnnotation[] { annot, duplicateAnnot }) {
+			ComplexSlotMention csm = new DefaultComplexSlotMention("isA");
+			csm.addClassMention(geneAnnot.getClassMention());
+			ta.getClassMention().addComplexSlotMention(csm);
+		}
+
+		TextDocument td = new TextDocument("12345", "PMC", documentText);
+		td.addAnnotation(annot);
+		td.addAnnotation(duplicateAnnot);
+		td.addAnnotation(geneAnnot);
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		new PubAnnotationDocumentWriter().serialize(td, outputStream, CharacterEncoding.UTF_8);
+		String json = outputStream.toString(CharacterEncoding.UTF_8.getCharacterSetName());
+
+		String expectedJson = "{\"sourceid\":\"12345\",\"sourcedb\":\"PMC\",\"text\":\"PPARD is a gene.\","
+				+ "\"denotations\":[{\"id\":\"T1\",\"span\":{\"begin\":0,\"end\":5},\"obj\":\"gene\"},"
+				+ "{\"id\":\"T2\",\"span\":{\"begin\":11,\"end\":15},\"obj\":\"concept\"}],"
+				+ "\"relations\":[{\"id\":\"R1\",\"subj\":\"T1\",\"pred\":\"isA\",\"obj\":\"T2\"}]}";
+
+		assertEquals("PubAnnotation JSON not as expected.", expectedJson, json);
+	}
+
+	@Test
+	public void testSerializeRestoresWriterSettings() throws IOException {
+		TextDocument td = new TextDocument("12345", "PMC", "PPARD <is> a gene.");
+		td.addAnnotation(TextAnnotationFactory.createFactoryWithDefaults("12345").createAnnotation(0, 5, "PPARD",
+				"gene"));
+
+		StringWriter writer = new StringWriter();
+		JsonWriter jsonWriter = new JsonWriter(writer);
+		jsonWriter.setHtmlSafe(false);
+		jsonWriter.setSerializeNulls(true);
+		new PubAnnotationDocumentWriter().serialize(td, jsonWriter);
+		jsonWriter.flush();
+
+		/* the document is written as Gson would write it ... */
+		assertTrue(writer.toString().contains("\"text\":\"PPARD \\u003cis\\u003e a gene.\""));
+		/* ... and the caller's settings are left as they were */
+		assertFalse(jsonWriter.isHtmlSafe());
+		assertTrue(jsonWriter.getSerializeNulls());
+	}
+
+	@Test
+	public void testWriteTracks_crossTrackRelationExcluded() throws IOException {
+		String documentText = "IFN-alpha regulates CML.";
+		TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults("12345");
+		TextAnnotation ifnAnnot = factory.createAnnotation(0, 9, "IFN-alpha", "Protein");
+		ifnAnnot.setAnnotator(new Annotator("proteins", "proteins", null));
+		TextAnnotation cmlAnnot = factory.createAnnotation(20, 23, "CML", "Disease");
+		cmlAnnot.setAnnotator(new Annotator("diseases", "diseases", null));
+		DocumentReader.createAnnotationRelation(ifnAnnot, cmlAnnot, "regulates");
+
+		TextDocument td = new TextDocument("12345", "PMC", documentText);
+		td.addAnnotation(ifnAnnot);
+		td.addAnnotation(cmlAnnot);
+
+		DiagnosticSink originalSink = Diagnostics.getSink();
+		CountingDiagnosticSink countingSink = new CountingDiagnosticSink();
+		Diagnostics.setSink(countingSink);
+		String json;
+		try {
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			new PubAnnotationDocumentWriter(true).serialize(td, outputStream, CharacterEncoding.UTF_8);
+			json = outputStream.toString(CharacterEncoding.UTF_8.getCharacterSetName());
+			assertEquals(1, countingSink.getCount(DiagnosticType.CROSS_TRACK_RELATION_EXCLUDED));
+		} finally {
+			Diagnostics.setSink(originalSink);
+		}
+
+		/* the CML denotation appears in the diseases track only */
+		String expectedJson = "{\"sourceid\":\"12345\",\"sourcedb\":\"PMC\",\"text\":\"" + documentText + "\","
+				+ "\"tracks\":["
+				+ "{\"project\":\"proteins\",\"denotations\":["
+				+ "{\"id\":\"T1\",\"span\":{\"begin\":0,\"end\":9},\"obj\":\"Protein\"}]},"
+				+ "{\"project\":\"diseases\",\"denotations\":["
+				+ "{\"id\":\"T1\",\"span\":{\"begin\":20,\"end\":23},\"obj\":\"Disease\"}]}]}";
+		assertEquals(expectedJson, json);
+	}
+
 }
@@ -0,0 +1,195 @@
+package edu.ucdenver.ccp.file.conversion.pubannotation;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.stream.JsonReader;
+
+import edu.ucdenver.ccp.common.collections.CollectionsUtil;
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileWriterUtil;
+import edu.ucdenver.ccp.file.conversion.pubannotation.PubAnnotationFileValidator.ValidationSummary;
+
+public class PubAnnotationFileValidatorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/* @formatter:off */
+	private static final String VALID_DOCUMENT = 
+		"{\"sourcedb\":\"PMC\",\"sourceid\":\"1\",\"text\":\"IRF-4 expression in CML\"," +
+		 "\"denotations\":[" +
+		   "{\"id\":\"T1\",\"span\":{\"begin\":0,\"end\":5},\"obj\":\"Protein\"}," +
+		   "{\"id\":\"T2\",\"span\":{\"begin\":6,\"end\":10},\"obj\":\"_FRAGMENT\"}," +
+		   "{\"id\":\"T3\",\"span\":{\"begin\":20,\"end\":23},\"obj\":\"Disease\"}]," +
+		 "\"relations\":[" +
+		   "{\"id\":\"R1\",\"subj\":\"T3\",\"pred\":\"_lexicallyChainedTo\",\"obj\":\"T2\"}," +
+		   "{\"id\":\"R2\",\"subj\":\"T1\",\"pred\":\"associated_with\",\"obj\":\"T3\"}]}";
+
+	private static final String INVALID_DOCUMENT = 
+		"{\"sourcedb\":\"PMC\",\"sourceid\":\"2\",\"text\":\"IRF-4 expression in CML\"," +
+		 "\"denotations\":[" +
+		   "{\"id\":\"T1\",\"span\":{\"begin\":0,\"end\":5},\"obj\":\"Protein\"}," +
+		   "{\"id\":\"T1\",\"span\":{\"begin\":20,\"end\":23},\"obj\":\"Disease\"}," +
+		   "{\"id\":\"T2\",\"span\":{\"begin\":20,\"end\":30},\"obj\":\"Disease\"}," +
+		   "{\"id\":\"T3\",\"span\":{\"begin\":6,\"end\":10},\"obj\":\"_FRAGMENT\"}]," +
+		 "\"relations\":[" +
+		   "{\"id\":\"R1\",\"subj\":\"T1\",\"pred\":\"associated_with\",\"obj\":\"T9\"}]}";
+	/* @formatter:on */
+
+	@Test
+	public void testValidateDocument_valid() throws IOException {
+		List<String> errors = PubAnnotationFileValidator
+				.validateDocument(new JsonReader(new StringReader(VALID_DOCUMENT)));
+		assertTrue("no errors expected: " + errors, errors.isEmpty());
+	}
+
+	@Test
+	public void testValidateDocument_invalid() throws IOException {
+		List<String> errors = PubAnnotationFileValidator
+				.validateDocument(new JsonReader(new StringReader(INVALID_DOCUMENT)));
+		List<String> expectedErrors = CollectionsUtil.createList("denotation T1: duplicate id",
+				"denotation T2: span [20, 30) is not within the text (length 23)",
+				"relation R1: obj T9 does not refer to a denotation",
+				"denotation T3: fragment is not part of a chain");
+		assertEquals(expectedErrors, errors);
+	}
+
+	@Test
+	public void testValidateDocument_chainCycle() throws IOException {
+		/* @formatter:off */
+		String json = 
+			"{\"text\":\"IRF-4 expression in CML\"," +
+			 "\"denotations\":[" +
+			   "{\"id\":\"T1\",\"span\":{\"begin\":0,\"end\":5},\"obj\":\"_FRAGMENT\"}," +
+			   "{\"id\":\"T2\",\"span\":{\"begin\":6,\"end\":10},\"obj\":\"_FRAGMENT\"}]," +
+			 "\"relations\":[" +
+			   "{\"id\":\"R1\",\"subj\":\"T1\",\"pred\":\"_lexicallyChainedTo\",\"obj\":\"T2\"}," +
+			   "{\"id\":\"R2\",\"subj\":\"T2\",\"pred\":\"_lexicallyChainedTo\",\"obj\":\"T1\"}]}";
+		/* @formatter:on */
+		List<String> errors = PubAnnotationFileValidator.validateDocument(new JsonReader(new StringReader(json)));
+		List<String> expectedErrors = CollectionsUtil.createList("denotation T2: chain forms a cycle",
+				"denotation T1: chain forms a cycle");
+		assertEquals(expectedErrors, errors);
+	}
+
+	@Test
+	public void testValidateJsonLines() throws IOException {
+		List<String> lines = new ArrayList<String>();
+		for (int i = 0; i < 100; i++) {
+			if (i == 42) {
+				lines.add(INVALID_DOCUMENT);
+			} else if (i == 43) {
+				lines.add("{\"text\": [");
+			} else {
+				lines.add(VALID_DOCUMENT);
+			}
+		}
+		File jsonLinesFile = folder.newFile("collection.jsonl");
+		FileWriterUtil.printLines(lines, jsonLinesFile, CharacterEncoding.UTF_8);
+		long invalidDocumentOffset = 42 * (VALID_DOCUMENT.length() + 1);
+		long malformedDocumentOffset = invalidDocumentOffset + INVALID_DOCUMENT.length() + 1;
+
+		for (int threadCount : new int[] { 1, 4 }) {
+			StringWriter report = new StringWriter();
+			ValidationSummary summary = PubAnnotationFileValidator.validateJsonLines(jsonLinesFile,
+					CharacterEncoding.UTF_8, threadCount, report, 2);
+			assertEquals(100, summary.getDocumentCount());
+			assertEquals(2, summary.getInvalidDocumentCount());
+			assertEquals(5, summary.getErrorCount());
+
+			String[] reportLines = report.toString().split("\\n");
+			assertEquals(5, reportLines.length);
+			assertEquals("offset " + invalidDocumentOffset + "\tPMC:2\tdenotation T1: duplicate id", reportLines[0]);
+			assertEquals("offset " + invalidDocumentOffset + "\tPMC:2\t2 additional errors not reported",
+					reportLines[2]);
+			assertTrue(reportLines[3].startsWith("offset " + malformedDocumentOffset + "\tnull:null\tmalformed JSON"));
+			assertEquals("# documents: 100 invalid documents: 2 errors: 5", reportLines[4]);
+		}
+	}
+
+	@Test
+	public void testValidateJsonLines_smallRanges() throws IOException {
+		List<String> lines = new ArrayList<String>();
+		for (int i = 0; i < 100; i++) {
+			if (i == 10 || i == 77) {
+				lines.add(INVALID_DOCUMENT);
+			} else if (i == 43) {
+				lines.add("{\"text\": [");
+			} else {
+				lines.add(VALID_DOCUMENT);
+			}
+		}
+		File jsonLinesFile = folder.newFile("collection.jsonl");
+		FileWriterUtil.printLines(lines, jsonLinesFile, CharacterEncoding.UTF_8);
+
+		StringWriter expectedReport = new StringWriter();
+		PubAnnotationFileValidator.validateJsonLines(jsonLinesFile, CharacterEncoding.UTF_8, 1,
+				jsonLinesFile.length(), expectedReport, 2);
+		String[] reportLines = expectedReport.toString().split("\\n");
+		assertEquals(8, reportLines.length);
+		assertTrue(reportLines[0].startsWith("offset " + 10 * (VALID_DOCUMENT.length() + 1) + "\tPMC:2\t"));
+		long malformedDocumentOffset = 42 * (VALID_DOCUMENT.length() + 1) + INVALID_DOCUMENT.length() + 1;
+		assertTrue(reportLines[3].startsWith("offset " + malformedDocumentOffset + "\tnull:null\tmalformed JSON"));
+		long lastInvalidDocumentOffset = malformedDocumentOffset + "{\"text\": [".length() + 1
+				+ 33 * (VALID_DOCUMENT.length() + 1);
+		assertTrue(reportLines[4].startsWith("offset " + lastInvalidDocumentOffset + "\tPMC:2\t"));
+		assertEquals("# documents: 100 invalid documents: 3 errors: 9", reportLines[7]);
+
+		/* range boundaries mostly fall within lines; ranges are validated concurrently */
+		for (long rangeSize : new long[] { 1, 7, 97, 256 }) {
+			StringWriter report = new StringWriter();
+			ValidationSummary summary = PubAnnotationFileValidator.validateJsonLines(jsonLinesFile,
+					CharacterEncoding.UTF_8, 4, rangeSize, report, 2);
+			assertEquals(100, summary.getDocumentCount());
+			assertEquals("report lines should be in file order for range size " + rangeSize,
+					expectedReport.toString(), report.toString());
+		}
+	}
+
+}
@@ -0,0 +1,164 @@
+package edu.ucdenver.ccp.file.conversion.treebank;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.ucdenver.ccp.common.collections.CollectionsUtil;
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileWriterUtil;
+import edu.ucdenver.ccp.file.conversion.TextDocument;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+
+public class DirectTreebankDocumentReaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testDirectTreebankDocumentReader() throws IOException {
+		CharacterEncoding encoding = CharacterEncoding.UTF_8;
+		File treebankDir = folder.newFolder("penn");
+
+		File treebankFile = new File(treebankDir, "12345.tree");
+		List<String> treebankLines = CollectionsUtil.createList(
+				"( (TITLE (FRAG (NP (NP (JJ Intraocular) (NN pressure)) (PP (IN in) (NP (ADJP (RB genetically) (JJ distinct)) (NNS mice)))) (: :) (NP (DT an) (NML (NML (NN update)) (CC and) (NML (NN strain) (NN survey)))))) )",
+				"( (HEADING (NP (NN Abstract))) )", "( (HEADING (NP (NN Background))) )",
+				"( (S (NP-SBJ-1 (JJ Little)) (VP (VBZ is) (VP (VBN known) (NP-1 (-NONE- *)) (PP (IN about) (NP (NP (JJ genetic) (NNS factors)) (VP (VBG affecting) (NP (NP (NP (JJ intraocular) (NN pressure)) (NP (-LRB- -LRB-) (NN IOP))) (-RRB- -RRB-) (PP-LOC (IN in) (NP (NP (NNS mice)) (CC and) (NP (JJ other) (NNS mammals)))))))))) (. .)) )");
+		FileWriterUtil.printLines(treebankLines, treebankFile, encoding);
+
+		File documentTextFile = folder.newFile("12345.txt");
+		List<String> txtLines = CollectionsUtil.createList(
+				"Intraocular pressure in genetically distinct mice: an update and strain survey", "", "Abstract", "",
+				"Background", "",
+				"Little is known about genetic factors affecting intraocular pressure (IOP) in mice and other mammals.");
+		FileWriterUtil.printLines(txtLines, documentTextFile, encoding);
+
+		TextDocument td = new DirectTreebankDocumentReader().readDocument("12345", "PMC", treebankFile,
+				documentTextFile, encoding);
+
+		assertNotNull(td);
+		List<TextAnnotation> annotations = td.getAnnotations();
+		assertEquals(65, annotations.size());
+
+		/* constituents that share a span with their child follow it */
+		assertEquals("FRAG", annotations.get(0).getClassMention().getMentionName());
+		assertEquals("TITLE", annotations.get(1).getClassMention().getMentionName());
+		assertEquals("Intraocular pressure in genetically distinct mice: an update and strain survey",
+				annotations.get(1).getCoveredText());
+		assertEquals("HEADING", annotations.get(24).getClassMention().getMentionName());
+		assertEquals("Abstract", annotations.get(24).getCoveredText());
+
+		/* the output, including its order, should match that of the UIMA-based reader */
+		TextDocument uimaTd = new TreebankDocumentReader().readDocument("12345", "PMC", treebankFile,
+				documentTextFile, encoding);
+		assertAnnotationsInSameOrder(uimaTd.getAnnotations(), annotations);
+	}
+
+	/**
+	 * Empty -NONE- nodes and unary chains produce nodes that share a begin offset
+	 * or an entire span; their order should match that of the UIMA annotation
+	 * index. This test detects a change in that order, e.g. after a UIMA upgrade,
+	 * which {@link DirectTreebankDocumentReader.UimaIndexOrder} would then need to
+	 * follow.
+	 */
+	@Test
+	public void testDirectTreebankDocumentReader_traces() throws IOException {
+		CharacterEncoding encoding = CharacterEncoding.UTF_8;
+		File treebankDir = folder.newFolder("penn");
+
+		File treebankFile = new File(treebankDir, "67890.tree");
+		List<String> treebankLines = CollectionsUtil.createList(
+				"( (S (NP-SBJ (-NONE- *PRO*)) (VP (TO To) (VP (VB know) (SBAR (-NONE- 0) (S (NP-SBJ-1 (NNS mice)) (VP (VBP are) (VP (VBN studied) (NP (-NONE- *-1)))))))) (. .)) )",
+				"( (SINV (S-TPC-2 (NP-SBJ (NN Pressure)) (VP (VBD rose))) (, ,) (VP (VBD said) (S (-NONE- *T*-2))) (NP-SBJ (PRP they)) (. .)) )",
+				"( (FRAG (NP (NP (NN Abstract)))) )");
+		FileWriterUtil.printLines(treebankLines, treebankFile, encoding);
+
+		File documentTextFile = folder.newFile("67890.txt");
+		List<String> txtLines = CollectionsUtil.createList("To know mice are studied.", "Pressure rose, said they.",
+				"Abstract");
+		FileWriterUtil.printLines(txtLines, documentTextFile, encoding);
+
+		TextDocument td = new DirectTreebankDocumentReader().readDocument("67890", "PMC", treebankFile,
+				documentTextFile, encoding);
+		List<TextAnnotation> annotations = td.getAnnotations();
+
+		int emptyNodeCount = 0;
+		for (TextAnnotation annot : annotations) {
+			if (annot.getClassMention().getMentionName().equals("-NONE-")) {
+				assertEquals(annot.getAnnotationSpanStart(), annot.getAnnotationSpanEnd());
+				emptyNodeCount++;
+			}
+		}
+		assertEquals(4, emptyNodeCount);
+
+		/* the unary chain FRAG > NP > NP > NN covers a single span */
+		int abstractNodeCount = 0;
+		for (TextAnnotation annot : annotations) {
+			if (annot.getCoveredText().equals("Abstract")) {
+				abstractNodeCount++;
+			}
+		}
+		assertEquals(4, abstractNodeCount);
+
+		TextDocument uimaTd = new TreebankDocumentReader().readDocument("67890", "PMC", treebankFile,
+				documentTextFile, encoding);
+		assertAnnotationsInSameOrder(uimaTd.getAnnotations(), annotations);
+	}
+
+	private static void assertAnnotationsInSameOrder(List<TextAnnotation> expectedAnnotations,
+			List<TextAnnotation> annotations) {
+		assertEquals(expectedAnnotations.size(), annotations.size());
+		for (int i = 0; i < annotations.size(); i++) {
+			TextAnnotation expected = expectedAnnotations.get(i);
+			TextAnnotation annot = annotations.get(i);
+			String message = "annotation " + i;
+			assertEquals(message, expected.getClassMention().getMentionName(),
+					annot.getClassMention().getMentionName());
+			assertEquals(message, expected.getSpans(), annot.getSpans());
+			assertEquals(message, expected.getCoveredText(), annot.getCoveredText());
+		}
+	}
+
+}
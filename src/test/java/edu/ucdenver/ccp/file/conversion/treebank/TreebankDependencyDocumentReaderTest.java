@@ -0,0 +1,164 @@
+package edu.ucdenver.ccp.file.conversion.treebank;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.ucdenver.ccp.common.collections.CollectionsUtil;
+import edu.ucdenver.ccp.common.file.CharacterEncoding;
+import edu.ucdenver.ccp.common.file.FileReaderUtil;
+import edu.ucdenver.ccp.common.file.FileWriterUtil;
+import edu.ucdenver.ccp.file.conversion.DocumentReader;
+import edu.ucdenver.ccp.file.conversion.FileFormatConverterFactory;
+import edu.ucdenver.ccp.file.conversion.InputFileFormat;
+import edu.ucdenver.ccp.file.conversion.TextDocument;
+import edu.ucdenver.ccp.nlp.core.annotation.TextAnnotation;
+import edu.ucdenver.ccp.nlp.core.mention.ComplexSlotMention;
+
+public class TreebankDependencyDocumentReaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testTreebankDependencyDocumentReader() throws IOException {
+		CharacterEncoding encoding = CharacterEncoding.UTF_8;
+		File treebankDir = folder.newFolder("penn");
+		File treebankFile = new File(treebankDir, "12345.tree");
+		List<String> treebankLines = CollectionsUtil.createList(
+				"( (TITLE (FRAG (NP (NP (JJ Intraocular) (NN pressure)) (PP (IN in) (NP (ADJP (RB genetically) (JJ distinct)) (NNS mice)))) (: :) (NP (DT an) (NML (NML (NN update)) (CC and) (NML (NN strain) (NN survey)))))) )",
+				"( (HEADING (NP (NN Abstract))) )", "( (HEADING (NP (NN Background))) )",
+				"( (S (NP-SBJ-1 (JJ Little)) (VP (VBZ is) (VP (VBN known) (NP-1 (-NONE- *)) (PP (IN about) (NP (NP (JJ genetic) (NNS factors)) (VP (VBG affecting) (NP (NP (NP (JJ intraocular) (NN pressure)) (NP (-LRB- -LRB-) (NN IOP))) (-RRB- -RRB-) (PP-LOC (IN in) (NP (NP (NNS mice)) (CC and) (NP (JJ other) (NNS mammals)))))))))) (. .)) )");
+		FileWriterUtil.printLines(treebankLines, treebankFile, encoding);
+
+		File documentTextFile = folder.newFile("12345.txt");
+		List<String> txtLines = CollectionsUtil.createList(
+				"Intraocular pressure in genetically distinct mice: an update and strain survey", "", "Abstract", "",
+				"Background", "",
+				"Little is known about genetic factors affecting intraocular pressure (IOP) in mice and other mammals.");
+		FileWriterUtil.printLines(txtLines, documentTextFile, encoding);
+
+		DocumentReader reader = FileFormatConverterFactory.getReader(InputFileFormat.TREEBANK_DEPENDENCY);
+		assertTrue(reader instanceof TreebankDependencyDocumentReader);
+		TextDocument td = reader.readDocument("12345", "PMC", treebankFile, documentTextFile, encoding);
+
+		/* 4 sentences and 32 tokens; the empty category is not a token */
+		List<TextAnnotation> annotations = td.getAnnotations();
+		assertEquals(36, annotations.size());
+
+		int sentenceCount = 0;
+		int dependentCount = 0;
+		for (TextAnnotation annot : annotations) {
+			if (annot.getClassMention().getMentionName().equals("sentence")) {
+				sentenceCount++;
+				continue;
+			}
+			/* each token has at most one head */
+			List<ComplexSlotMention> csms = new ArrayList<ComplexSlotMention>(
+					annot.getClassMention().getComplexSlotMentions());
+			assertTrue(csms.size() <= 1);
+			if (!csms.isEmpty()) {
+				dependentCount++;
+				TextAnnotation head = csms.get(0).getClassMentions().iterator().next().getTextAnnotation();
+				assertTrue(head != annot);
+			}
+		}
+		assertEquals(4, sentenceCount);
+		/* every token other than the root of each sentence has a head */
+		assertEquals(28, dependentCount);
+
+		assertEquals("sentence", annotations.get(0).getClassMention().getMentionName());
+		assertEquals("JJ", annotations.get(1).getClassMention().getMentionName());
+		assertEquals("Intraocular", annotations.get(1).getCoveredText());
+
+		/*
+		 * the tokens and relations should match the CoNLL-X output for the same
+		 * treebank, with dependency node n corresponding to token n-1 of its
+		 * sentence
+		 */
+		List<List<TextAnnotation>> sentenceTokens = new ArrayList<List<TextAnnotation>>();
+		for (TextAnnotation annot : annotations) {
+			if (annot.getClassMention().getMentionName().equals("sentence")) {
+				sentenceTokens.add(new ArrayList<TextAnnotation>());
+			} else {
+				sentenceTokens.get(sentenceTokens.size() - 1).add(annot);
+			}
+		}
+		File conllFile = TreebankToDependencyConverter
+				.convert(treebankDir, folder.newFolder("conll"), HeadRule.CONLL, 1).get(0);
+		int sentenceIndex = 0;
+		int lineCount = 0;
+		for (String line : FileReaderUtil.loadLinesFromFile(conllFile, encoding)) {
+			if (line.isEmpty()) {
+				assertEquals(sentenceTokens.get(sentenceIndex++).size(), lineCount);
+				lineCount = 0;
+				continue;
+			}
+			lineCount++;
+			String[] columns = line.split("\\t");
+			List<TextAnnotation> tokens = sentenceTokens.get(sentenceIndex);
+			TextAnnotation token = tokens.get(Integer.parseInt(columns[0]) - 1);
+			assertEquals(columns[1], token.getCoveredText());
+			assertEquals(columns[3], token.getClassMention().getMentionName());
+			int head = Integer.parseInt(columns[6]);
+			if (head == 0) {
+				assertTrue(token.getClassMention().getComplexSlotMentions().isEmpty());
+			} else {
+				ComplexSlotMention csm = token.getClassMention().getComplexSlotMentionByName(columns[7]);
+				assertEquals(tokens.get(head - 1).getClassMention(), csm.getClassMentions().iterator().next());
+			}
+		}
+		assertEquals(4, sentenceIndex);
+	}
+
+	@Test
+	public void testConverterSharedAcrossReaders() throws IOException {
+		/* readers are created per conversion, so the converter must outlive them */
+		assertSame(ClearNlpDependencyConverter.getThreadConverter(HeadRule.CONLL),
+				ClearNlpDependencyConverter.getThreadConverter(HeadRule.CONLL));
+	}
+
+}
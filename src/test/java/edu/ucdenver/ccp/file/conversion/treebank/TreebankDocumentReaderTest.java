@@ -84,6 +84,54 @@ public class TreebankDocumentReaderTest {
 
 	}
 
+	@Test
+	public void testTreebankDocumentReader_consecutiveDocuments() throws IOException {
+		CharacterEncoding encoding = CharacterEncoding.UTF_8;
+		File treebankDir = folder.newFolder("penn");
+
+		File treebankFile1 = new File(treebankDir, "12345.tree");
+		FileWriterUtil.printLines(CollectionsUtil.createList("( (HEADING (NP (NN Abstract))) )",
+				"( (HEADING (NP (NN Background))) )"), treebankFile1, encoding);
+		File documentTextFile1 = folder.newFile("12345.txt");
+		FileWriterUtil.printLines(CollectionsUtil.createList("Abstract", "", "Background"), documentTextFile1, encoding);
+
+		File treebankFile2 = new File(treebankDir, "67890.tree");
+		FileWriterUtil.printLines(CollectionsUtil.createList("( (HEADING (NP (NN Methods))) )"), treebankFile2,
+				encoding);
+		File documentTextFile2 = folder.newFile("67890.txt");
+		FileWriterUtil.printLines(CollectionsUtil.createList("Methods"), documentTextFile2, encoding);
+
+		/* the cached JCas is reset between documents, so annotations must not carry over */
+		TreebankDocumentReader reader = new TreebankDocumentReader();
+		assertEquals(6, reader.readDocument("12345", "PMC", treebankFile1, documentTextFile1, encoding)
+				.getAnnotations().size());
+		TextDocument td = reader.readDocument("67890", "PMC", treebankFile2, documentTextFile2, encoding);
+		assertEquals(3, td.getAnnotations().size());
+		for (TextAnnotation annot : td.getAnnotations()) {
+			assertEquals("Methods", annot.getCoveredText());
+		}
+	}
+
+	@Test
+	public void testTreebankDocumentReader_afterRelease() throws IOException {
+		CharacterEncoding encoding = CharacterEncoding.UTF_8;
+		File treebankFile = folder.newFile("67890.tree");
+		FileWriterUtil.printLines(CollectionsUtil.createList("( (HEADING (NP (NN Methods))) )"), treebankFile,
+				encoding);
+		File documentTextFile = folder.newFile("67890.txt");
+		FileWriterUtil.printLines(CollectionsUtil.createList("Methods"), documentTextFile, encoding);
+
+		TreebankDocumentReader reader = new TreebankDocumentReader();
+		assertEquals(3, reader.readDocument("67890", "PMC", treebankFile, documentTextFile, encoding)
+				.getAnnotations().size());
+		TreebankDocumentReader.release();
+
+		/* a new annotator and JCas are created for the thread after it has been released */
+		assertEquals(3, reader.readDocument("67890", "PMC", treebankFile, documentTextFile, encoding)
+				.getAnnotations().size());
+		TreebankDocumentReader.release();
+	}
+
 	@Test
 	public void testTreebankDocumentReader_POS() throws IOException {
 		CharacterEncoding encoding = CharacterEncoding.UTF_8;
@@ -40,6 +40,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
 
 import org.junit.Rule;
@@ -89,4 +90,55 @@ public class TreebankToDependencyConverterTest {
 
 	}
 
+	@Test
+	public void testRepeatPOSColumn_line() {
+		assertEquals("1\tIntraocular\tintraocular\tJJ\tJJ\t_\t2\tamod\t_\t_",
+				TreebankToDependencyConverter.repeatPOSColumn("1\tIntraocular\tintraocular\tJJ\t_\t2\tamod\t_\t_\t_"));
+		assertEquals("", TreebankToDependencyConverter.repeatPOSColumn(""));
+	}
+
+	@Test
+	public void testGetConllFileName() {
+		assertEquals("12345.conll", TreebankToDependencyConverter.getConllFileName(new File("penn/12345.tree")));
+		assertEquals("12345.mrg.conll", TreebankToDependencyConverter.getConllFileName(new File("penn/12345.mrg")));
+	}
+
+	@Test
+	public void testConvert_matchesC2DConvert() throws IOException {
+		CharacterEncoding encoding = CharacterEncoding.UTF_8;
+		File treebankDir = folder.newFolder("penn");
+		/* the first tree has no tokens and produces no output */
+		FileWriterUtil.printLines(CollectionsUtil.createList("( (S (NP-SBJ (-NONE- *))) )",
+				"( (TITLE (FRAG (NP (NP (JJ Intraocular) (NN pressure)) (PP (IN in) (NP (ADJP (RB genetically) (JJ distinct)) (NNS mice)))) (: :) (NP (DT an) (NML (NML (NN update)) (CC and) (NML (NN strain) (NN survey)))))) )",
+				"( (HEADING (NP (NN Abstract))) )"), new File(treebankDir, "12345.mrg"), encoding);
+		FileWriterUtil.printLines(CollectionsUtil.createList(
+				"( (S (NP-SBJ-1 (JJ Little)) (VP (VBZ is) (VP (VBN known) (NP-1 (-NONE- *)) (PP (IN about) (NP (NP (JJ genetic) (NNS factors)) (VP (VBG affecting) (NP (NP (NP (JJ intraocular) (NN pressure)) (NP (-LRB- -LRB-) (NN IOP))) (-RRB- -RRB-) (PP-LOC (IN in) (NP (NP (NNS mice)) (CC and) (NP (JJ other) (NNS mammals)))))))))) (. .)) )"),
+				new File(treebankDir, "67890.tree"), encoding);
+
+		File c2dConvertDir = folder.newFolder("c2d");
+		TreebankToDependencyConverter.convert(treebankDir, c2dConvertDir, HeadRule.CONLL);
+		File inProcessDir = folder.newFolder("in-process");
+		List<File> conllFiles = TreebankToDependencyConverter.convert(treebankDir, inProcessDir, HeadRule.CONLL, 2);
+
+		/* the files are returned in directory listing order, which is not defined */
+		assertEquals(CollectionsUtil.createSet(new File(inProcessDir, "12345.mrg.conll"),
+				new File(inProcessDir, "67890.conll")), new HashSet<File>(conllFiles));
+		assertEquals(2, conllFiles.size());
+		for (File conllFile : conllFiles) {
+			List<String> c2dConvertLines = FileReaderUtil.loadLinesFromFile(new File(c2dConvertDir, conllFile.getName()),
+					encoding);
+			assertEquals(c2dConvertLines, FileReaderUtil.loadLinesFromFile(conllFile, encoding));
+		}
+		assertEquals(15,
+				FileReaderUtil.loadLinesFromFile(new File(inProcessDir, "12345.mrg.conll"), encoding).size());
+		assertEquals("1\tLittle\tlittle\tJJ\tJJ\t_\t2\tnsubj\t_\t_",
+				FileReaderUtil.loadLinesFromFile(new File(inProcessDir, "67890.conll"), encoding).get(0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testConvert_invalidThreadCount() throws IOException {
+		TreebankToDependencyConverter.convert(folder.newFolder("penn"), folder.newFolder("in-process"), HeadRule.CONLL,
+				0);
+	}
+
 }
@@ -35,6 +35,7 @@ package edu.ucdenver.ccp.file.conversion.uima;
  */
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -96,4 +97,68 @@ public class UimaDocumentWriterTest {
 
 	}
 
+	@Test
+	public void testUimaDocumentWriter_consecutiveDocuments() throws IOException, SAXException, UIMAException {
+		CharacterEncoding encoding = CharacterEncoding.UTF_8;
+		TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults();
+		UimaDocumentWriter writer = new UimaDocumentWriter();
+
+		TextDocument td1 = new TextDocument("12345", "PMC", "Abstract\n\nBackground");
+		td1.addAnnotation(factory.createAnnotation(0, 8, "Abstract", new DefaultClassMention("sentence")));
+		td1.addAnnotation(factory.createAnnotation(10, 20, "Background", new DefaultClassMention("sentence")));
+		writer.serialize(td1, new ByteArrayOutputStream(), encoding);
+
+		final boolean[] closed = new boolean[1];
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+			@Override
+			public void close() throws IOException {
+				closed[0] = true;
+				super.close();
+			}
+		};
+		TextDocument td2 = new TextDocument("67890", "PMC", "Methods");
+		td2.addAnnotation(factory.createAnnotation(0, 7, "Methods", new DefaultClassMention("sentence")));
+		writer.serialize(td2, outputStream, encoding);
+		assertFalse("the caller's stream should not be closed", closed[0]);
+
+		/* nothing from the first document should remain in the reused CAS */
+		String xmi = outputStream.toString(encoding.getCharacterSetName());
+		JCas jCas = JCasFactory.createJCas(TypeSystemUtil.CCP_TYPE_SYSTEM);
+		XmiCasDeserializer.deserialize(new ByteArrayInputStream(xmi.getBytes()), jCas.getCas());
+
+		Collection<CCPTextAnnotation> annots = JCasUtil.select(jCas, CCPTextAnnotation.class);
+		assertEquals("should be 1 sentence", 1, annots.size());
+		assertEquals("Methods", annots.iterator().next().getCoveredText());
+		assertEquals("document id should be 67890", "67890", UIMA_Util.getDocumentID(jCas));
+		assertEquals("Methods", jCas.getDocumentText());
+	}
+
+	@Test
+	public void testUimaDocumentWriter_afterRelease() throws IOException, SAXException, UIMAException {
+		CharacterEncoding encoding = CharacterEncoding.UTF_8;
+		TextAnnotationFactory factory = TextAnnotationFactory.createFactoryWithDefaults();
+		UimaDocumentWriter writer = new UimaDocumentWriter();
+
+		TextDocument td1 = new TextDocument("12345", "PMC", "Abstract");
+		td1.addAnnotation(factory.createAnnotation(0, 8, "Abstract", new DefaultClassMention("sentence")));
+		writer.serialize(td1, new ByteArrayOutputStream(), encoding);
+		UimaDocumentWriter.release();
+
+		/* a new JCas is created for the thread after it has been released */
+		TextDocument td2 = new TextDocument("67890", "PMC", "Methods");
+		td2.addAnnotation(factory.createAnnotation(0, 7, "Methods", new DefaultClassMention("sentence")));
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		writer.serialize(td2, outputStream, encoding);
+		UimaDocumentWriter.release();
+
+		String xmi = outputStream.toString(encoding.getCharacterSetName());
+		JCas jCas = JCasFactory.createJCas(TypeSystemUtil.CCP_TYPE_SYSTEM);
+		XmiCasDeserializer.deserialize(new ByteArrayInputStream(xmi.getBytes()), jCas.getCas());
+
+		Collection<CCPTextAnnotation> annots = JCasUtil.select(jCas, CCPTextAnnotation.class);
+		assertEquals("should be 1 sentence", 1, annots.size());
+		assertEquals("Methods", annots.iterator().next().getCoveredText());
+		assertEquals("document id should be 67890", "67890", UIMA_Util.getDocumentID(jCas));
+	}
+
 }
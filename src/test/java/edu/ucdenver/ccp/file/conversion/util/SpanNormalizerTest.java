@@ -0,0 +1,118 @@
+package edu.ucdenver.ccp.file.conversion.util;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.ucdenver.ccp.common.collections.CollectionsUtil;
+import edu.ucdenver.ccp.file.conversion.diagnostics.CountingDiagnosticSink;
+import edu.ucdenver.ccp.file.conversion.diagnostics.DiagnosticSink;
+import edu.ucdenver.ccp.file.conversion.diagnostics.DiagnosticType;
+import edu.ucdenver.ccp.file.conversion.diagnostics.Diagnostics;
+import edu.ucdenver.ccp.nlp.core.annotation.Span;
+
+public class SpanNormalizerTest {
+
+	// 012345678901234567890123
+	private static final String DOCUMENT_TEXT = "  The quick  brown fox \n";
+
+	@Test
+	public void testTrimSpans() {
+		List<Span> spans = CollectionsUtil.createList(new Span(2, 5));
+		assertSame("no trimming required so the input list should be returned", spans,
+				SpanNormalizer.trimSpans(spans, DOCUMENT_TEXT));
+
+		spans = CollectionsUtil.createList(new Span(0, 9));
+		assertEquals(CollectionsUtil.createList(new Span(2, 9)), SpanNormalizer.trimSpans(spans, DOCUMENT_TEXT));
+
+		spans = CollectionsUtil.createList(new Span(2, 5), new Span(13, 24));
+		assertEquals("discontinuous spans should remain discontinuous",
+				CollectionsUtil.createList(new Span(2, 5), new Span(13, 22)),
+				SpanNormalizer.trimSpans(spans, DOCUMENT_TEXT));
+
+		spans = CollectionsUtil.createList(new Span(0, 1), new Span(2, 9), new Span(10, 13));
+		assertEquals("whitespace-only component spans should be dropped",
+				CollectionsUtil.createList(new Span(2, 9), new Span(10, 11)),
+				SpanNormalizer.trimSpans(spans, DOCUMENT_TEXT));
+
+		spans = CollectionsUtil.createList(new Span(0, 2), new Span(22, 24));
+		assertTrue(SpanNormalizer.isBlank(spans, DOCUMENT_TEXT));
+		assertEquals(CollectionsUtil.createList(new Span(0, 0)), SpanNormalizer.trimSpans(spans, DOCUMENT_TEXT));
+	}
+
+	@Test
+	public void testIsBlank() {
+		assertTrue(SpanNormalizer.isBlank(DOCUMENT_TEXT, 0, 2));
+		assertTrue(SpanNormalizer.isBlank(DOCUMENT_TEXT, 11, 13));
+		assertTrue(SpanNormalizer.isBlank(DOCUMENT_TEXT, 5, 5));
+		assertFalse(SpanNormalizer.isBlank(DOCUMENT_TEXT, 10, 13));
+	}
+
+	@Test
+	public void testConsolidateAdjacentSpans() {
+		Span theSpan = new Span(2, 5);
+		Span quickSpan = new Span(6, 11);
+		Span brownSpan = new Span(13, 18);
+		List<Span> inputSpans = CollectionsUtil.createList(brownSpan, theSpan, quickSpan);
+		assertEquals(CollectionsUtil.createList(new Span(2, 18)),
+				SpanNormalizer.consolidateAdjacentSpans(inputSpans, DOCUMENT_TEXT, "12345"));
+		assertEquals("input spans should not be modified", new Span(2, 5), theSpan);
+	}
+
+	@Test
+	public void testConsolidateAdjacentSpansReportsDiagnostics() {
+		DiagnosticSink originalSink = Diagnostics.getSink();
+		CountingDiagnosticSink countingSink = new CountingDiagnosticSink();
+		Diagnostics.setSink(countingSink);
+		try {
+			List<Span> inputSpans = CollectionsUtil.createList(new Span(2, 11), new Span(6, 11), new Span(13, 18));
+			assertEquals(CollectionsUtil.createList(new Span(2, 18)),
+					SpanNormalizer.consolidateAdjacentSpans(inputSpans, DOCUMENT_TEXT, "12345"));
+			assertEquals(1, countingSink.getCount(DiagnosticType.SPANS_CONSOLIDATED));
+			assertEquals(1, countingSink.getCount(DiagnosticType.SPANS_SPLICED));
+		} finally {
+			Diagnostics.setSink(originalSink);
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+package edu.ucdenver.ccp.file.conversion.util;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+import org.junit.Test;
+
+import edu.ucdenver.ccp.knowtator2.KnowtatorProject;
+
+public class XmlUtilTest {
+
+	@Test
+	public void testContextIsShared() throws Exception {
+		assertSame(XmlUtil.getContext(KnowtatorProject.class), XmlUtil.getContext(KnowtatorProject.class));
+	}
+
+	@Test
+	public void testUnmarshallerIsCachedPerThread() throws Exception {
+		final Unmarshaller um = XmlUtil.getUnmarshaller(KnowtatorProject.class);
+		assertSame(um, XmlUtil.getUnmarshaller(KnowtatorProject.class));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Unmarshaller otherThreadUm = executor.submit(new Callable<Unmarshaller>() {
+				@Override
+				public Unmarshaller call() throws Exception {
+					return XmlUtil.getUnmarshaller(KnowtatorProject.class);
+				}
+			}).get();
+			assertNotSame(um, otherThreadUm);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testMarshallerFormattingIsResetOnReuse() throws Exception {
+		Marshaller m = XmlUtil.getMarshaller(KnowtatorProject.class, true);
+		assertTrue((Boolean) m.getProperty(Marshaller.JAXB_FORMATTED_OUTPUT));
+		assertSame(m, XmlUtil.getMarshaller(KnowtatorProject.class, false));
+		assertFalse((Boolean) m.getProperty(Marshaller.JAXB_FORMATTED_OUTPUT));
+	}
+
+}
@@ -0,0 +1,204 @@
+package org.cleartk.util.treebank;
+
+/*-
+ * #%L
+ * Colorado Computational Pharmacology's file conversion
+ * 						project
+ * %%
+ * Copyright (C) 2019 Regents of the University of Colorado
+ * %%
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the Regents of the University of Colorado nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software without
+ *    specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE
+ * OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TreebankFormatParserTest {
+
+	@Test
+	public void testParse_thinSpace() {
+		String text = "Little\u2009is known";
+		TopTreebankNode topNode = TreebankFormatParser.parse("( (S (NP (JJ Little)) (VP (VBZ is) (VBN known))) )",
+				text, 0);
+
+		assertEquals(3, topNode.getTerminalCount());
+		assertEquals(7, topNode.getTerminal(1).getTextBegin());
+		assertEquals(9, topNode.getTerminal(1).getTextEnd());
+		assertEquals("known", topNode.getTerminal(2).getText());
+		assertEquals(10, topNode.getTerminal(2).getTextBegin());
+		assertEquals(0, topNode.getTextBegin());
+		assertEquals(text.length(), topNode.getTextEnd());
+	}
+
+	@Test
+	public void testParse_emptyAndEscapedTokens() {
+		String text = "known (IOP)";
+		TopTreebankNode topNode = TreebankFormatParser.parse(
+				"( (VP (VBN known) (NP-1 (-NONE- *)) (NP (-LRB- -LRB-) (NN IOP) (-RRB- -RRB-))) )", text, 0);
+
+		TreebankNode vp = topNode.getChildren().get(0);
+		assertEquals("VP", vp.getType());
+		assertEquals(3, vp.getChildren().size());
+
+		TreebankNode np1 = vp.getChildren().get(1);
+		assertEquals("NP", np1.getType());
+		assertEquals(1, np1.getTags().length);
+		assertEquals("", np1.getText());
+		TreebankNode none = np1.getChildren().get(0);
+		assertEquals("-NONE-", none.getType());
+		assertEquals(none.getTextBegin(), none.getTextEnd());
+
+		TreebankNode np2 = vp.getChildren().get(2);
+		assertEquals("(IOP)", np2.getText());
+		assertEquals(6, np2.getTextBegin());
+		assertEquals(11, np2.getTextEnd());
+		assertEquals("-LRB-", np2.getChildren().get(0).getValue());
+		assertEquals("(", np2.getChildren().get(0).getText());
+	}
+
+	@Test
+	public void testParseDocument_periodAlignedToWhiteSpace() {
+		/*
+		 * treebank adds a (. .) node after a sentence ending with an
+		 * abbreviation; the period is allowed to align with the following
+		 * character and the next sentence must still align correctly
+		 */
+		String text = "U.S. Next.";
+		List<TopTreebankNode> topNodes = TreebankFormatParser
+				.parseDocument("( (S (NNP U.S.) (. .)) )\n( (S (NN Next) (. .)) )", 0, text);
+
+		assertEquals(2, topNodes.size());
+		assertEquals(0, topNodes.get(0).getTextBegin());
+		assertEquals(5, topNodes.get(0).getTextEnd());
+		TreebankNode period = topNodes.get(0).getTerminal(1);
+		assertEquals(5, period.getTextBegin());
+		assertEquals(5, period.getTextEnd());
+
+		assertEquals(5, topNodes.get(1).getTextBegin());
+		assertEquals(10, topNodes.get(1).getTextEnd());
+		assertEquals("Next.", topNodes.get(1).getText());
+	}
+
+	@Test
+	public void testParseDocument_manySentences() {
+		StringBuilder treebank = new StringBuilder();
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			treebank.append("( (S (NP (NN Mice)) (VP (VBP sleep)) (. .)) )\n");
+			text.append("Mice sleep.\n");
+		}
+		List<TopTreebankNode> topNodes = TreebankFormatParser.parseDocument(treebank.toString(), 0, text.toString());
+
+		assertEquals(1000, topNodes.size());
+		TopTreebankNode lastNode = topNodes.get(999);
+		assertEquals(999 * 12, lastNode.getTextBegin());
+		assertEquals(999 * 12 + 11, lastNode.getTextEnd());
+		assertEquals("Mice sleep.", lastNode.getText());
+	}
+
+	@Test
+	public void testSplitSentences_reader() {
+		/* native Penn Treebank layout, with sentences spanning lines */
+		String mrg = "\n( (S \n    (NP-SBJ (NNP Pierre) (NNP Vinken) )\n    (VP (MD will) ))\n )\n"
+				+ "( (S \n    (NP-SBJ (NNP Mr.) (NNP Vinken) )\n    (. .) ))\n";
+		List<String> sentences = new ArrayList<String>();
+		for (Iterator<String> sentenceIter = TreebankFormatParser.splitSentences(new StringReader(mrg)); sentenceIter
+				.hasNext();) {
+			sentences.add(sentenceIter.next());
+		}
+		assertEquals(2, sentences.size());
+		assertEquals("( (S \n    (NP-SBJ (NNP Pierre) (NNP Vinken) )\n    (VP (MD will) ))\n )", sentences.get(0));
+		assertEquals("( (S \n    (NP-SBJ (NNP Mr.) (NNP Vinken) )\n    (. .) ))", sentences.get(1));
+	}
+
+	@Test
+	public void testParseDocument_reader() {
+		StringBuilder treebank = new StringBuilder();
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			treebank.append("( (S (NP (NN Mice)) (VP (VBP sleep)) (. .)) )\n");
+			text.append("Mice sleep.\n");
+		}
+		List<TopTreebankNode> topNodes = TreebankFormatParser.parseDocument(new StringReader(treebank.toString()), 0,
+				text.toString());
+
+		assertEquals(1000, topNodes.size());
+		assertEquals(999 * 12, topNodes.get(999).getTextBegin());
+		assertEquals("Mice sleep.", topNodes.get(999).getText());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSplitSentences_reader_unbalanced() {
+		Iterator<String> sentenceIter = TreebankFormatParser
+				.splitSentences(new StringReader("( (S (NP (NN Mice))) )\n( (S (NP (NN Mice))"));
+		sentenceIter.next();
+		sentenceIter.next();
+	}
+
+	@Test
+	public void testScanLeaves() {
+		String text = "known (IOP) in the U.S. Next.";
+		String treebank = "( (VP (VBN known) (NP-1 (-NONE- *)) (NP (-LRB- -LRB-) (NN IOP) (-RRB- -RRB-))\n"
+				+ "    (PP (IN in) (NP (DT the) (NNP U.S.))) (. .)) )\n( (S (NN Next) (. .)) )";
+		final List<String> observed = new ArrayList<String>();
+		TreebankFormatParser.scanLeaves(new StringReader(treebank), 0, text, new TreebankFormatParser.LeafHandler() {
+			@Override
+			public void handleLeaf(String type, int textBegin, int textEnd) {
+				observed.add(type + " " + textBegin + "-" + textEnd);
+			}
+
+			@Override
+			public void handleSentence(String type, int textBegin, int textEnd) {
+				observed.add(type + " " + textBegin + "-" + textEnd);
+			}
+		});
+
+		/* offsets should match those of the nodes created by parseDocument */
+		List<String> expected = new ArrayList<String>();
+		for (TopTreebankNode topNode : TreebankFormatParser.parseDocument(new StringReader(treebank), 0, text)) {
+			for (int i = 0; i < topNode.getTerminalCount(); i++) {
+				TreebankNode leaf = topNode.getTerminal(i);
+				expected.add(leaf.getType() + " " + leaf.getTextBegin() + "-" + leaf.getTextEnd());
+			}
+			expected.add(topNode.getType() + " " + topNode.getTextBegin() + "-" + topNode.getTextEnd());
+		}
+		assertEquals(expected, observed);
+		assertEquals(13, observed.size());
+		assertEquals("-NONE- 5-5", observed.get(1));
+		assertEquals("NNP 19-23", observed.get(7));
+		assertEquals(". 24-24", observed.get(8));
+		assertEquals("TOP 0-24", observed.get(9));
+		assertEquals("TOP 24-29", observed.get(12));
+	}
+
+}